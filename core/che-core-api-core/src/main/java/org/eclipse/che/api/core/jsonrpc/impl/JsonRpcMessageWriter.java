@@ -0,0 +1,164 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2017 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.core.jsonrpc.impl;
+
+import com.google.gson.JsonIOException;
+
+import org.eclipse.che.dto.server.JsonSerializable;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Collection;
+
+/**
+ * Writes json rpc messages in a single pass. Fields of the message are written
+ * right to the writer and DTO parameters or result are streamed by DTO
+ * serializer into the same writer, so DTO is not serialized to a string and
+ * parsed back to be embedded into the message.
+ */
+class JsonRpcMessageWriter {
+
+    private JsonRpcMessageWriter() {
+    }
+
+    /**
+     * Writes json rpc request or notification.
+     *
+     * @param writer
+     *         writer to write message to
+     * @param id
+     *         request identifier, {@code null} for notification
+     * @param method
+     *         method name
+     * @param params
+     *         parameters represented by DTO or {@code null} if request has no parameters
+     * @throws IllegalArgumentException
+     *         if parameters aren't DTO, nothing is written in this case
+     */
+    static void writeRequest(Writer writer, String id, String method, Object params) throws IOException {
+        if (params != null) {
+            checkSerializable(params);
+        }
+        writer.write("{\"jsonrpc\":\"2.0\"");
+        if (id != null) {
+            writer.write(",\"id\":");
+            writeString(writer, id);
+        }
+        writer.write(",\"method\":");
+        writeString(writer, method);
+        if (params != null) {
+            writer.write(",\"params\":");
+            writeDto(writer, params);
+        }
+        writer.write('}');
+    }
+
+    /**
+     * Writes json rpc response.
+     *
+     * @param writer
+     *         writer to write message to
+     * @param id
+     *         identifier of request
+     * @param result
+     *         result of request, it is written as empty object if it is {@code null}, as object with {@code text} field
+     *         if it is a string, as array of DTOs if it is a collection and as DTO otherwise
+     * @throws IllegalArgumentException
+     *         if result isn't DTO, nothing is written in this case
+     */
+    static void writeResponse(Writer writer, String id, Object result) throws IOException {
+        if (result != null && !(result instanceof String) && !(result instanceof Collection)) {
+            checkSerializable(result);
+        }
+        writer.write("{\"jsonrpc\":\"2.0\",\"id\":");
+        writeString(writer, id);
+        writer.write(",\"result\":");
+        if (result == null) {
+            writer.write("{}");
+        } else if (result instanceof String) {
+            writer.write("{\"text\":");
+            writeString(writer, (String)result);
+            writer.write('}');
+        } else if (result instanceof Collection) {
+            writer.write('[');
+            boolean first = true;
+            for (Object item : (Collection<?>)result) {
+                if (item instanceof JsonSerializable) {
+                    if (!first) {
+                        writer.write(',');
+                    }
+                    writeDto(writer, item);
+                    first = false;
+                }
+            }
+            writer.write(']');
+        } else {
+            writeDto(writer, result);
+        }
+        writer.write('}');
+    }
+
+    private static void checkSerializable(Object dto) {
+        if (!(dto instanceof JsonSerializable)) {
+            throw new IllegalArgumentException("JsonSerializable instance required. ");
+        }
+    }
+
+    private static void writeDto(Writer writer, Object dto) throws IOException {
+        try {
+            ((JsonSerializable)dto).toJson(writer);
+        } catch (JsonIOException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException)e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /** Writes json string literal, escapes characters the same way as gson does. */
+    static void writeString(Writer writer, String value) throws IOException {
+        writer.write('"');
+        int last = 0;
+        final int length = value.length();
+        for (int i = 0; i < length; i++) {
+            final char c = value.charAt(i);
+            final String replacement;
+            if (c == '"') {
+                replacement = "\\\"";
+            } else if (c == '\\') {
+                replacement = "\\\\";
+            } else if (c == '\n') {
+                replacement = "\\n";
+            } else if (c == '\r') {
+                replacement = "\\r";
+            } else if (c == '\t') {
+                replacement = "\\t";
+            } else if (c == '\b') {
+                replacement = "\\b";
+            } else if (c == '\f') {
+                replacement = "\\f";
+            } else if (c < 0x20 || c == 0x2028 || c == 0x2029) {
+                replacement = String.format("\\u%04x", (int)c);
+            } else {
+                continue;
+            }
+            if (last < i) {
+                writer.write(value, last, i - last);
+            }
+            writer.write(replacement);
+            last = i + 1;
+        }
+        if (last < length) {
+            writer.write(value, last, length - last);
+        }
+        writer.write('"');
+    }
+}
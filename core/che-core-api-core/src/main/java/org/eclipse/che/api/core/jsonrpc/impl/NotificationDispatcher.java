@@ -47,19 +47,19 @@ public class NotificationDispatcher {
      *         json object
      */
     public void dispatch(String endpointId, JsonObject incomingJson) {
-        LOG.debug("Dispatching incoming notification from: " + endpointId + ", json: " + incomingJson);
+        LOG.debug("Dispatching incoming notification from: {}, json: {}", endpointId, incomingJson);
 
         final String method = incomingJson.get("method").getAsString();
-        LOG.debug("Extracted notification method: " + method);
+        LOG.debug("Extracted notification method: {}", method);
 
         final RequestHandler handler = handlers.get(method);
 
         if (incomingJson.has("params")) {
             final JsonObject params = incomingJson.get("params").getAsJsonObject();
-            LOG.debug("Notification is parametrized, processing parameters: " + params);
+            LOG.debug("Notification is parametrized, processing parameters: {}", params);
 
             final Class paramsClass = handler.getParamsClass();
-            LOG.debug("Extracted notification params class: " + paramsClass);
+            LOG.debug("Extracted notification params class: {}", paramsClass);
 
             dispatch(endpointId, handler, params, paramsClass);
         } else {
@@ -75,7 +75,7 @@ public class NotificationDispatcher {
     }
 
     private <P> void dispatch(String endpointId, RequestHandler<P, Void> handler, JsonObject params, Class<P> paramClass) {
-        final P param = DtoFactory.getInstance().createDtoFromJson(params.toString(), paramClass);
+        final P param = DtoFactory.getInstance().createDtoFromJson(params, paramClass);
         handler.handleNotification(endpointId, param);
     }
 }
@@ -10,21 +10,16 @@
  *******************************************************************************/
 package org.eclipse.che.api.core.jsonrpc.impl;
 
-import com.google.gson.JsonArray;
-import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
 
 import org.eclipse.che.api.core.jsonrpc.RequestHandler;
 import org.eclipse.che.api.core.websocket.WebSocketMessageTransmitter;
 import org.eclipse.che.dto.server.DtoFactory;
-import org.eclipse.che.dto.server.JsonSerializable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
-import java.util.Collection;
 import java.util.Map;
 
 /**
@@ -55,13 +50,13 @@ public class RequestDispatcher {
      *         json object
      */
     public void dispatch(String endpointId, JsonObject incomingJson) {
-        LOG.debug("Dispatching incoming request from: " + endpointId + ", json: " + incomingJson);
+        LOG.debug("Dispatching incoming request from: {}, json: {}", endpointId, incomingJson);
 
         final String id = incomingJson.get("id").getAsString();
-        LOG.debug("Extracted request id: " + id);
+        LOG.debug("Extracted request id: {}", id);
 
         final String method = incomingJson.get("method").getAsString();
-        LOG.debug("Extracted request method: " + method);
+        LOG.debug("Extracted request method: {}", method);
 
         final RequestHandler handler = handlers.get(method);
         if (handler == null) {
@@ -72,74 +67,31 @@ public class RequestDispatcher {
         }
 
         final Class resultClass = handler.getResultClass();
-        LOG.debug("Extracted request result class: " + resultClass);
+        LOG.debug("Extracted request result class: {}", resultClass);
 
-
-        JsonElement result;
+        final Object result;
         if (incomingJson.has("params")) {
             final JsonObject params = incomingJson.get("params").getAsJsonObject();
-            LOG.debug("Request is parametrized, processing parameters: " + params);
+            LOG.debug("Request is parametrized, processing parameters: {}", params);
 
             final Class paramsClass = handler.getParamsClass();
-            LOG.debug("Extracted request params class: " + paramsClass);
-            result = response(endpointId, handler, params, paramsClass, resultClass);
+            LOG.debug("Extracted request params class: {}", paramsClass);
+            result = response(endpointId, handler, params, paramsClass);
         } else {
             LOG.debug("Request is not parametrized.");
-            result = response(endpointId, handler, null, null, resultClass);
+            result = response(endpointId, handler, null, null);
         }
+        LOG.debug("Dispatch response: {}", result);
 
-        final JsonElement response = prepareResponse(id, result);
-        LOG.debug("Generated response: " + response);
-
-        transmitter.transmit(endpointId, response.toString());
+        transmitter.transmit(endpointId, writer -> JsonRpcMessageWriter.writeResponse(writer, id, result));
     }
 
-    private <P, R> JsonElement response(String endpointId,
-                                       RequestHandler<P, R> handler,
-                                       JsonObject params,
-                                       Class<P> paramClass,
-                                       Class<R> resultClass) {
-
-        final R result;
-
+    private <P, R> R response(String endpointId, RequestHandler<P, R> handler, JsonObject params, Class<P> paramClass) {
         if (paramClass != null) {
-            final P param = DtoFactory.getInstance().createDtoFromJson(params.toString(), paramClass);
-            result = handler.handleRequest(endpointId, param);
-        } else {
-            result = handler.handleRequest(endpointId);
-        }
-
-        LOG.debug("Dispatch response: ", result);
-
-        if (result instanceof Void)
-            return new JsonObject();
-        else if (result instanceof String) {
-            JsonObject response = new JsonObject();
-            response.addProperty("text", (String)result);
-            return response;
-        } else if (result instanceof Collection) {   // list of DTO objects
-            JsonArray valueArray = new JsonArray();
-            ((Collection)result).stream().filter(r -> r instanceof JsonSerializable).forEach(r -> {
-                String resultString = DtoFactory.getInstance().toJson(r);
-                valueArray.add(new JsonParser().parse(resultString).getAsJsonObject());
-            });
-            return valueArray;
+            final P param = DtoFactory.getInstance().createDtoFromJson(params, paramClass);
+            return handler.handleRequest(endpointId, param);
         }
-
-        // DTO object otherwise
-        final String resultString = DtoFactory.getInstance().toJson(result);
-        return new JsonParser().parse(resultString).getAsJsonObject();
-    }
-
-
-    private JsonElement prepareResponse(String id, JsonElement result) {
-        final JsonObject response = new JsonObject();
-
-        response.addProperty("jsonrpc", "2.0");
-        response.addProperty("id", id);
-        response.add("result", result);
-
-        return response;
+        return handler.handleRequest(endpointId);
     }
 
     private String error(int code, String message) {
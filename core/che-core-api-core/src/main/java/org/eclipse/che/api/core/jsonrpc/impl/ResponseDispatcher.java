@@ -43,16 +43,16 @@ public class ResponseDispatcher {
      *         json object
      */
     public void dispatch(String endpointId, JsonObject incomingJson) {
-        LOG.debug("Dispatching incoming response from: " + endpointId + ", json: " + incomingJson);
+        LOG.debug("Dispatching incoming response from: {}, json: {}", endpointId, incomingJson);
 
         final String id = incomingJson.get("id").getAsString();
-        LOG.debug("Extracted response id: " + id);
+        LOG.debug("Extracted response id: {}", id);
 
         final String key = endpointId + '@' + id;
-        LOG.debug("Combined response key: " + key);
+        LOG.debug("Combined response key: {}", key);
 
         final Class resultClass = resultClasses.get(key);
-        LOG.debug("Extracted result class: " + resultClass);
+        LOG.debug("Extracted result class: {}", resultClass);
 
         final CompletableFuture completableFuture = futures.get(key);
 
@@ -60,7 +60,7 @@ public class ResponseDispatcher {
             LOG.debug("Response contains result field, processing result");
 
             final JsonObject result = incomingJson.get("result").getAsJsonObject();
-            final Object dto = DtoFactory.getInstance().createDtoFromJson(result.toString(), resultClass);
+            final Object dto = DtoFactory.getInstance().createDtoFromJson(result, resultClass);
 
             completableFuture.complete(dto);
         } else {
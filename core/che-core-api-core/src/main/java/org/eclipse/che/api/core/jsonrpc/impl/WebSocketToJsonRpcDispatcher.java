@@ -46,7 +46,7 @@ public class WebSocketToJsonRpcDispatcher implements WebSocketMessageReceiver {
 
     @Override
     public void receive(String endpointId, String message) {
-        LOG.debug("Receiving a message from: " + endpointId + ", message" + message);
+        LOG.debug("Receiving a message from: {}, message: {}", endpointId, message);
         final JsonParser jsonParser = new JsonParser();
         final JsonElement jsonElement = jsonParser.parse(message);
 
@@ -10,12 +10,9 @@
  *******************************************************************************/
 package org.eclipse.che.api.core.jsonrpc.impl;
 
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
-
 import org.eclipse.che.api.core.jsonrpc.RequestTransmitter;
 import org.eclipse.che.api.core.websocket.WebSocketMessageTransmitter;
-import org.eclipse.che.dto.server.DtoFactory;
+import org.eclipse.che.api.core.websocket.WebSocketMessageTransmitter.MessageWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -43,21 +40,21 @@ public class WebSocketTransmitter implements RequestTransmitter {
 
     @Override
     public void transmitNotification(String endpointId, String method) {
-        LOG.debug("Transmitting a parametrized notification to endpoint: " + endpointId + ", method: " + method);
+        LOG.debug("Transmitting a notification to endpoint: {}, method: {}", endpointId, method);
 
         internalTransmit(endpointId, method, null, null);
     }
 
     @Override
     public void transmitNotification(String endpointId, String method, Object params) {
-        LOG.debug("Transmitting a parametrized notification to endpoint: " + endpointId + ", method: " + method + ", params:" + params);
+        LOG.debug("Transmitting a parametrized notification to endpoint: {}, method: {}, params: {}", endpointId, method, params);
 
         internalTransmit(endpointId, method, params, null);
     }
 
     @Override
     public <R> CompletableFuture<R> transmitRequest(String endpointId, String method, Class<R> resultClass) {
-        LOG.debug("Transmitting a request to endpoint: " + endpointId + ", method: " + method + ", result class:" + resultClass);
+        LOG.debug("Transmitting a request to endpoint: {}, method: {}, result class: {}", endpointId, method, resultClass);
 
         final String id = Long.toString(++idCounter);
         internalTransmit(endpointId, method, null, id);
@@ -66,10 +63,8 @@ public class WebSocketTransmitter implements RequestTransmitter {
 
     @Override
     public <R> CompletableFuture<R> transmitRequest(String endpointId, String method, Object params, Class<R> resultClass) {
-        LOG.debug("Transmitting a parametrized request to endpoint: " + endpointId +
-                  ", method: " + method +
-                  ", params:" + params +
-                  ", result class:" + resultClass);
+        LOG.debug("Transmitting a parametrized request to endpoint: {}, method: {}, params: {}, result class: {}",
+                  endpointId, method, params, resultClass);
 
         final String id = Long.toString(++idCounter);
         internalTransmit(endpointId, method, params, id);
@@ -85,23 +80,12 @@ public class WebSocketTransmitter implements RequestTransmitter {
     }
 
     private void internalTransmit(String endpointId, String method, Object dto, String id) {
-        final JsonObject request = new JsonObject();
-
-        request.addProperty("jsonrpc", "2.0");
-        if (id != null) {
-            request.addProperty("id", id);
-        }
-        request.addProperty("method", method);
-        if (dto != null) {
-            final String dtoString = DtoFactory.getInstance().toJson(dto);
-            final JsonObject jsonParams = new JsonParser().parse(dtoString).getAsJsonObject();
-            request.add("params", jsonParams);
-        }
+        final MessageWriter request = writer -> JsonRpcMessageWriter.writeRequest(writer, id, method, dto);
 
         if (endpointId == null) {
-            transmitter.transmit(request.toString());
+            transmitter.transmit(request);
         } else {
-            transmitter.transmit(endpointId, request.toString());
+            transmitter.transmit(endpointId, request);
         }
     }
 
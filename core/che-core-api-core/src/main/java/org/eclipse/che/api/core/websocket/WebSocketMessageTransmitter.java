@@ -10,6 +10,11 @@
  *******************************************************************************/
 package org.eclipse.che.api.core.websocket;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
 /**
  * Plain text transmitter over a web socket protocol. In current specification
  * it is not required from and the implementor to fulfill strict ordering of
@@ -43,4 +48,48 @@ public interface WebSocketMessageTransmitter {
      *         plain text message
      */
     void transmit(String message);
+
+    /**
+     * Transmit a message which is written by the specified writer to an endpoint.
+     * Implementation may stream message right to the web socket without creating
+     * a string, by default message is written to a string and transmitted with
+     * {@link #transmit(String, String)}.
+     *
+     * @param endpointId
+     *         identifier of an endpoint known to an transmitter implementation
+     * @param message
+     *         writer of plain text message
+     */
+    default void transmit(String endpointId, MessageWriter message) {
+        transmit(endpointId, MessageWriter.toText(message));
+    }
+
+    /**
+     * Transmit (broadcast) a message which is written by the specified writer to
+     * all endpoints registered over web socket protocol. Message is written to a
+     * string once and transmitted with {@link #transmit(String)}.
+     *
+     * @param message
+     *         writer of plain text message
+     */
+    default void transmit(MessageWriter message) {
+        transmit(MessageWriter.toText(message));
+    }
+
+    /** Writes plain text message. */
+    @FunctionalInterface
+    interface MessageWriter {
+        void writeTo(Writer writer) throws IOException;
+
+        /** Writes message to a string. */
+        static String toText(MessageWriter message) {
+            final StringWriter writer = new StringWriter();
+            try {
+                message.writeTo(writer);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return writer.toString();
+        }
+    }
 }
@@ -15,8 +15,11 @@ import org.slf4j.Logger;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
+import javax.websocket.CloseReason;
+import javax.websocket.RemoteEndpoint;
 import javax.websocket.Session;
 import java.io.IOException;
+import java.io.Writer;
 import java.util.Optional;
 
 import static org.slf4j.LoggerFactory.getLogger;
@@ -60,6 +63,49 @@ public class BasicWebSocketMessageTransmitter implements WebSocketMessageTransmi
         }
     }
 
+    /**
+     * Writes message right to the web socket if session is opened, otherwise
+     * writes it to a string and adds to re-sender. Beginning of the message is
+     * buffered, so message that fits the buffer is sent as a single text and
+     * message that fails to be written before the buffer is filled never
+     * reaches the web socket. If writing fails after part of the message is
+     * sent the session is closed, a truncated message is never completed.
+     */
+    @Override
+    public synchronized void transmit(String endpointId, MessageWriter message) {
+        final Optional<Session> sessionOptional = registry.get(endpointId);
+
+        if (!sessionOptional.isPresent() || !sessionOptional.get().isOpen()) {
+            LOG.debug("Session is not registered or closed, adding message to pending");
+
+            reSender.add(endpointId, MessageWriter.toText(message));
+        } else {
+            LOG.debug("Session registered and open, streaming message");
+
+            final Session session = sessionOptional.get();
+            final FrameWriter writer = new FrameWriter(session.getBasicRemote());
+            boolean written = false;
+            try {
+                message.writeTo(writer);
+                written = true;
+                writer.send();
+            } catch (IOException e) {
+                LOG.error("Error while trying to send a message to a basic websocket remote endpoint", e);
+                if (writer.isStreaming()) {
+                    abort(session);
+                    reSender.add(endpointId, MessageWriter.toText(message));
+                } else if (written) {
+                    reSender.add(endpointId, writer.getText());
+                }
+            } catch (RuntimeException e) {
+                if (writer.isStreaming()) {
+                    abort(session);
+                }
+                throw e;
+            }
+        }
+    }
+
     @Override
     public synchronized void transmit(String message) {
         LOG.debug("Broadcasting a web socket transmission: ", message);
@@ -77,4 +123,85 @@ public class BasicWebSocketMessageTransmitter implements WebSocketMessageTransmi
                 });
     }
 
+    /** Closes session which has partially sent message, the message can't be completed. */
+    private void abort(Session session) {
+        try {
+            session.close(new CloseReason(CloseReason.CloseCodes.UNEXPECTED_CONDITION, "Message is not completely written"));
+        } catch (IOException e) {
+            LOG.error("Error while trying to close a web socket session", e);
+        }
+    }
+
+    /**
+     * Buffers beginning of message and opens send writer of remote endpoint
+     * only when the buffer is full.
+     */
+    private static class FrameWriter extends Writer {
+        private static final int BUFFER_SIZE = 8 * 1024;
+
+        private final RemoteEndpoint.Basic remote;
+        private final StringBuilder        buffer;
+        private       Writer               stream;
+
+        FrameWriter(RemoteEndpoint.Basic remote) {
+            this.remote = remote;
+            this.buffer = new StringBuilder();
+        }
+
+        @Override
+        public void write(char[] chars, int offset, int length) throws IOException {
+            if (stream == null) {
+                buffer.append(chars, offset, length);
+                startStreamingIfFull();
+            } else {
+                stream.write(chars, offset, length);
+            }
+        }
+
+        @Override
+        public void write(String str, int offset, int length) throws IOException {
+            if (stream == null) {
+                buffer.append(str, offset, offset + length);
+                startStreamingIfFull();
+            } else {
+                stream.write(str, offset, length);
+            }
+        }
+
+        /** Parts of message are sent only on {@link #send()} or when the buffer is full. */
+        @Override
+        public void flush() {
+        }
+
+        /** Use {@link #send()} to complete message. */
+        @Override
+        public void close() {
+        }
+
+        boolean isStreaming() {
+            return stream != null;
+        }
+
+        /** Returns buffered message, it is whole message only if writer isn't streaming. */
+        String getText() {
+            return buffer.toString();
+        }
+
+        /** Sends buffered message as a single text or completes streamed one. */
+        void send() throws IOException {
+            if (stream == null) {
+                remote.sendText(buffer.toString());
+            } else {
+                stream.close();
+            }
+        }
+
+        private void startStreamingIfFull() throws IOException {
+            if (buffer.length() >= BUFFER_SIZE) {
+                stream = remote.getSendWriter();
+                stream.write(buffer.toString());
+                buffer.setLength(0);
+            }
+        }
+    }
 }
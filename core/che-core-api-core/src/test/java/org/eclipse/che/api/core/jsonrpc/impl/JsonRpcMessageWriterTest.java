@@ -0,0 +1,112 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2017 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.core.jsonrpc.impl;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import org.eclipse.che.api.core.rest.shared.dto.Link;
+import org.eclipse.che.dto.server.DtoFactory;
+import org.testng.annotations.Test;
+
+import java.io.StringWriter;
+
+import static java.util.Arrays.asList;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.fail;
+
+/**
+ * Tests for {@link JsonRpcMessageWriter}
+ */
+public class JsonRpcMessageWriterTest {
+
+    @Test
+    public void shouldWriteRequestWithDtoParams() throws Exception {
+        final Link link = newLink("/api/\"quoted\"\n");
+        final StringWriter writer = new StringWriter();
+
+        JsonRpcMessageWriter.writeRequest(writer, "1", "method name", link);
+
+        final JsonObject expected = new JsonObject();
+        expected.addProperty("jsonrpc", "2.0");
+        expected.addProperty("id", "1");
+        expected.addProperty("method", "method name");
+        expected.add("params", new JsonParser().parse(DtoFactory.getInstance().toJson(link)));
+        assertEquals(writer.toString(), expected.toString());
+    }
+
+    @Test
+    public void shouldWriteNotificationWithoutIdAndParams() throws Exception {
+        final StringWriter writer = new StringWriter();
+
+        JsonRpcMessageWriter.writeRequest(writer, null, "method", null);
+
+        assertEquals(writer.toString(), "{\"jsonrpc\":\"2.0\",\"method\":\"method\"}");
+    }
+
+    @Test
+    public void shouldNotWriteAnythingIfParamsAreNotDto() throws Exception {
+        final StringWriter writer = new StringWriter();
+
+        try {
+            JsonRpcMessageWriter.writeRequest(writer, "1", "method", new Object());
+            fail("Params are expected to be rejected");
+        } catch (IllegalArgumentException ignored) {
+        }
+
+        assertEquals(writer.toString(), "");
+    }
+
+    @Test
+    public void shouldWriteResponseWithListOfDtos() throws Exception {
+        final Link first = newLink("/first");
+        final Link second = newLink("/second");
+        final StringWriter writer = new StringWriter();
+
+        JsonRpcMessageWriter.writeResponse(writer, "2", asList(first, "not a dto", second));
+
+        final JsonArray result = new JsonArray();
+        result.add(new JsonParser().parse(DtoFactory.getInstance().toJson(first)));
+        result.add(new JsonParser().parse(DtoFactory.getInstance().toJson(second)));
+        final JsonObject expected = new JsonObject();
+        expected.addProperty("jsonrpc", "2.0");
+        expected.addProperty("id", "2");
+        expected.add("result", result);
+        assertEquals(writer.toString(), expected.toString());
+    }
+
+    @Test
+    public void shouldWriteResponseWithText() throws Exception {
+        final StringWriter writer = new StringWriter();
+
+        JsonRpcMessageWriter.writeResponse(writer, "3", "line\tone\u0001");
+
+        assertEquals(writer.toString(), "{\"jsonrpc\":\"2.0\",\"id\":\"3\",\"result\":{\"text\":\"line\\tone\\u0001\"}}");
+    }
+
+    @Test
+    public void shouldWriteEmptyObjectIfResponseHasNoResult() throws Exception {
+        final StringWriter writer = new StringWriter();
+
+        JsonRpcMessageWriter.writeResponse(writer, "4", null);
+
+        assertEquals(writer.toString(), "{\"jsonrpc\":\"2.0\",\"id\":\"4\",\"result\":{}}");
+    }
+
+    private static Link newLink(String href) {
+        return DtoFactory.newDto(Link.class)
+                         .withHref(href)
+                         .withRel("self")
+                         .withMethod("GET")
+                         .withProduces("application/json");
+    }
+}
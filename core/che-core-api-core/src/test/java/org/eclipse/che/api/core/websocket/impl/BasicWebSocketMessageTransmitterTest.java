@@ -17,19 +17,24 @@ import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Listeners;
 import org.testng.annotations.Test;
 
+import javax.websocket.CloseReason;
 import javax.websocket.RemoteEndpoint;
 import javax.websocket.Session;
 
 import java.io.IOException;
+import java.io.StringWriter;
 import java.util.Optional;
 
 import static java.util.Collections.emptySet;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.fail;
 
 /**
  * Test for {@link BasicWebSocketMessageTransmitter}
@@ -38,8 +43,9 @@ import static org.mockito.Mockito.when;
  */
 @Listeners(MockitoTestNGListener.class)
 public class BasicWebSocketMessageTransmitterTest {
-    private static final String MESSAGE     = "message";
-    private static final String ENDPOINT_ID = "id";
+    private static final String MESSAGE       = "message";
+    private static final String ENDPOINT_ID   = "id";
+    private static final String LARGE_MESSAGE = new String(new char[20_000]).replace('\0', 'a');
 
     @Mock
     private WebSocketSessionRegistry         registry;
@@ -92,4 +98,75 @@ public class BasicWebSocketMessageTransmitterTest {
         verify(remote, never()).sendText(MESSAGE);
         verify(reSender).add(ENDPOINT_ID, MESSAGE);
     }
+
+    @Test
+    public void shouldSendWrittenMessageAsSingleTextIfItFitsBuffer() throws IOException {
+        transmitter.transmit(ENDPOINT_ID, w -> w.write(MESSAGE));
+
+        verify(remote).sendText(MESSAGE);
+        verify(remote, never()).getSendWriter();
+        verify(reSender, never()).add(eq(ENDPOINT_ID), anyString());
+    }
+
+    @Test
+    public void shouldStreamWrittenMessageIfItExceedsBuffer() throws IOException {
+        final StringWriter writer = new StringWriter();
+        when(remote.getSendWriter()).thenReturn(writer);
+
+        transmitter.transmit(ENDPOINT_ID, w -> w.write(LARGE_MESSAGE));
+
+        assertEquals(writer.toString(), LARGE_MESSAGE);
+        verify(remote, never()).sendText(anyString());
+    }
+
+    @Test
+    public void shouldNotSendAnythingIfWritingOfMessageFails() throws IOException {
+        try {
+            transmitter.transmit(ENDPOINT_ID, w -> {
+                w.write("{\"params\":");
+                throw new IllegalArgumentException();
+            });
+            fail("Failure of writing is expected to be rethrown");
+        } catch (IllegalArgumentException ignored) {
+        }
+
+        verify(remote, never()).sendText(anyString());
+        verify(remote, never()).getSendWriter();
+        verify(reSender, never()).add(eq(ENDPOINT_ID), anyString());
+    }
+
+    @Test
+    public void shouldCloseSessionIfWritingFailsAfterPartOfMessageIsSent() throws IOException {
+        when(remote.getSendWriter()).thenReturn(new StringWriter());
+
+        try {
+            transmitter.transmit(ENDPOINT_ID, w -> {
+                w.write(LARGE_MESSAGE);
+                throw new IllegalStateException();
+            });
+            fail("Failure of writing is expected to be rethrown");
+        } catch (IllegalStateException ignored) {
+        }
+
+        verify(session).close(any(CloseReason.class));
+    }
+
+    @Test
+    public void shouldAddWrittenMessageToPendingIfSendingFails() throws IOException {
+        doThrow(new IOException()).when(remote).sendText(MESSAGE);
+
+        transmitter.transmit(ENDPOINT_ID, w -> w.write(MESSAGE));
+
+        verify(reSender).add(ENDPOINT_ID, MESSAGE);
+    }
+
+    @Test
+    public void shouldAddWrittenMessageToPendingIfSessionIsNotOpenedAndEndpointIsSet() throws IOException {
+        when(session.isOpen()).thenReturn(false);
+
+        transmitter.transmit(ENDPOINT_ID, w -> w.write(MESSAGE));
+
+        verify(session, never()).getBasicRemote();
+        verify(reSender).add(ENDPOINT_ID, MESSAGE);
+    }
 }
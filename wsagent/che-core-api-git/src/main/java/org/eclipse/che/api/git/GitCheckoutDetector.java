@@ -18,6 +18,7 @@ import org.eclipse.che.api.project.shared.dto.event.GitCheckoutEventDto.Type;
 import org.eclipse.che.api.vfs.Path;
 import org.eclipse.che.api.vfs.VirtualFileSystemProvider;
 import org.eclipse.che.api.vfs.watcher.FileWatcherManager;
+import org.eclipse.che.api.vfs.watcher.FileWatcherPathMatcher;
 import org.slf4j.Logger;
 
 import javax.annotation.PostConstruct;
@@ -69,9 +70,19 @@ public class GitCheckoutDetector {
 
 
     private PathMatcher getMatcher() {
-        return it -> !isDirectory(it) &&
-                     HEAD_FILE.equals(it.getFileName().toString()) &&
-                     GIT_DIR.equals(it.getParent().getFileName().toString());
+        return new FileWatcherPathMatcher() {
+            @Override
+            public boolean mayMatchEntriesOf(java.nio.file.Path dir) {
+                return GIT_DIR.equals(dir.getFileName().toString());
+            }
+
+            @Override
+            public boolean matches(java.nio.file.Path it) {
+                return !isDirectory(it) &&
+                       HEAD_FILE.equals(it.getFileName().toString()) &&
+                       GIT_DIR.equals(it.getParent().getFileName().toString());
+            }
+        };
     }
 
     private Consumer<String> getOperation() {
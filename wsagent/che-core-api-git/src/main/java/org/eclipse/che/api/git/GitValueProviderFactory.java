@@ -13,6 +13,7 @@ package org.eclipse.che.api.git;
 import com.google.inject.Inject;
 
 import org.eclipse.che.api.core.ApiException;
+import org.eclipse.che.api.git.exception.GitException;
 import org.eclipse.che.api.git.shared.Remote;
 import org.eclipse.che.api.project.server.FolderEntry;
 import org.eclipse.che.api.project.server.type.ReadonlyValueProvider;
@@ -21,8 +22,11 @@ import org.eclipse.che.api.project.server.type.ValueProviderFactory;
 import org.eclipse.che.api.project.server.type.ValueStorageException;
 
 import javax.inject.Singleton;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 import static org.eclipse.che.api.git.GitProjectType.GIT_CURRENT_BRANCH_NAME;
@@ -41,37 +45,66 @@ public class GitValueProviderFactory implements ValueProviderFactory {
     @Override
     public ValueProvider newInstance(final FolderEntry folder) {
         return new ReadonlyValueProvider() {
+            /** Values of all attributes read at once, so git repository is opened once for all attributes. */
+            private Map<String, List<String>> values;
+            /** Attribute name -> Error message, failure of one attribute doesn't affect other attributes. */
+            private Map<String, String>       failures;
+
             @Override
             public List<String> getValues(String attributeName) throws ValueStorageException {
                 if (folder == null) {
                     return Collections.emptyList();
                 }
-                try (GitConnection gitConnection = gitConnectionFactory.getConnection(resolveLocalPath(folder))) {
-                    //check whether the folder belongs to git repository
-                    if (!gitConnection.isInsideWorkTree()) {
-                        return Collections.emptyList();
-                    }
-
-                    switch (attributeName) {
-                        case VCS_PROVIDER_NAME:
-                            return Collections.singletonList("git");
-                        case GIT_CURRENT_BRANCH_NAME:
-                            return Collections.singletonList(gitConnection.getCurrentBranch());
-                        case GIT_REPOSITORY_REMOTES:
-                            return gitConnection.remoteList(null, false)
-                                                .stream()
-                                                .map(Remote::getUrl)
-                                                .collect(Collectors.toList());
-                        default:
-                            return Collections.emptyList();
-                    }
-                } catch (ApiException e) {
-                    throw new ValueStorageException(e.getMessage());
+                if (values == null) {
+                    final Map<String, List<String>> readValues = new HashMap<>();
+                    final Map<String, String> readFailures = new HashMap<>();
+                    readValues(folder, readValues, readFailures);
+                    values = readValues;
+                    failures = readFailures;
+                }
+                final String failure = failures.get(attributeName);
+                if (failure != null) {
+                    throw new ValueStorageException(failure);
                 }
+                return values.getOrDefault(attributeName, Collections.emptyList());
             }
         };
     }
 
+    /** Current branch is stored in HEAD and remotes in config of repository. */
+    @Override
+    public List<String> getDependencies() {
+        return Arrays.asList(".git/HEAD", ".git/config");
+    }
+
+    private void readValues(FolderEntry folder,
+                            Map<String, List<String>> values,
+                            Map<String, String> failures) throws ValueStorageException {
+        try (GitConnection gitConnection = gitConnectionFactory.getConnection(resolveLocalPath(folder))) {
+            //check whether the folder belongs to git repository
+            if (!gitConnection.isInsideWorkTree()) {
+                return;
+            }
+
+            values.put(VCS_PROVIDER_NAME, Collections.singletonList("git"));
+            try {
+                values.put(GIT_CURRENT_BRANCH_NAME, Collections.singletonList(gitConnection.getCurrentBranch()));
+            } catch (GitException e) {
+                failures.put(GIT_CURRENT_BRANCH_NAME, e.getMessage());
+            }
+            try {
+                values.put(GIT_REPOSITORY_REMOTES, gitConnection.remoteList(null, false)
+                                                                .stream()
+                                                                .map(Remote::getUrl)
+                                                                .collect(Collectors.toList()));
+            } catch (GitException e) {
+                failures.put(GIT_REPOSITORY_REMOTES, e.getMessage());
+            }
+        } catch (ApiException e) {
+            throw new ValueStorageException(e.getMessage());
+        }
+    }
+
     private String resolveLocalPath(FolderEntry folder) throws ApiException {
         return folder.getVirtualFile().toIoFile().getAbsolutePath();
     }
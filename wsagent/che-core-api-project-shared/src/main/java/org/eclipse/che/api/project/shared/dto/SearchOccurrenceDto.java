@@ -0,0 +1,68 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2017 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.project.shared.dto;
+
+import org.eclipse.che.dto.shared.DTO;
+
+/**
+ * Single occurrence of searched text in a file.
+ */
+@DTO
+public interface SearchOccurrenceDto {
+    /** Matched text as it appears in the file. */
+    String getPhrase();
+
+    void setPhrase(String phrase);
+
+    SearchOccurrenceDto withPhrase(String phrase);
+
+    /** Offset of the first character of occurrence from the beginning of the file. */
+    int getStartOffset();
+
+    void setStartOffset(int startOffset);
+
+    SearchOccurrenceDto withStartOffset(int startOffset);
+
+    /** Offset of the character following the occurrence from the beginning of the file. */
+    int getEndOffset();
+
+    void setEndOffset(int endOffset);
+
+    SearchOccurrenceDto withEndOffset(int endOffset);
+
+    /** Number of the line that contains occurrence, starting from 1. */
+    int getLineNumber();
+
+    void setLineNumber(int lineNumber);
+
+    SearchOccurrenceDto withLineNumber(int lineNumber);
+
+    /** Offset of the first character of occurrence from the beginning of the line. */
+    int getStartColumn();
+
+    void setStartColumn(int startColumn);
+
+    SearchOccurrenceDto withStartColumn(int startColumn);
+
+    /** Offset of the character following the occurrence from the beginning of the line. */
+    int getEndColumn();
+
+    void setEndColumn(int endColumn);
+
+    SearchOccurrenceDto withEndColumn(int endColumn);
+
+    /** Content of the line that contains occurrence, long lines are cut around the occurrence. */
+    String getLineContent();
+
+    void setLineContent(String lineContent);
+
+    SearchOccurrenceDto withLineContent(String lineContent);
+}
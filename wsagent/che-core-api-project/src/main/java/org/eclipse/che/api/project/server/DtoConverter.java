@@ -20,7 +20,9 @@ import org.eclipse.che.api.project.shared.dto.AttributeDto;
 import org.eclipse.che.api.project.shared.dto.ItemReference;
 import org.eclipse.che.api.project.shared.dto.ProjectImporterDescriptor;
 import org.eclipse.che.api.project.shared.dto.ProjectTypeDto;
+import org.eclipse.che.api.project.shared.dto.SearchOccurrenceDto;
 import org.eclipse.che.api.project.shared.dto.ValueDto;
+import org.eclipse.che.api.vfs.search.OffsetData;
 import org.eclipse.che.api.workspace.shared.dto.ProjectConfigDto;
 import org.eclipse.che.api.workspace.shared.dto.ProjectProblemDto;
 import org.eclipse.che.api.workspace.shared.dto.SourceStorageDto;
@@ -146,4 +148,15 @@ public class DtoConverter {
     public static ProjectProblemDto asDto(RegisteredProject.Problem problem) {
         return newDto(ProjectProblemDto.class).withCode(problem.code).withMessage(problem.message);
     }
+
+    /** Converts {@link OffsetData} to {@link SearchOccurrenceDto}. */
+    public static SearchOccurrenceDto asDto(OffsetData offsetData) {
+        return newDto(SearchOccurrenceDto.class).withPhrase(offsetData.getPhrase())
+                                                .withStartOffset(offsetData.getStartOffset())
+                                                .withEndOffset(offsetData.getEndOffset())
+                                                .withLineNumber(offsetData.getLineNumber())
+                                                .withStartColumn(offsetData.getStartColumn())
+                                                .withEndColumn(offsetData.getEndColumn())
+                                                .withLineContent(offsetData.getLineContent());
+    }
 }
@@ -0,0 +1,159 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2017 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.project.server;
+
+import org.eclipse.che.api.vfs.Path;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Values keyed by absolute path, stored in tree of path segments. Lookup of value, of nearest value on or above path
+ * and of all values under path cost one step per segment of path and don't depend on number of stored values.
+ * <p>
+ * Reads don't block, modifications are serialized. Nodes that neither hold value nor have children are removed.
+ */
+class PathTrie<T> {
+    private final Node<T> root = new Node<>();
+
+    T get(String path) {
+        final Node<T> node = find(Path.of(path));
+        return node == null ? null : node.value;
+    }
+
+    /** Gets value stored on specified path or on the nearest parent of path. */
+    T getNearest(String path) {
+        final String[] elements = Path.of(path).elements();
+        Node<T> node = root;
+        T nearest = node.value;
+        for (int i = 0; i < elements.length && (node = node.children.get(elements[i])) != null; i++) {
+            if (node.value != null) {
+                nearest = node.value;
+            }
+        }
+        return nearest;
+    }
+
+    /** Gets all values stored under specified path, value stored on path itself isn't included. */
+    List<T> getDescendants(String path) {
+        final List<T> descendants = new ArrayList<>();
+        final Node<T> node = find(Path.of(path));
+        if (node != null) {
+            for (Node<T> child : node.children.values()) {
+                collect(child, descendants);
+            }
+        }
+        return descendants;
+    }
+
+    List<T> getAll() {
+        final List<T> all = new ArrayList<>();
+        collect(root, all);
+        return all;
+    }
+
+    boolean contains(String path) {
+        return get(path) != null;
+    }
+
+    synchronized T put(String path, T value) {
+        Node<T> node = root;
+        for (String element : Path.of(path).elements()) {
+            node = node.children.computeIfAbsent(element, name -> new Node<>());
+        }
+        final T previous = node.value;
+        node.value = value;
+        return previous;
+    }
+
+    /** Stores value if there is no value on specified path yet. */
+    synchronized boolean putIfAbsent(String path, T value) {
+        if (contains(path)) {
+            return false;
+        }
+        put(path, value);
+        return true;
+    }
+
+    synchronized T remove(String path) {
+        final String[] elements = Path.of(path).elements();
+        final Node<T> node = find(elements);
+        if (node == null) {
+            return null;
+        }
+        final T previous = node.value;
+        node.value = null;
+        prune(elements);
+        return previous;
+    }
+
+    /** Removes values stored on specified path and under it. */
+    synchronized List<T> removeTree(String path) {
+        final String[] elements = Path.of(path).elements();
+        final Node<T> node = find(elements);
+        if (node == null) {
+            return new ArrayList<>();
+        }
+        final List<T> removed = new ArrayList<>();
+        collect(node, removed);
+        node.value = null;
+        node.children.clear();
+        prune(elements);
+        return removed;
+    }
+
+    private Node<T> find(Path path) {
+        return find(path.elements());
+    }
+
+    private Node<T> find(String[] elements) {
+        Node<T> node = root;
+        for (int i = 0; i < elements.length && node != null; i++) {
+            node = node.children.get(elements[i]);
+        }
+        return node;
+    }
+
+    /** Removes empty nodes on path starting from the deepest one. */
+    private void prune(String[] elements) {
+        final List<Node<T>> nodes = new ArrayList<>(elements.length + 1);
+        Node<T> node = root;
+        nodes.add(node);
+        for (String element : elements) {
+            node = node.children.get(element);
+            nodes.add(node);
+        }
+        for (int i = elements.length; i > 0; i--) {
+            node = nodes.get(i);
+            if (node.value != null || !node.children.isEmpty()) {
+                return;
+            }
+            nodes.get(i - 1).children.remove(elements[i - 1]);
+        }
+    }
+
+    private static <T> void collect(Node<T> node, List<T> values) {
+        final T value = node.value;
+        if (value != null) {
+            values.add(value);
+        }
+        for (Node<T> child : node.children.values()) {
+            collect(child, values);
+        }
+    }
+
+    private static class Node<T> {
+        final Map<String, Node<T>> children = new ConcurrentHashMap<>();
+        volatile T value;
+    }
+}
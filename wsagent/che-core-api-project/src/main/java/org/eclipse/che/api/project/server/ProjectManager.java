@@ -21,7 +21,6 @@ import org.eclipse.che.api.core.UnauthorizedException;
 import org.eclipse.che.api.core.model.project.NewProjectConfig;
 import org.eclipse.che.api.core.model.project.ProjectConfig;
 import org.eclipse.che.api.core.model.project.SourceStorage;
-import org.eclipse.che.api.core.model.project.type.ProjectType;
 import org.eclipse.che.api.core.notification.EventService;
 import org.eclipse.che.api.core.util.LineConsumerFactory;
 import org.eclipse.che.api.project.server.RegisteredProject.Problem;
@@ -46,21 +45,30 @@ import org.eclipse.che.api.vfs.search.Searcher;
 import org.eclipse.che.api.vfs.search.SearcherProvider;
 import org.eclipse.che.api.vfs.watcher.FileWatcherManager;
 import org.eclipse.che.commons.lang.concurrent.LoggingUncaughtExceptionHandler;
+import org.eclipse.che.commons.lang.concurrent.ThreadLocalPropagateContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
 import javax.inject.Inject;
+import javax.inject.Named;
 import javax.inject.Singleton;
 import java.io.IOException;
 import java.nio.file.PathMatcher;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 import static com.google.common.base.Strings.isNullOrEmpty;
@@ -75,6 +83,8 @@ import static java.lang.String.format;
 public class ProjectManager {
     private static final Logger LOG = LoggerFactory.getLogger(ProjectManager.class);
 
+    static final int DEFAULT_BATCH_IMPORT_THREADS = 4;
+
     private final VirtualFileSystem              vfs;
     private final ProjectTypeRegistry            projectTypeRegistry;
     private final ProjectRegistry                projectRegistry;
@@ -85,8 +95,10 @@ public class ProjectManager {
     private final ExecutorService                executor;
     private final WorkspaceProjectsSyncer        workspaceProjectsHolder;
     private final FileWatcherManager             fileWatcherManager;
+    private final int                            batchImportThreads;
+    private final ExecutorService                typeResolutionExecutor;
+    private final ProjectTypeResolver            projectTypeResolver;
 
-    @Inject
     public ProjectManager(VirtualFileSystemProvider vfsProvider,
                           EventService eventService,
                           ProjectTypeRegistry projectTypeRegistry,
@@ -97,6 +109,35 @@ public class ProjectManager {
                           FileTreeWatcher fileTreeWatcher,
                           WorkspaceProjectsSyncer workspaceProjectsHolder,
                           FileWatcherManager fileWatcherManager) throws ServerException {
+        this(vfsProvider,
+             eventService,
+             projectTypeRegistry,
+             projectRegistry,
+             handlers,
+             importers,
+             fileWatcherNotificationHandler,
+             fileTreeWatcher,
+             workspaceProjectsHolder,
+             fileWatcherManager,
+             DEFAULT_BATCH_IMPORT_THREADS);
+    }
+
+    /**
+     * @param batchImportThreads
+     *         max number of projects of batch which sources are imported in parallel, {@code 1} disables parallel import
+     */
+    @Inject
+    public ProjectManager(VirtualFileSystemProvider vfsProvider,
+                          EventService eventService,
+                          ProjectTypeRegistry projectTypeRegistry,
+                          ProjectRegistry projectRegistry,
+                          ProjectHandlerRegistry handlers,
+                          ProjectImporterRegistry importers,
+                          FileWatcherNotificationHandler fileWatcherNotificationHandler,
+                          FileTreeWatcher fileTreeWatcher,
+                          WorkspaceProjectsSyncer workspaceProjectsHolder,
+                          FileWatcherManager fileWatcherManager,
+                          @Named("project.import.batch_threads") int batchImportThreads) throws ServerException {
         this.vfs = vfsProvider.getVirtualFileSystem();
         this.projectTypeRegistry = projectTypeRegistry;
         this.projectRegistry = projectRegistry;
@@ -106,12 +147,16 @@ public class ProjectManager {
         this.fileWatcher = fileTreeWatcher;
         this.workspaceProjectsHolder = workspaceProjectsHolder;
         this.fileWatcherManager = fileWatcherManager;
+        this.batchImportThreads = batchImportThreads;
 
         executor = Executors.newFixedThreadPool(1 + Runtime.getRuntime().availableProcessors(),
                                                 new ThreadFactoryBuilder().setNameFormat("ProjectService-IndexingThread-")
                                                                           .setUncaughtExceptionHandler(
                                                                                   LoggingUncaughtExceptionHandler.getInstance())
                                                                           .setDaemon(true).build());
+        // estimation doesn't share pool with indexing jobs, otherwise it would wait for them
+        typeResolutionExecutor = ProjectTypeResolver.newExecutor(Runtime.getRuntime().availableProcessors());
+        projectTypeResolver = new ProjectTypeResolver(typeResolutionExecutor, projectRegistry.getValueProviderCache());
     }
 
     @PostConstruct
@@ -124,18 +169,31 @@ public class ProjectManager {
                         LOG.debug("FS event detected: " + eventType + " " + virtualFile.getPath().toString() + " " + virtualFile.isFile());
                     }
                 };
+        FileWatcherNotificationListener projectRegistryListener =
+                new FileWatcherNotificationListener(file -> true) {
+                    @Override
+                    public void onFileWatcherEvent(VirtualFile virtualFile, FileWatcherEventType eventType) {
+                        if (virtualFile.getPath().length() <= 1) {
+                            projectRegistry.onRootFoldersChanged();
+                        }
+                        projectRegistry.onItemChanged(virtualFile.getPath());
+                    }
+                };
         fileWatchNotifier.addNotificationListener(defaultListener);
+        fileWatchNotifier.addNotificationListener(projectRegistryListener);
         try {
             fileWatcher.startup();
         } catch (IOException e) {
             LOG.error(e.getMessage(), e);
             fileWatchNotifier.removeNotificationListener(defaultListener);
+            fileWatchNotifier.removeNotificationListener(projectRegistryListener);
         }
     }
 
     @PreDestroy
     void stop() {
         executor.shutdownNow();
+        typeResolutionExecutor.shutdownNow();
     }
 
     public FolderEntry getProjectsRoot() throws ServerException {
@@ -283,6 +341,11 @@ public class ProjectManager {
      * <li> - a project will be created with {@link Problem#code} = 12 and without mixin project type
      * when declared mixin project type is not registered</li>
      * <li> - for creating a project by generator {@link NewProjectConfig#getOptions()} should be specified.</li>
+     * <p/>
+     * Sources of projects which aren't nested in other projects of batch are imported in parallel, sources of nested
+     * projects are imported after their parents. Failure of import of one project doesn't interrupt import of others,
+     * all failures are logged with path of project. If sources of at least one project are not imported all created
+     * projects are removed and the first failure in order of project paths is thrown.
      *
      * @param projectConfigList
      *         the list of configurations to create projects
@@ -315,6 +378,8 @@ public class ProjectManager {
                     .sorted((config1, config2) -> config1.getPath().compareTo(config2.getPath()))
                     .collect(Collectors.toList());
 
+            final Map<String, BatchImport> imports = importIndependentProjects(sortedConfigList, rewrite, lineConsumerFactory);
+
             for (NewProjectConfig projectConfig : sortedConfigList) {
                 RegisteredProject registeredProject;
                 final String pathToProject = projectConfig.getPath();
@@ -322,7 +387,12 @@ public class ProjectManager {
                 //creating project(by config or by importing source code)
                 try {
                     final SourceStorage sourceStorage = projectConfig.getSource();
-                    if (sourceStorage != null && !isNullOrEmpty(sourceStorage.getLocation())) {
+                    final BatchImport batchImport = imports.get(pathToProject);
+                    if (batchImport != null) {
+                        if (batchImport.failure != null) {
+                            rethrowImportFailure(batchImport.failure);
+                        }
+                    } else if (sourceStorage != null && !isNullOrEmpty(sourceStorage.getLocation())) {
                         doImportProject(pathToProject, sourceStorage, rewrite, lineConsumerFactory.setProjectName(projectConfig.getPath()));
                     } else if (!isVirtualFileExist(pathToProject)) {
                         registeredProject = doCreateProject(projectConfig, projectConfig.getOptions());
@@ -331,7 +401,11 @@ public class ProjectManager {
                     }
                 } catch (Exception e) {
                     if (!isVirtualFileExist(pathToProject)) {//project folder is absent
-                        rollbackCreatingBatchProjects(projects);
+                        rollbackCreatingBatchProjects(projects, imports.values());
+                        imports.values()
+                               .stream()
+                               .filter(batchImport -> batchImport.failure != null && batchImport.failure != e)
+                               .forEach(batchImport -> e.addSuppressed(batchImport.failure));
                         throw e;
                     }
                 }
@@ -358,8 +432,104 @@ public class ProjectManager {
         }
     }
 
-    private void rollbackCreatingBatchProjects(List<RegisteredProject> projects) {
-        for (RegisteredProject project : projects) {
+    /**
+     * Imports in parallel sources of projects of batch which aren't nested in other projects of batch. Waits until
+     * all imports are done, failed import doesn't interrupt others. Imported projects are synchronized with workspace
+     * configuration once all imports are done.
+     *
+     * @param sortedConfigList
+     *         configurations of projects of batch sorted by path
+     * @return results of imports keyed by path of project, empty map if there are less than two such projects
+     */
+    private Map<String, BatchImport> importIndependentProjects(List<NewProjectConfig> sortedConfigList,
+                                                               boolean rewrite,
+                                                               ProjectOutputLineConsumerFactory lineConsumerFactory)
+            throws ServerException {
+        final PathTrie<NewProjectConfig> batch = new PathTrie<>();
+        sortedConfigList.forEach(config -> batch.put(ProjectRegistry.absolutizePath(config.getPath()), config));
+
+        final List<NewProjectConfig> independentImports = new ArrayList<>();
+        for (NewProjectConfig config : sortedConfigList) {
+            final SourceStorage sourceStorage = config.getSource();
+            final Path path = Path.of(ProjectRegistry.absolutizePath(config.getPath()));
+            if (sourceStorage != null && !isNullOrEmpty(sourceStorage.getLocation())
+                && (path.isRoot() || batch.getNearest(path.getParent().toString()) == null)) {
+                independentImports.add(config);
+            }
+        }
+        if (batchImportThreads <= 1 || independentImports.size() < 2) {
+            return new HashMap<>();
+        }
+
+        final ExecutorService importExecutor =
+                Executors.newFixedThreadPool(Math.min(batchImportThreads, independentImports.size()),
+                                             new ThreadFactoryBuilder().setNameFormat("ProjectManager-BatchImport-%d")
+                                                                       .setUncaughtExceptionHandler(
+                                                                               LoggingUncaughtExceptionHandler.getInstance())
+                                                                       .setDaemon(true).build());
+        final Map<String, BatchImport> imports = new LinkedHashMap<>();
+        try {
+            final Map<String, Future<RegisteredProject>> futures = new LinkedHashMap<>();
+            for (NewProjectConfig config : independentImports) {
+                final String path = config.getPath();
+                // each project gets own factory, so output of parallel imports is not mixed up
+                final LineConsumerFactory projectLineConsumerFactory = lineConsumerFactory.withProjectName(path);
+                futures.put(path, importExecutor.submit(ThreadLocalPropagateContext.wrap(
+                        () -> doImportProject(path, config.getSource(), rewrite, projectLineConsumerFactory, false))));
+            }
+            for (Map.Entry<String, Future<RegisteredProject>> entry : futures.entrySet()) {
+                try {
+                    imports.put(entry.getKey(), new BatchImport(entry.getValue().get(), null));
+                } catch (ExecutionException e) {
+                    final Exception failure = e.getCause() instanceof Exception ? (Exception)e.getCause() : e;
+                    LOG.warn(format("Unable import sources of project %s. %s", entry.getKey(), failure.getMessage()));
+                    imports.put(entry.getKey(), new BatchImport(null, failure));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServerException("Import of projects is interrupted");
+        } finally {
+            importExecutor.shutdown();
+        }
+
+        workspaceProjectsHolder.sync(projectRegistry);
+        return imports;
+    }
+
+    private void rethrowImportFailure(Exception failure) throws ConflictException,
+                                                                ForbiddenException,
+                                                                NotFoundException,
+                                                                ServerException,
+                                                                UnauthorizedException,
+                                                                IOException {
+        if (failure instanceof ConflictException) {
+            throw (ConflictException)failure;
+        } else if (failure instanceof ForbiddenException) {
+            throw (ForbiddenException)failure;
+        } else if (failure instanceof NotFoundException) {
+            throw (NotFoundException)failure;
+        } else if (failure instanceof UnauthorizedException) {
+            throw (UnauthorizedException)failure;
+        } else if (failure instanceof ServerException) {
+            throw (ServerException)failure;
+        } else if (failure instanceof IOException) {
+            throw (IOException)failure;
+        } else if (failure instanceof RuntimeException) {
+            throw (RuntimeException)failure;
+        }
+        throw new ServerException(failure.getMessage(), failure);
+    }
+
+    private void rollbackCreatingBatchProjects(List<RegisteredProject> projects, Collection<BatchImport> imports) {
+        final List<RegisteredProject> created = new ArrayList<>(projects);
+        final Set<String> createdPaths = projects.stream().map(RegisteredProject::getPath).collect(Collectors.toCollection(HashSet::new));
+        for (BatchImport batchImport : imports) {
+            if (batchImport.project != null && createdPaths.add(batchImport.project.getPath())) {
+                created.add(batchImport.project);
+            }
+        }
+        for (RegisteredProject project : created) {
             try {
                 final FolderEntry projectFolder = project.getBaseFolder();
                 if (projectFolder != null) {
@@ -476,6 +646,23 @@ public class ProjectManager {
                                                                                                                 UnauthorizedException,
                                                                                                                 ConflictException,
                                                                                                                 NotFoundException {
+        return doImportProject(path, sourceStorage, rewrite, lineConsumerFactory, true);
+    }
+
+    /**
+     * @param syncWorkspace
+     *         whether imported project is synchronized with workspace configuration right away
+     */
+    private RegisteredProject doImportProject(String path,
+                                              SourceStorage sourceStorage,
+                                              boolean rewrite,
+                                              LineConsumerFactory lineConsumerFactory,
+                                              boolean syncWorkspace) throws ServerException,
+                                                                            IOException,
+                                                                            ForbiddenException,
+                                                                            UnauthorizedException,
+                                                                            ConflictException,
+                                                                            NotFoundException {
         final ProjectImporter importer = importers.getImporter(sourceStorage.getType());
         if (importer == null) {
             throw new NotFoundException(format("Unable import sources project from '%s'. Sources type '%s' is not supported.",
@@ -509,14 +696,18 @@ public class ProjectManager {
                     projectRegistry.putProject(registeredProject, asFolder(registeredProject.getPath()), true, false);
                 }
                 RegisteredProject rp = projectRegistry.putProject(project, folder, true, false);
-                workspaceProjectsHolder.sync(projectRegistry);
+                if (syncWorkspace) {
+                    workspaceProjectsHolder.sync(projectRegistry);
+                }
                 return rp;
             }
         }
 
         RegisteredProject rp = projectRegistry
                 .putProject(new NewProjectConfigImpl(normalizePath, name, BaseProjectType.ID, sourceStorage), folder, true, false);
-        workspaceProjectsHolder.sync(projectRegistry);
+        if (syncWorkspace) {
+            workspaceProjectsHolder.sync(projectRegistry);
+        }
         return rp;
     }
 
@@ -537,13 +728,7 @@ public class ProjectManager {
             throw new NotFoundException("Project Type to estimate needed.");
         }
 
-        final FolderEntry baseFolder = asFolder(path);
-
-        if (baseFolder == null) {
-            throw new NotFoundException("Folder not found: " + path);
-        }
-
-        return projectType.resolveSources(baseFolder);
+        return projectTypeResolver.resolve(getFolderToEstimate(path), Collections.singletonList(projectType)).get(0);
     }
 
     /**
@@ -557,20 +742,29 @@ public class ProjectManager {
      * @throws NotFoundException
      */
     public List<ProjectTypeResolution> resolveSources(String path, boolean transientOnly) throws ServerException, NotFoundException {
-        final List<ProjectTypeResolution> resolutions = new ArrayList<>();
-
-        for (ProjectType type : projectTypeRegistry.getProjectTypes(ProjectTypeRegistry.CHILD_TO_PARENT_COMPARATOR)) {
-            if (transientOnly && type.isPersisted()) {
-                continue;
-            }
-
-            final ProjectTypeResolution resolution = estimateProject(path, type.getId());
-            if (resolution.matched()) {
-                resolutions.add(resolution);
+        final List<ProjectTypeDef> types = new ArrayList<>();
+        for (ProjectTypeDef type : projectTypeRegistry.getProjectTypes(ProjectTypeRegistry.CHILD_TO_PARENT_COMPARATOR)) {
+            if (!transientOnly || !type.isPersisted()) {
+                types.add(type);
             }
         }
+        if (types.isEmpty()) {
+            return new ArrayList<>();
+        }
 
-        return resolutions;
+        // all the types are estimated in parallel against the same sources
+        return projectTypeResolver.resolve(getFolderToEstimate(path), types)
+                                  .stream()
+                                  .filter(ProjectTypeResolution::matched)
+                                  .collect(Collectors.toList());
+    }
+
+    private FolderEntry getFolderToEstimate(String path) throws ServerException, NotFoundException {
+        final FolderEntry baseFolder = asFolder(path);
+        if (baseFolder == null) {
+            throw new NotFoundException("Folder not found: " + path);
+        }
+        return baseFolder;
     }
 
     /**
@@ -777,4 +971,15 @@ public class ProjectManager {
             }
         });
     }
+
+    /** Result of import of sources of project of batch, either imported project or failure is set. */
+    private static class BatchImport {
+        final RegisteredProject project;
+        final Exception         failure;
+
+        BatchImport(RegisteredProject project, Exception failure) {
+            this.project = project;
+            this.failure = failure;
+        }
+    }
 }
@@ -42,6 +42,11 @@ public class ProjectOutputLineConsumerFactory implements LineConsumerFactory {
         return this;
     }
 
+    /** Creates copy of this factory for another project, unlike {@link #setProjectName(String)} doesn't change this factory. */
+    public ProjectOutputLineConsumerFactory withProjectName(String projectName) {
+        return new ProjectOutputLineConsumerFactory(projectName, workspaceId, delay);
+    }
+
     @Override
     public LineConsumer newLineConsumer() {
         return new ProjectImportOutputWSLineConsumer(projectName, workspaceId, delay);
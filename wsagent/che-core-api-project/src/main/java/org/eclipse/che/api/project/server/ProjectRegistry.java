@@ -33,13 +33,15 @@ import javax.inject.Inject;
 import javax.inject.Singleton;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
-import java.util.Optional;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 /**
  * Stores internal representation of Projects registered in the Workspace Agent.
+ * <p>
+ * Projects are kept in tree of path segments, so lookup of project, of parent project and of projects under
+ * folder don't depend on number of registered projects. Folders on root are registered as projects. They are listed
+ * on initialization and again only after file watcher reports change on root, see {@link #onRootFoldersChanged()}.
+ * Lookup of a single project on root which isn't registered yet checks its folder directly.
  *
  * @author gazarenkov
  */
@@ -47,15 +49,17 @@ import java.util.stream.Collectors;
 public class ProjectRegistry {
     private static final Logger LOG = LoggerFactory.getLogger(ProjectRegistry.class);
 
-    private final Map<String, RegisteredProject> projects;
+    private final PathTrie<RegisteredProject>    projects;
     private final WorkspaceProjectsSyncer        workspaceHolder;
     private final VirtualFileSystem              vfs;
     private final ProjectTypeRegistry            projectTypeRegistry;
     private final ProjectHandlerRegistry         handlers;
     private final FolderEntry                    root;
     private final EventService                   eventService;
+    private final ValueProviderCache             valueProviderCache;
 
-    private boolean initialized;
+    private          boolean initialized;
+    private volatile boolean rootFoldersChanged;
 
     @Inject
     public ProjectRegistry(WorkspaceProjectsSyncer workspaceHolder,
@@ -64,12 +68,13 @@ public class ProjectRegistry {
                            ProjectHandlerRegistry handlers,
                            EventService eventService) throws ServerException {
         this.eventService = eventService;
-        this.projects = new ConcurrentHashMap<>();
+        this.projects = new PathTrie<>();
         this.workspaceHolder = workspaceHolder;
         this.vfs = vfsProvider.getVirtualFileSystem();
         this.projectTypeRegistry = projectTypeRegistry;
         this.handlers = handlers;
         this.root = new FolderEntry(vfs.getRoot());
+        this.valueProviderCache = new ValueProviderCache();
     }
 
     @PostConstruct
@@ -87,11 +92,12 @@ public class ProjectRegistry {
 
         }
 
+        rootFoldersChanged = true;
         initUnconfiguredFolders();
 
         initialized = true;
 
-        for (RegisteredProject project : projects.values()) {
+        for (RegisteredProject project : projects.getAll()) {
             // only for projects with sources
             if(project.getBaseFolder() != null) {
                 fireInitHandlers(project);
@@ -108,7 +114,7 @@ public class ProjectRegistry {
 
         initUnconfiguredFolders();
 
-        return new ArrayList<>(projects.values());
+        return projects.getAll();
     }
 
     /**
@@ -119,9 +125,12 @@ public class ProjectRegistry {
     public RegisteredProject getProject(String projectPath) {
         checkInitializationState();
 
-        initUnconfiguredFolders();
-
-        return projects.get(absolutizePath(projectPath));
+        final String path = absolutizePath(projectPath);
+        final RegisteredProject project = projects.get(path);
+        if (project == null && Path.of(path).length() == 1) {
+            return initUnconfiguredFolder(path);
+        }
+        return project;
     }
 
     /**
@@ -134,11 +143,9 @@ public class ProjectRegistry {
 
         initUnconfiguredFolders();
 
-        final Path root = Path.of(absolutizePath(parentPath));
-
-        return projects.keySet()
+        return projects.getDescendants(absolutizePath(parentPath))
                        .stream()
-                       .filter(key -> Path.of(key).isChild(root))
+                       .map(RegisteredProject::getPath)
                        .collect(Collectors.toList());
     }
 
@@ -150,23 +157,14 @@ public class ProjectRegistry {
     public RegisteredProject getParentProject(String path) {
         checkInitializationState();
 
-        // return this if a project
-        if (getProject(path) != null) {
-            return getProject(path);
-        }
-
-        // otherwise try to find matched parent
-        Path test;
-        while ((test = Path.of(path).getParent()) != null) {
-            final RegisteredProject project = projects.get(test.toString());
-            if (project != null) {
-                return project;
-            }
-
-            path = test.toString();
+        final RegisteredProject project = projects.getNearest(absolutizePath(path));
+        if (project != null) {
+            return project;
         }
 
-        return null;
+        // folder on root may be not registered yet
+        final Path absolutePath = Path.of(absolutizePath(path));
+        return absolutePath.isRoot() ? null : initUnconfiguredFolder(absolutePath.subPath(0, 1).toString());
     }
 
     /**
@@ -189,8 +187,8 @@ public class ProjectRegistry {
                                  boolean updated,
                                  boolean detected) throws ServerException {
 
-        final RegisteredProject project = new RegisteredProject(folder, config, updated, detected, this.projectTypeRegistry);
-        projects.put(project.getPath(), project);
+        final RegisteredProject project = new RegisteredProject(folder, config, updated, detected, projectTypeRegistry, valueProviderCache);
+        projects.put(absolutizePath(project.getPath()), project);
 
         return project;
     }
@@ -204,10 +202,7 @@ public class ProjectRegistry {
      */
     void removeProjects(String path) throws ServerException {
 
-        List<RegisteredProject> removed = new ArrayList<>();
-        Optional.ofNullable(projects.remove(path)).ifPresent(removed::add);
-        getProjects(path).forEach(p -> Optional.ofNullable(projects.remove(p))
-                                               .ifPresent(removed::add));
+        final List<RegisteredProject> removed = projects.removeTree(absolutizePath(path));
 
         removed.forEach(registeredProject -> eventService.publish(new ProjectDeletedEvent(registeredProject.getPath())));
     }
@@ -330,7 +325,7 @@ public class ProjectRegistry {
             newMixins.remove(type);
         } else if (newType.equals(type)) {
             if (project.isDetected()) {
-                projects.remove(project.getPath());
+                projects.remove(absolutizePath(project.getPath()));
                 return null;
             }
 
@@ -358,17 +353,68 @@ public class ProjectRegistry {
         return (path.startsWith("/")) ? path : "/".concat(path);
     }
 
-    /** Try to initialize projects from unconfigured folders on root. */
+    /**
+     * Marks listing of folders on root as outdated, so folders on root are listed again on next request of projects.
+     * Should be called when file watcher reports change of item on root.
+     */
+    void onRootFoldersChanged() {
+        rootFoldersChanged = true;
+    }
+
+    /**
+     * Evicts cached values of attributes of projects which value providers depend on changed item, see
+     * {@link org.eclipse.che.api.project.server.type.ValueProviderFactory#getDependencies()}. Should be called when
+     * file watcher reports change of item.
+     */
+    void onItemChanged(Path path) {
+        if (valueProviderCache.isDependency(path)) {
+            valueProviderCache.invalidate(path);
+        }
+    }
+
+    /** Cache of values of read-only value providers which is kept up to date by {@link #onItemChanged(Path)}. */
+    ValueProviderCache getValueProviderCache() {
+        return valueProviderCache;
+    }
+
+    /** Try to initialize projects from unconfigured folders on root if they were changed since last time. */
     private void initUnconfiguredFolders() {
+        if (!rootFoldersChanged) {
+            return;
+        }
+        // reset before listing, so change that happens while folders are listed isn't lost
+        rootFoldersChanged = false;
         try {
             for (FolderEntry folder : root.getChildFolders()) {
-                if (!projects.containsKey(folder.getVirtualFile().getPath().toString())) {
-                    putProject(null, folder, true, false);
+                final String path = folder.getVirtualFile().getPath().toString();
+                if (!projects.contains(path)) {
+                    projects.putIfAbsent(path, new RegisteredProject(folder, null, true, false, projectTypeRegistry, valueProviderCache));
                 }
             }
+        } catch (ServerException e) {
+            rootFoldersChanged = true;
+            LOG.warn(e.getLocalizedMessage());
+        }
+    }
+
+    /**
+     * Try to initialize project from unconfigured folder on root.
+     *
+     * @param path
+     *         absolute path of folder on root
+     * @return project or null if there is no such folder
+     */
+    private RegisteredProject initUnconfiguredFolder(String path) {
+        try {
+            final FolderEntry folder = root.getChildFolder(path);
+            if (folder == null) {
+                return null;
+            }
+            projects.putIfAbsent(path, new RegisteredProject(folder, null, true, false, projectTypeRegistry, valueProviderCache));
         } catch (ServerException e) {
             LOG.warn(e.getLocalizedMessage());
         }
+        return projects.get(path);
     }
 
     /**
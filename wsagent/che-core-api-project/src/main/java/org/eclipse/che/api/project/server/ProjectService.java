@@ -28,6 +28,7 @@ import org.eclipse.che.api.core.UnauthorizedException;
 import org.eclipse.che.api.core.model.project.type.Value;
 import org.eclipse.che.api.core.notification.EventService;
 import org.eclipse.che.api.core.rest.Service;
+import org.eclipse.che.api.core.rest.ServiceContext;
 import org.eclipse.che.api.core.rest.annotations.Description;
 import org.eclipse.che.api.core.rest.annotations.GenerateLink;
 import org.eclipse.che.api.project.server.importer.ProjectImportOutputWSLineConsumer;
@@ -36,11 +37,12 @@ import org.eclipse.che.api.project.server.type.ProjectTypeResolution;
 import org.eclipse.che.api.project.shared.dto.CopyOptions;
 import org.eclipse.che.api.project.shared.dto.ItemReference;
 import org.eclipse.che.api.project.shared.dto.MoveOptions;
+import org.eclipse.che.api.project.shared.dto.SearchResultDto;
 import org.eclipse.che.api.project.shared.dto.SourceEstimation;
 import org.eclipse.che.api.project.shared.dto.TreeElement;
+import org.eclipse.che.api.vfs.FileContent;
 import org.eclipse.che.api.vfs.VirtualFile;
 import org.eclipse.che.api.vfs.search.QueryExpression;
-import org.eclipse.che.api.vfs.search.SearchResult;
 import org.eclipse.che.api.vfs.search.SearchResultEntry;
 import org.eclipse.che.api.vfs.search.Searcher;
 import org.eclipse.che.api.workspace.shared.dto.NewProjectConfigDto;
@@ -66,13 +68,18 @@ import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 import javax.ws.rs.core.UriInfo;
+import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStreamWriter;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -83,6 +90,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.eclipse.che.api.project.server.DtoConverter.asDto;
 import static org.eclipse.che.api.project.shared.Constants.LINK_REL_CREATE_BATCH_PROJECTS;
 import static org.eclipse.che.api.project.shared.Constants.LINK_REL_CREATE_PROJECT;
@@ -722,8 +730,8 @@ public class ProjectService extends Service {
                    @ApiResponse(code = 403, message = "User not authorized to call this operation"),
                    @ApiResponse(code = 404, message = "Not found"),
                    @ApiResponse(code = 500, message = "Internal Server Error")})
-    public InputStream exportZip(@ApiParam(value = "Path to resource to be exported")
-                                 @PathParam("path") String path) throws NotFoundException, ForbiddenException, ServerException {
+    public StreamingOutput exportZip(@ApiParam(value = "Path to resource to be exported")
+                                     @PathParam("path") String path) throws NotFoundException, ForbiddenException, ServerException {
 
         final FolderEntry folder = projectManager.asFolder(path);
 
@@ -731,7 +739,14 @@ public class ProjectService extends Service {
             throw new NotFoundException("Folder not found " + path);
         }
 
-        return folder.getVirtualFile().zip();
+        // archive is written directly to the response while folder is being traversed
+        return output -> {
+            try {
+                folder.getVirtualFile().zip(output);
+            } catch (ForbiddenException | ServerException e) {
+                throw new IOException(e.getMessage(), e);
+            }
+        };
     }
 
     @GET
@@ -747,10 +762,17 @@ public class ProjectService extends Service {
         }
 
         final VirtualFile virtualFile = file.getVirtualFile();
+        final FileContent content = virtualFile.openContent();
+        // content is written directly from the file channel to the response, without buffering in memory or temporary file
+        final StreamingOutput output = out -> {
+            try (FileContent transferred = content) {
+                transferred.transferTo(out);
+            }
+        };
 
-        return Response.ok(virtualFile.getContent(), TIKA.detect(virtualFile.getName()))
+        return Response.ok(output, TIKA.detect(virtualFile.getName()))
                        .lastModified(new Date(virtualFile.getLastModificationDate()))
-                       .header(HttpHeaders.CONTENT_LENGTH, Long.toString(virtualFile.getLength()))
+                       .header(HttpHeaders.CONTENT_LENGTH, Long.toString(content.getLength()))
                        .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + virtualFile.getName() + '"')
                        .build();
     }
@@ -793,25 +815,53 @@ public class ProjectService extends Service {
     @Path("/tree/{parent:.*}")
     @Produces(MediaType.APPLICATION_JSON)
     @ApiOperation(value = "Get project tree",
-                  notes = "Get project tree. Depth is specified in a query parameter",
+                  notes = "Get project tree. Depth is specified in a query parameter. Response has ETag header, if tree " +
+                          "isn't changed since the tag is received, request with If-None-Match header gets 304 response",
                   response = TreeElement.class)
     @ApiResponses({@ApiResponse(code = 200, message = "OK"),
+                   @ApiResponse(code = 304, message = "Tree is not modified"),
                    @ApiResponse(code = 403, message = "User not authorized to call this operation"),
                    @ApiResponse(code = 404, message = "Not found"),
                    @ApiResponse(code = 500, message = "Internal Server Error")})
-    public TreeElement getTree(@ApiParam(value = "Path to resource. Can be project or its folders", required = true)
-                               @PathParam("parent") String path,
-                               @ApiParam(value = "Tree depth. This parameter can be dropped. If not specified ?depth=1 is used by default")
-                               @DefaultValue("1") @QueryParam("depth") int depth,
-                               @ApiParam(value = "include children files (in addition to children folders). This parameter can be dropped" +
-                                                 ". If not specified ?includeFiles=false is used by default")
-                               @DefaultValue("false") @QueryParam("includeFiles") boolean includeFiles) throws NotFoundException,
-                                                                                                               ForbiddenException,
-                                                                                                               ServerException {
+    public Response getTree(@ApiParam(value = "Path to resource. Can be project or its folders", required = true)
+                            @PathParam("parent") String path,
+                            @ApiParam(value = "Tree depth. This parameter can be dropped. If not specified ?depth=1 is used by default")
+                            @DefaultValue("1") @QueryParam("depth") int depth,
+                            @ApiParam(value = "include children files (in addition to children folders). This parameter can be dropped" +
+                                              ". If not specified ?includeFiles=false is used by default")
+                            @DefaultValue("false") @QueryParam("includeFiles") boolean includeFiles,
+                            @Context Request request) throws NotFoundException,
+                                                             ForbiddenException,
+                                                             ServerException {
         final FolderEntry folder = projectManager.asFolder(path);
 
-        return newDto(TreeElement.class).withNode(injectFolderLinks(asDto(folder)))
-                                        .withChildren(getTree(folder, depth, includeFiles));
+        if (folder == null) {
+            throw new NotFoundException("Folder not found " + path);
+        }
+
+        final ServiceContext serviceContext = getServiceContext();
+        final ProjectTreeWriter treeWriter =
+                new ProjectTreeWriter(folder,
+                                      depth,
+                                      includeFiles,
+                                      item -> projectServiceLinksInjector.injectFolderLinks(item, serviceContext),
+                                      item -> projectServiceLinksInjector.injectFileLinks(item, serviceContext));
+        // tag is computed before response is committed, so listing errors get a proper status
+        final EntityTag tag = new EntityTag(treeWriter.getTag());
+        final Response.ResponseBuilder notModified = request.evaluatePreconditions(tag);
+        if (notModified != null) {
+            return notModified.tag(tag).build();
+        }
+
+        // each folder is listed again when it is written, the tree is never kept in memory
+        final StreamingOutput output = out -> {
+            try {
+                treeWriter.write(new BufferedWriter(new OutputStreamWriter(out, UTF_8)));
+            } catch (ServerException e) {
+                throw new IOException(e.getMessage(), e);
+            }
+        };
+        return Response.ok(output, MediaType.APPLICATION_JSON_TYPE).tag(tag).build();
     }
 
     @GET
@@ -865,6 +915,72 @@ public class ProjectService extends Service {
                                                                                      ForbiddenException,
                                                                                      ConflictException,
                                                                                      ServerException {
+        final List<SearchResultEntry> searchResultEntries = doSearch(path, name, text, maxItems, skipCount, false);
+        final List<ItemReference> items = new ArrayList<>(searchResultEntries.size());
+        final FolderEntry root = projectManager.getProjectsRoot();
+
+        for (SearchResultEntry searchResultEntry : searchResultEntries) {
+            final VirtualFileEntry child = root.getChild(searchResultEntry.getFilePath());
+
+            if (child != null && child.isFile()) {
+                items.add(injectFileLinks(asDto((FileEntry)child)));
+            }
+        }
+
+        return items;
+    }
+
+    @GET
+    @Path("/occurrences/{path:.*}")
+    @Produces(MediaType.APPLICATION_JSON)
+    @ApiOperation(value = "Search for occurrences of text in resources",
+                  notes = "Search for resources applying a number of search filters as query parameters. Each found resource " +
+                          "contains line numbers, column offsets and content of lines where searched text is found",
+                  response = SearchResultDto.class,
+                  responseContainer = "List")
+    @ApiResponses({@ApiResponse(code = 200, message = "OK"),
+                   @ApiResponse(code = 403, message = "User not authorized to call this operation"),
+                   @ApiResponse(code = 404, message = "Not found"),
+                   @ApiResponse(code = 409, message = "Conflict error"),
+                   @ApiResponse(code = 500, message = "Internal Server Error")})
+    public List<SearchResultDto> searchOccurrences(@ApiParam(value = "Path to resource, i.e. where to search?", required = true)
+                                                   @PathParam("path") String path,
+                                                   @ApiParam(value = "Resource name")
+                                                   @QueryParam("name") String name,
+                                                   @ApiParam(value = "Search keywords")
+                                                   @QueryParam("text") String text,
+                                                   @ApiParam(value = "Maximum items to display. If this parameter is dropped, there are no limits")
+                                                   @QueryParam("maxItems") @DefaultValue("-1") int maxItems,
+                                                   @ApiParam(value = "Skip count")
+                                                   @QueryParam("skipCount") int skipCount) throws NotFoundException,
+                                                                                                  ForbiddenException,
+                                                                                                  ConflictException,
+                                                                                                  ServerException {
+        final List<SearchResultEntry> searchResultEntries = doSearch(path, name, text, maxItems, skipCount, true);
+        final List<SearchResultDto> results = new ArrayList<>(searchResultEntries.size());
+        final FolderEntry root = projectManager.getProjectsRoot();
+
+        for (SearchResultEntry searchResultEntry : searchResultEntries) {
+            final VirtualFileEntry child = root.getChild(searchResultEntry.getFilePath());
+
+            if (child != null && child.isFile()) {
+                results.add(newDto(SearchResultDto.class).withItemReference(injectFileLinks(asDto((FileEntry)child)))
+                                                         .withSearchOccurrences(searchResultEntry.getData()
+                                                                                                 .stream()
+                                                                                                 .map(DtoConverter::asDto)
+                                                                                                 .collect(Collectors.toList())));
+            }
+        }
+
+        return results;
+    }
+
+    private List<SearchResultEntry> doSearch(String path,
+                                             String name,
+                                             String text,
+                                             int maxItems,
+                                             int skipCount,
+                                             boolean includePositions) throws ServerException, ConflictException {
         final Searcher searcher;
         try {
             searcher = projectManager.getSearcher();
@@ -882,22 +998,10 @@ public class ProjectService extends Service {
                 .setName(name)
                 .setText(text)
                 .setMaxItems(maxItems)
-                .setSkipCount(skipCount);
-
-        final SearchResult result = searcher.search(expr);
-        final List<SearchResultEntry> searchResultEntries = result.getResults();
-        final List<ItemReference> items = new ArrayList<>(searchResultEntries.size());
-        final FolderEntry root = projectManager.getProjectsRoot();
-
-        for (SearchResultEntry searchResultEntry : searchResultEntries) {
-            final VirtualFileEntry child = root.getChild(searchResultEntry.getFilePath());
-
-            if (child != null && child.isFile()) {
-                items.add(injectFileLinks(asDto((FileEntry)child)));
-            }
-        }
+                .setSkipCount(skipCount)
+                .setIncludePositions(includePositions);
 
-        return items;
+        return searcher.search(expr).getResults();
     }
 
     private void logProjectCreatedEvent(@NotNull String projectName, @NotNull String projectType) {
@@ -928,35 +1032,6 @@ public class ProjectService extends Service {
         return virtualFile;
     }
 
-    private List<TreeElement> getTree(FolderEntry folder,
-                                      int depth,
-                                      boolean includeFiles) throws ServerException, NotFoundException {
-        if (depth == 0) {
-            return null;
-        }
-
-        final List<? extends VirtualFileEntry> children;
-
-        if (includeFiles) {
-            children = folder.getChildFoldersFiles();
-        } else {
-            children = folder.getChildFolders();
-        }
-
-        final List<TreeElement> nodes = new ArrayList<>(children.size());
-        for (VirtualFileEntry child : children) {
-            if (child.isFolder()) {
-                nodes.add(newDto(TreeElement.class)
-                                  .withNode(injectFolderLinks(asDto((FolderEntry)child)))
-                                  .withChildren(getTree((FolderEntry)child, depth - 1, includeFiles)));
-            } else {
-                nodes.add(newDto(TreeElement.class).withNode(injectFileLinks(asDto((FileEntry)child))));
-            }
-        }
-
-        return nodes;
-    }
-
     /* --------------------------------------------------------------------------- */
     /* TODO check "upload" methods below, they were copied from old VFS as is      */
     /* --------------------------------------------------------------------------- */
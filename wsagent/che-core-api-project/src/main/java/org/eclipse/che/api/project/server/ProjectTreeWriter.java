@@ -0,0 +1,135 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2017 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.project.server;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+import org.eclipse.che.api.core.ServerException;
+import org.eclipse.che.api.project.shared.dto.ItemReference;
+import org.eclipse.che.api.project.shared.dto.TreeElement;
+import org.eclipse.che.dto.server.DtoFactory;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.eclipse.che.api.project.server.DtoConverter.asDto;
+
+/**
+ * Writes JSON representation of {@link TreeElement} of folder while walking the tree, so DTOs and listings of the
+ * whole tree are never kept in memory. Output is the same as serialized {@link TreeElement}: each folder is listed
+ * when it is reached and each node is written as soon as it is visited.
+ * <p>
+ * Tag of the tree is computed from modification dates of folders of the tree, changes of children of folder change
+ * modification date of folder. Type of folder is taken into account because folder may become project without being
+ * modified. If files are included, modification dates and lengths of files are taken into account as well since
+ * content of file may be changed without changing modification date of its folder. Nothing is remembered while tag
+ * is computed, listings are served by cache of virtual file system, so a request that gets 304 builds no DTOs.
+ * Errors of listing are reported by {@link #getTag()} before response is committed. Tree written after the tag may
+ * be newer than the tag, then tag changes on next request and client gets the tree again.
+ *
+ * @see ProjectService#getTree(String, int, boolean, javax.ws.rs.core.Request)
+ */
+class ProjectTreeWriter {
+    private final FolderEntry                  folder;
+    private final int                          depth;
+    private final boolean                      includeFiles;
+    private final UnaryOperator<ItemReference> folderLinksInjector;
+    private final UnaryOperator<ItemReference> fileLinksInjector;
+
+    /**
+     * @param folder
+     *         root of the tree
+     * @param depth
+     *         depth of the tree, negative value means unlimited depth
+     * @param includeFiles
+     *         whether files are included in the tree in addition to folders
+     */
+    ProjectTreeWriter(FolderEntry folder,
+                      int depth,
+                      boolean includeFiles,
+                      UnaryOperator<ItemReference> folderLinksInjector,
+                      UnaryOperator<ItemReference> fileLinksInjector) {
+        this.folder = folder;
+        this.depth = depth;
+        this.includeFiles = includeFiles;
+        this.folderLinksInjector = folderLinksInjector;
+        this.fileLinksInjector = fileLinksInjector;
+    }
+
+    /** Computes tag of the tree without building items of the tree. */
+    String getTag() throws ServerException {
+        final Hasher hasher = Hashing.murmur3_128().newHasher();
+        hasher.putInt(depth).putBoolean(includeFiles);
+        putFolder(hasher, folder, depth);
+        return hasher.hash().toString();
+    }
+
+    void write(Writer writer) throws IOException, ServerException {
+        writer.write("{\"node\":");
+        writer.write(toJson(folderLinksInjector.apply(asDto(folder))));
+        writeChildren(writer, folder, depth);
+        writer.write('}');
+        writer.flush();
+    }
+
+    private void writeChildren(Writer writer, FolderEntry parent, int depth) throws IOException, ServerException {
+        if (depth == 0) {
+            return;
+        }
+        writer.write(",\"children\":[");
+        boolean first = true;
+        for (VirtualFileEntry child : getChildren(parent)) {
+            if (!first) {
+                writer.write(',');
+            }
+            first = false;
+            writer.write("{\"node\":");
+            if (child.isFolder()) {
+                writer.write(toJson(folderLinksInjector.apply(asDto((FolderEntry)child))));
+                writeChildren(writer, (FolderEntry)child, depth - 1);
+            } else {
+                writer.write(toJson(fileLinksInjector.apply(asDto((FileEntry)child))));
+            }
+            writer.write('}');
+        }
+        writer.write(']');
+    }
+
+    private void putFolder(Hasher hasher, FolderEntry folder, int depth) throws ServerException {
+        hasher.putString(folder.getPath().toString(), UTF_8)
+              .putLong(folder.getModified())
+              .putBoolean(folder.isProject());
+        if (depth == 0) {
+            return;
+        }
+        for (VirtualFileEntry child : getChildren(folder)) {
+            if (child.isFolder()) {
+                putFolder(hasher, (FolderEntry)child, depth - 1);
+            } else {
+                hasher.putString(child.getName(), UTF_8)
+                      .putLong(child.getModified())
+                      .putLong(child.getVirtualFile().getLength());
+            }
+        }
+    }
+
+    private List<? extends VirtualFileEntry> getChildren(FolderEntry folder) throws ServerException {
+        return includeFiles ? folder.getChildFoldersFiles() : folder.getChildFolders();
+    }
+
+    private static String toJson(ItemReference item) {
+        return DtoFactory.getInstance().toJson(item);
+    }
+}
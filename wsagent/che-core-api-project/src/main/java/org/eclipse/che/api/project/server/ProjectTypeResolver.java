@@ -0,0 +1,206 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2017 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.project.server;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import org.eclipse.che.api.core.ServerException;
+import org.eclipse.che.api.project.server.type.ProjectTypeDef;
+import org.eclipse.che.api.project.server.type.ProjectTypeResolution;
+import org.eclipse.che.api.project.server.type.ValueProvider;
+import org.eclipse.che.api.project.server.type.ValueProviderFactory;
+import org.eclipse.che.api.project.server.type.ValueStorageException;
+import org.eclipse.che.commons.lang.concurrent.LoggingUncaughtExceptionHandler;
+import org.eclipse.che.commons.lang.concurrent.ThreadLocalPropagateContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Estimates which project types match sources of folder.
+ * <p>
+ * All candidate types are resolved against single snapshot of folder: each value provider factory creates one provider
+ * for the folder and each attribute is read from it once, no matter how many types (e.g. all the children of maven
+ * type) declare it. Values of read-only providers are taken from {@link ValueProviderCache} if it is given, so sources
+ * which weren't modified since the previous estimation aren't read again.
+ * <p>
+ * Candidate types are resolved in parallel, but reads of single value provider are serialized, so types which share
+ * provider (e.g. maven based types) mostly wait for each other, only types with different providers and values
+ * already read are resolved concurrently. Executor should be created with {@link #newExecutor(int)}, so resolution
+ * never queues behind other jobs and runs on the calling thread when all threads of executor are busy.
+ */
+class ProjectTypeResolver {
+    private final ExecutorService    executor;
+    private final ValueProviderCache valueProviderCache;
+
+    /**
+     * Creates bounded executor dedicated to resolution of project types. Executor has no queue, task which can't be
+     * given to a thread immediately is run by the thread that submits it, also after executor is shut down.
+     *
+     * @param threads
+     *         max number of threads
+     */
+    static ExecutorService newExecutor(int threads) {
+        return new ThreadPoolExecutor(0, threads, 60L, TimeUnit.SECONDS,
+                                      new SynchronousQueue<>(),
+                                      new ThreadFactoryBuilder().setNameFormat("ProjectTypeResolver-%d")
+                                                                .setUncaughtExceptionHandler(LoggingUncaughtExceptionHandler.getInstance())
+                                                                .setDaemon(true)
+                                                                .build(),
+                                      (task, pool) -> task.run());
+    }
+
+    /**
+     * @param executor
+     *         executor to resolve types in parallel
+     * @param valueProviderCache
+     *         cache of values of read-only value providers or null if values are always read from providers
+     */
+    ProjectTypeResolver(ExecutorService executor, ValueProviderCache valueProviderCache) {
+        this.executor = executor;
+        this.valueProviderCache = valueProviderCache;
+    }
+
+    /**
+     * Resolves project types against sources of folder.
+     *
+     * @param folder
+     *         folder to estimate
+     * @param types
+     *         candidate project types
+     * @return resolutions in order of candidate types
+     */
+    List<ProjectTypeResolution> resolve(FolderEntry folder, List<ProjectTypeDef> types) throws ServerException {
+        final SourcesSnapshot snapshot = new SourcesSnapshot(folder);
+        final List<ProjectTypeResolution> resolutions = new ArrayList<>(types.size());
+        if (types.size() < 2) {
+            for (ProjectTypeDef type : types) {
+                resolutions.add(type.resolveSources(folder, snapshot));
+            }
+            return resolutions;
+        }
+
+        final List<Future<ProjectTypeResolution>> futures = new ArrayList<>(types.size());
+        try {
+            for (ProjectTypeDef type : types) {
+                futures.add(executor.submit(ThreadLocalPropagateContext.wrap(() -> type.resolveSources(folder, snapshot))));
+            }
+            for (Future<ProjectTypeResolution> future : futures) {
+                resolutions.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServerException("Estimation of project types is interrupted");
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException)cause;
+            } else if (cause instanceof Error) {
+                throw (Error)cause;
+            }
+            throw new ServerException(cause.getMessage(), cause);
+        } finally {
+            futures.forEach(future -> future.cancel(true));
+        }
+        return resolutions;
+    }
+
+    /** Gives single value provider per factory for folder, values of each attribute are read from provider once. */
+    private class SourcesSnapshot implements Function<ValueProviderFactory, ValueProvider> {
+        private final FolderEntry                                      folder;
+        private final Map<ValueProviderFactory, SnapshotValueProvider> providers;
+
+        SourcesSnapshot(FolderEntry folder) {
+            this.folder = folder;
+            this.providers = new ConcurrentHashMap<>();
+        }
+
+        @Override
+        public ValueProvider apply(ValueProviderFactory factory) {
+            return providers.computeIfAbsent(factory, f -> new SnapshotValueProvider(f, f.newInstance(folder)));
+        }
+
+        private class SnapshotValueProvider implements ValueProvider {
+            private final ValueProviderFactory    factory;
+            private final ValueProvider           provider;
+            private final Map<String, ReadResult> results;
+
+            SnapshotValueProvider(ValueProviderFactory factory, ValueProvider provider) {
+                this.factory = factory;
+                this.provider = provider;
+                this.results = new ConcurrentHashMap<>();
+            }
+
+            /**
+             * Reads values from provider once per attribute. Calls of underlying provider are serialized, so providers
+             * which lazily read their sources don't have to be thread-safe. Values which are already read are given
+             * without locking.
+             */
+            @Override
+            public List<String> getValues(String attributeName) throws ValueStorageException {
+                ReadResult result = results.get(attributeName);
+                if (result == null) {
+                    synchronized (this) {
+                        result = results.get(attributeName);
+                        if (result == null) {
+                            result = read(attributeName);
+                            results.put(attributeName, result);
+                        }
+                    }
+                }
+                if (result.failure != null) {
+                    throw result.failure;
+                }
+                return result.values;
+            }
+
+            private ReadResult read(String attributeName) {
+                try {
+                    if (!provider.isSettable() && valueProviderCache != null) {
+                        return new ReadResult(valueProviderCache.getValues(folder, factory, provider, attributeName), null);
+                    }
+                    return new ReadResult(provider.getValues(attributeName), null);
+                } catch (ValueStorageException e) {
+                    return new ReadResult(null, e);
+                }
+            }
+
+            @Override
+            public void setValues(String attributeName, List<String> values) throws ValueStorageException {
+                throw new ValueStorageException("Values can't be changed during estimation of project type");
+            }
+
+            @Override
+            public boolean isSettable() {
+                return provider.isSettable();
+            }
+        }
+    }
+
+    private static class ReadResult {
+        final List<String>          values;
+        final ValueStorageException failure;
+
+        ReadResult(List<String> values, ValueStorageException failure) {
+            this.values = values;
+            this.failure = failure;
+        }
+    }
+}
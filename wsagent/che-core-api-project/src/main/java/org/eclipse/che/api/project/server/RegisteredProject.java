@@ -19,6 +19,7 @@ import org.eclipse.che.api.project.server.type.AttributeValue;
 import org.eclipse.che.api.project.server.type.ProjectTypeDef;
 import org.eclipse.che.api.project.server.type.ProjectTypeRegistry;
 import org.eclipse.che.api.project.server.type.ValueProvider;
+import org.eclipse.che.api.project.server.type.ValueProviderFactory;
 import org.eclipse.che.api.project.server.type.ValueStorageException;
 import org.eclipse.che.api.project.server.type.Variable;
 import org.eclipse.che.api.vfs.Path;
@@ -61,6 +62,8 @@ public class RegisteredProject implements ProjectConfig {
      *         if this project was detected, initialized when "parent" project initialized
      * @param projectTypeRegistry
      *         project type registry
+     * @param valueProviderCache
+     *         cache of values of read-only value providers or null if values are always read from providers
      * @throws ServerException
      *         when path for project is undefined
      */
@@ -68,7 +71,8 @@ public class RegisteredProject implements ProjectConfig {
                       ProjectConfig config,
                       boolean updated,
                       boolean detected,
-                      ProjectTypeRegistry projectTypeRegistry) throws ServerException {
+                      ProjectTypeRegistry projectTypeRegistry,
+                      ValueProviderCache valueProviderCache) throws ServerException {
         problems = new ArrayList<>();
         attributes = new HashMap<>();
 
@@ -102,15 +106,18 @@ public class RegisteredProject implements ProjectConfig {
         types.addTransient(folder);
 
         // 3. initialize attributes
-        initAttributes();
+        initAttributes(valueProviderCache);
     }
 
 
     /**
      * Initialize project attributes.
      * Note: the problem with {@link Problem#code} = 13 will be added when a value for some attribute is not initialized
+     * <p>
+     * Single value provider is created for each factory, so provider may read its source once for all attributes.
      */
-    private void initAttributes() {
+    private void initAttributes(ValueProviderCache valueProviderCache) {
+        final Map<ValueProviderFactory, ValueProvider> valueProviders = new HashMap<>();
 
         // we take only defined attributes, others ignored
         for (Map.Entry<String, Attribute> entry : types.getAttributeDefs().entrySet()) {
@@ -128,12 +135,17 @@ public class RegisteredProject implements ProjectConfig {
                 // value provided
                 if (variable.isValueProvided()) {
 
-                    final ValueProvider valueProvider = variable.getValueProviderFactory().newInstance(folder);
+                    final ValueProviderFactory valueProviderFactory = variable.getValueProviderFactory();
+                    final ValueProvider valueProvider = valueProviders.computeIfAbsent(valueProviderFactory,
+                                                                                       factory -> factory.newInstance(folder));
 
                     if (folder != null) {
 
                         try {
-                            if (!valueProvider.isSettable() || value.isEmpty()) {
+                            if (!valueProvider.isSettable() && valueProviderCache != null) {
+                                // get provided value, possibly cached
+                                value = new AttributeValue(valueProviderCache.getValues(folder, valueProviderFactory, valueProvider, name));
+                            } else if (!valueProvider.isSettable() || value.isEmpty()) {
                                 // get provided value
                                 value = new AttributeValue(valueProvider.getValues(name));
                             } else {
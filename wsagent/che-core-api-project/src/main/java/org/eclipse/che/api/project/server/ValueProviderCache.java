@@ -0,0 +1,192 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2017 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.project.server;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import org.eclipse.che.api.core.ServerException;
+import org.eclipse.che.api.project.server.type.ValueProvider;
+import org.eclipse.che.api.project.server.type.ValueProviderFactory;
+import org.eclipse.che.api.project.server.type.ValueStorageException;
+import org.eclipse.che.api.vfs.Path;
+import org.eclipse.che.api.vfs.VirtualFile;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.util.Collections.unmodifiableList;
+
+/**
+ * Cache of values of attributes provided by read-only {@link ValueProvider}s. Values are keyed by path of project,
+ * factory of provider and name of attribute and are valid while files the factory depends on (see
+ * {@link ValueProviderFactory#getDependencies()}) exist and have the same modification time and length as when values
+ * were read. Values of factories that don't declare dependencies are never cached. Failures of providers are not
+ * cached either. Values read less than {@link #RACY_INTERVAL} after modification of any dependency file are not
+ * cached since file may be modified again within the same tick of modification time.
+ * <p>
+ * Changes of dependency files reported by file watcher evict values of affected projects, see {@link #invalidate(Path)},
+ * so values are not kept when file is changed twice within resolution of modification time.
+ */
+class ValueProviderCache {
+    static final int  MAX_ENTRIES   = 10_000;
+    static final long RACY_INTERVAL = 1000; // 1 second
+
+    private final Cache<Key, CachedValues> values;
+    /** Paths of dependency files of projects which values were cached */
+    private final Set<Path>                dependencyPaths;
+
+    ValueProviderCache() {
+        this.values = CacheBuilder.newBuilder().maximumSize(MAX_ENTRIES).build();
+        this.dependencyPaths = ConcurrentHashMap.newKeySet();
+    }
+
+    /**
+     * Gets values of attribute from cache or from provider if they are not cached or outdated.
+     *
+     * @param folder
+     *         folder of project
+     * @param factory
+     *         factory that created provider
+     * @param provider
+     *         read-only provider of values
+     * @param attributeName
+     *         name of attribute
+     */
+    List<String> getValues(FolderEntry folder,
+                           ValueProviderFactory factory,
+                           ValueProvider provider,
+                           String attributeName) throws ValueStorageException {
+        final List<String> dependencies = factory.getDependencies();
+        if (dependencies.isEmpty()) {
+            return provider.getValues(attributeName);
+        }
+        final long[] stamp = stamp(folder, dependencies);
+        if (stamp == null) {
+            return provider.getValues(attributeName);
+        }
+        final Key key = new Key(folder.getPath(), factory, attributeName);
+        final CachedValues cached = values.getIfPresent(key);
+        if (cached != null && Arrays.equals(cached.stamp, stamp)) {
+            return cached.values;
+        }
+        final long readTime = System.currentTimeMillis();
+        final List<String> provided = provider.getValues(attributeName);
+        if (provided != null && readTime - lastModified(stamp) > RACY_INTERVAL) {
+            for (String dependency : dependencies) {
+                dependencyPaths.add(folder.getPath().newPath(Path.of(dependency)));
+            }
+            values.put(key, new CachedValues(stamp, unmodifiableList(provided)));
+        }
+        return provided;
+    }
+
+    /**
+     * Tests whether change of item with specified path may make cached values outdated, i.e. item is one of dependency
+     * files of project which values are cached.
+     */
+    boolean isDependency(Path path) {
+        return dependencyPaths.contains(path);
+    }
+
+    /** Evicts values of projects that contain item with specified path and of projects under this path. */
+    void invalidate(Path path) {
+        values.asMap().keySet().removeIf(key -> path.isChild(key.projectPath)
+                                                || key.projectPath.isChild(path)
+                                                || key.projectPath.equals(path));
+        dependencyPaths.removeIf(dependency -> dependency.equals(path) || dependency.isChild(path));
+    }
+
+    void invalidateAll() {
+        values.invalidateAll();
+        dependencyPaths.clear();
+    }
+
+    long size() {
+        return values.size();
+    }
+
+    /**
+     * Gets modification time and length of dependency files.
+     *
+     * @return stamp of files or {@code null} if some of files doesn't exist
+     */
+    private long[] stamp(FolderEntry folder, List<String> dependencies) {
+        final long[] stamp = new long[dependencies.size() * 2];
+        try {
+            final VirtualFile projectFolder = folder.getVirtualFile();
+            for (int i = 0; i < dependencies.size(); i++) {
+                final VirtualFile file = projectFolder.getChild(Path.of(dependencies.get(i)));
+                if (file == null || !file.isFile()) {
+                    return null;
+                }
+                stamp[i * 2] = file.getLastModificationDate();
+                stamp[i * 2 + 1] = file.getLength();
+            }
+        } catch (ServerException e) {
+            return null;
+        }
+        return stamp;
+    }
+
+    /** Gets the latest modification time of dependency files from their stamp. */
+    private static long lastModified(long[] stamp) {
+        long lastModified = 0;
+        for (int i = 0; i < stamp.length; i += 2) {
+            lastModified = Math.max(lastModified, stamp[i]);
+        }
+        return lastModified;
+    }
+
+    private static class Key {
+        final Path                 projectPath;
+        final ValueProviderFactory factory;
+        final String               attributeName;
+
+        Key(Path projectPath, ValueProviderFactory factory, String attributeName) {
+            this.projectPath = projectPath;
+            this.factory = factory;
+            this.attributeName = attributeName;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key)o;
+            return projectPath.equals(other.projectPath)
+                   && factory == other.factory
+                   && attributeName.equals(other.attributeName);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(projectPath, System.identityHashCode(factory), attributeName);
+        }
+    }
+
+    private static class CachedValues {
+        final long[]       stamp;
+        final List<String> values;
+
+        CachedValues(long[] stamp, List<String> values) {
+            this.stamp = stamp;
+            this.values = values;
+        }
+    }
+}
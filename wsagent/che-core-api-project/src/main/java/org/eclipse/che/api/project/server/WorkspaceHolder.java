@@ -15,6 +15,7 @@ import org.eclipse.che.api.core.ServerException;
 import org.eclipse.che.api.core.model.project.ProjectConfig;
 import org.eclipse.che.api.core.rest.HttpJsonRequestFactory;
 import org.eclipse.che.api.workspace.server.WorkspaceService;
+import org.eclipse.che.api.workspace.shared.dto.ProjectsUpdateDto;
 import org.eclipse.che.api.workspace.shared.dto.WorkspaceDto;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -25,8 +26,11 @@ import javax.inject.Singleton;
 import javax.ws.rs.core.UriBuilder;
 import java.io.IOException;
 import java.util.List;
+import java.util.stream.Stream;
 
+import static java.util.stream.Collectors.toList;
 import static org.eclipse.che.api.project.server.DtoConverter.asDto;
+import static org.eclipse.che.dto.server.DtoFactory.newDto;
 
 /**
  * For caching and proxy-ing Workspace Configuration.
@@ -142,6 +146,37 @@ public class WorkspaceHolder extends WorkspaceProjectsSyncer {
         }
     }
 
+    /**
+     * Applies all the changes of projects on WS-master side within a single request.
+     *
+     * @param added
+     *         projects to add
+     * @param updated
+     *         projects to update
+     * @param removed
+     *         projects to remove
+     * @throws ServerException
+     */
+    @Override
+    protected void applyChanges(List<ProjectConfig> added,
+                                List<ProjectConfig> updated,
+                                List<ProjectConfig> removed) throws ServerException {
+
+        final UriBuilder builder = UriBuilder.fromUri(apiEndpoint).path(WorkspaceService.class)
+                                             .path(WorkspaceService.class, "updateProjects");
+        if(userToken != null)
+            builder.queryParam("token", userToken);
+        final String href = builder.build(workspaceId).toString();
+        final ProjectsUpdateDto update = newDto(ProjectsUpdateDto.class)
+                .withProjects(Stream.concat(added.stream(), updated.stream()).map(project -> asDto(project)).collect(toList()))
+                .withRemovedPaths(removed.stream().map(ProjectConfig::getPath).collect(toList()));
+        try {
+            httpJsonRequestFactory.fromUrl(href).usePostMethod().setBody(update).request();
+        } catch (IOException | ApiException e) {
+            throw new ServerException(e.getMessage());
+        }
+    }
+
     /**
      * @return WorkspaceDto
      * @throws ServerException
@@ -14,7 +14,9 @@ import org.eclipse.che.api.core.ServerException;
 import org.eclipse.che.api.core.model.project.ProjectConfig;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Synchronizer for Project Configurations stored in Workspace Configuration with Agent's state
@@ -24,30 +26,32 @@ import java.util.List;
 public abstract class WorkspaceProjectsSyncer {
 
     /**
-     * Synchronizes Project Config state on Agent and Master
+     * Synchronizes Project Config state on Agent and Master.
+     * Projects stored in Workspace Config are fetched on each synchronization, so changes made by other clients
+     * are taken into account. Only projects which were changed or removed are sent to Master,
+     * Master isn't updated at all if there are no such projects.
+     *
      * @param projectRegistry project registry
      * @throws ServerException
      */
-    public final void sync(ProjectRegistry projectRegistry) throws ServerException {
-
-        List<? extends ProjectConfig> remote = getProjects();
+    public final synchronized void sync(ProjectRegistry projectRegistry) throws ServerException {
+        final Set<String> remote = new HashSet<>();
 
         // check on removed
-        List <ProjectConfig> removed = new ArrayList<>();
-        for(ProjectConfig r  : remote) {
-            if(projectRegistry.getProject(r.getPath()) == null)
+        final List<ProjectConfig> removed = new ArrayList<>();
+        for (ProjectConfig r : getProjects()) {
+            remote.add(r.getPath());
+            if (projectRegistry.getProject(r.getPath()) == null) {
                 removed.add(r);
+            }
         }
 
-        for(ProjectConfig r : removed)
-            removeProject(r);
-
-
         // update or add
-        for(RegisteredProject project : projectRegistry.getProjects()) {
-
-            if(!project.isSynced() && !project.isDetected()) {
-
+        final List<RegisteredProject> changedProjects = new ArrayList<>();
+        final List<ProjectConfig> added = new ArrayList<>();
+        final List<ProjectConfig> updated = new ArrayList<>();
+        for (RegisteredProject project : projectRegistry.getProjects()) {
+            if (!project.isSynced() && !project.isDetected()) {
                 final ProjectConfig config = new NewProjectConfigImpl(project.getPath(),
                                                                       project.getType(),
                                                                       project.getMixins(),
@@ -56,25 +60,48 @@ public abstract class WorkspaceProjectsSyncer {
                                                                       project.getPersistableAttributes(),
                                                                       null,
                                                                       project.getSource());
-
-                boolean found = false;
-                for(ProjectConfig r  : remote) {
-                    if(r.getPath().equals(project.getPath())) {
-                        updateProject(config);
-                        found = true;
-                    }
+                if (remote.contains(project.getPath())) {
+                    updated.add(config);
+                } else {
+                    added.add(config);
                 }
-
-                if(!found)
-                    addProject(config);
-
-                project.setSync();
-
+                changedProjects.add(project);
             }
+        }
+
+        if (removed.isEmpty() && added.isEmpty() && updated.isEmpty()) {
+            return;
+        }
 
+        applyChanges(added, updated, removed);
 
+        for (RegisteredProject project : changedProjects) {
+            project.setSync();
         }
+    }
 
+    /**
+     * Applies changes of projects to Workspace Config.
+     * Default implementation adds, updates and removes projects one by one,
+     * implementations which can apply all the changes at once should override it.
+     *
+     * @param added configs of projects to add
+     * @param updated configs of projects to update
+     * @param removed configs of projects to remove
+     * @throws ServerException
+     */
+    protected void applyChanges(List<ProjectConfig> added,
+                                List<ProjectConfig> updated,
+                                List<ProjectConfig> removed) throws ServerException {
+        for (ProjectConfig r : removed) {
+            removeProject(r);
+        }
+        for (ProjectConfig config : updated) {
+            updateProject(config);
+        }
+        for (ProjectConfig config : added) {
+            addProject(config);
+        }
     }
 
     /**
@@ -11,7 +11,9 @@
 package org.eclipse.che.api.project.server.importer;
 
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
 
 import org.eclipse.che.api.core.util.LineConsumer;
 import org.eclipse.che.commons.lang.concurrent.LoggingUncaughtExceptionHandler;
@@ -21,70 +23,148 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.BlockingQueue;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import static java.util.Collections.singletonList;
+
 /**
- * Send project import output to WS by skipping output messages written below the delay specified.
+ * Send project import output to WS. All lines written within the delay specified are sent in one message.
+ * <p>
+ * Writing of line never blocks importer. Total length of lines sent in one message is limited, when the limit is
+ * exceeded further lines written within the same delay are skipped except the last one, and number of skipped lines
+ * is reported in the message. Message has the following fields:
+ * <ul>
+ * <li>{@code num} - number of the last line of the message in the whole output, includes skipped lines</li>
+ * <li>{@code line} - the last line</li>
+ * <li>{@code lines} - all the lines of the message in order, present if there is more than one line</li>
+ * <li>{@code skipped} - number of lines skipped before the last line, present if some lines were skipped</li>
+ * <li>{@code project} - name of the project</li>
+ * </ul>
  */
 public class ProjectImportOutputWSLineConsumer implements LineConsumer {
     private static final Logger LOG = LoggerFactory.getLogger(ProjectImportOutputWSLineConsumer.class);
 
+    /** Default max total length of lines sent in one message. */
+    public static final int DEFAULT_MAX_MESSAGE_SIZE = 64 * 1024;
+
     protected final AtomicInteger            lineCounter;
     protected final String                   projectName;
     protected final String                   workspaceId;
-    protected final BlockingQueue<String>    lineToSendQueue;
     protected final ScheduledExecutorService executor;
 
+    private final int          maxMessageSize;
+    private final Object       lock;
+    private       List<String> pendingLines;
+    private       int          pendingSize;
+    private       String       lastSkippedLine;
+    private       int          skippedLines;
+
     public ProjectImportOutputWSLineConsumer(String projectName, String workspaceId, int delayBetweenMessages) {
+        this(projectName, workspaceId, delayBetweenMessages, DEFAULT_MAX_MESSAGE_SIZE);
+    }
+
+    /**
+     * @param maxMessageSize
+     *         max total length of lines sent in one message, lines written over this limit within the same delay are
+     *         skipped except the last one
+     */
+    public ProjectImportOutputWSLineConsumer(String projectName, String workspaceId, int delayBetweenMessages, int maxMessageSize) {
         this.projectName = projectName;
         this.workspaceId = workspaceId;
-        lineToSendQueue = new ArrayBlockingQueue<>(1024);
+        this.maxMessageSize = maxMessageSize;
+        lock = new Object();
+        pendingLines = new ArrayList<>();
         executor = Executors.newSingleThreadScheduledExecutor(
                 new ThreadFactoryBuilder().setNameFormat(ProjectImportOutputWSLineConsumer.class.getSimpleName() + "-%d")
                                           .setDaemon(true)
                                           .setUncaughtExceptionHandler(LoggingUncaughtExceptionHandler.getInstance())
                                           .build());
-        executor.scheduleAtFixedRate(new Runnable() {
-            @Override
-            public void run() {
-                String lineToSend = null;
-                while (!lineToSendQueue.isEmpty()) {
-                    lineToSend = lineToSendQueue.poll();
-                }
-                if (lineToSend == null) {
-                    return;
-                }
-                sendMessage(lineToSend);
-            }
-        }, 0, delayBetweenMessages, TimeUnit.MILLISECONDS);
+        executor.scheduleAtFixedRate(this::sendPendingLines,
+                                     delayBetweenMessages,
+                                     delayBetweenMessages,
+                                     TimeUnit.MILLISECONDS);
         lineCounter = new AtomicInteger(1);
     }
 
     @Override
     public void close() throws IOException {
-        executor.shutdown();
+        if (!executor.isShutdown()) {
+            // send the rest of output before stopping
+            executor.execute(this::sendPendingLines);
+            executor.shutdown();
+        }
     }
 
     @Override
     public void writeLine(String line) throws IOException {
-        try {
-            lineToSendQueue.put(line);
-        } catch (InterruptedException ignored) {
-            // ignore if interrupted
+        synchronized (lock) {
+            if (lastSkippedLine == null && (pendingLines.isEmpty() || pendingSize + line.length() <= maxMessageSize)) {
+                pendingLines.add(line);
+                pendingSize += line.length();
+            } else {
+                if (lastSkippedLine != null) {
+                    skippedLines++;
+                }
+                lastSkippedLine = line;
+            }
         }
     }
 
+    /** Sends lines written since the previous call in one message. */
+    protected void sendPendingLines() {
+        final List<String> lines;
+        final int skipped;
+        synchronized (lock) {
+            if (pendingLines.isEmpty()) {
+                return;
+            }
+            lines = pendingLines;
+            if (lastSkippedLine != null) {
+                lines.add(lastSkippedLine);
+            }
+            skipped = skippedLines;
+            pendingLines = new ArrayList<>();
+            pendingSize = 0;
+            lastSkippedLine = null;
+            skippedLines = 0;
+        }
+        if (skipped > 0) {
+            LOG.debug("{} lines of import output of project {} are skipped", skipped, projectName);
+        }
+        sendMessage(lines, skipped);
+    }
+
     protected void sendMessage(String line) {
+        sendMessage(singletonList(line), 0);
+    }
+
+    /**
+     * Sends lines in one message.
+     *
+     * @param lines
+     *         lines to send, not empty
+     * @param skipped
+     *         number of lines skipped before the last line
+     */
+    protected void sendMessage(List<String> lines, int skipped) {
         final ChannelBroadcastMessage bm = new ChannelBroadcastMessage();
         bm.setChannel("importProject:output");
         JsonObject json = new JsonObject();
-        json.addProperty("num", lineCounter.getAndIncrement());
-        json.addProperty("line", line);
+        json.addProperty("num", lineCounter.getAndAdd(lines.size() + skipped) + lines.size() + skipped - 1);
+        json.addProperty("line", lines.get(lines.size() - 1));
+        if (lines.size() > 1) {
+            final JsonArray jsonLines = new JsonArray();
+            lines.forEach(line -> jsonLines.add(new JsonPrimitive(line)));
+            json.add("lines", jsonLines);
+        }
+        if (skipped > 0) {
+            json.addProperty("skipped", skipped);
+        }
         json.addProperty("project", projectName);
         bm.setBody(json.toString());
         sendMessageToWS(bm);
@@ -19,6 +19,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 
 import static com.google.common.collect.Maps.newHashMap;
 import static java.lang.String.format;
@@ -173,6 +174,20 @@ public abstract class ProjectTypeDef implements ProjectType {
     }
 
     public ProjectTypeResolution resolveSources(FolderEntry projectFolder) {
+        return resolveSources(projectFolder, factory -> factory.newInstance(projectFolder));
+    }
+
+    /**
+     * Estimates whether sources of the folder match this project type.
+     *
+     * @param projectFolder
+     *         folder to estimate
+     * @param valueProviders
+     *         gives value provider of factory for the folder, so providers may be shared between resolutions of
+     *         several project types
+     */
+    public ProjectTypeResolution resolveSources(FolderEntry projectFolder,
+                                                Function<ValueProviderFactory, ValueProvider> valueProviders) {
         Map<String, Value> matchAttrs = new HashMap<>();
         for (Map.Entry<String, Attribute> entry : attributes.entrySet()) {
             Attribute attr = entry.getValue();
@@ -185,7 +200,7 @@ public abstract class ProjectTypeDef implements ProjectType {
                     Value value;
                     String errorMessage = "";
                     try {
-                        value = new AttributeValue(factory.newInstance(projectFolder).getValues(name));
+                        value = new AttributeValue(valueProviders.apply(factory).getValues(name));
                     } catch (ValueStorageException e) {
                         value = null;
                         errorMessage = e.getLocalizedMessage();
@@ -12,6 +12,9 @@ package org.eclipse.che.api.project.server.type;
 
 import org.eclipse.che.api.project.server.FolderEntry;
 
+import java.util.Collections;
+import java.util.List;
+
 /**
  * Factory for {@link ValueProvider}.
  *
@@ -25,4 +28,13 @@ public interface ValueProviderFactory {
      * @param projectFolder
      */
     ValueProvider newInstance(FolderEntry projectFolder);
+
+    /**
+     * Gets paths, relative to project folder, of files which values of read-only providers of this factory depend on,
+     * e.g. pom.xml. Values are cached while all these files exist and their modification time and length don't
+     * change. If list is empty values are never cached.
+     */
+    default List<String> getDependencies() {
+        return Collections.emptyList();
+    }
 }
@@ -0,0 +1,220 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2017 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.vfs;
+
+import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import org.eclipse.che.api.core.ConflictException;
+import org.eclipse.che.api.core.ForbiddenException;
+import org.eclipse.che.api.core.ServerException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Writes entries of archive to folder. Entries are read sequentially by the calling thread, folders are created by
+ * the calling thread in order of entries, so folder always exists before any file is written to it. If extractor is
+ * created with more than one thread, content of files which size doesn't exceed {@link #MAX_PARALLEL_ENTRY_SIZE} is
+ * read into memory and written by pool of writer threads while the calling thread reads next entries, bigger files
+ * are written by the calling thread. Number of files written ahead of the calling thread is bounded, so memory usage
+ * doesn't depend on size of archive. Entries with the same path are written in order they appear in archive.
+ */
+class ArchiveExtractor implements AutoCloseable {
+    static final int MAX_PARALLEL_ENTRY_SIZE = 1024 * 1024; // 1 MB
+
+    private static final Logger LOG = LoggerFactory.getLogger(ArchiveExtractor.class);
+
+    private static final int ENTRIES_AHEAD_PER_THREAD    = 4;
+    private static final int TERMINATION_TIMEOUT_SECONDS = 30;
+
+    private final VirtualFile             folder;
+    private final boolean                 overwrite;
+    private final int                     stripNumber;
+    private final ExecutorService         executor;
+    private final int                     maxEntriesAhead;
+    private final Deque<PendingWrite>     pendingWrites;
+    private final Map<Path, PendingWrite> pendingWritesByPath;
+    private final Map<Path, VirtualFile>  folders;
+
+    /**
+     * @param folder
+     *         folder to extract archive to
+     * @param overwrite
+     *         overwrite existing files
+     * @param stripNumber
+     *         strip number leading components from file names on extraction
+     * @param threads
+     *         number of threads that write files in parallel, if {@code 1} files are written sequentially by the
+     *         calling thread
+     */
+    ArchiveExtractor(VirtualFile folder, boolean overwrite, int stripNumber, int threads) {
+        this.folder = folder;
+        this.overwrite = overwrite;
+        this.stripNumber = stripNumber;
+        this.executor = threads > 1 ? Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder().setDaemon(true)
+                                                                                                       .setNameFormat("ArchiveExtractor-%d")
+                                                                                                       .build())
+                                    : null;
+        this.maxEntriesAhead = threads * ENTRIES_AHEAD_PER_THREAD;
+        this.pendingWrites = new ArrayDeque<>();
+        this.pendingWritesByPath = new HashMap<>();
+        this.folders = new HashMap<>();
+    }
+
+    /**
+     * Writes entry of archive.
+     *
+     * @param name
+     *         name of entry in archive
+     * @param isDirectory
+     *         whether entry is directory
+     * @param content
+     *         content of entry, stream is read before method returns and isn't closed
+     */
+    void extract(String name, boolean isDirectory, InputStream content)
+            throws IOException, ForbiddenException, ConflictException, ServerException {
+        Path relativePath = Path.of(name);
+        if (stripNumber > 0) {
+            if (relativePath.length() <= stripNumber) {
+                return;
+            }
+            relativePath = relativePath.subPath(stripNumber);
+        }
+
+        if (isDirectory) {
+            getOrCreateFolder(relativePath);
+            return;
+        }
+
+        final VirtualFile extractFolder = relativePath.length() > 1 ? getOrCreateFolder(relativePath.getParent()) : folder;
+        final PendingWrite previous = pendingWritesByPath.get(relativePath);
+        if (previous != null) {
+            // the same file appears in archive twice, second entry is written after the first one
+            awaitWrite(previous);
+        }
+        final String fileName = relativePath.getName();
+        final VirtualFile file = extractFolder.getChild(Path.of(fileName));
+        if (file != null && !overwrite) {
+            throw new ConflictException(String.format("File '%s' already exists", file.getPath()));
+        }
+
+        if (executor == null) {
+            write(extractFolder, fileName, file, content);
+            return;
+        }
+        final byte[] head = ByteStreams.toByteArray(ByteStreams.limit(content, MAX_PARALLEL_ENTRY_SIZE + 1));
+        if (head.length > MAX_PARALLEL_ENTRY_SIZE) {
+            write(extractFolder, fileName, file, new SequenceInputStream(new ByteArrayInputStream(head), content));
+            return;
+        }
+        final PendingWrite pendingWrite = new PendingWrite(relativePath, executor.submit(() -> {
+            write(extractFolder, fileName, file, new ByteArrayInputStream(head));
+            return null;
+        }));
+        pendingWrites.add(pendingWrite);
+        pendingWritesByPath.put(relativePath, pendingWrite);
+        while (pendingWrites.size() > maxEntriesAhead) {
+            awaitWrite(pendingWrites.peek());
+        }
+    }
+
+    /** Waits until all files are written. */
+    void finish() throws IOException, ForbiddenException, ConflictException, ServerException {
+        while (!pendingWrites.isEmpty()) {
+            awaitWrite(pendingWrites.peek());
+        }
+    }
+
+    /** Stops writer threads, waits until files that are being written are done if extraction is failed. */
+    @Override
+    public void close() {
+        if (executor != null) {
+            executor.shutdownNow();
+            try {
+                if (!executor.awaitTermination(TERMINATION_TIMEOUT_SECONDS, SECONDS)) {
+                    LOG.warn("Unable terminate writer threads of extraction to {}", folder.getPath());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private VirtualFile getOrCreateFolder(Path relativePath) throws ForbiddenException, ConflictException, ServerException {
+        VirtualFile child = folders.get(relativePath);
+        if (child == null) {
+            child = folder.getChild(relativePath);
+            if (child == null) {
+                child = folder.createFolder(relativePath.toString());
+            }
+            folders.put(relativePath, child);
+        }
+        return child;
+    }
+
+    private void write(VirtualFile parent, String fileName, VirtualFile file, InputStream content)
+            throws ForbiddenException, ConflictException, ServerException {
+        if (file == null) {
+            parent.createFile(fileName, content);
+        } else {
+            file.updateContent(content);
+        }
+    }
+
+    private void awaitWrite(PendingWrite pendingWrite) throws IOException, ForbiddenException, ConflictException, ServerException {
+        try {
+            pendingWrite.future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServerException("Extraction is interrupted");
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof ServerException) {
+                throw (ServerException)cause;
+            } else if (cause instanceof ForbiddenException) {
+                throw (ForbiddenException)cause;
+            } else if (cause instanceof ConflictException) {
+                throw (ConflictException)cause;
+            } else if (cause instanceof IOException) {
+                throw (IOException)cause;
+            }
+            throw new ServerException(cause.getMessage(), cause);
+        } finally {
+            pendingWrites.remove(pendingWrite);
+            pendingWritesByPath.remove(pendingWrite.path, pendingWrite);
+        }
+    }
+
+    private static class PendingWrite {
+        final Path      path;
+        final Future<?> future;
+
+        PendingWrite(Path path, Future<?> future) {
+            this.path = path;
+            this.future = future;
+        }
+    }
+}
@@ -11,14 +11,36 @@
 package org.eclipse.che.api.vfs;
 
 public class ArchiverFactory {
+    private final int compressionThreads;
+    private final int extractionThreads;
+
+    public ArchiverFactory() {
+        this(1);
+    }
+
+    public ArchiverFactory(int compressionThreads) {
+        this(compressionThreads, 1);
+    }
+
+    /**
+     * @param compressionThreads
+     *         number of threads that compress entries of zip archive in parallel
+     * @param extractionThreads
+     *         number of threads that write files extracted from archive in parallel
+     */
+    public ArchiverFactory(int compressionThreads, int extractionThreads) {
+        this.compressionThreads = compressionThreads;
+        this.extractionThreads = extractionThreads;
+    }
+
     public Archiver createArchiver(VirtualFile folder, String archiveType) {
         if (archiveType == null) {
             throw new IllegalArgumentException("Archive type might not be null");
         }
         if ("zip".equals(archiveType.toLowerCase())) {
-            return new ZipArchiver(folder);
+            return new ZipArchiver(folder, compressionThreads, extractionThreads);
         } else if ("tar".equals(archiveType.toLowerCase())) {
-            return new TarArchiver(folder);
+            return new TarArchiver(folder, extractionThreads);
         }
         throw new IllegalArgumentException(String.format("Unsupported archive type %s", archiveType));
     }
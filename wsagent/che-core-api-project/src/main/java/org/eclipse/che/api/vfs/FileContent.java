@@ -0,0 +1,63 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2017 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.vfs;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Content of file opened for reading. Unlike {@link VirtualFile#getContent()} content is not copied in any
+ * intermediate storage, it is read directly from the file when requested. Content remembers version of the file
+ * at the moment when it was opened, so concurrent modifications of the file may be detected with
+ * {@link #isModified()}. Content must be closed after use.
+ *
+ * @see VirtualFile#openContent()
+ */
+public interface FileContent extends Closeable {
+    /** Length of content at the moment when it was opened. */
+    long getLength();
+
+    /**
+     * Writes whole content to the stream. Content of local file is transferred by file channel, so it doesn't
+     * occupy heap.
+     *
+     * @return number of written bytes
+     * @throws IOException
+     *         if an i/o error occurs or file is modified while its content is being transferred
+     */
+    long transferTo(OutputStream out) throws IOException;
+
+    /**
+     * Reads whole content with the reader. Reader gets content as read-only buffer, content of big local files is
+     * memory mapped, so it doesn't occupy heap. Buffer is valid only while reader is running.
+     *
+     * @return result of reader
+     * @throws IOException
+     *         if an i/o error occurs, content is too big to be represented as single buffer or file is modified
+     *         while reader is running
+     */
+    <T> T read(BufferReader<T> reader) throws IOException;
+
+    /**
+     * Checks whether file is modified since content was opened.
+     *
+     * @throws IOException
+     *         if an i/o error occurs
+     */
+    boolean isModified() throws IOException;
+
+    /** Reader of content represented as buffer. */
+    interface BufferReader<T> {
+        T read(ByteBuffer content) throws IOException;
+    }
+}
@@ -0,0 +1,91 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2017 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.vfs;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Cache of hash sums of files that outlives single {@link HashSumsCounter}. Hash sum is keyed by path of file and
+ * is valid while length and modification time of file are the same as at the moment when hash sum was counted, so
+ * the cache doesn't need to be notified about changes of files.
+ * <p>
+ * Modification time has limited resolution and file may be modified more than once within the same tick without
+ * changing its length. Hash sums of files modified less than {@link #RACY_INTERVAL} before counting are not cached
+ * for that reason.
+ * <p>
+ * Instance of cache must be used with the same hash function.
+ */
+public class HashSumsCache {
+    static final long RACY_INTERVAL = 1000; // 1 second
+
+    private final Cache<Path, HashSum> hashSums;
+
+    public HashSumsCache(int maxSize) {
+        hashSums = CacheBuilder.newBuilder()
+                               .concurrencyLevel(8)
+                               .maximumSize(maxSize)
+                               .build();
+    }
+
+    /**
+     * Gets cached hash sum of file.
+     *
+     * @return hash sum represented as HEX String or {@code null} if hash sum of file with specified length and
+     * modification time isn't cached
+     */
+    public String get(Path path, long length, long lastModified) {
+        final HashSum hashSum = hashSums.getIfPresent(path);
+        if (hashSum != null && hashSum.length == length && hashSum.lastModified == lastModified) {
+            return hashSum.value;
+        }
+        return null;
+    }
+
+    /**
+     * Caches hash sum of file.
+     *
+     * @param length
+     *         length of file before its content was read
+     * @param lastModified
+     *         modification time of file before its content was read
+     * @param readTime
+     *         time when content of file was read
+     */
+    public void put(Path path, long length, long lastModified, long readTime, String value) {
+        if (readTime - lastModified > RACY_INTERVAL) {
+            hashSums.put(path, new HashSum(length, lastModified, value));
+        } else {
+            hashSums.invalidate(path);
+        }
+    }
+
+    /** Gets number of cached hash sums. */
+    public long size() {
+        return hashSums.size();
+    }
+
+    public void invalidateAll() {
+        hashSums.invalidateAll();
+    }
+
+    private static class HashSum {
+        final long   length;
+        final long   lastModified;
+        final String value;
+
+        HashSum(long length, long lastModified, String value) {
+            this.length = length;
+            this.lastModified = lastModified;
+            this.value = value;
+        }
+    }
+}
@@ -10,34 +10,59 @@
  *******************************************************************************/
 package org.eclipse.che.api.vfs;
 
+import com.google.common.base.Throwables;
 import com.google.common.hash.HashFunction;
 import com.google.common.hash.Hasher;
-import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.Futures;
 
 import org.eclipse.che.api.core.ForbiddenException;
 import org.eclipse.che.api.core.ServerException;
 import org.eclipse.che.commons.lang.Pair;
 
 import java.io.IOException;
-import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 
 import static com.google.common.collect.Lists.newArrayList;
-import static com.google.common.hash.Funnels.asOutputStream;
+import static com.google.common.collect.Lists.newArrayListWithCapacity;
 
 /**
  * Traverses recursively all files in folder given in constructor and calculates hash sum for each file.
  * Algorithm specified by {@code hashFunction} is used for calculating hash sum.
+ * <p>
+ * Folder is traversed in the calling thread, hash sums of files may be calculated in the {@code executor}. Hash
+ * sums of files that are not modified since previous calculation are taken from the {@link HashSumsCache} without
+ * reading content of files.
  */
 public class HashSumsCounter implements VirtualFileVisitor {
-    private final VirtualFile                folder;
-    private final HashFunction               hashFunction;
-    private final List<Pair<String, String>> hashSums;
+    private static final int HASH_BUFFER_SIZE = 8192;
 
+    private final VirtualFile                        folder;
+    private final HashFunction                       hashFunction;
+    private final Executor                           executor;
+    private final HashSumsCache                      cache;
+    private final List<Future<Pair<String, String>>> hashSums;
 
     public HashSumsCounter(VirtualFile folder, HashFunction hashFunction) {
+        this(folder, hashFunction, null, null);
+    }
+
+    /**
+     * @param executor
+     *         executor for calculation of hash sums, if {@code null} hash sums are calculated in the calling thread
+     * @param cache
+     *         cache of hash sums, if {@code null} hash sums of all files are calculated
+     */
+    public HashSumsCounter(VirtualFile folder, HashFunction hashFunction, Executor executor, HashSumsCache cache) {
         this.folder = folder;
         this.hashFunction = hashFunction;
+        this.executor = executor;
+        this.cache = cache;
         hashSums = newArrayList();
     }
 
@@ -50,22 +75,50 @@ public class HashSumsCounter implements VirtualFileVisitor {
      * </pre>
      */
     public List<Pair<String, String>> countHashSums() throws ServerException {
-        folder.accept(this);
-        return hashSums;
+        try {
+            folder.accept(this);
+            final List<Pair<String, String>> result = newArrayListWithCapacity(hashSums.size());
+            for (Future<Pair<String, String>> hashSum : hashSums) {
+                result.add(hashSum.get());
+            }
+            return result;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServerException("Interrupted while counting hash sums");
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof ServerException) {
+                throw (ServerException)cause;
+            }
+            Throwables.propagateIfPossible(cause);
+            throw new ServerException(cause.getMessage(), cause);
+        } finally {
+            for (Future<Pair<String, String>> hashSum : hashSums) {
+                hashSum.cancel(false);
+            }
+        }
     }
 
     @Override
     public void visit(VirtualFile virtualFile) throws ServerException {
         if (virtualFile.isFile()) {
-            try (InputStream in = virtualFile.getContent()) {
-                final Hasher hasher = hashFunction.newHasher();
-                ByteStreams.copy(in, asOutputStream(hasher));
-                final String hexHash = hasher.hash().toString();
-                hashSums.add(Pair.of(hexHash, virtualFile.getPath().subPath(folder.getPath()).toString()));
-            } catch (IOException e) {
-                throw new ServerException(e);
-            } catch (ForbiddenException e) {
-                throw new ServerException(e.getServiceError());
+            final String relativePath = virtualFile.getPath().subPath(folder.getPath()).toString();
+            if (cache != null) {
+                final long length = virtualFile.getLength();
+                final long lastModified = virtualFile.getLastModificationDate();
+                final String cached = cache.get(virtualFile.getPath(), length, lastModified);
+                if (cached != null) {
+                    hashSums.add(Futures.immediateFuture(Pair.of(cached, relativePath)));
+                } else {
+                    schedule(() -> {
+                        final long readTime = System.currentTimeMillis();
+                        final String hexHash = countHashSum(virtualFile);
+                        cache.put(virtualFile.getPath(), length, lastModified, readTime, hexHash);
+                        return Pair.of(hexHash, relativePath);
+                    });
+                }
+            } else {
+                schedule(() -> Pair.of(countHashSum(virtualFile), relativePath));
             }
         } else {
             for (VirtualFile child : virtualFile.getChildren()) {
@@ -73,4 +126,35 @@ public class HashSumsCounter implements VirtualFileVisitor {
             }
         }
     }
+
+    private void schedule(Callable<Pair<String, String>> task) {
+        final FutureTask<Pair<String, String>> future = new FutureTask<>(task);
+        hashSums.add(future);
+        if (executor == null) {
+            future.run();
+        } else {
+            executor.execute(future);
+        }
+    }
+
+    private String countHashSum(VirtualFile file) throws ServerException {
+        try (FileContent content = file.openContent()) {
+            return content.read(this::hash);
+        } catch (IOException e) {
+            throw new ServerException(e);
+        } catch (ForbiddenException e) {
+            throw new ServerException(e.getServiceError());
+        }
+    }
+
+    private String hash(ByteBuffer content) {
+        final Hasher hasher = hashFunction.newHasher();
+        final byte[] buffer = new byte[Math.min(HASH_BUFFER_SIZE, content.remaining())];
+        while (content.hasRemaining()) {
+            final int length = Math.min(buffer.length, content.remaining());
+            content.get(buffer, 0, length);
+            hasher.putBytes(buffer, 0, length);
+        }
+        return hasher.hash().toString();
+    }
 }
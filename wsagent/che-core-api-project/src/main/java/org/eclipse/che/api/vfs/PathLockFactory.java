@@ -10,9 +10,33 @@
  *******************************************************************************/
 package org.eclipse.che.api.vfs;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static java.lang.Thread.currentThread;
+
 /**
  * Advisory file locks. It does not prevent access to the file from other programs.
  * <p/>
+ * Lock of a path excludes locks of its ancestors and descendants held by other threads: exclusive lock conflicts with
+ * any such lock and shared lock conflicts with exclusive ones. Locks are managed hierarchically. Each locked path has
+ * its own lock node and a thread that locks path first takes intention locks on all its ancestors from the root
+ * down, so conflicts with descendants are detected on the nearest common node without scanning of all held locks.
+ * Thread never waits while holding locks taken by the same acquisition: when some node along the path is busy the
+ * thread releases intention locks of ancestors, waits for the busy node and starts again from the root.
+ * Lock nodes are kept in concurrent table only while somebody holds or waits for them. Waiting threads are queued
+ * per node in arrival order and each of them has own condition, so release of a lock wakes up only the thread that
+ * is next in queue of the released node.
+ * <p/>
  * Usage:
  * <pre>
  *      PathLockFactory lockFactory = ...
@@ -35,10 +59,25 @@ package org.eclipse.che.api.vfs;
  */
 public final class PathLockFactory {
     private static final int MAX_RECURSIVE_LOCKS = (1 << 10) - 1;
+
+    // Lock modes of node. Intention modes are taken on ancestors of locked path.
+    private static final int INTENTION_SHARED    = 0;
+    private static final int INTENTION_EXCLUSIVE = 1;
+    private static final int SHARED              = 2;
+    private static final int EXCLUSIVE           = 3;
+    private static final int MODES               = 4;
+
+    /** COMPATIBLE[requested][held] tells whether lock in requested mode may be granted while other thread holds lock in held mode. */
+    private static final boolean[][] COMPATIBLE = {
+            {true, true, true, false},
+            {true, true, false, false},
+            {true, false, true, false},
+            {false, false, false, false}
+    };
+
     /** Max number of threads allowed to access file. */
-    private final int maxThreads;
-    // Tail of the "lock table".
-    private final Node tail = new Node(null, 0, null);
+    private final int                       maxThreads;
+    private final ConcurrentMap<Path, Node> nodes;
 
     /**
      * @param maxThreads
@@ -50,145 +89,288 @@ public final class PathLockFactory {
             throw new IllegalArgumentException();
         }
         this.maxThreads = maxThreads;
+        this.nodes = new ConcurrentHashMap<>();
     }
 
     public PathLock getLock(Path path, boolean exclusive) {
-        return new PathLock(path, exclusive ? maxThreads : 1);
+        return new PathLock(path, exclusive);
     }
 
-    private synchronized void acquire(Path path, int permits) {
-        while (!tryAcquire(path, permits)) {
+    private void acquire(Path path, boolean exclusive, long timeoutMilliseconds) {
+        final long deadline = timeoutMilliseconds < 0 ? Long.MAX_VALUE : System.nanoTime() + timeoutMilliseconds * 1_000_000;
+        final int intentionMode = exclusive ? INTENTION_EXCLUSIVE : INTENTION_SHARED;
+        final int mode = exclusive ? EXCLUSIVE : SHARED;
+        // Ancestors are always locked from the root down, so threads can't lock the same nodes in different order
+        final List<Path> paths = ancestors(path);
+        paths.add(path);
+        boolean retry = false;
+        while (true) {
+            final List<Node> locked = new ArrayList<>(paths.size());
+            Node blocked = null;
+            int blockedMode = mode;
+            try {
+                for (int i = 0; i < paths.size() && blocked == null; i++) {
+                    final int lockMode = i == paths.size() - 1 ? mode : intentionMode;
+                    final Node node = pin(paths.get(i));
+                    boolean granted = false;
+                    try {
+                        granted = node.tryLock(lockMode, retry);
+                    } finally {
+                        if (granted) {
+                            locked.add(node);
+                        } else {
+                            blocked = node;
+                            blockedMode = lockMode;
+                        }
+                    }
+                }
+            } catch (RuntimeException | Error e) {
+                if (blocked != null) {
+                    unpin(blocked);
+                }
+                unlockAll(locked, intentionMode);
+                throw e;
+            }
+            if (blocked == null) {
+                return;
+            }
+            // Wait without holding intention locks of ancestors. Otherwise other thread that holds lock of the blocked
+            // node may in its turn wait for ancestor behind intention lock of this thread and neither of them proceeds.
+            unlockAll(locked, intentionMode);
             try {
-                wait();
-            } catch (InterruptedException e) {
-                notifyAll();
-                throw new RuntimeException(e);
+                blocked.await(blockedMode, deadline, path);
+            } finally {
+                unpin(blocked);
             }
+            retry = true;
         }
     }
 
-    private synchronized void acquire(Path path, int permits, long timeoutMilliseconds) {
-        final long endTime = System.currentTimeMillis() + timeoutMilliseconds;
-        long waitTime = timeoutMilliseconds;
-        while (!tryAcquire(path, permits)) {
-            try {
-                wait(waitTime);
-            } catch (InterruptedException e) {
-                notifyAll();
-                throw new RuntimeException(e);
-            }
-            long now = System.currentTimeMillis();
-            if (now >= endTime) {
-                throw new RuntimeException(String.format("Get lock timeout for '%s'. ", path));
-            }
-            waitTime = endTime - now;
+    /** Releases intention locks of ancestors taken by failed attempt to lock path. */
+    private void unlockAll(List<Node> locked, int intentionMode) {
+        for (int i = locked.size() - 1; i >= 0; i--) {
+            unlock(locked.get(i), intentionMode);
         }
     }
 
-    private synchronized void release(Path path, int permits) {
-        Node node = tail;
-        while (node != null) {
-            Node prev = node.prev;
-            if (prev == null) {
-                break;
-            }
-            if (prev.path.equals(path)) {
-                if (prev.threadDeep == 1) {
-                    // If last recursive lock.
-                    prev.permits += permits;
-                    if (prev.permits >= maxThreads) {
-                        // remove
-                        node.prev = prev.prev;
-                        prev.prev = null;
-                    }
-                } else {
-                    --prev.threadDeep;
-                }
-            }
-            node = node.prev;
+    private void release(Path path, boolean exclusive) {
+        unlock(nodes.get(path), exclusive ? EXCLUSIVE : SHARED);
+        final int intentionMode = exclusive ? INTENTION_EXCLUSIVE : INTENTION_SHARED;
+        for (Path ancestor = path.getParent(); ancestor != null; ancestor = ancestor.getParent()) {
+            unlock(nodes.get(ancestor), intentionMode);
         }
-        notifyAll();
-        //System.err.printf(">>>>> release: %s : %d%n", path, permits);
     }
 
-    private boolean tryAcquire(Path path, int permits) {
-        //System.err.printf(">>>>> acquire: %s : %d%n", path, permits);
-        Node node = tail.prev;
-        final Thread current = Thread.currentThread();
-        while (node != null) {
-            if (node.path.equals(path)) {
-                if (node.threadId == current.getId()) {
+    /** Ancestors of path from the root down to the parent of path. */
+    private static List<Path> ancestors(Path path) {
+        final List<Path> ancestors = new ArrayList<>(path.length());
+        for (Path ancestor = path.getParent(); ancestor != null; ancestor = ancestor.getParent()) {
+            ancestors.add(ancestor);
+        }
+        Collections.reverse(ancestors);
+        return ancestors;
+    }
+
+    private Node pin(Path path) {
+        return nodes.compute(path, (p, n) -> {
+            final Node pinned = n == null ? new Node(p) : n;
+            pinned.pins++;
+            return pinned;
+        });
+    }
+
+    private void unlock(Node node, int mode) {
+        if (node != null) {
+            node.unlock(mode);
+            unpin(node);
+        }
+    }
+
+    private void unpin(Node node) {
+        nodes.computeIfPresent(node.path, (p, n) -> --n.pins == 0 ? null : n);
+    }
+
+    public void checkClean() {
+        assert nodes.isEmpty();
+    }
+
+   /* =============================================== */
+
+    /** Lock of a single path. Node is removed from table when nobody holds or waits for it. */
+    private class Node {
+        final Path               path;
+        final ReentrantLock      lock;
+        final Map<Thread, int[]> holds;
+        final Deque<Waiter>      waiters;
+        /** Number of threads that hold lock in each mode. */
+        final int[]              holders;
+        /** Number of threads that hold or wait for this node, guarded by the lock of table bin of the node. */
+        int pins;
+
+        Node(Path path) {
+            this.path = path;
+            this.lock = new ReentrantLock();
+            this.holds = new HashMap<>();
+            this.waiters = new ArrayDeque<>();
+            this.holders = new int[MODES];
+        }
+
+        /**
+         * Grants lock in specified mode to current thread if it is compatible with locks of other threads. Thread that
+         * doesn't hold this node is queued behind waiting threads unless {@code barge} is set, that is used by thread
+         * which has already waited for its turn.
+         */
+        boolean tryLock(int mode, boolean barge) {
+            final Thread current = currentThread();
+            lock.lock();
+            try {
+                final int[] own = holds.get(current);
+                if (own != null && (own[SHARED] > 0 || own[EXCLUSIVE] > 0)) {
                     // Current thread already has direct lock for this path
-                    if (node.threadDeep > MAX_RECURSIVE_LOCKS) {
+                    if (own[mode] >= MAX_RECURSIVE_LOCKS) {
                         throw new Error("Max number of recursive locks exceeded. ");
                     }
-                    ++node.threadDeep;
+                    grant(current, mode);
                     return true;
                 }
-                if (node.permits > permits) {
-                    // Lock already exists and current thread is not owner of this lock,
-                    // but lock is not exclusive and we can "share" it for other thread.
-                    node.permits -= permits; // decrement number of allowed concurrent threads
+                if ((own != null || barge || waiters.isEmpty()) && isGrantable(current, mode)) {
+                    grant(current, mode);
                     return true;
                 }
-                // Lock is exclusive or max number of allowed concurrent thread is reached.
                 return false;
-            } else if ((node.path.isChild(path) || path.isChild(node.path)) && node.permits <= permits) {
-                // Found some path which already has lock that prevents us to get required permits.
-                // There is two possibilities:
-                // 1. Parent of the path we try to lock already locked
-                // 2. Child of the path we try to lock already locked
-                // Need to check is such lock obtained by current thread or not.
-                // If such lock obtained by other thread stop here immediately there is no reasons to continue.
-                if (node.threadId != current.getId()) {
-                    return false;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /** Waits in queue until lock in specified mode may be granted to current thread, lock itself isn't granted. */
+        void await(int mode, long deadline, Path requested) {
+            final Thread current = currentThread();
+            lock.lock();
+            try {
+                final Waiter waiter = new Waiter(lock.newCondition());
+                if (holds.containsKey(current)) {
+                    // Thread that already holds lock of this node must not wait behind threads that may wait for it
+                    waiters.offerFirst(waiter);
+                } else {
+                    waiters.offerLast(waiter);
+                }
+                try {
+                    while (waiters.peek() != waiter || !isGrantable(current, mode)) {
+                        if (deadline == Long.MAX_VALUE) {
+                            waiter.condition.await();
+                        } else {
+                            final long waitTime = deadline - System.nanoTime();
+                            if (waitTime <= 0) {
+                                throw new RuntimeException(String.format("Get lock timeout for '%s'. ", requested));
+                            }
+                            waiter.condition.awaitNanos(waitTime);
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    currentThread().interrupt();
+                    throw new RuntimeException(e);
+                } finally {
+                    waiters.remove(waiter);
+                    // next thread in queue may be compatible with the lock this thread is going to take
+                    signalNext();
                 }
+            } finally {
+                lock.unlock();
             }
-            node = node.prev;
         }
-        // If we are here there is no lock for path yet.
-        tail.prev = new Node(path, maxThreads - permits, tail.prev);
-        return true;
-    }
 
-    public synchronized void checkClean() {
-        assert tail.prev == null;
-    }
+        void unlock(int mode) {
+            lock.lock();
+            try {
+                Thread holder = currentThread();
+                int[] own = holds.get(holder);
+                if (own == null || own[mode] == 0) {
+                    // lock is released by thread other than owner
+                    holder = null;
+                    for (Map.Entry<Thread, int[]> entry : holds.entrySet()) {
+                        if (entry.getValue()[mode] > 0) {
+                            holder = entry.getKey();
+                            own = entry.getValue();
+                            break;
+                        }
+                    }
+                    if (holder == null) {
+                        return;
+                    }
+                }
+                if (--own[mode] == 0) {
+                    holders[mode]--;
+                }
+                if (isEmpty(own)) {
+                    holds.remove(holder);
+                }
+                signalNext();
+            } finally {
+                lock.unlock();
+            }
+        }
 
-   /* =============================================== */
+        /** Checks whether lock in specified mode is compatible with locks held by threads other than specified one. */
+        private boolean isGrantable(Thread thread, int mode) {
+            final int[] own = holds.get(thread);
+            for (int heldMode = 0; heldMode < MODES; heldMode++) {
+                final int otherHolders = holders[heldMode] - (own != null && own[heldMode] > 0 ? 1 : 0);
+                if (otherHolders > 0 && !COMPATIBLE[mode][heldMode]) {
+                    return false;
+                }
+            }
+            // as many threads as permits allow, exclusive lock takes all of them
+            return mode != SHARED || holders[SHARED] + 1 < maxThreads;
+        }
 
-    private static class Node {
-        final Path path;
-        final long threadId = Thread.currentThread().getId();
-        int  permits;
-        int  threadDeep;
-        Node prev;
+        private void grant(Thread thread, int mode) {
+            if (holds.computeIfAbsent(thread, t -> new int[MODES])[mode]++ == 0) {
+                holders[mode]++;
+            }
+        }
 
-        Node(Path path, int permits, Node prev) {
-            this.path = path;
-            this.permits = permits;
-            this.prev = prev;
-            threadDeep = 1;
+        private void signalNext() {
+            final Waiter next = waiters.peek();
+            if (next != null) {
+                next.condition.signal();
+            }
+        }
+
+        private boolean isEmpty(int[] held) {
+            for (int count : held) {
+                if (count > 0) {
+                    return false;
+                }
+            }
+            return true;
         }
 
         @Override
         public String toString() {
             return "Node{" +
                    "path=" + path +
-                   ", threadId=" + threadId +
-                   ", permits=" + permits +
-                   ", prev=" + prev +
+                   ", holders=" + holds.size() +
+                   ", waiters=" + waiters.size() +
                    '}';
         }
     }
 
+    private static class Waiter {
+        final Condition condition;
+
+        Waiter(Condition condition) {
+            this.condition = condition;
+        }
+    }
+
     public final class PathLock {
-        private final Path path;
-        private final int  permits;
+        private final Path    path;
+        private final boolean exclusive;
 
-        private PathLock(Path path, int permits) {
+        private PathLock(Path path, boolean exclusive) {
             this.path = path;
-            this.permits = permits;
+            this.exclusive = exclusive;
         }
 
         /**
@@ -197,7 +379,7 @@ public final class PathLockFactory {
          * @return this PathLock instance
          */
         public PathLock acquire() {
-            PathLockFactory.this.acquire(path, permits);
+            PathLockFactory.this.acquire(path, exclusive, -1);
             return this;
         }
 
@@ -212,18 +394,18 @@ public final class PathLockFactory {
          *         if waiting timeout reached
          */
         public PathLock acquire(long timeoutMilliseconds) {
-            PathLockFactory.this.acquire(path, permits, timeoutMilliseconds);
+            PathLockFactory.this.acquire(path, exclusive, Math.max(0, timeoutMilliseconds));
             return this;
         }
 
         /** Release file permit. */
         public void release() {
-            PathLockFactory.this.release(path, permits);
+            PathLockFactory.this.release(path, exclusive);
         }
 
         /** Returns <code>true</code> if this lock is exclusive and <code>false</code> otherwise. */
         public boolean isExclusive() {
-            return permits == PathLockFactory.this.maxThreads;
+            return exclusive;
         }
     }
 }
@@ -10,8 +10,6 @@
  *******************************************************************************/
 package org.eclipse.che.api.vfs;
 
-import com.google.common.io.ByteStreams;
-
 import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
 import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
 import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
@@ -24,9 +22,26 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 
+import static com.google.common.base.Preconditions.checkArgument;
+
 public class TarArchiver extends Archiver {
+    private final int extractionThreads;
+
     public TarArchiver(VirtualFile folder) {
+        this(folder, 1);
+    }
+
+    /**
+     * @param folder
+     *         folder to compress or extract archive to
+     * @param extractionThreads
+     *         number of threads that write extracted files in parallel, if {@code 1} files are written sequentially
+     *         by the thread that reads archive
+     */
+    public TarArchiver(VirtualFile folder, int extractionThreads) {
         super(folder);
+        checkArgument(extractionThreads > 0, "Number of extraction threads must be positive");
+        this.extractionThreads = extractionThreads;
     }
 
     @Override
@@ -71,11 +86,12 @@ public class TarArchiver extends Archiver {
                 tarEntry.setModTime(0);
                 tarOutputStream.putArchiveEntry(tarEntry);
             } else {
-                tarEntry.setSize(virtualFile.getLength());
-                tarEntry.setModTime(virtualFile.getLastModificationDate());
-                tarOutputStream.putArchiveEntry(tarEntry);
-                try (InputStream content = virtualFile.getContent()) {
-                    ByteStreams.copy(content, tarOutputStream);
+                try (FileContent content = virtualFile.openContent()) {
+                    // size of entry must match to number of written bytes, take it from opened content
+                    tarEntry.setSize(content.getLength());
+                    tarEntry.setModTime(virtualFile.getLastModificationDate());
+                    tarOutputStream.putArchiveEntry(tarEntry);
+                    content.transferTo(tarOutputStream);
                 }
             }
             tarOutputStream.closeArchiveEntry();
@@ -89,49 +105,14 @@ public class TarArchiver extends Archiver {
     @Override
     public void extract(InputStream tarInput, boolean overwrite, int stripNumber)
             throws IOException, ForbiddenException, ConflictException, ServerException {
-        try (TarArchiveInputStream tarInputStream = new TarArchiveInputStream(tarInput)) {
+        try (TarArchiveInputStream tarInputStream = new TarArchiveInputStream(tarInput);
+             ArchiveExtractor extractor = new ArchiveExtractor(folder, overwrite, stripNumber, extractionThreads)) {
             InputStream notClosableInputStream = new NotClosableInputStream(tarInputStream);
             TarArchiveEntry tarEntry;
             while ((tarEntry = tarInputStream.getNextTarEntry()) != null) {
-                VirtualFile extractFolder = folder;
-
-                Path relativePath = Path.of(tarEntry.getName());
-
-                if (stripNumber > 0) {
-                    if (relativePath.length() <= stripNumber) {
-                        continue;
-                    }
-                    relativePath = relativePath.subPath(stripNumber);
-                }
-
-                if (tarEntry.isDirectory()) {
-                    if (!extractFolder.hasChild(relativePath)) {
-                        extractFolder.createFolder(relativePath.toString());
-                    }
-                    continue;
-                }
-
-                if (relativePath.length() > 1) {
-                    Path neededParentPath = relativePath.getParent();
-                    VirtualFile neededParent = extractFolder.getChild(neededParentPath);
-                    if (neededParent == null) {
-                        neededParent = extractFolder.createFolder(neededParentPath.toString());
-                    }
-                    extractFolder = neededParent;
-                }
-
-                String fileName = relativePath.getName();
-                VirtualFile file = extractFolder.getChild(Path.of(fileName));
-                if (file == null) {
-                    extractFolder.createFile(fileName, notClosableInputStream);
-                } else {
-                    if (overwrite) {
-                        file.updateContent(notClosableInputStream);
-                    } else {
-                        throw new ConflictException(String.format("File '%s' already exists", file.getPath()));
-                    }
-                }
+                extractor.extract(tarEntry.getName(), tarEntry.isDirectory(), notClosableInputStream);
             }
+            extractor.finish();
         }
     }
 }
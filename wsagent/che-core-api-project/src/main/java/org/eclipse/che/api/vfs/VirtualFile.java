@@ -18,6 +18,7 @@ import org.eclipse.che.api.core.ServerException;
 import org.eclipse.che.commons.lang.Pair;
 
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.List;
 import java.util.Map;
 
@@ -112,6 +113,19 @@ public interface VirtualFile extends Comparable<VirtualFile> {
      */
     InputStream getContent() throws ForbiddenException, ServerException;
 
+    /**
+     * Opens content of the file for reading without copying it in memory or temporary file. Caller must close
+     * returned content.
+     *
+     * @return content of the file
+     * @throws ForbiddenException
+     *         if this item is not a file
+     * @throws ServerException
+     *         if other error occurs
+     * @see #isFile()
+     */
+    FileContent openContent() throws ForbiddenException, ServerException;
+
     /**
      * Gets content of the file as bytes.
      *
@@ -504,6 +518,20 @@ public interface VirtualFile extends Comparable<VirtualFile> {
      */
     InputStream zip() throws ForbiddenException, ServerException;
 
+    /**
+     * Writes zip archive of the folder denoted by this VirtualFile directly to the output. Unlike {@link #zip()}
+     * archive isn't stored in temporary storage, so its first bytes are available as soon as they are compressed.
+     *
+     * @param output
+     *         output for ZIP archive
+     * @throws ForbiddenException
+     *         if this item does not denote a folder
+     * @throws ServerException
+     *         if other error occurs
+     * @see #isFolder()
+     */
+    void zip(OutputStream output) throws ForbiddenException, ServerException;
+
     /**
      * Extracts zip archive to the folder denoted by this VirtualFile.
      *
@@ -537,6 +565,20 @@ public interface VirtualFile extends Comparable<VirtualFile> {
      */
     InputStream tar() throws ForbiddenException, ServerException;
 
+    /**
+     * Writes tar archive of the folder denoted by this VirtualFile directly to the output. Unlike {@link #tar()}
+     * archive isn't stored in temporary storage.
+     *
+     * @param output
+     *         output for TAR archive
+     * @throws ForbiddenException
+     *         if this item does not denote a folder
+     * @throws ServerException
+     *         if other error occurs
+     * @see #isFolder()
+     */
+    void tar(OutputStream output) throws ForbiddenException, ServerException;
+
     /**
      * Extracts tar archive to the folder denoted by this VirtualFile.
      *
@@ -11,23 +11,78 @@
 package org.eclipse.che.api.vfs;
 
 import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
 import org.eclipse.che.api.core.ConflictException;
 import org.eclipse.che.api.core.ForbiddenException;
 import org.eclipse.che.api.core.ServerException;
 import org.eclipse.che.api.vfs.util.NotClosableInputStream;
 import org.eclipse.che.api.vfs.util.ZipContent;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 import java.util.zip.ZipOutputStream;
 
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Archiver of zip format. Archive is written directly to the output given to {@link #compress(OutputStream)}, so the
+ * first bytes are written as soon as the first entry is compressed.
+ * <p>
+ * If archiver is created with more than one compression thread, files which size doesn't exceed
+ * {@link #MAX_PARALLEL_ENTRY_SIZE} are compressed in parallel in memory and written to the archive in order of
+ * traversal as raw entries, bigger files are compressed by the writing thread. Number of entries compressed ahead of
+ * the writing thread is bounded, so memory usage doesn't depend on size of folder.
+ * <p>
+ * Archive is extracted with {@link ArchiveExtractor}, see there how files are written in parallel.
+ */
 public class ZipArchiver extends Archiver {
+    static final int MAX_PARALLEL_ENTRY_SIZE = 1024 * 1024; // 1 MB
+
+    private static final int ENTRIES_AHEAD_PER_THREAD = 4;
+
+    private final int compressionThreads;
+    private final int extractionThreads;
+
     public ZipArchiver(VirtualFile folder) {
+        this(folder, 1);
+    }
+
+    public ZipArchiver(VirtualFile folder, int compressionThreads) {
+        this(folder, compressionThreads, 1);
+    }
+
+    /**
+     * @param folder
+     *         folder to compress or extract archive to
+     * @param compressionThreads
+     *         number of threads that compress files in parallel, if {@code 1} files are compressed sequentially by
+     *         the thread that writes archive
+     * @param extractionThreads
+     *         number of threads that write extracted files in parallel, if {@code 1} files are written sequentially
+     *         by the thread that reads archive
+     */
+    public ZipArchiver(VirtualFile folder, int compressionThreads, int extractionThreads) {
         super(folder);
+        checkArgument(compressionThreads > 0, "Number of compression threads must be positive");
+        checkArgument(extractionThreads > 0, "Number of extraction threads must be positive");
+        this.compressionThreads = compressionThreads;
+        this.extractionThreads = extractionThreads;
     }
 
     @Override
@@ -37,6 +92,10 @@ public class ZipArchiver extends Archiver {
 
     @Override
     public void compress(OutputStream zipOutput, VirtualFileFilter filter) throws IOException, ServerException {
+        if (compressionThreads > 1) {
+            compressInParallel(zipOutput, filter);
+            return;
+        }
         try (ZipOutputStream zipOutputStream = new ZipOutputStream(zipOutput)) {
             folder.accept(new VirtualFileVisitor() {
                 @Override
@@ -84,53 +143,136 @@ public class ZipArchiver extends Archiver {
         }
     }
 
-    @Override
-    public void extract(InputStream zipInput, boolean overwrite, int stripNumber)
-            throws IOException, ForbiddenException, ConflictException, ServerException {
-        try (ZipInputStream zip = new ZipInputStream(ZipContent.of(zipInput).getContent())) {
-            InputStream notClosableInputStream = new NotClosableInputStream(zip);
-            ZipEntry zipEntry;
-            while ((zipEntry = zip.getNextEntry()) != null) {
-                VirtualFile extractFolder = folder;
-
-                Path relativePath = Path.of(zipEntry.getName());
-
-                if (stripNumber > 0) {
-                    if (relativePath.length() <= stripNumber) {
-                        continue;
+    private void compressInParallel(OutputStream zipOutput, VirtualFileFilter filter) throws IOException, ServerException {
+        final ExecutorService executor = Executors.newFixedThreadPool(compressionThreads,
+                                                                      new ThreadFactoryBuilder().setDaemon(true)
+                                                                                                .setNameFormat("ZipArchiver-%d")
+                                                                                                .build());
+        try (ZipArchiveOutputStream zipOutputStream = new ZipArchiveOutputStream(zipOutput)) {
+            final Deque<Future<ZipEntryContent>> entries = new ArrayDeque<>();
+            final int maxEntriesAhead = compressionThreads * ENTRIES_AHEAD_PER_THREAD;
+            folder.accept(new VirtualFileVisitor() {
+                @Override
+                public void visit(VirtualFile visitedVirtualFile) throws ServerException {
+                    if (filter.accept(visitedVirtualFile)) {
+                        if (!visitedVirtualFile.equals(folder)) {
+                            entries.add(executor.submit(() -> createZipEntryContent(visitedVirtualFile)));
+                            while (entries.size() > maxEntriesAhead) {
+                                writeZipEntry(entries.poll(), zipOutputStream);
+                            }
+                        }
+                        if (visitedVirtualFile.isFolder()) {
+                            for (VirtualFile child : visitedVirtualFile.getChildren()) {
+                                child.accept(this);
+                            }
+                        }
                     }
-                    relativePath = relativePath.subPath(stripNumber);
                 }
+            });
+            while (!entries.isEmpty()) {
+                writeZipEntry(entries.poll(), zipOutputStream);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
 
-                if (zipEntry.isDirectory()) {
-                    if (!extractFolder.hasChild(relativePath)) {
-                        extractFolder.createFolder(relativePath.toString());
-                    }
-                    continue;
+    /** Compresses content of small file in memory. Folders and big files are left for the writing thread. */
+    private ZipEntryContent createZipEntryContent(VirtualFile virtualFile) throws ServerException, ForbiddenException, IOException {
+        final ZipArchiveEntry zipEntry = new ZipArchiveEntry(getZipEntryName(virtualFile));
+        if (virtualFile.isFolder()) {
+            zipEntry.setTime(0);
+            return new ZipEntryContent(virtualFile, zipEntry, null);
+        }
+        zipEntry.setTime(virtualFile.getLastModificationDate());
+        try (FileContent content = virtualFile.openContent()) {
+            if (content.getLength() > MAX_PARALLEL_ENTRY_SIZE) {
+                return new ZipEntryContent(virtualFile, zipEntry, null);
+            }
+            final byte[] bytes = content.read(buffer -> {
+                final byte[] array = new byte[buffer.remaining()];
+                buffer.get(array);
+                return array;
+            });
+            final CRC32 crc = new CRC32();
+            crc.update(bytes);
+            final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+            final ByteArrayOutputStream compressed = new ByteArrayOutputStream(Math.max(64, bytes.length / 2));
+            try {
+                deflater.setInput(bytes);
+                deflater.finish();
+                final byte[] buffer = new byte[8192];
+                while (!deflater.finished()) {
+                    compressed.write(buffer, 0, deflater.deflate(buffer));
                 }
+            } finally {
+                deflater.end();
+            }
+            zipEntry.setMethod(ZipEntry.DEFLATED);
+            zipEntry.setSize(bytes.length);
+            zipEntry.setCompressedSize(compressed.size());
+            zipEntry.setCrc(crc.getValue());
+            return new ZipEntryContent(virtualFile, zipEntry, compressed.toByteArray());
+        }
+    }
 
-                if (relativePath.length() > 1) {
-                    Path neededParentPath = relativePath.getParent();
-                    VirtualFile neededParent = extractFolder.getChild(neededParentPath);
-                    if (neededParent == null) {
-                        neededParent = extractFolder.createFolder(neededParentPath.toString());
+    private void writeZipEntry(Future<ZipEntryContent> future, ZipArchiveOutputStream zipOutputStream) throws ServerException {
+        try {
+            final ZipEntryContent entry = future.get();
+            if (entry.compressed != null) {
+                zipOutputStream.addRawArchiveEntry(entry.zipEntry, new ByteArrayInputStream(entry.compressed));
+            } else {
+                zipOutputStream.putArchiveEntry(entry.zipEntry);
+                if (entry.virtualFile.isFile()) {
+                    try (FileContent content = entry.virtualFile.openContent()) {
+                        content.transferTo(zipOutputStream);
                     }
-                    extractFolder = neededParent;
                 }
+                zipOutputStream.closeArchiveEntry();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServerException("Compression is interrupted");
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof ServerException) {
+                throw (ServerException)cause;
+            } else if (cause instanceof ForbiddenException) {
+                throw new ServerException(((ForbiddenException)cause).getServiceError());
+            }
+            throw new ServerException(cause.getMessage(), cause);
+        } catch (ForbiddenException e) {
+            throw new ServerException(e.getServiceError());
+        } catch (IOException e) {
+            throw new ServerException(e.getMessage(), e);
+        }
+    }
 
-                String fileName = relativePath.getName();
-                VirtualFile file = extractFolder.getChild(Path.of(fileName));
-                if (file == null) {
-                    extractFolder.createFile(fileName, notClosableInputStream);
-                } else {
-                    if (overwrite) {
-                        file.updateContent(notClosableInputStream);
-                    } else {
-                        throw new ConflictException(String.format("File '%s' already exists", file.getPath()));
-                    }
-                }
+    private static class ZipEntryContent {
+        final VirtualFile     virtualFile;
+        final ZipArchiveEntry zipEntry;
+        /** Raw deflated content or {@code null} if content is not compressed yet. */
+        final byte[]          compressed;
+
+        ZipEntryContent(VirtualFile virtualFile, ZipArchiveEntry zipEntry, byte[] compressed) {
+            this.virtualFile = virtualFile;
+            this.zipEntry = zipEntry;
+            this.compressed = compressed;
+        }
+    }
+
+    @Override
+    public void extract(InputStream zipInput, boolean overwrite, int stripNumber)
+            throws IOException, ForbiddenException, ConflictException, ServerException {
+        try (ZipInputStream zip = new ZipInputStream(ZipContent.of(zipInput).getContent());
+             ArchiveExtractor extractor = new ArchiveExtractor(folder, overwrite, stripNumber, extractionThreads)) {
+            InputStream notClosableInputStream = new NotClosableInputStream(zip);
+            ZipEntry zipEntry;
+            while ((zipEntry = zip.getNextEntry()) != null) {
+                extractor.extract(zipEntry.getName(), zipEntry.isDirectory(), notClosableInputStream);
                 zip.closeEntry();
             }
+            extractor.finish();
         }
     }
 }
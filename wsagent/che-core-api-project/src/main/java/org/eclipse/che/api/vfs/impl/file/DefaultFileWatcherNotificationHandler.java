@@ -10,44 +10,122 @@
  *******************************************************************************/
 package org.eclipse.che.api.vfs.impl.file;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
 import org.eclipse.che.api.core.ServerException;
 import org.eclipse.che.api.project.shared.dto.event.FileWatcherEventType;
 import org.eclipse.che.api.vfs.Path;
 import org.eclipse.che.api.vfs.VirtualFile;
 import org.eclipse.che.api.vfs.VirtualFileSystemProvider;
+import org.eclipse.che.api.vfs.impl.file.FileWatcherEventCoalescer.PathEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.PreDestroy;
 import javax.inject.Inject;
+import javax.inject.Named;
 import javax.inject.Singleton;
 import java.io.File;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 
+import static java.util.Collections.singletonList;
 import static org.eclipse.che.api.vfs.Path.ROOT;
 
+/**
+ * Passes events of {@link FileTreeWatcher} to listeners. Events may be collected during coalescing window: events of
+ * the same path are merged and listeners get merged events of window one by one.
+ * <p>
+ * Only listeners of this handler, e.g. listeners of project registry, get merged events. Consumers registered in
+ * {@link org.eclipse.che.api.vfs.watcher.FileWatcherManager} get events of their own watch service without merging.
+ */
 @Singleton
 public class DefaultFileWatcherNotificationHandler implements FileWatcherNotificationHandler {
     private static final Logger LOG = LoggerFactory.getLogger(DefaultFileWatcherNotificationHandler.class);
 
-    private final VirtualFileSystemProvider             virtualFileSystemProvider;
-    private final List<FileWatcherNotificationListener> fileWatcherNotificationListeners;
+    private final VirtualFileSystemProvider                      virtualFileSystemProvider;
+    private final List<FileWatcherNotificationListener>          fileWatcherNotificationListeners;
+    private final long                                           coalescingWindow;
+    private final ScheduledExecutorService                       scheduler;
+    private final ConcurrentMap<File, FileWatcherEventCoalescer> coalescers;
 
-    @Inject
+    /** Creates handler that passes each event to listeners immediately. */
     public DefaultFileWatcherNotificationHandler(VirtualFileSystemProvider virtualFileSystemProvider) {
+        this(virtualFileSystemProvider, 0);
+    }
+
+    /**
+     * @param coalescingWindow
+     *         window in milliseconds in which events are collected, 0 disables collecting of events
+     */
+    @Inject
+    public DefaultFileWatcherNotificationHandler(VirtualFileSystemProvider virtualFileSystemProvider,
+                                                 @Named("vfs.events.coalescing_window_ms") long coalescingWindow) {
         this.virtualFileSystemProvider = virtualFileSystemProvider;
+        this.coalescingWindow = coalescingWindow;
         fileWatcherNotificationListeners = new CopyOnWriteArrayList<>();
+        coalescers = new ConcurrentHashMap<>();
+        scheduler = coalescingWindow > 0
+                    ? Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder().setDaemon(true)
+                                                                                           .setNameFormat("FileWatcherEventCoalescer-%d")
+                                                                                           .build())
+                    : null;
+    }
+
+    @PreDestroy
+    void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
     }
 
     @Override
     public void handleFileWatcherEvent(FileWatcherEventType eventType, File watchRoot, String subPath, boolean isDir) {
-        VirtualFile virtualFile = convertToVirtualFile(watchRoot, subPath, isDir);
-        if (virtualFile == null) {
+        final LocalVirtualFileSystem virtualFileSystem = getVirtualFileSystem();
+        if (virtualFileSystem == null) {
             return;
         }
-        for (FileWatcherNotificationListener virtualFileListener : fileWatcherNotificationListeners) {
-            if (virtualFileListener.shouldBeNotifiedFor(virtualFile)) {
-                virtualFileListener.onFileWatcherEvent(virtualFile, eventType);
+        // item is changed outside of virtual file system, cached listings of folders are not valid anymore
+        virtualFileSystem.invalidateChildren(ROOT.newPath(Path.of(subPath)));
+        if (scheduler == null) {
+            notifyListeners(virtualFileSystem, watchRoot, singletonList(new PathEvent(eventType, subPath, isDir)));
+        } else {
+            coalescers.computeIfAbsent(watchRoot, root -> new FileWatcherEventCoalescer(coalescingWindow, scheduler, events -> {
+                final LocalVirtualFileSystem fileSystem = getVirtualFileSystem();
+                if (fileSystem != null) {
+                    notifyListeners(fileSystem, root, events);
+                }
+            })).add(eventType, subPath, isDir);
+        }
+    }
+
+    private LocalVirtualFileSystem getVirtualFileSystem() {
+        try {
+            return (LocalVirtualFileSystem)virtualFileSystemProvider.getVirtualFileSystem(true);
+        } catch (ServerException e) {
+            LOG.warn(e.getMessage());
+            return null;
+        }
+    }
+
+    private void notifyListeners(LocalVirtualFileSystem virtualFileSystem, File watchRoot, List<PathEvent> events) {
+        for (PathEvent event : events) {
+            final VirtualFile virtualFile = convertToVirtualFile(virtualFileSystem, watchRoot, event.getPath(), event.isDir());
+            if (virtualFile == null) {
+                continue;
+            }
+            for (FileWatcherNotificationListener virtualFileListener : fileWatcherNotificationListeners) {
+                try {
+                    if (virtualFileListener.shouldBeNotifiedFor(virtualFile)) {
+                        virtualFileListener.onFileWatcherEvent(virtualFile, event.getType());
+                    }
+                } catch (RuntimeException e) {
+                    LOG.error("File watcher notification listener failed to handle event", e);
+                }
             }
         }
     }
@@ -70,9 +148,8 @@ public class DefaultFileWatcherNotificationHandler implements FileWatcherNotific
         return fileWatcherNotificationListeners.remove(fileWatcherNotificationListener);
     }
 
-    private VirtualFile convertToVirtualFile(File root, String subPath, boolean isDir) {
+    private VirtualFile convertToVirtualFile(LocalVirtualFileSystem virtualFileSystem, File root, String subPath, boolean isDir) {
         try {
-            LocalVirtualFileSystem virtualFileSystem = (LocalVirtualFileSystem)virtualFileSystemProvider.getVirtualFileSystem(true);
             Path vfsPath = Path.of(subPath);
             VirtualFile virtualFile = virtualFileSystem.getRoot().getChild(vfsPath);
             if (virtualFile == null) {
@@ -0,0 +1,133 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2017 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.vfs.impl.file;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+import org.eclipse.che.api.vfs.Path;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Read-through cache of content of small files of {@link LocalVirtualFileSystem}, e.g. pom.xml or package.json that
+ * are read by IDE over and over again. Total size of cached content is bounded, least recently used files are
+ * evicted first.
+ * <p>
+ * Content is keyed by path of file and is valid while length and modification time of file are the same as at the
+ * moment when content was read, so file modified outside of virtual file system is never served from the cache even
+ * if event of file watcher is not delivered yet. Content read or written less than {@link #RACY_INTERVAL} after
+ * modification of file is not cached since file may be modified again, e.g. by another process, within the same tick
+ * of modification time. Lock held by virtual file system doesn't prevent such modifications.
+ */
+class FileContentCache {
+    static final long RACY_INTERVAL = 1000; // 1 second
+
+    private final int                        maxFileSize;
+    private final Cache<Path, CachedContent> contents;
+    private final LongAdder                  hits;
+    private final LongAdder                  misses;
+
+    /**
+     * @param maxSize
+     *         max total size of cached content in bytes, {@code 0} disables cache
+     * @param maxFileSize
+     *         max size of single file which content may be cached
+     */
+    FileContentCache(long maxSize, int maxFileSize) {
+        this.maxFileSize = maxSize > 0 ? maxFileSize : -1;
+        this.contents = CacheBuilder.newBuilder()
+                                    .concurrencyLevel(8)
+                                    .maximumWeight(maxSize)
+                                    .weigher((Path path, CachedContent content) -> content.bytes.length)
+                                    .recordStats()
+                                    .build();
+        this.hits = new LongAdder();
+        this.misses = new LongAdder();
+    }
+
+    boolean isEnabled() {
+        return maxFileSize >= 0;
+    }
+
+    /** Tests whether content of file with specified length may be cached. */
+    boolean accepts(long length) {
+        return length <= maxFileSize;
+    }
+
+    /**
+     * Gets cached content of file.
+     *
+     * @return content of file or {@code null} if content of file with specified length and modification time isn't
+     * cached, returned array must not be modified
+     */
+    byte[] get(Path path, long length, long lastModified) {
+        final CachedContent content = contents.getIfPresent(path);
+        if (content != null && content.bytes.length == length && content.lastModified == lastModified) {
+            hits.increment();
+            return content.bytes;
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Caches content of file read from disk or written through virtual file system.
+     *
+     * @param length
+     *         length of file before its content was read or after its content was written
+     * @param lastModified
+     *         modification time of file before its content was read or after its content was written
+     * @param time
+     *         time when content of file was read or written
+     */
+    void put(Path path, long length, long lastModified, long time, byte[] bytes) {
+        if (time - lastModified > RACY_INTERVAL && bytes.length == length && accepts(length)) {
+            contents.put(path, new CachedContent(lastModified, bytes));
+        } else {
+            contents.invalidate(path);
+        }
+    }
+
+    /** Evicts content of item and all its descendants. */
+    void invalidate(Path path) {
+        contents.invalidate(path);
+        contents.asMap().keySet().removeIf(cached -> cached.isChild(path));
+    }
+
+    void invalidateAll() {
+        contents.invalidateAll();
+    }
+
+    /** Gets number of files which content is cached. */
+    long size() {
+        return contents.size();
+    }
+
+    /**
+     * Gets statistics of requests of cached content, e.g. hit rate. Request of content that is cached but outdated
+     * is counted as miss.
+     */
+    CacheStats stats() {
+        return new CacheStats(hits.sum(), misses.sum(), 0, 0, 0, contents.stats().evictionCount());
+    }
+
+    private static class CachedContent {
+        final long   lastModified;
+        final byte[] bytes;
+
+        CachedContent(long lastModified, byte[] bytes) {
+            this.lastModified = lastModified;
+            this.bytes = bytes;
+        }
+    }
+}
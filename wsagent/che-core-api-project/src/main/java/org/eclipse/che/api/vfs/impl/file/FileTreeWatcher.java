@@ -12,8 +12,9 @@ package org.eclipse.che.api.vfs.impl.file;
 
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
-import org.eclipse.che.commons.lang.concurrent.LoggingUncaughtExceptionHandler;
 import org.eclipse.che.api.project.shared.dto.event.FileWatcherEventType;
+import org.eclipse.che.api.vfs.watcher.WatchRegistry;
+import org.eclipse.che.commons.lang.concurrent.LoggingUncaughtExceptionHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -22,7 +23,6 @@ import javax.inject.Named;
 import javax.inject.Singleton;
 import java.io.File;
 import java.io.IOException;
-import java.nio.file.ClosedWatchServiceException;
 import java.nio.file.DirectoryStream;
 import java.nio.file.FileSystems;
 import java.nio.file.FileVisitResult;
@@ -31,8 +31,6 @@ import java.nio.file.Path;
 import java.nio.file.PathMatcher;
 import java.nio.file.SimpleFileVisitor;
 import java.nio.file.WatchEvent;
-import java.nio.file.WatchKey;
-import java.nio.file.WatchService;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.Collection;
 import java.util.Iterator;
@@ -40,28 +38,33 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import static com.google.common.collect.Lists.newArrayList;
 import static com.google.common.collect.Maps.newHashMap;
+import static com.google.common.collect.Maps.newLinkedHashMap;
 import static com.google.common.collect.Sets.newLinkedHashSet;
 import static java.nio.file.FileVisitResult.CONTINUE;
 import static java.nio.file.Files.getLastModifiedTime;
 import static java.nio.file.LinkOption.NOFOLLOW_LINKS;
-import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
-import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
-import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
-import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.eclipse.che.api.project.shared.dto.event.FileWatcherEventType.CREATED;
 import static org.eclipse.che.api.project.shared.dto.event.FileWatcherEventType.DELETED;
 import static org.eclipse.che.api.project.shared.dto.event.FileWatcherEventType.MODIFIED;
 
+/**
+ * Watches whole tree of workspace and notifies {@link FileWatcherNotificationHandler} about created, modified and
+ * deleted items. Directories are watched through {@link WatchRegistry} shared with other file watchers, watcher
+ * only remembers which directories got events and compares their content with known state when there are no events
+ * during {@link #EVENT_PROCESS_TIMEOUT_SEC}.
+ */
 @Singleton
-public class FileTreeWatcher {
+public class FileTreeWatcher implements WatchRegistry.Subscriber {
     private static final Logger LOG = LoggerFactory.getLogger(FileTreeWatcher.class);
 
     private static final long EVENT_PROCESS_TIMEOUT_SEC = 2;
@@ -73,14 +76,21 @@ public class FileTreeWatcher {
     private final FileWatcherNotificationHandler fileWatcherNotificationHandler;
     private final ExecutorService                executor;
     private final AtomicBoolean                  running;
-    private       WatchService                   watchService;
-    private       WatchEvent.Modifier[]          watchEventModifiers;
+    private final BlockingQueue<Path>            signalledDirectories;
+    private       WatchRegistry                  registry;
+    private       boolean                        ownRegistry;
+
+    /** Creates watcher that watches tree with own registry. */
+    public FileTreeWatcher(File watchRoot, Set<PathMatcher> excludePatterns, FileWatcherNotificationHandler fileWatcherNotificationHandler) {
+        this(watchRoot, excludePatterns, fileWatcherNotificationHandler, null);
+    }
 
     @Inject
     public FileTreeWatcher(@Named("che.user.workspaces.storage") File watchRoot,
                            @Named("vfs.index_filter_matcher") Set<PathMatcher> excludePatterns,
-                           FileWatcherNotificationHandler fileWatcherNotificationHandler) {
-        watchEventModifiers = new WatchEvent.Modifier[0];
+                           FileWatcherNotificationHandler fileWatcherNotificationHandler,
+                           WatchRegistry registry) {
+        this.registry = registry;
         this.watchRoot = toCanonicalFile(watchRoot);
         this.watchRootPath = this.watchRoot.toPath();
         this.excludePatterns = newArrayList(excludePatterns);
@@ -94,6 +104,7 @@ public class FileTreeWatcher {
         executor = Executors.newSingleThreadExecutor(threadFactory);
         running = new AtomicBoolean();
         watchedDirectories = newHashMap();
+        signalledDirectories = new LinkedBlockingQueue<>();
     }
 
     private static File toCanonicalFile(File file) {
@@ -105,9 +116,10 @@ public class FileTreeWatcher {
     }
 
     public void startup() throws IOException {
-        watchService = FileSystems.getDefault().newWatchService();
-        if (isPollingWatchService(watchService)) {
-            watchEventModifiers = new WatchEvent.Modifier[]{createSensitivityWatchEventModifier()};
+        if (registry == null) {
+            registry = new WatchRegistry(FileSystems.getDefault().newWatchService());
+            registry.start();
+            ownRegistry = true;
         }
         running.set(true);
         walkTreeAndSetupWatches(watchRootPath);
@@ -115,23 +127,9 @@ public class FileTreeWatcher {
         fileWatcherNotificationHandler.started(watchRoot);
     }
 
-    private boolean isPollingWatchService(WatchService watchService) {
-        return "sun.nio.fs.PollingWatchService".equals(watchService.getClass().getName());
-    }
-
-    private WatchEvent.Modifier createSensitivityWatchEventModifier() {
-        try {
-            Class<?> aModifierEnum = Class.forName("com.sun.nio.file.SensitivityWatchEventModifier");
-            Object[] sensitivityEnumConstants = aModifierEnum.getEnumConstants();
-            return (WatchEvent.Modifier)sensitivityEnumConstants[0];
-        } catch (Exception e) {
-            LOG.warn("Can't create 'com.sun.nio.file.SensitivityWatchEventModifier'", e);
-        }
-        return null;
-    }
-
     public void shutdown() {
         boolean interrupted = false;
+        running.set(false);
         executor.shutdown();
         try {
             if (!executor.awaitTermination(3, SECONDS)) {
@@ -145,16 +143,13 @@ public class FileTreeWatcher {
             executor.shutdownNow();
         }
 
-        try {
-            walkTreeAndRemoveWatches(watchRootPath);
-        } catch (IOException e) {
-            LOG.warn(e.getMessage());
+        // directories may be moved or deleted since they are watched, cancel watches of all of them not only existing
+        for (Path directory : newArrayList(watchedDirectories.keySet())) {
+            cancelDirectoryWatcher(directory);
         }
 
-        try {
-            watchService.close();
-        } catch (IOException e) {
-            LOG.warn(e.getMessage());
+        if (ownRegistry) {
+            registry.stop();
         }
 
         if (interrupted) {
@@ -192,16 +187,6 @@ public class FileTreeWatcher {
         return true;
     }
 
-    private void walkTreeAndRemoveWatches(Path root) throws IOException {
-        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
-            @Override
-            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
-                cancelDirectoryWatcher(dir);
-                return CONTINUE;
-            }
-        });
-    }
-
     private void walkTreeAndFireCreatedEvents(Path root) throws IOException {
         Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
             @Override
@@ -222,10 +207,10 @@ public class FileTreeWatcher {
 
     private void setupDirectoryWatcher(Path directory) throws IOException {
         if (watchedDirectories.get(directory) == null) {
-            WatchKey watchKey = directory.register(watchService,
-                                                   new WatchEvent.Kind[]{ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY, OVERFLOW},
-                                                   watchEventModifiers);
-            WatchedDirectory watchedDirectory = new WatchedDirectory(directory, watchKey);
+            if (!registry.watch(directory, this)) {
+                throw new IOException(String.format("Unable to watch directory '%s'", directory));
+            }
+            WatchedDirectory watchedDirectory = new WatchedDirectory(directory);
             try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
                 for (Path entry : entries) {
                     watchedDirectory
@@ -243,7 +228,14 @@ public class FileTreeWatcher {
     private void cancelDirectoryWatcher(Path path) {
         WatchedDirectory watchedDirectory = watchedDirectories.remove(path);
         if (watchedDirectory != null) {
-            watchedDirectory.getWatchKey().cancel();
+            registry.unwatch(path, this);
+        }
+    }
+
+    @Override
+    public void onEvents(Path dir, List<WatchEvent<?>> events) {
+        if (running.get()) {
+            signalledDirectories.add(dir);
         }
     }
 
@@ -254,22 +246,20 @@ public class FileTreeWatcher {
         public void run() {
             while (running.get()) {
                 try {
-                    WatchKey watchKey;
+                    Path signalledDirectory;
                     if (pendingEvents.isEmpty()) {
-                        watchKey = watchService.take();
+                        signalledDirectory = signalledDirectories.take();
                     } else {
-                        watchKey = watchService.poll(EVENT_PROCESS_TIMEOUT_SEC, SECONDS);
-                        if (watchKey == null) {
+                        signalledDirectory = signalledDirectories.poll(EVENT_PROCESS_TIMEOUT_SEC, SECONDS);
+                        if (signalledDirectory == null) {
                             processPendingEvents(pendingEvents);
                             pendingEvents.clear();
                         }
                     }
-                    if (watchKey != null) {
-                        pendingEvents.add(new PendingEvent((Path)watchKey.watchable()));
-                        watchKey.pollEvents();
-                        watchKey.reset();
+                    if (signalledDirectory != null) {
+                        pendingEvents.add(new PendingEvent(signalledDirectory));
                     }
-                } catch (InterruptedException | ClosedWatchServiceException e) {
+                } catch (InterruptedException e) {
                     running.set(false);
                 } catch (Throwable e) {
                     running.set(false);
@@ -340,7 +330,7 @@ public class FileTreeWatcher {
                 for (DirectoryItem directoryItem : watchedDirectory.getItems()) {
                     fireWatchEvent(DELETED, eventDirectoryPath.resolve(directoryItem.getName()), directoryItem.isDirectory());
                 }
-                watchedDirectories.remove(eventDirectoryPath);
+                cancelDirectoryWatcher(eventDirectoryPath);
             }
         }
     }
@@ -386,19 +376,13 @@ public class FileTreeWatcher {
     }
 
     static class WatchedDirectory {
-        final Path                path;
-        final WatchKey            watchKey;
-        final List<DirectoryItem> items;
+        final Path                     path;
+        final Map<Path, DirectoryItem> items;
         int hitCounter;
 
-        WatchedDirectory(Path path, WatchKey watchKey) {
+        WatchedDirectory(Path path) {
             this.path = path;
-            this.watchKey = watchKey;
-            items = newArrayList();
-        }
-
-        WatchKey getWatchKey() {
-            return watchKey;
+            items = newLinkedHashMap();
         }
 
         Path getPath() {
@@ -406,21 +390,16 @@ public class FileTreeWatcher {
         }
 
         DirectoryItem getItem(Path name) {
-            for (DirectoryItem item : items) {
-                if (item.getName().equals(name)) {
-                    return item;
-                }
-            }
-            return null;
+            return items.get(name);
         }
 
         void addItem(DirectoryItem item) {
             item.updateHitCounter(this.hitCounter);
-            items.add(item);
+            items.put(item.getName(), item);
         }
 
-        List<DirectoryItem> getItems() {
-            return items;
+        Collection<DirectoryItem> getItems() {
+            return items.values();
         }
 
         int incrementHitCounter() {
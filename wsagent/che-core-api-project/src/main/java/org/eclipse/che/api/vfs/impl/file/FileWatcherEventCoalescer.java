@@ -0,0 +1,152 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2017 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.vfs.impl.file;
+
+import org.eclipse.che.api.project.shared.dto.event.FileWatcherEventType;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Consumer;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.eclipse.che.api.project.shared.dto.event.FileWatcherEventType.CREATED;
+import static org.eclipse.che.api.project.shared.dto.event.FileWatcherEventType.DELETED;
+import static org.eclipse.che.api.project.shared.dto.event.FileWatcherEventType.MODIFIED;
+
+/**
+ * Collects file watcher events during window and passes them to consumer as single batch. Events of the same path
+ * within window are merged, e.g. creation and following modification of file is reported as creation, creation and
+ * following deletion of file are not reported at all. Window starts with the first event after previous batch, so
+ * event is delayed not longer than window regardless of how many events follow it.
+ * <p>
+ * Paths are relative to the watch root, elements of path are separated by '/'.
+ */
+public class FileWatcherEventCoalescer {
+    private final long                      window;
+    private final ScheduledExecutorService  scheduler;
+    private final Consumer<List<PathEvent>> consumer;
+    private       Map<String, PathEvent>    pending;
+    private       boolean                   flushScheduled;
+
+    /**
+     * @param window
+     *         window in milliseconds
+     * @param scheduler
+     *         scheduler that delivers batches to consumer, batches are delivered in order if scheduler is single
+     *         threaded
+     */
+    public FileWatcherEventCoalescer(long window, ScheduledExecutorService scheduler, Consumer<List<PathEvent>> consumer) {
+        this.window = window;
+        this.scheduler = scheduler;
+        this.consumer = consumer;
+        this.pending = new LinkedHashMap<>();
+    }
+
+    public synchronized void add(FileWatcherEventType type, String path, boolean isDir) {
+        final PathEvent previous = pending.get(path);
+        if (previous == null) {
+            pending.put(path, new PathEvent(type, path, isDir));
+        } else {
+            final FileWatcherEventType merged = merge(previous.getType(), type);
+            if (merged == null) {
+                pending.remove(path);
+            } else {
+                pending.put(path, new PathEvent(merged, path, isDir));
+            }
+        }
+        if (!flushScheduled) {
+            flushScheduled = true;
+            scheduler.schedule(this::flush, window, MILLISECONDS);
+        }
+    }
+
+    /** Delivers pending events to consumer immediately. */
+    public void flush() {
+        final Map<String, PathEvent> batch;
+        synchronized (this) {
+            batch = pending;
+            pending = new LinkedHashMap<>();
+            flushScheduled = false;
+        }
+        if (!batch.isEmpty()) {
+            consumer.accept(new ArrayList<>(batch.values()));
+        }
+    }
+
+    /**
+     * Merges two consecutive events of the same path.
+     *
+     * @return merged type of event or {@code null} if events cancel each other
+     */
+    static FileWatcherEventType merge(FileWatcherEventType previous, FileWatcherEventType next) {
+        switch (previous) {
+            case CREATED:
+                // item that didn't exist before the window is still new or doesn't exist anymore
+                return next == DELETED ? null : CREATED;
+            case DELETED:
+                // item that is deleted and created again is replaced
+                return next == DELETED ? DELETED : MODIFIED;
+            default:
+                return next == DELETED ? DELETED : MODIFIED;
+        }
+    }
+
+    /** Event of path relative to watch root. */
+    public static class PathEvent {
+        private final FileWatcherEventType type;
+        private final String               path;
+        private final boolean              dir;
+
+        PathEvent(FileWatcherEventType type, String path, boolean dir) {
+            this.type = type;
+            this.path = path;
+            this.dir = dir;
+        }
+
+        public FileWatcherEventType getType() {
+            return type;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public boolean isDir() {
+            return dir;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof PathEvent)) {
+                return false;
+            }
+            PathEvent other = (PathEvent)o;
+            return dir == other.dir && type == other.type && Objects.equals(path, other.path);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(type, path, dir);
+        }
+
+        @Override
+        public String toString() {
+            return "PathEvent{type=" + type + ", path='" + path + '\'' + ", dir=" + dir + '}';
+        }
+    }
+}
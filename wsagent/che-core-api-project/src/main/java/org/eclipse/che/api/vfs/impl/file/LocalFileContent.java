@@ -0,0 +1,162 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2017 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.vfs.impl.file;
+
+import org.eclipse.che.api.vfs.FileContent;
+import org.eclipse.che.api.vfs.Path;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Objects;
+
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
+import static java.nio.file.Files.readAttributes;
+import static java.nio.file.StandardOpenOption.READ;
+import static org.eclipse.che.api.vfs.impl.file.LocalVirtualFileSystem.MAX_BUFFER_SIZE;
+
+/**
+ * Content of local file backed by {@link FileChannel}. Version of file is defined by its size, modification time
+ * and file key (e.g. inode), file is considered as modified if any of them is changed since content was opened.
+ * <p>
+ * Content of files which size doesn't exceed {@link LocalVirtualFileSystem#MAX_BUFFER_SIZE} is read in heap buffer
+ * since memory mapping of small files costs more than reading, content of bigger files is memory mapped.
+ */
+class LocalFileContent implements FileContent {
+    private final Path                path;
+    private final java.nio.file.Path  ioPath;
+    private final FileChannel         channel;
+    private final BasicFileAttributes version;
+
+    /**
+     * Opens content of file.
+     *
+     * @param path
+     *         virtual path of file, used in error messages
+     * @param ioPath
+     *         path of file on local file system
+     */
+    static LocalFileContent open(Path path, java.nio.file.Path ioPath) throws IOException {
+        final FileChannel channel = FileChannel.open(ioPath, READ);
+        try {
+            return new LocalFileContent(path, ioPath, channel, readAttributes(ioPath, BasicFileAttributes.class));
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private LocalFileContent(Path path, java.nio.file.Path ioPath, FileChannel channel, BasicFileAttributes version) {
+        this.path = path;
+        this.ioPath = ioPath;
+        this.channel = channel;
+        this.version = version;
+    }
+
+    @Override
+    public long getLength() {
+        return version.size();
+    }
+
+    @Override
+    public long transferTo(OutputStream out) throws IOException {
+        final WritableByteChannel target = Channels.newChannel(out);
+        final long length = getLength();
+        long position = 0;
+        while (position < length) {
+            final long transferred = channel.transferTo(position, length - position, target);
+            if (transferred <= 0) {
+                // file is truncated
+                break;
+            }
+            position += transferred;
+        }
+        checkUnmodified();
+        return position;
+    }
+
+    @Override
+    public <T> T read(BufferReader<T> reader) throws IOException {
+        final long length = getLength();
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException(String.format("File '%s' is too big to be read as single buffer", path));
+        }
+        final T result;
+        if (length <= MAX_BUFFER_SIZE) {
+            final ByteBuffer buffer = ByteBuffer.allocate((int)length);
+            while (buffer.hasRemaining() && channel.read(buffer, buffer.position()) > 0) {
+                // read until buffer is full or end of file
+            }
+            buffer.flip();
+            result = reader.read(buffer.asReadOnlyBuffer());
+        } else {
+            try {
+                result = reader.read(channel.map(READ_ONLY, 0, length));
+            } catch (InternalError e) {
+                // access to mapped region of file that was truncated concurrently
+                throw new IOException(String.format("Content of '%s' was modified while it was being read", path), e);
+            }
+        }
+        checkUnmodified();
+        return result;
+    }
+
+    @Override
+    public boolean isModified() throws IOException {
+        final BasicFileAttributes current = readAttributes(ioPath, BasicFileAttributes.class);
+        return current.size() != version.size()
+               || !current.lastModifiedTime().equals(version.lastModifiedTime())
+               || !Objects.equals(current.fileKey(), version.fileKey());
+    }
+
+    /**
+     * Opens stream which reads content directly from the file. Stream checks version of file when reaches end of
+     * content and fails if file is modified. Closing of stream closes this content.
+     */
+    InputStream openStream() {
+        return new FilterInputStream(Channels.newInputStream(channel)) {
+            @Override
+            public int read() throws IOException {
+                final int b = super.read();
+                if (b == -1) {
+                    checkUnmodified();
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                final int n = super.read(b, off, len);
+                if (n == -1) {
+                    checkUnmodified();
+                }
+                return n;
+            }
+        };
+    }
+
+    private void checkUnmodified() throws IOException {
+        if (isModified()) {
+            throw new IOException(String.format("Content of '%s' was modified while it was being read", path));
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
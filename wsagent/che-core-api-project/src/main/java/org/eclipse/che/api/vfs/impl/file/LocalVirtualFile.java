@@ -15,6 +15,7 @@ import com.google.common.io.ByteStreams;
 import org.eclipse.che.api.core.ConflictException;
 import org.eclipse.che.api.core.ForbiddenException;
 import org.eclipse.che.api.core.ServerException;
+import org.eclipse.che.api.vfs.FileContent;
 import org.eclipse.che.api.vfs.Path;
 import org.eclipse.che.api.vfs.VirtualFile;
 import org.eclipse.che.api.vfs.VirtualFileFilter;
@@ -25,6 +26,7 @@ import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -107,6 +109,11 @@ public class LocalVirtualFile implements VirtualFile {
         return fileSystem.getContent(this);
     }
 
+    @Override
+    public FileContent openContent() throws ForbiddenException, ServerException {
+        return fileSystem.openContent(this);
+    }
+
     @Override
     public byte[] getContentAsBytes() throws ForbiddenException, ServerException {
         if (getLength() > MAX_BUFFER_SIZE) {
@@ -246,6 +253,11 @@ public class LocalVirtualFile implements VirtualFile {
         return fileSystem.zip(this);
     }
 
+    @Override
+    public void zip(OutputStream output) throws ForbiddenException, ServerException {
+        fileSystem.zip(this, output);
+    }
+
     @Override
     public void unzip(InputStream zipped, boolean overwrite, int stripNumber)
             throws ForbiddenException, ConflictException, ServerException {
@@ -257,6 +269,11 @@ public class LocalVirtualFile implements VirtualFile {
         return fileSystem.tar(this);
     }
 
+    @Override
+    public void tar(OutputStream output) throws ForbiddenException, ServerException {
+        fileSystem.tar(this, output);
+    }
+
     @Override
     public void untar(InputStream tarArchive, boolean overwrite, int stripNumber)
             throws ForbiddenException, ConflictException, ServerException {
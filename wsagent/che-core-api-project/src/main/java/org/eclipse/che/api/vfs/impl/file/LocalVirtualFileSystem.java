@@ -10,13 +10,14 @@
  *******************************************************************************/
 package org.eclipse.che.api.vfs.impl.file;
 
+import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
+import com.google.common.cache.CacheStats;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.hash.Hashing;
 import com.google.common.io.ByteStreams;
 import com.google.common.io.Files;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 import org.eclipse.che.api.core.ConflictException;
 import org.eclipse.che.api.core.ForbiddenException;
@@ -25,6 +26,8 @@ import org.eclipse.che.api.core.util.FileCleaner;
 import org.eclipse.che.api.vfs.AbstractVirtualFileSystemProvider;
 import org.eclipse.che.api.vfs.Archiver;
 import org.eclipse.che.api.vfs.ArchiverFactory;
+import org.eclipse.che.api.vfs.FileContent;
+import org.eclipse.che.api.vfs.HashSumsCache;
 import org.eclipse.che.api.vfs.HashSumsCounter;
 import org.eclipse.che.api.vfs.LockedFileFinder;
 import org.eclipse.che.api.vfs.Path;
@@ -41,31 +44,40 @@ import org.eclipse.che.commons.lang.Pair;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
 import java.io.ByteArrayInputStream;
-import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.FilenameFilter;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static com.google.common.base.Strings.isNullOrEmpty;
 import static com.google.common.collect.Lists.newArrayList;
 import static com.google.common.collect.Lists.newArrayListWithCapacity;
 import static com.google.common.collect.Maps.newLinkedHashMap;
+import static java.nio.file.Files.newDirectoryStream;
+import static java.nio.file.Files.readAttributes;
 import static java.util.Collections.emptyList;
-import static java.util.Collections.emptyMap;
 import static java.util.Collections.singletonMap;
 import static java.util.concurrent.TimeUnit.MINUTES;
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.eclipse.che.api.vfs.VirtualFileFilters.dotGitFilter;
 import static org.eclipse.che.commons.lang.IoUtil.deleteRecursive;
 
@@ -81,6 +93,10 @@ public class LocalVirtualFileSystem implements VirtualFileSystem {
 
     private static final long WAIT_FOR_FILE_LOCK_TIMEOUT = 60000; // 60 seconds
     private static final int  FILE_LOCK_MAX_THREADS      = 1024;
+    private static final long RACY_LISTING_INTERVAL      = 1000; // 1 second
+    private static final int  HASH_SUMS_CACHE_SIZE       = 100_000;
+    private static final int  METADATA_STORE_FOLDERS     = 10_000;
+    private static final int  CONTENT_CACHE_MAX_FILE     = 64 * 1024; // 64k
 
     private static final String   VFS_SERVICE_DIR        = ".vfs";
     private static final String   FILE_LOCKS_DIR         = VFS_SERVICE_DIR + File.separatorChar + "locks";
@@ -89,37 +105,11 @@ public class LocalVirtualFileSystem implements VirtualFileSystem {
     private static final String   FILE_PROPERTIES_DIR    = VFS_SERVICE_DIR + File.separatorChar + "props";
     private static final String   PROPERTIES_FILE_SUFFIX = "_props";
 
-    private static final FilenameFilter DOT_VFS_DIR_FILTER = (dir, name) -> !(VFS_SERVICE_DIR.equals(name));
+    private static final Comparator<VirtualFile> BY_NAME = Comparator.comparing(VirtualFile::getName);
 
     private static final FilenameFilter VFS_LOCK_FILTER =
             (dir, name) -> !(dir.getAbsolutePath().endsWith(FILE_LOCKS_DIR) || name.endsWith(LOCK_FILE_SUFFIX));
 
-    private class LockTokenCacheLoader extends CacheLoader<Path, FileLock> {
-        @Override
-        public FileLock load(Path path) throws Exception {
-            final File lockIoFile = getFileLockIoFile(path);
-            if (lockIoFile.exists()) {
-                try (DataInputStream dis = new DataInputStream(new BufferedInputStream(new FileInputStream(lockIoFile)))) {
-                    return locksSerializer.read(dis);
-                }
-            }
-            return NO_LOCK;
-        }
-    }
-
-    private class FilePropertiesCacheLoader extends CacheLoader<Path, Map<String, String>> {
-        @Override
-        public Map<String, String> load(Path path) throws Exception {
-            final File metadataIoFile = getMetadataIoFile(path);
-            if (metadataIoFile.exists()) {
-                try (DataInputStream dis = new DataInputStream(new BufferedInputStream(new FileInputStream(metadataIoFile)))) {
-                    return ImmutableMap.copyOf(metadataSerializer.read(dis));
-                }
-            }
-            return emptyMap();
-        }
-    }
-
     private final File                                            ioRoot;
     private final ArchiverFactory                                 archiverFactory;
     private final SearcherProvider                                searcherProvider;
@@ -130,17 +120,41 @@ public class LocalVirtualFileSystem implements VirtualFileSystem {
 
     private final LocalVirtualFile root;
 
-    private final FileLockSerializer           locksSerializer;
-    private final LoadingCache<Path, FileLock> lockTokensCache;
+    private final FileLockSerializer      locksSerializer;
+    private final MetadataStore<FileLock> lockTokensStore;
 
-    private final FileMetadataSerializer                  metadataSerializer;
-    private final LoadingCache<Path, Map<String, String>> metadataCache;
+    private final FileMetadataSerializer             metadataSerializer;
+    private final MetadataStore<Map<String, String>> metadataStore;
+
+    private final Cache<Path, DirectoryListing> childrenCache;
+    private final AtomicLong                    childrenCacheGeneration;
+
+    private final HashSumsCache      md5SumsCache;
+    private final ThreadPoolExecutor hashSumsExecutor;
+
+    private final FileContentCache contentCache;
+
+    /** Batches of files created or updated under folders which archives are extracted to at the moment. */
+    private final List<IndexBatch> indexBatches;
 
-    @SuppressWarnings("unchecked")
     public LocalVirtualFileSystem(File ioRoot,
                                   ArchiverFactory archiverFactory,
                                   SearcherProvider searcherProvider,
                                   AbstractVirtualFileSystemProvider.CloseCallback closeCallback) {
+        this(ioRoot, archiverFactory, searcherProvider, closeCallback, 0);
+    }
+
+    /**
+     * @param contentCacheSize
+     *         max total size in bytes of content of small files kept in memory to serve repeated reads of the same
+     *         files, {@code 0} disables caching of content
+     */
+    @SuppressWarnings("unchecked")
+    public LocalVirtualFileSystem(File ioRoot,
+                                  ArchiverFactory archiverFactory,
+                                  SearcherProvider searcherProvider,
+                                  AbstractVirtualFileSystemProvider.CloseCallback closeCallback,
+                                  long contentCacheSize) {
         this.ioRoot = ioRoot;
         this.archiverFactory = archiverFactory;
         this.searcherProvider = searcherProvider;
@@ -150,18 +164,28 @@ public class LocalVirtualFileSystem implements VirtualFileSystem {
         pathLockFactory = new PathLockFactory(FILE_LOCK_MAX_THREADS);
 
         locksSerializer = new FileLockSerializer();
-        lockTokensCache = CacheBuilder.newBuilder()
-                                      .concurrencyLevel(8)
-                                      .maximumSize(256)
-                                      .expireAfterAccess(10, MINUTES)
-                                      .build(new LockTokenCacheLoader());
+        lockTokensStore = new MetadataStore<>(ioRoot, FILE_LOCKS_DIR, LOCK_FILE_SUFFIX, locksSerializer, METADATA_STORE_FOLDERS);
 
         metadataSerializer = new FileMetadataSerializer();
-        metadataCache = CacheBuilder.newBuilder()
+        metadataStore = new MetadataStore<>(ioRoot, FILE_PROPERTIES_DIR, PROPERTIES_FILE_SUFFIX, metadataSerializer,
+                                            METADATA_STORE_FOLDERS);
+
+        childrenCache = CacheBuilder.newBuilder()
                                     .concurrencyLevel(8)
-                                    .maximumSize(256)
+                                    .maximumSize(1024)
                                     .expireAfterAccess(10, MINUTES)
-                                    .build(new FilePropertiesCacheLoader());
+                                    .build();
+        childrenCacheGeneration = new AtomicLong();
+
+        md5SumsCache = new HashSumsCache(HASH_SUMS_CACHE_SIZE);
+        final int hashSumsThreads = Runtime.getRuntime().availableProcessors();
+        hashSumsExecutor = new ThreadPoolExecutor(hashSumsThreads, hashSumsThreads, 60, SECONDS, new LinkedBlockingQueue<>(),
+                                                  new ThreadFactoryBuilder().setDaemon(true)
+                                                                            .setNameFormat("LocalVirtualFileSystem-HashSums-%d")
+                                                                            .build());
+        hashSumsExecutor.allowCoreThreadTimeOut(true);
+        contentCache = new FileContentCache(contentCacheSize, CONTENT_CACHE_MAX_FILE);
+        indexBatches = new CopyOnWriteArrayList<>();
     }
 
     @Override
@@ -177,6 +201,10 @@ public class LocalVirtualFileSystem implements VirtualFileSystem {
     @Override
     public void close() throws ServerException {
         cleanUpCaches();
+        childrenCache.invalidateAll();
+        md5SumsCache.invalidateAll();
+        contentCache.invalidateAll();
+        hashSumsExecutor.shutdownNow();
         if (searcherProvider != null) {
             Searcher searcher = searcherProvider.getSearcher(this, false);
             if (searcher != null) {
@@ -206,8 +234,8 @@ public class LocalVirtualFileSystem implements VirtualFileSystem {
     }
 
     private void cleanUpCaches() {
-        lockTokensCache.invalidateAll();
-        metadataCache.invalidateAll();
+        lockTokensStore.invalidateAll();
+        metadataStore.invalidateAll();
     }
 
     /** Used in tests. Need this to check state of PathLockFactory. All locks MUST be released at the end of request lifecycle. */
@@ -243,41 +271,117 @@ public class LocalVirtualFileSystem implements VirtualFileSystem {
         return newArrayList(path.elements()).contains(".vfs");
     }
 
-    synchronized List<VirtualFile> getChildren(LocalVirtualFile parent, VirtualFileFilter filter) throws ServerException {
-        if (parent.isFolder()) {
-            final List<VirtualFile> children = doGetChildren(parent, DOT_VFS_DIR_FILTER, filter);
-            Collections.sort(children);
-            return children;
+    List<VirtualFile> getChildren(LocalVirtualFile parent, VirtualFileFilter filter) throws ServerException {
+        final List<LocalVirtualFile> children = getSortedChildren(parent);
+        final List<VirtualFile> result = newArrayListWithCapacity(children.size());
+        for (LocalVirtualFile child : children) {
+            if (filter == null || filter.accept(child)) {
+                result.add(child);
+            }
         }
-        return emptyList();
+        return result;
     }
 
-
-    private List<VirtualFile> doGetChildren(LocalVirtualFile parent, FilenameFilter ioFileFilter, VirtualFileFilter vfsFilter)
-            throws ServerException {
-        if (ioFileFilter == null) {
-            ioFileFilter = IoUtil.ANY_FILTER;
+    /**
+     * Returns sorted children of folder. Listing is taken from cache if timestamp of folder is the same as when
+     * listing was read, otherwise folder is read again in a single pass which gets names and attributes of children.
+     * Returns empty list if item is not a folder.
+     */
+    private List<LocalVirtualFile> getSortedChildren(LocalVirtualFile parent) throws ServerException {
+        final BasicFileAttributes attributes;
+        try {
+            attributes = readAttributes(parent.toIoFile().toPath(), BasicFileAttributes.class);
+        } catch (IOException e) {
+            return emptyList();
         }
-
-        final String[] names = parent.toIoFile().list(ioFileFilter);
-        if (names == null) {
-            throw new ServerException(String.format("Unable get children of '%s'", parent.getPath()));
+        if (!attributes.isDirectory()) {
+            return emptyList();
+        }
+        final long lastModified = attributes.lastModifiedTime().toMillis();
+        final DirectoryListing cached = childrenCache.getIfPresent(parent.getPath());
+        if (cached != null && cached.lastModified == lastModified) {
+            return cached.children;
         }
 
-        if (vfsFilter == null) {
-            vfsFilter = VirtualFileFilter.ACCEPT_ALL;
+        final long generation = childrenCacheGeneration.get();
+        final long readTime = System.currentTimeMillis();
+        final DirectoryListing listing = new DirectoryListing(readChildren(parent), lastModified);
+        // Folder modified within the same tick of file system clock may be modified again without changing its
+        // timestamp, such listing may not be validated against timestamp, so don't keep it.
+        // Don't keep listing if cache was invalidated while folder was being read, listing might be already stale.
+        if (readTime - lastModified > RACY_LISTING_INTERVAL && generation == childrenCacheGeneration.get()) {
+            childrenCache.put(parent.getPath(), listing);
         }
+        return listing.children;
+    }
 
-        final List<VirtualFile> children = newArrayListWithCapacity(names.length);
-        for (String name : names) {
-            final Path childPath = parent.getPath().newPath(name);
-            final LocalVirtualFile child = new LocalVirtualFile(new File(ioRoot, toIoPath(childPath)), childPath, this);
-            if (vfsFilter.accept(child)) {
-                children.add(child);
+    private List<LocalVirtualFile> readChildren(LocalVirtualFile parent) throws ServerException {
+        final List<LocalVirtualFile> folders = newArrayList();
+        final List<LocalVirtualFile> files = newArrayList();
+        try (DirectoryStream<java.nio.file.Path> entries = newDirectoryStream(parent.toIoFile().toPath())) {
+            for (java.nio.file.Path entry : entries) {
+                final String name = entry.getFileName().toString();
+                if (VFS_SERVICE_DIR.equals(name)) {
+                    continue;
+                }
+                boolean isDirectory;
+                try {
+                    isDirectory = readAttributes(entry, BasicFileAttributes.class).isDirectory();
+                } catch (IOException e) {
+                    // broken link or item removed after it was listed
+                    isDirectory = false;
+                }
+                final Path childPath = parent.getPath().newPath(name);
+                final LocalVirtualFile child = new LocalVirtualFile(entry.toFile(), childPath, this);
+                (isDirectory ? folders : files).add(child);
             }
+        } catch (IOException | DirectoryIteratorException e) {
+            String errorMessage = String.format("Unable get children of '%s'", parent.getPath());
+            LOG.error(errorMessage + "\n" + e.getMessage(), e);
+            throw new ServerException(errorMessage);
         }
+        // To get nice order of items, see LocalVirtualFile.compareTo:
+        // 1. Folders
+        // 2. Files
+        folders.sort(BY_NAME);
+        files.sort(BY_NAME);
+        folders.addAll(files);
+        return Collections.unmodifiableList(folders);
+    }
 
-        return children;
+    /**
+     * Drops cached listings affected by creation, removal or modification of item with specified path: listing of
+     * its parent and listings of item itself and all its descendants. Metadata of descendants of item is dropped as
+     * well, metadata of item itself is kept in service folder of its parent which is not affected. Called after
+     * changes done through this file system and on events of file watcher about changes done outside.
+     */
+    void invalidateChildren(Path path) {
+        childrenCacheGeneration.incrementAndGet();
+        if (!path.isRoot()) {
+            childrenCache.invalidate(path.getParent());
+        }
+        childrenCache.asMap().keySet().removeIf(cached -> cached.equals(path) || cached.isChild(path));
+        lockTokensStore.invalidateDescendants(path);
+        metadataStore.invalidateDescendants(path);
+        contentCache.invalidate(path);
+    }
+
+    /**
+     * Gets statistics of reads of content of small files served from memory, e.g. hit rate. Statistics is empty if
+     * caching of content is disabled.
+     */
+    public CacheStats getContentCacheStats() {
+        return contentCache.stats();
+    }
+
+    private static class DirectoryListing {
+        final List<LocalVirtualFile> children;
+        final long                   lastModified;
+
+        DirectoryListing(List<LocalVirtualFile> children, long lastModified) {
+            this.children = children;
+            this.lastModified = lastModified;
+        }
     }
 
 
@@ -302,6 +406,7 @@ public class LocalVirtualFileSystem implements VirtualFileSystem {
                 LOG.error(errorMessage + "\n" + e.getMessage(), e);
                 throw new ServerException(errorMessage);
             }
+            invalidateChildren(newPath);
 
             final LocalVirtualFile newVirtualFile = new LocalVirtualFile(newIoFile, newPath, this);
 
@@ -330,6 +435,8 @@ public class LocalVirtualFileSystem implements VirtualFileSystem {
                     throw new ConflictException(String.format("Item '%s' already exists", newPath));
                 }
             }
+            // name may contain few segments, all of them might be created
+            invalidateChildren(parent.getPath().newPath(Path.of(name).element(0)));
 
             return new LocalVirtualFile(newIoFile, newPath, this);
         } else {
@@ -386,6 +493,11 @@ public class LocalVirtualFileSystem implements VirtualFileSystem {
             String errorMessage = String.format("Unable copy '%s' to '%s'", from, to);
             LOG.error(errorMessage + "\n" + e.getMessage(), e);
             throw new ServerException(errorMessage);
+        } finally {
+            // service files of destination are replaced with copies
+            lockTokensStore.invalidate(to.getPath());
+            metadataStore.invalidate(to.getPath());
+            invalidateChildren(to.getPath());
         }
     }
 
@@ -491,21 +603,36 @@ public class LocalVirtualFileSystem implements VirtualFileSystem {
     InputStream getContent(LocalVirtualFile virtualFile) throws ForbiddenException, ServerException {
         if (virtualFile.isFile()) {
             final PathLockFactory.PathLock lock = pathLockFactory.getLock(virtualFile.getPath(), false).acquire(WAIT_FOR_FILE_LOCK_TIMEOUT);
-            File spoolFile = null;
             try {
                 final File ioFile = virtualFile.toIoFile();
                 final long fileLength = ioFile.length();
+                if (contentCache.accepts(fileLength)) {
+                    return new ByteArrayInputStream(readCachedContent(virtualFile.getPath(), ioFile, fileLength));
+                }
                 if (fileLength <= MAX_BUFFER_SIZE) {
                     return new ByteArrayInputStream(Files.toByteArray(ioFile));
                 }
-                // Copy this file to be able release the file lock before leave this method.
-                spoolFile = File.createTempFile("spool_file", null);
-                Files.copy(ioFile, spoolFile);
-                return new DeleteOnCloseFileInputStream(spoolFile);
+                // Read big file directly instead of copying it, stream fails if file is modified while it is being read.
+                return LocalFileContent.open(virtualFile.getPath(), ioFile.toPath()).openStream();
+            } catch (IOException e) {
+                String errorMessage = String.format("Unable get content of '%s'", virtualFile.getPath());
+                LOG.error(errorMessage + "\n" + e.getMessage(), e);
+                throw new ServerException(errorMessage);
+            } finally {
+                lock.release();
+            }
+        } else {
+            throw new ForbiddenException(String.format("Unable get content. Item '%s' is not a file", virtualFile.getPath()));
+        }
+    }
+
+
+    FileContent openContent(LocalVirtualFile virtualFile) throws ForbiddenException, ServerException {
+        if (virtualFile.isFile()) {
+            final PathLockFactory.PathLock lock = pathLockFactory.getLock(virtualFile.getPath(), false).acquire(WAIT_FOR_FILE_LOCK_TIMEOUT);
+            try {
+                return LocalFileContent.open(virtualFile.getPath(), virtualFile.toIoFile().toPath());
             } catch (IOException e) {
-                if (spoolFile != null) {
-                    FileCleaner.addFile(spoolFile);
-                }
                 String errorMessage = String.format("Unable get content of '%s'", virtualFile.getPath());
                 LOG.error(errorMessage + "\n" + e.getMessage(), e);
                 throw new ServerException(errorMessage);
@@ -537,7 +664,20 @@ public class LocalVirtualFileSystem implements VirtualFileSystem {
     }
 
 
+    private byte[] readCachedContent(Path path, File ioFile, long fileLength) throws IOException {
+        final long lastModified = ioFile.lastModified();
+        byte[] bytes = contentCache.get(path, fileLength, lastModified);
+        if (bytes == null) {
+            final long readTime = System.currentTimeMillis();
+            bytes = Files.toByteArray(ioFile);
+            contentCache.put(path, fileLength, lastModified, readTime, bytes);
+        }
+        return bytes;
+    }
+
     private void doUpdateContent(LocalVirtualFile virtualFile, InputStream content) throws ServerException {
+        // written content isn't cached, modification time of file is within racy interval right after write
+        contentCache.invalidate(virtualFile.getPath());
         try (FileOutputStream fileOut = new FileOutputStream(virtualFile.toIoFile())) {
             ByteStreams.copy(content, fileOut);
         } catch (IOException e) {
@@ -571,8 +711,6 @@ public class LocalVirtualFileSystem implements VirtualFileSystem {
             throw new ForbiddenException(String.format("Unable delete file '%s'. File is locked", virtualFile.getPath()));
         }
 
-        cleanUpCaches();
-
         final File fileLockIoFile = getFileLockIoFile(virtualFile.getPath());
         if (fileLockIoFile.delete()) {
             if (fileLockIoFile.exists()) {
@@ -589,7 +727,16 @@ public class LocalVirtualFileSystem implements VirtualFileSystem {
             }
         }
 
-        if (!deleteRecursive(virtualFile.toIoFile())) {
+        final boolean deleted = deleteRecursive(virtualFile.toIoFile());
+        if (deleted) {
+            lockTokensStore.removeTree(virtualFile.getPath());
+            metadataStore.removeTree(virtualFile.getPath());
+        } else {
+            lockTokensStore.invalidate(virtualFile.getPath());
+            metadataStore.invalidate(virtualFile.getPath());
+        }
+        invalidateChildren(virtualFile.getPath());
+        if (!deleted) {
             LOG.error("Unable delete file {}", virtualFile.toIoFile());
             throw new ServerException(String.format("Unable delete item '%s'", virtualFile.getPath()));
         }
@@ -608,14 +755,31 @@ public class LocalVirtualFileSystem implements VirtualFileSystem {
     }
 
 
+    void zip(LocalVirtualFile folder, OutputStream output) throws ForbiddenException, ServerException {
+        if(archiverFactory == null)
+            throw new ServerException("VFS: Could not create zip archiver. Archiver Factory is not properly configured (is null)");
+
+        if (folder.isFolder()) {
+            compress(archiverFactory.createArchiver(folder, "zip"), output);
+        } else {
+            throw new ForbiddenException(String.format("Unable export to zip. Item '%s' is not a folder", folder.getPath()));
+        }
+    }
+
+
     void unzip(LocalVirtualFile parent, InputStream zipped, boolean overwrite, int stripNumber)
             throws ForbiddenException, ConflictException, ServerException {
         if(archiverFactory == null)
             throw new ServerException("VFS: Could not create zip archiver. Archiver Factory is not properly configured (is null)");
 
         if (parent.isFolder()) {
-            extract(archiverFactory.createArchiver(parent, "zip"), zipped, overwrite, stripNumber);
-            addInSearcher(parent);
+            final IndexBatch indexBatch = startIndexBatch(parent.getPath());
+            try {
+                extract(archiverFactory.createArchiver(parent, "zip"), zipped, overwrite, stripNumber);
+            } finally {
+                invalidateChildren(parent.getPath());
+                finishIndexBatch(indexBatch);
+            }
         } else {
             throw new ForbiddenException(String.format("Unable import zip content. Item '%s' is not a folder", parent.getPath()));
         }
@@ -633,14 +797,30 @@ public class LocalVirtualFileSystem implements VirtualFileSystem {
         }
     }
 
+    void tar(LocalVirtualFile folder, OutputStream output) throws ForbiddenException, ServerException {
+        if(archiverFactory == null)
+            throw new ServerException("VFS: Could not create tar archiver. Archiver Factory is not properly configured (is null)");
+
+        if (folder.isFolder()) {
+            compress(archiverFactory.createArchiver(folder, "tar"), output);
+        } else {
+            throw new ForbiddenException(String.format("Unable export to tar archive. Item '%s' is not a folder", folder.getPath()));
+        }
+    }
+
     void untar(LocalVirtualFile parent, InputStream tarArchive, boolean overwrite, int stripNumber)
             throws ForbiddenException, ConflictException, ServerException {
         if(archiverFactory == null)
             throw new ServerException("VFS: Could not create tar archiver. Archiver Factory is not properly configured (is null)");
 
         if (parent.isFolder()) {
-            extract(archiverFactory.createArchiver(parent, "tar"), tarArchive, overwrite, stripNumber);
-            addInSearcher(parent);
+            final IndexBatch indexBatch = startIndexBatch(parent.getPath());
+            try {
+                extract(archiverFactory.createArchiver(parent, "tar"), tarArchive, overwrite, stripNumber);
+            } finally {
+                invalidateChildren(parent.getPath());
+                finishIndexBatch(indexBatch);
+            }
         } else {
             throw new ForbiddenException(String.format("Unable import tar archive. Item '%s' is not a folder", parent.getPath()));
         }
@@ -662,6 +842,14 @@ public class LocalVirtualFileSystem implements VirtualFileSystem {
         }
     }
 
+    private void compress(Archiver archiver, OutputStream output) throws ServerException {
+        try {
+            archiver.compress(output, dotGitFilter());
+        } catch (IOException e) {
+            throw new ServerException(e.getMessage(), e);
+        }
+    }
+
     private void extract(Archiver archiver, InputStream compressed, boolean overwrite, int stripNumber)
             throws ConflictException, ServerException, ForbiddenException {
         try {
@@ -686,24 +874,20 @@ public class LocalVirtualFileSystem implements VirtualFileSystem {
 
     private String doLock(LocalVirtualFile virtualFile, long timeout) throws ConflictException, ServerException {
         try {
-            if (NO_LOCK == lockTokensCache.get(virtualFile.getPath())) {
+            if (lockTokensStore.get(virtualFile.getPath()) == null) {
                 final FileLock lock = createLock(timeout);
                 final File fileLockIoFile = getFileLockIoFile(virtualFile.getPath());
                 fileLockIoFile.getParentFile().mkdirs();
                 try (DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(fileLockIoFile)))) {
                     locksSerializer.write(dos, lock);
                 }
-                lockTokensCache.put(virtualFile.getPath(), lock);
+                lockTokensStore.put(virtualFile.getPath(), lock);
                 return lock.getLockToken();
             }
             throw new ConflictException(String.format("Unable lock file '%s'. File already locked", virtualFile.getPath()));
-        } catch (IOException | ExecutionException e) {
+        } catch (IOException e) {
             String errorMessage = String.format("Unable lock file '%s'", virtualFile.getPath());
-            if (e instanceof ExecutionException) {
-                LOG.error(errorMessage + "\n" + e.getCause().getMessage(), e.getCause());
-            } else {
-                LOG.error(errorMessage + "\n" + e.getMessage(), e);
-            }
+            LOG.error(errorMessage + "\n" + e.getMessage(), e);
             throw new ServerException(errorMessage);
         }
     }
@@ -749,7 +933,7 @@ public class LocalVirtualFileSystem implements VirtualFileSystem {
                     throw new IOException(String.format("Unable delete lock file %s", fileLockIoFile));
                 }
             }
-            lockTokensCache.put(virtualFile.getPath(), NO_LOCK);
+            lockTokensStore.remove(virtualFile.getPath());
         } catch (IOException e) {
             String errorMessage = String.format("Unable unlock file '%s'", virtualFile.getPath());
             LOG.error(errorMessage + "\n" + e.getMessage(), e);
@@ -775,14 +959,14 @@ public class LocalVirtualFileSystem implements VirtualFileSystem {
         try {
             final FileLock lock;
             try {
-                lock = lockTokensCache.get(virtualFile.getPath());
-            } catch (ExecutionException e) {
+                lock = lockTokensStore.get(virtualFile.getPath());
+            } catch (IOException e) {
                 String errorMessage = String.format("Unable get lock of file '%s'", virtualFile.getPath());
-                LOG.error(errorMessage + "\n" + e.getCause().getMessage(), e.getCause());
+                LOG.error(errorMessage + "\n" + e.getMessage(), e);
                 throw new ServerException(errorMessage);
             }
-            if (NO_LOCK == lock) {
-                return lock;
+            if (lock == null) {
+                return NO_LOCK;
             }
             if (lock.getExpired() < System.currentTimeMillis()) {
                 final File fileLockIoFile = getFileLockIoFile(virtualFile.getPath());
@@ -792,7 +976,7 @@ public class LocalVirtualFileSystem implements VirtualFileSystem {
                         LOG.warn("Unable delete lock file %s", fileLockIoFile);
                     }
                 }
-                lockTokensCache.put(virtualFile.getPath(), NO_LOCK);
+                lockTokensStore.remove(virtualFile.getPath());
                 return NO_LOCK;
             }
             return lock;
@@ -817,10 +1001,11 @@ public class LocalVirtualFileSystem implements VirtualFileSystem {
         final PathLockFactory.PathLock metadataFilePathLock =
                 pathLockFactory.getLock(virtualFile.getPath(), false).acquire(WAIT_FOR_FILE_LOCK_TIMEOUT);
         try {
-            return newLinkedHashMap(metadataCache.get(virtualFile.getPath()));
-        } catch (ExecutionException e) {
+            final Map<String, String> properties = metadataStore.get(virtualFile.getPath());
+            return properties == null ? newLinkedHashMap() : newLinkedHashMap(properties);
+        } catch (IOException e) {
             String errorMessage = String.format("Unable read properties of file '%s'", virtualFile.getPath());
-            LOG.error(errorMessage + "\n" + e.getCause().getMessage(), e.getCause());
+            LOG.error(errorMessage + "\n" + e.getMessage(), e);
             throw new ServerException(errorMessage);
         } finally {
             metadataFilePathLock.release();
@@ -873,7 +1058,11 @@ public class LocalVirtualFileSystem implements VirtualFileSystem {
                 }
             }
 
-            metadataCache.put(virtualFile.getPath(), properties);
+            if (properties.isEmpty()) {
+                metadataStore.remove(virtualFile.getPath());
+            } else {
+                metadataStore.put(virtualFile.getPath(), ImmutableMap.copyOf(properties));
+            }
 
             if (!virtualFile.toIoFile().setLastModified(System.currentTimeMillis())) {
                 LOG.warn("Unable to set timestamp to '{}'", virtualFile.toIoFile());
@@ -908,7 +1097,7 @@ public class LocalVirtualFileSystem implements VirtualFileSystem {
         if (virtualFile.isFile()) {
             return emptyList();
         }
-        return new HashSumsCounter(virtualFile, Hashing.md5()).countHashSums();
+        return new HashSumsCounter(virtualFile, Hashing.md5(), hashSumsExecutor, md5SumsCache).countHashSums();
     }
 
 
@@ -930,8 +1119,41 @@ public class LocalVirtualFileSystem implements VirtualFileSystem {
     }
 
 
+    /**
+     * Starts collecting of files created or updated under folder instead of adding them to search index one by one.
+     * Collected files are added to index at once by {@link #finishIndexBatch(IndexBatch)}.
+     */
+    private IndexBatch startIndexBatch(Path folder) {
+        final IndexBatch indexBatch = new IndexBatch(folder);
+        indexBatches.add(indexBatch);
+        return indexBatch;
+    }
+
+    private void finishIndexBatch(IndexBatch indexBatch) {
+        indexBatches.remove(indexBatch);
+        if (searcherProvider != null && !indexBatch.files.isEmpty()) {
+            try {
+                searcherProvider.getSearcher(this).addAll(indexBatch.files.values());
+            } catch (ServerException e) {
+                LOG.error(e.getMessage(), e);
+            }
+        }
+    }
+
+    /** @return {@code true} if file is added to batch and must not be indexed now */
+    private boolean addInIndexBatch(LocalVirtualFile virtualFile) {
+        final Path path = virtualFile.getPath();
+        for (IndexBatch indexBatch : indexBatches) {
+            if (path.isChild(indexBatch.folder)) {
+                indexBatch.files.put(path, virtualFile);
+                return true;
+            }
+        }
+        return false;
+    }
+
     private void addInSearcher(LocalVirtualFile newVirtualFile) {
-        if (searcherProvider != null) {
+        if (searcherProvider != null && !addInIndexBatch(newVirtualFile)) {
             try {
                 searcherProvider.getSearcher(this).add(newVirtualFile);
             } catch (ServerException e) {
@@ -941,7 +1163,7 @@ public class LocalVirtualFileSystem implements VirtualFileSystem {
     }
 
     private void updateInSearcher(LocalVirtualFile virtualFile) {
-        if (searcherProvider != null) {
+        if (searcherProvider != null && !addInIndexBatch(virtualFile)) {
             try {
                 searcherProvider.getSearcher(this).update(virtualFile);
             } catch (ServerException e) {
@@ -959,4 +1181,14 @@ public class LocalVirtualFileSystem implements VirtualFileSystem {
             }
         }
     }
+
+    private static class IndexBatch {
+        final Path                                  folder;
+        final ConcurrentMap<Path, LocalVirtualFile> files;
+
+        IndexBatch(Path folder) {
+            this.folder = folder;
+            this.files = new ConcurrentHashMap<>();
+        }
+    }
 }
@@ -27,17 +27,54 @@ import java.nio.file.Files;
 public class LocalVirtualFileSystemProvider extends AbstractVirtualFileSystemProvider {
     private final File             rootDirectory;
     private final SearcherProvider searcherProvider;
+    private final int              compressionThreads;
+    private final int              extractionThreads;
+    private final long             contentCacheSize;
 
+    public LocalVirtualFileSystemProvider(File rootDirectory, SearcherProvider searcherProvider) throws IOException {
+        this(rootDirectory, searcherProvider, 1);
+    }
+
+    public LocalVirtualFileSystemProvider(File rootDirectory, SearcherProvider searcherProvider, int compressionThreads)
+            throws IOException {
+        this(rootDirectory, searcherProvider, compressionThreads, 1);
+    }
+
+    public LocalVirtualFileSystemProvider(File rootDirectory,
+                                          SearcherProvider searcherProvider,
+                                          int compressionThreads,
+                                          int extractionThreads) throws IOException {
+        this(rootDirectory, searcherProvider, compressionThreads, extractionThreads, 0);
+    }
+
+    /**
+     * @param compressionThreads
+     *         number of threads that compress entries of zip archive when folder is exported
+     * @param extractionThreads
+     *         number of threads that write files extracted from uploaded or imported archive
+     * @param contentCacheSize
+     *         max total size in bytes of content of small files kept in memory, {@code 0} disables caching of content
+     */
     @Inject
     public LocalVirtualFileSystemProvider(@Named("che.user.workspaces.storage") File rootDirectory,
-                                          SearcherProvider searcherProvider) throws IOException {
+                                          SearcherProvider searcherProvider,
+                                          @Named("vfs.export.compression_threads") int compressionThreads,
+                                          @Named("vfs.import.extraction_threads") int extractionThreads,
+                                          @Named("vfs.local.content_cache_size_bytes") long contentCacheSize) throws IOException {
         this.rootDirectory = rootDirectory;
         this.searcherProvider = searcherProvider;
+        this.compressionThreads = compressionThreads;
+        this.extractionThreads = extractionThreads;
+        this.contentCacheSize = contentCacheSize;
         Files.createDirectories(rootDirectory.toPath());
     }
 
     @Override
     protected VirtualFileSystem createVirtualFileSystem(CloseCallback closeCallback) throws ServerException {
-        return new LocalVirtualFileSystem(rootDirectory, new ArchiverFactory(), searcherProvider, closeCallback);
+        return new LocalVirtualFileSystem(rootDirectory,
+                                          new ArchiverFactory(compressionThreads, extractionThreads),
+                                          searcherProvider,
+                                          closeCallback,
+                                          contentCacheSize);
     }
 }
@@ -0,0 +1,253 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2017 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.vfs.impl.file;
+
+import org.eclipse.che.api.vfs.Path;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * In-memory store of metadata of items of local virtual file system, e.g. locks or properties. Metadata of item is
+ * persisted in service file under {@code .vfs} folder of parent of item. When metadata of any item is requested
+ * first time, store reads all service files of parent folder at once, so after that absence of metadata of any
+ * sibling is known without accessing file system and walking through the tree costs single listing per folder.
+ * <p>
+ * Entries are sorted by path, metadata of all children of folder and metadata of whole subtree are adjacent ranges,
+ * so removal or external modification of subtree evicts just this subtree, metadata of other items stays in memory.
+ * Store doesn't write service files itself, caller updates store after service file is written or deleted.
+ */
+class MetadataStore<V> {
+    /** Separates path of folder and name of item in key of entry. Sorted before '/', so children go first. */
+    private static final char CHILD     = '\u0001';
+    private static final char SEPARATOR = '/';
+
+    private final File              ioRoot;
+    private final String            serviceDir;
+    private final String            fileSuffix;
+    private final DataSerializer<V> serializer;
+    private final int               maxFolders;
+
+    /** Metadata of items of loaded folders, items that have no metadata have no entries. */
+    private final ConcurrentNavigableMap<String, V> entries;
+    private final ConcurrentSkipListSet<String>     loadedFolders;
+    private int                                     loadedFoldersCount;
+    /** Odd while entries or folders are being evicted, changes after each eviction. */
+    private volatile long                           version;
+
+    /**
+     * @param ioRoot
+     *         root of file system
+     * @param serviceDir
+     *         folder of service files relative to folder which contains items, e.g. .vfs/locks
+     * @param fileSuffix
+     *         suffix of service file, name of service file is name of item followed by suffix
+     * @param maxFolders
+     *         max number of folders which metadata is kept in memory, all folders are evicted when it is reached
+     */
+    MetadataStore(File ioRoot, String serviceDir, String fileSuffix, DataSerializer<V> serializer, int maxFolders) {
+        this.ioRoot = ioRoot;
+        this.serviceDir = serviceDir;
+        this.fileSuffix = fileSuffix;
+        this.serializer = serializer;
+        this.maxFolders = maxFolders;
+        entries = new ConcurrentSkipListMap<>();
+        loadedFolders = new ConcurrentSkipListSet<>();
+    }
+
+    /**
+     * Gets metadata of item.
+     *
+     * @return metadata of item or {@code null} if item has no metadata
+     * @throws IOException
+     *         if service file of item can't be read
+     */
+    V get(Path path) throws IOException {
+        final String folder = folderKey(folderOf(path));
+        final String key = entryKey(path);
+        final long stamp = version;
+        if ((stamp & 1) == 0 && loadedFolders.contains(folder)) {
+            final V value = entries.get(key);
+            if (stamp == version) {
+                return value;
+            }
+        }
+        synchronized (this) {
+            if (!loadedFolders.contains(folder) && !load(folderOf(path))) {
+                // some service file of folder is being written or broken, read service file of item alone
+                final File serviceIoFile = new File(serviceIoDir(folderOf(path)), path.getName() + fileSuffix);
+                return serviceIoFile.exists() ? read(serviceIoFile) : null;
+            }
+            return entries.get(key);
+        }
+    }
+
+    /** Updates metadata of item after its service file is written. */
+    synchronized void put(Path path, V value) {
+        // nothing to update if folder isn't loaded, service file is read when folder is loaded
+        if (loadedFolders.contains(folderKey(folderOf(path)))) {
+            entries.put(entryKey(path), value);
+        }
+    }
+
+    /** Removes metadata of item after its service file is deleted. */
+    synchronized void remove(Path path) {
+        entries.remove(entryKey(path));
+    }
+
+    /** Removes metadata of item and all its descendants after item is deleted with its service files. */
+    synchronized void removeTree(Path path) {
+        beginEviction();
+        try {
+            entries.remove(entryKey(path));
+            evictDescendants(path);
+        } finally {
+            endEviction();
+        }
+    }
+
+    /**
+     * Evicts metadata of descendants of item, e.g. when content of folder is changed outside of virtual file system.
+     * Metadata of descendants is read again on next request.
+     */
+    synchronized void invalidateDescendants(Path path) {
+        beginEviction();
+        try {
+            evictDescendants(path);
+        } finally {
+            endEviction();
+        }
+    }
+
+    /**
+     * Evicts metadata of item and all its descendants, e.g. when service files of item are replaced. Metadata of item
+     * and its siblings is read again on next request.
+     */
+    synchronized void invalidate(Path path) {
+        beginEviction();
+        try {
+            evictDescendants(path);
+            evictFolder(folderKey(folderOf(path)));
+        } finally {
+            endEviction();
+        }
+    }
+
+    synchronized void invalidateAll() {
+        beginEviction();
+        try {
+            entries.clear();
+            loadedFolders.clear();
+            loadedFoldersCount = 0;
+        } finally {
+            endEviction();
+        }
+    }
+
+    /** Gets number of folders which metadata is kept in memory. */
+    synchronized int getLoadedFoldersCount() {
+        return loadedFoldersCount;
+    }
+
+    /**
+     * Reads all service files of folder.
+     *
+     * @return {@code false} if some of service files can't be read, nothing is loaded in this case
+     */
+    private boolean load(Path folder) {
+        if (loadedFoldersCount >= maxFolders) {
+            invalidateAll();
+        }
+        final String folderKey = folderKey(folder);
+        final File serviceIoDir = serviceIoDir(folder);
+        final String[] names = serviceIoDir.list();
+        if (names != null) {
+            for (String name : names) {
+                if (name.endsWith(fileSuffix)) {
+                    final String itemName = name.substring(0, name.length() - fileSuffix.length());
+                    try {
+                        entries.put(folderKey + CHILD + itemName, read(new File(serviceIoDir, name)));
+                    } catch (IOException e) {
+                        entries.subMap(folderKey + CHILD, successor(folderKey + CHILD)).clear();
+                        return false;
+                    }
+                }
+            }
+        }
+        loadedFolders.add(folderKey);
+        loadedFoldersCount++;
+        return true;
+    }
+
+    private File serviceIoDir(Path folder) {
+        return new File(new File(ioRoot, toIoPath(folder)), serviceDir);
+    }
+
+    private V read(File serviceIoFile) throws IOException {
+        try (DataInputStream dis = new DataInputStream(new BufferedInputStream(new FileInputStream(serviceIoFile)))) {
+            return serializer.read(dis);
+        }
+    }
+
+    private void evictDescendants(Path path) {
+        final String key = folderKey(path);
+        evictFolder(key);
+        entries.subMap(key + SEPARATOR, successor(key + SEPARATOR)).clear();
+        final NavigableSet<String> nested = loadedFolders.subSet(key + SEPARATOR, successor(key + SEPARATOR));
+        loadedFoldersCount -= nested.size();
+        nested.clear();
+    }
+
+    private void evictFolder(String folderKey) {
+        entries.subMap(folderKey + CHILD, successor(folderKey + CHILD)).clear();
+        if (loadedFolders.remove(folderKey)) {
+            loadedFoldersCount--;
+        }
+    }
+
+    private void beginEviction() {
+        version++;
+    }
+
+    private void endEviction() {
+        version++;
+    }
+
+    /** Gets first string after all strings that start with specified prefix. */
+    private static String successor(String prefix) {
+        final int last = prefix.length() - 1;
+        return prefix.substring(0, last) + (char)(prefix.charAt(last) + 1);
+    }
+
+    /** Gets folder that contains service files of item, metadata of root folder is kept in root folder itself. */
+    private static Path folderOf(Path path) {
+        return path.isRoot() ? path : path.getParent();
+    }
+
+    private static String folderKey(Path folder) {
+        return folder.isRoot() ? "" : folder.toString();
+    }
+
+    private static String entryKey(Path path) {
+        return folderKey(folderOf(path)) + CHILD + path.getName();
+    }
+
+    private static String toIoPath(Path path) {
+        return path.isRoot() ? "" : path.join(File.separatorChar);
+    }
+}
@@ -10,7 +10,9 @@
  *******************************************************************************/
 package org.eclipse.che.api.vfs.impl.file.event.detectors;
 
+import com.google.common.hash.Hasher;
 import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 import org.eclipse.che.api.core.ForbiddenException;
 import org.eclipse.che.api.core.ServerException;
@@ -19,6 +21,8 @@ import org.eclipse.che.api.core.jsonrpc.RequestTransmitter;
 import org.eclipse.che.api.project.shared.dto.event.FileStateUpdateDto;
 import org.eclipse.che.api.project.shared.dto.event.FileTrackingOperationDto;
 import org.eclipse.che.api.project.shared.dto.event.FileTrackingOperationDto.Type;
+import org.eclipse.che.api.vfs.FileContent;
+import org.eclipse.che.api.vfs.HashSumsCache;
 import org.eclipse.che.api.vfs.Path;
 import org.eclipse.che.api.vfs.VirtualFile;
 import org.eclipse.che.api.vfs.VirtualFileSystemProvider;
@@ -26,19 +30,24 @@ import org.eclipse.che.api.vfs.watcher.FileWatcherManager;
 import org.eclipse.che.api.vfs.watcher.FileWatcherUtils;
 import org.slf4j.Logger;
 
+import javax.annotation.PreDestroy;
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Singleton;
 import java.io.File;
+import java.io.IOException;
 import java.nio.file.Files;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
 
-import static java.nio.charset.Charset.defaultCharset;
+import static com.google.common.hash.Funnels.asOutputStream;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static org.eclipse.che.api.project.shared.dto.event.FileWatcherEventType.DELETED;
 import static org.eclipse.che.api.project.shared.dto.event.FileWatcherEventType.MODIFIED;
 import static org.eclipse.che.api.vfs.watcher.FileWatcherManager.EMPTY_CONSUMER;
@@ -58,6 +67,11 @@ import static org.slf4j.LoggerFactory.getLogger;
  *         MOVE - tells that file that is being tracked should be moved (renamed)
  *     </li>
  * </ul>
+ * <p>
+ * Modifications and deletions of tracked file are coalesced: the first event schedules a check of the file after
+ * debounce delay, events that come before the check are absorbed by it. The check computes hash of content once for
+ * all endpoints that track the file and sends single {@code event:file-state-changed} to every endpoint whose known
+ * state of the file differs. All checks run in the single scheduler thread.
  *
  * @author Dmitry Kuleshov
  */
@@ -65,25 +79,42 @@ import static org.slf4j.LoggerFactory.getLogger;
 public class FileTrackingOperationReceiver extends RequestHandler<FileTrackingOperationDto, Void> {
     private static final Logger LOG = getLogger(FileTrackingOperationReceiver.class);
 
-    private static final String OUTGOING_METHOD = "event:file-state-changed";
+    private static final String OUTGOING_METHOD      = "event:file-state-changed";
+    private static final long   DEBOUNCE_DELAY_MS    = 1_000L;
+    private static final int    HASH_SUMS_CACHE_SIZE = 1024;
 
-    private final Map<String, String>  hashRegistry    = new HashMap<>();
-    private final Map<String, Integer> watchIdRegistry = new HashMap<>();
+    private final ConcurrentMap<String, TrackedFile> trackedFiles  = new ConcurrentHashMap<>();
+    private final HashSumsCache                      hashSumsCache = new HashSumsCache(HASH_SUMS_CACHE_SIZE);
 
     private final RequestTransmitter        transmitter;
-    private       File                      root;
-    private final FileWatcherManager fileWatcherManager;
+    private final File                      root;
+    private final FileWatcherManager        fileWatcherManager;
     private final VirtualFileSystemProvider vfsProvider;
-
+    private final ScheduledExecutorService  scheduler;
+    private final long                      debounceDelay;
 
     @Inject
     public FileTrackingOperationReceiver(@Named("che.user.workspaces.storage") File root, FileWatcherManager fileWatcherManager, RequestTransmitter transmitter,
                                          VirtualFileSystemProvider vfsProvider) {
+        this(root, fileWatcherManager, transmitter, vfsProvider, DEBOUNCE_DELAY_MS);
+    }
+
+    FileTrackingOperationReceiver(File root, FileWatcherManager fileWatcherManager, RequestTransmitter transmitter,
+                                  VirtualFileSystemProvider vfsProvider, long debounceDelay) {
         super(FileTrackingOperationDto.class, Void.class);
         this.root = root;
         this.fileWatcherManager = fileWatcherManager;
         this.transmitter = transmitter;
         this.vfsProvider = vfsProvider;
+        this.debounceDelay = debounceDelay;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder().setDaemon(true)
+                                                                                              .setNameFormat("FileTrackingOperationReceiver-%d")
+                                                                                              .build());
+    }
+
+    @PreDestroy
+    void stop() {
+        scheduler.shutdownNow();
     }
 
     @Override
@@ -95,18 +126,15 @@ public class FileTrackingOperationReceiver extends RequestHandler<FileTrackingOp
         switch (type) {
             case START: {
                 LOG.debug("Received file tracking operation START trigger.");
-                int id = fileWatcherManager.registerByPath(path,
-                                                           EMPTY_CONSUMER,
-                                                           getModifyConsumer(endpointId, path),
-                                                           getDeleteConsumer(endpointId, path));
-                watchIdRegistry.put(path + endpointId, id);
+
+                startTracking(endpointId, path);
+
                 break;
             }
             case STOP: {
                 LOG.debug("Received file tracking operation STOP trigger.");
 
-                int id = watchIdRegistry.remove(path + endpointId);
-                fileWatcherManager.unRegisterByPath(id);
+                stopTracking(endpointId, path);
 
                 break;
             }
@@ -127,15 +155,8 @@ public class FileTrackingOperationReceiver extends RequestHandler<FileTrackingOp
             case MOVE: {
                 LOG.debug("Received file tracking operation MOVE trigger.");
 
-                int oldId = watchIdRegistry.remove(oldPath + endpointId);
-                fileWatcherManager.unRegisterByPath(oldId);
-
-                int newId = fileWatcherManager.registerByPath(path,
-                                                              EMPTY_CONSUMER,
-                                                              getModifyConsumer(endpointId, path),
-                                                              getDeleteConsumer(endpointId, path));
-                watchIdRegistry.put(path + endpointId, newId);
-
+                stopTracking(endpointId, oldPath);
+                startTracking(endpointId, path);
 
                 break;
             }
@@ -147,45 +168,102 @@ public class FileTrackingOperationReceiver extends RequestHandler<FileTrackingOp
         }
     }
 
-    private Consumer<String> getDeleteConsumer(String endpointId, String path) {
-        return it -> {
-            new Timer().schedule(new TimerTask() {
-                @Override
-                public void run() {
-                    if (!Files.exists(FileWatcherUtils.toNormalPath(root.toPath(), it))) {
-                        transmitter.transmitNotification(endpointId, OUTGOING_METHOD, newDto(FileStateUpdateDto.class).withPath(path)
-                                                                                                                      .withType(DELETED));
-                    }
+    private void startTracking(String endpointId, String path) {
+        final Consumer<String> changeConsumer = it -> scheduleCheck(path);
+        final int id = fileWatcherManager.registerByPath(path, EMPTY_CONSUMER, changeConsumer, changeConsumer);
+        trackedFiles.compute(path, (key, trackedFile) -> {
+            final TrackedFile result = trackedFile == null ? new TrackedFile() : trackedFile;
+            final Integer previousId = result.watchIds.put(endpointId, id);
+            if (previousId != null) {
+                fileWatcherManager.unRegisterByPath(previousId);
+            }
+            return result;
+        });
+    }
 
-                }
-            }, 1_000L);
-        };
+    private void stopTracking(String endpointId, String path) {
+        trackedFiles.computeIfPresent(path, (key, trackedFile) -> {
+            final Integer id = trackedFile.watchIds.remove(endpointId);
+            if (id != null) {
+                fileWatcherManager.unRegisterByPath(id);
+            }
+            trackedFile.hashes.remove(endpointId);
+            return trackedFile.watchIds.isEmpty() ? null : trackedFile;
+        });
     }
 
-    private Consumer<String> getModifyConsumer(String endpointId, String path) {
-        return it -> {
-            String newHash = hashFile(path);
-            String oldHash = hashRegistry.getOrDefault(path + endpointId, null);
+    private void scheduleCheck(String path) {
+        final TrackedFile trackedFile = trackedFiles.get(path);
+        if (trackedFile != null && trackedFile.checkScheduled.compareAndSet(false, true)) {
+            scheduler.schedule(() -> checkFile(path), debounceDelay, MILLISECONDS);
+        }
+    }
 
-            if (Objects.equals(newHash, oldHash)) {
+    private void checkFile(String path) {
+        final TrackedFile trackedFile = trackedFiles.get(path);
+        if (trackedFile == null) {
+            return;
+        }
+        // events that come while file is being checked schedule the next check
+        trackedFile.checkScheduled.set(false);
+        try {
+            if (!Files.exists(FileWatcherUtils.toNormalPath(root.toPath(), path))) {
+                trackedFile.hashes.clear();
+                for (String endpointId : trackedFile.watchIds.keySet()) {
+                    transmitter.transmitNotification(endpointId, OUTGOING_METHOD, newDto(FileStateUpdateDto.class).withPath(path)
+                                                                                                                  .withType(DELETED));
+                }
                 return;
             }
 
-            hashRegistry.put(path + endpointId, newHash);
-
-            transmitter.transmitNotification(endpointId, OUTGOING_METHOD, newDto(FileStateUpdateDto.class).withPath(path)
-                                                                                                          .withType(MODIFIED)
-                                                                                                          .withHashCode(newHash));
-        };
+            final String newHash = hashFile(path);
+            if (newHash == null) {
+                return;
+            }
+            for (String endpointId : trackedFile.watchIds.keySet()) {
+                final String oldHash = trackedFile.hashes.put(endpointId, newHash);
+                if (!Objects.equals(newHash, oldHash)) {
+                    transmitter.transmitNotification(endpointId, OUTGOING_METHOD, newDto(FileStateUpdateDto.class).withPath(path)
+                                                                                                                  .withType(MODIFIED)
+                                                                                                                  .withHashCode(newHash));
+                }
+            }
+        } catch (RuntimeException e) {
+            LOG.error("Error trying to check state of {} file and broadcast it", path, e);
+        }
     }
 
     private String hashFile(String path) {
         try {
-            VirtualFile file = vfsProvider.getVirtualFileSystem().getRoot().getChild(Path.of(path));
-            return Hashing.md5().hashString(file == null ? "" : file.getContentAsString(), defaultCharset()).toString();
-        } catch (ServerException | ForbiddenException e) {
+            final VirtualFile file = vfsProvider.getVirtualFileSystem().getRoot().getChild(Path.of(path));
+            if (file == null) {
+                return Hashing.md5().hashBytes(new byte[0]).toString();
+            }
+            final long length = file.getLength();
+            final long lastModified = file.getLastModificationDate();
+            final String cached = hashSumsCache.get(file.getPath(), length, lastModified);
+            if (cached != null) {
+                return cached;
+            }
+            final long readTime = System.currentTimeMillis();
+            final Hasher hasher = Hashing.md5().newHasher();
+            try (FileContent content = file.openContent()) {
+                content.transferTo(asOutputStream(hasher));
+            }
+            final String hash = hasher.hash().toString();
+            hashSumsCache.put(file.getPath(), length, lastModified, readTime, hash);
+            return hash;
+        } catch (ServerException | ForbiddenException | IOException e) {
             LOG.error("Error trying to read {} file and broadcast it", path, e);
         }
         return null;
     }
+
+    private static class TrackedFile {
+        /** Ids of file watcher registrations by endpoint. */
+        final Map<String, Integer> watchIds       = new ConcurrentHashMap<>();
+        /** Hashes of content of file last sent to endpoints. */
+        final Map<String, String>  hashes         = new ConcurrentHashMap<>();
+        final AtomicBoolean        checkScheduled = new AtomicBoolean();
+    }
 }
@@ -17,6 +17,7 @@ import org.eclipse.che.api.core.ConflictException;
 import org.eclipse.che.api.core.ForbiddenException;
 import org.eclipse.che.api.core.ServerException;
 import org.eclipse.che.api.vfs.Archiver;
+import org.eclipse.che.api.vfs.FileContent;
 import org.eclipse.che.api.vfs.HashSumsCounter;
 import org.eclipse.che.api.vfs.LockedFileFinder;
 import org.eclipse.che.api.vfs.Path;
@@ -34,6 +35,8 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Iterator;
@@ -307,6 +310,20 @@ public class MemoryVirtualFile implements VirtualFile {
         return new String(getContentAsBytes());
     }
 
+    @Override
+    public FileContent openContent() throws ForbiddenException {
+        checkExistence();
+        if (isFile()) {
+            if (content == null) {
+                content = new byte[0];
+            }
+            // content is never changed in place, update replaces it with new array
+            return new MemoryFileContent(content);
+        }
+
+        throw new ForbiddenException(String.format("We were unable to retrieve the content. Item '%s' is not a file", getPath()));
+    }
+
     @Override
     public VirtualFile updateContent(InputStream content, String lockToken) throws ForbiddenException, ServerException {
         byte[] bytes;
@@ -588,6 +605,21 @@ public class MemoryVirtualFile implements VirtualFile {
         }
     }
 
+    @Override
+    public void zip(OutputStream output) throws ForbiddenException, ServerException {
+        checkExistence();
+
+        if (isFolder()) {
+            try {
+                fileSystem.getArchiverFactory().createArchiver(this, "zip").compress(output);
+            } catch (IOException e) {
+                throw new ServerException(e.getMessage(), e);
+            }
+        } else {
+            throw new ForbiddenException(String.format("Unable export to zip. Item '%s' is not a folder", getPath()));
+        }
+    }
+
     @Override
     public void unzip(InputStream zipped, boolean overwrite, int stripNumber)
             throws ForbiddenException, ServerException, ConflictException {
@@ -612,6 +644,21 @@ public class MemoryVirtualFile implements VirtualFile {
         }
     }
 
+    @Override
+    public void tar(OutputStream output) throws ForbiddenException, ServerException {
+        checkExistence();
+
+        if (isFolder()) {
+            try {
+                fileSystem.getArchiverFactory().createArchiver(this, "tar").compress(output);
+            } catch (IOException e) {
+                throw new ServerException(e.getMessage(), e);
+            }
+        } else {
+            throw new ForbiddenException(String.format("Unable export to tar archive. Item '%s' is not a folder", getPath()));
+        }
+    }
+
     @Override
     public void untar(InputStream tarArchive, boolean overwrite, int stripNumber)
             throws ForbiddenException, ConflictException, ServerException {
@@ -877,6 +924,39 @@ public class MemoryVirtualFile implements VirtualFile {
         return false;
     }
 
+    private class MemoryFileContent implements FileContent {
+        private final byte[] bytes;
+
+        MemoryFileContent(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        @Override
+        public long getLength() {
+            return bytes.length;
+        }
+
+        @Override
+        public long transferTo(OutputStream out) throws IOException {
+            out.write(bytes);
+            return bytes.length;
+        }
+
+        @Override
+        public <T> T read(BufferReader<T> reader) throws IOException {
+            return reader.read(ByteBuffer.wrap(bytes).asReadOnlyBuffer());
+        }
+
+        @Override
+        public boolean isModified() {
+            return bytes != content;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
     private static class LockHolder {
         final String lockToken;
         final long   expired;
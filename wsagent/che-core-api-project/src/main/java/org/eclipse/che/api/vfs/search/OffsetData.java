@@ -0,0 +1,82 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2017 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.vfs.search;
+
+/**
+ * Single occurrence of searched text in a file found by {@code Searcher}.
+ */
+public class OffsetData {
+    private final String phrase;
+    private final int    startOffset;
+    private final int    endOffset;
+    private final int    lineNumber;
+    private final int    startColumn;
+    private final int    endColumn;
+    private final String lineContent;
+
+    public OffsetData(String phrase, int startOffset, int endOffset, int lineNumber, int startColumn, int endColumn, String lineContent) {
+        this.phrase = phrase;
+        this.startOffset = startOffset;
+        this.endOffset = endOffset;
+        this.lineNumber = lineNumber;
+        this.startColumn = startColumn;
+        this.endColumn = endColumn;
+        this.lineContent = lineContent;
+    }
+
+    /** Matched text as it appears in the file. */
+    public String getPhrase() {
+        return phrase;
+    }
+
+    /** Offset of the first character of occurrence from the beginning of the file. */
+    public int getStartOffset() {
+        return startOffset;
+    }
+
+    /** Offset of the character following the occurrence from the beginning of the file. */
+    public int getEndOffset() {
+        return endOffset;
+    }
+
+    /** Number of the line that contains occurrence, starting from 1. */
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    /** Offset of the first character of occurrence from the beginning of the line. */
+    public int getStartColumn() {
+        return startColumn;
+    }
+
+    /** Offset of the character following the occurrence from the beginning of the line. */
+    public int getEndColumn() {
+        return endColumn;
+    }
+
+    /** Content of the line that contains occurrence, long lines are cut around the occurrence. */
+    public String getLineContent() {
+        return lineContent;
+    }
+
+    @Override
+    public String toString() {
+        return "OffsetData{" +
+               "phrase='" + phrase + '\'' +
+               ", startOffset=" + startOffset +
+               ", endOffset=" + endOffset +
+               ", lineNumber=" + lineNumber +
+               ", startColumn=" + startColumn +
+               ", endColumn=" + endColumn +
+               ", lineContent='" + lineContent + '\'' +
+               '}';
+    }
+}
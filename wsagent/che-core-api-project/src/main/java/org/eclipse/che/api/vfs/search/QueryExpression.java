@@ -12,11 +12,13 @@ package org.eclipse.che.api.vfs.search;
 
 /** Container for parameters of query that executed by Searcher.*/
 public class QueryExpression {
-    private String name;
-    private String path;
-    private String text;
-    private int    skipCount;
-    private int    maxItems;
+    private String  name;
+    private String  path;
+    private String  text;
+    private int     skipCount;
+    private int     maxItems;
+    private boolean includePositions;
+    private String  cursor;
 
     /** Optional file path parameter. Only file with the specified path or children are included in result. */
     public String getPath() {
@@ -68,6 +70,33 @@ public class QueryExpression {
         return this;
     }
 
+    /**
+     * Whether occurrences of searched text (line numbers, column offsets and line content) should be included in
+     * search result. Makes sense only if text is specified.
+     */
+    public boolean isIncludePositions() {
+        return includePositions;
+    }
+
+    public QueryExpression setIncludePositions(boolean includePositions) {
+        this.includePositions = includePositions;
+        return this;
+    }
+
+    /**
+     * Opaque position in search result returned with the previous page, see {@link SearchResult#getNextPageQueryExpression()}.
+     * Lets searcher resume from the end of the previous page instead of skipping {@link #getSkipCount()} results again.
+     * Searcher falls back to skip count if cursor is expired.
+     */
+    public String getCursor() {
+        return cursor;
+    }
+
+    public QueryExpression setCursor(String cursor) {
+        this.cursor = cursor;
+        return this;
+    }
+
     @Override
     public String toString() {
         return "QueryExpression{" +
@@ -76,6 +105,8 @@ public class QueryExpression {
                ", path='" + path + '\'' +
                ", skipCount=" + skipCount +
                ", maxItems=" + maxItems +
+               ", includePositions=" + includePositions +
+               ", cursor='" + cursor + '\'' +
                '}';
     }
 }
@@ -14,6 +14,8 @@ import org.eclipse.che.api.core.ServerException;
 import org.eclipse.che.api.vfs.VirtualFile;
 import org.eclipse.che.api.vfs.VirtualFileFilter;
 
+import java.util.Collection;
+
 public interface Searcher {
     /**
      * Return paths of matched items on virtual filesystem.
@@ -36,6 +38,22 @@ public interface Searcher {
      */
     void add(VirtualFile virtualFile) throws ServerException;
 
+    /**
+     * Add VirtualFiles to index at once, e.g. files extracted from archive. Folders are added with all their files.
+     * Implementation may index files in parallel and make them visible for search only after the whole batch is
+     * indexed.
+     *
+     * @param virtualFiles
+     *         VirtualFiles to add
+     * @throws ServerException
+     *         if an error occurs
+     */
+    default void addAll(Collection<? extends VirtualFile> virtualFiles) throws ServerException {
+        for (VirtualFile virtualFile : virtualFiles) {
+            add(virtualFile);
+        }
+    }
+
     /**
      * Delete VirtualFile from index.
      *
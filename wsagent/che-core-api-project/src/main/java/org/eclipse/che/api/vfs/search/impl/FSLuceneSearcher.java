@@ -25,22 +25,52 @@ import java.io.IOException;
 import static org.eclipse.che.commons.lang.IoUtil.deleteRecursive;
 
 /**
- * Filesystem based LuceneSearcher which cleans index directory after call method {@link #close()}.
+ * Filesystem based LuceneSearcher. Non persistent searcher cleans index directory after call method {@link #close()}.
+ * Persistent searcher keeps index directory, so next time index is only reconciled with the file system instead of
+ * being built from scratch.
  *
  * @author andrew00x
  */
 public class FSLuceneSearcher extends LuceneSearcher {
     private static final Logger LOG = LoggerFactory.getLogger(FSLuceneSearcher.class);
 
-    private final File indexDirectory;
+    private final File    indexDirectory;
+    private final boolean persistent;
+    private final boolean trigramIndex;
 
     FSLuceneSearcher(File indexDirectory, VirtualFileFilter filter) {
         this(indexDirectory, filter, null);
     }
 
     FSLuceneSearcher(File indexDirectory, VirtualFileFilter filter, AbstractLuceneSearcherProvider.CloseCallback closeCallback) {
-        super(filter, closeCallback);
+        this(indexDirectory, filter, closeCallback, new LuceneIndexingPipeline());
+    }
+
+    FSLuceneSearcher(File indexDirectory,
+                     VirtualFileFilter filter,
+                     AbstractLuceneSearcherProvider.CloseCallback closeCallback,
+                     LuceneIndexingPipeline indexingPipeline) {
+        this(indexDirectory, filter, closeCallback, indexingPipeline, false);
+    }
+
+    FSLuceneSearcher(File indexDirectory,
+                     VirtualFileFilter filter,
+                     AbstractLuceneSearcherProvider.CloseCallback closeCallback,
+                     LuceneIndexingPipeline indexingPipeline,
+                     boolean persistent) {
+        this(indexDirectory, filter, closeCallback, indexingPipeline, persistent, false);
+    }
+
+    FSLuceneSearcher(File indexDirectory,
+                     VirtualFileFilter filter,
+                     AbstractLuceneSearcherProvider.CloseCallback closeCallback,
+                     LuceneIndexingPipeline indexingPipeline,
+                     boolean persistent,
+                     boolean trigramIndex) {
+        super(filter, closeCallback, indexingPipeline);
         this.indexDirectory = indexDirectory;
+        this.persistent = persistent;
+        this.trigramIndex = trigramIndex;
     }
 
     @Override
@@ -52,8 +82,27 @@ public class FSLuceneSearcher extends LuceneSearcher {
         }
     }
 
+    @Override
+    protected boolean isTrigramIndexEnabled() {
+        return trigramIndex;
+    }
+
+    @Override
+    protected boolean recoverIndex(IOException e) {
+        LOG.warn("Unable open search index in '{}', index will be rebuilt. Error: {}", indexDirectory, e.getMessage());
+        if (!deleteRecursive(indexDirectory, false) || !indexDirectory.mkdirs()) {
+            LOG.error("Unable clean up index directory '{}'", indexDirectory);
+            return false;
+        }
+        return true;
+    }
+
     @Override
     protected void afterClose() throws IOException {
+        if (persistent) {
+            super.afterClose();
+            return;
+        }
         if (!deleteRecursive(indexDirectory)) {
             LOG.warn("Unable delete index directory '{}', add it in FileCleaner", indexDirectory);
             FileCleaner.addFile(indexDirectory);
@@ -26,7 +26,11 @@ import static com.google.common.collect.Sets.newHashSet;
 
 @Singleton
 public class FSLuceneSearcherProvider extends AbstractLuceneSearcherProvider {
-    private final File indexRootDirectory;
+    private final File                   indexRootDirectory;
+    private final LuceneIndexingPipeline indexingPipeline;
+    private final boolean                persistentIndex;
+    private final boolean                trigramIndex;
+    private final long                   searchRefreshIntervalMillis;
 
     /**
      * @param indexRootDirectory
@@ -35,16 +39,63 @@ public class FSLuceneSearcherProvider extends AbstractLuceneSearcherProvider {
      *         set filter for files that should not be indexed
      * @see LuceneSearcher
      */
+    public FSLuceneSearcherProvider(File indexRootDirectory, Set<PathMatcher> excludePatterns) throws IOException {
+        this(indexRootDirectory,
+             excludePatterns,
+             LuceneIndexingPipeline.DEFAULT_BUILDER_THREADS,
+             LuceneIndexingPipeline.DEFAULT_BATCH_SIZE,
+             LuceneIndexingPipeline.DEFAULT_REFRESH_INTERVAL_MILLIS,
+             false,
+             false,
+             0);
+    }
+
+    /**
+     * @param indexRootDirectory
+     *         root directory for creation index
+     * @param excludePatterns
+     *         set filter for files that should not be indexed
+     * @param indexBuilderThreads
+     *         number of threads that read content of files while indexing file trees
+     * @param indexBatchSize
+     *         number of documents added to the index between refreshes
+     * @param indexRefreshIntervalMillis
+     *         minimal interval between making newly indexed documents visible for search
+     * @param persistentIndex
+     *         if {@code true} index is kept after searcher is closed and only reconciled with file system on next start
+     * @param trigramIndex
+     *         if {@code true} content of files is also indexed as trigrams to speed up substring and regex search
+     * @param searchRefreshIntervalMillis
+     *         minimal interval between refreshes of searcher made by search queries
+     * @see LuceneIndexingPipeline
+     */
     @Inject
     public FSLuceneSearcherProvider(@Named("vfs.local.fs_index_root_dir") File indexRootDirectory,
-                                    @Named("vfs.index_filter_matcher") Set<PathMatcher> excludePatterns) throws IOException {
+                                    @Named("vfs.index_filter_matcher") Set<PathMatcher> excludePatterns,
+                                    @Named("vfs.index.builder_threads") int indexBuilderThreads,
+                                    @Named("vfs.index.batch_size") int indexBatchSize,
+                                    @Named("vfs.index.refresh_interval_ms") long indexRefreshIntervalMillis,
+                                    @Named("vfs.index.persistent") boolean persistentIndex,
+                                    @Named("vfs.index.trigrams") boolean trigramIndex,
+                                    @Named("vfs.index.search_refresh_interval_ms") long searchRefreshIntervalMillis) throws IOException {
         super(newHashSet(transform(excludePatterns, VirtualFileFilters::wrap)));
         this.indexRootDirectory = indexRootDirectory;
+        this.indexingPipeline = new LuceneIndexingPipeline(indexBuilderThreads, indexBatchSize, indexRefreshIntervalMillis);
+        this.persistentIndex = persistentIndex;
+        this.trigramIndex = trigramIndex;
+        this.searchRefreshIntervalMillis = searchRefreshIntervalMillis;
         Files.createDirectories(indexRootDirectory.toPath());
     }
 
     @Override
     protected LuceneSearcher createLuceneSearcher(CloseCallback closeCallback) {
-        return new FSLuceneSearcher(indexRootDirectory, excludeFileIndexFilters, closeCallback);
+        final FSLuceneSearcher searcher = new FSLuceneSearcher(indexRootDirectory,
+                                                               excludeFileIndexFilters,
+                                                               closeCallback,
+                                                               indexingPipeline,
+                                                               persistentIndex,
+                                                               trigramIndex);
+        searcher.setSearchRefreshIntervalMillis(searchRefreshIntervalMillis);
+        return searcher;
     }
 }
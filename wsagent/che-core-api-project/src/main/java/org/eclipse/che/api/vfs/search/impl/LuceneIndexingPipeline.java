@@ -0,0 +1,369 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2017 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.vfs.search.impl;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import org.apache.lucene.index.Term;
+import org.eclipse.che.api.core.ServerException;
+import org.eclipse.che.api.vfs.Path;
+import org.eclipse.che.api.vfs.VirtualFile;
+import org.eclipse.che.commons.lang.concurrent.LoggingUncaughtExceptionHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.lang.Thread.currentThread;
+import static java.util.Collections.singletonList;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.eclipse.che.api.vfs.search.impl.LuceneSearcher.PATH_FIELD;
+
+/**
+ * Indexes file trees in two stages connected with bounded queue:
+ * <ul>
+ * <li>a producer (the calling thread) walks virtual file system and enqueues discovered files, or enqueues given files</li>
+ * <li>document builders read content of files, create lucene documents and add them to the index in parallel</li>
+ * </ul>
+ * Builders run on the indexing executor of the searcher, see {@link #newExecutor()}, so the number of indexing threads
+ * is bounded no matter how many trees are indexed at the same time, and each builder keeps at most one document in
+ * memory. Bounded queue provides backpressure, so the producer may not run far ahead of the builders. After each batch
+ * indexed documents are made visible for search if refresh interval is elapsed and indexing progress is reported to
+ * {@link ProgressListener}.
+ */
+public class LuceneIndexingPipeline {
+    private static final Logger LOG = LoggerFactory.getLogger(LuceneIndexingPipeline.class);
+
+    public static final int  DEFAULT_BUILDER_THREADS         = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+    public static final int  DEFAULT_BATCH_SIZE              = 500;
+    public static final long DEFAULT_REFRESH_INTERVAL_MILLIS = 1000;
+
+    private static final Entry END = new Entry(null);
+
+    private final int              builderThreads;
+    private final int              batchSize;
+    private final long             refreshIntervalMillis;
+    private final ProgressListener progressListener;
+
+    public LuceneIndexingPipeline() {
+        this(DEFAULT_BUILDER_THREADS, DEFAULT_BATCH_SIZE, DEFAULT_REFRESH_INTERVAL_MILLIS);
+    }
+
+    public LuceneIndexingPipeline(int builderThreads, int batchSize, long refreshIntervalMillis) {
+        this(builderThreads, batchSize, refreshIntervalMillis,
+             (tree, indexed, discovered) -> LOG.debug("Indexing {}: {} of {} discovered files indexed", tree, indexed, discovered));
+    }
+
+    /**
+     * @param builderThreads
+     *         number of threads that read content of files and add lucene documents to the index
+     * @param batchSize
+     *         number of documents added to the index between refreshes and progress reports
+     * @param refreshIntervalMillis
+     *         minimal interval between making indexed documents visible for search
+     * @param progressListener
+     *         listener notified about indexing progress after each batch
+     */
+    public LuceneIndexingPipeline(int builderThreads, int batchSize, long refreshIntervalMillis, ProgressListener progressListener) {
+        checkArgument(builderThreads > 0, "Number of builder threads must be positive");
+        checkArgument(batchSize > 0, "Batch size must be positive");
+        this.builderThreads = builderThreads;
+        this.batchSize = batchSize;
+        this.refreshIntervalMillis = refreshIntervalMillis;
+        this.progressListener = progressListener;
+    }
+
+    /**
+     * Creates executor for document builders of searcher. Builders of trees indexed at the same time share the
+     * executor, so they wait for each other rather than start new threads. Searcher shuts executor down when it
+     * is closed.
+     */
+    ExecutorService newExecutor() {
+        return Executors.newFixedThreadPool(builderThreads, new ThreadFactoryBuilder().setDaemon(true)
+                                                                                      .setUncaughtExceptionHandler(
+                                                                                              LoggingUncaughtExceptionHandler.getInstance())
+                                                                                      .setNameFormat("LuceneIndexingPipeline-%d")
+                                                                                      .build());
+    }
+
+    /**
+     * Adds all files of the tree to the index of the searcher. Method blocks until all files are indexed.
+     *
+     * @param searcher
+     *         searcher which index is updated
+     * @param tree
+     *         root of the tree to index
+     * @return number of indexed files
+     * @throws ServerException
+     *         if tree can't be walked or index can't be updated
+     */
+    public int index(LuceneSearcher searcher, VirtualFile tree) throws ServerException {
+        return index(searcher, tree, file -> true);
+    }
+
+    /**
+     * Adds files of the tree accepted by the filter to the index of the searcher. Filter is called by the producer,
+     * so it is applied to files sequentially and should be cheap, e.g. compare file attributes. Method blocks until
+     * all accepted files are indexed.
+     *
+     * @param searcher
+     *         searcher which index is updated
+     * @param tree
+     *         root of the tree to index
+     * @param filter
+     *         filter of files that need to be indexed
+     * @return number of indexed files
+     * @throws ServerException
+     *         if tree can't be walked or index can't be updated, in this case filter isn't called for some files of
+     *         the tree and index changes are not committed
+     */
+    public int index(LuceneSearcher searcher, VirtualFile tree, Predicate<VirtualFile> filter) throws ServerException {
+        return new Run(searcher, tree.getPath().toString(), singletonList(tree), filter).execute();
+    }
+
+    /**
+     * Adds batch of files to the index of the searcher, e.g. files extracted from archive. Files are enqueued as they
+     * are, without walking virtual file system, folders of the batch are walked as trees. Each file is indexed once
+     * even if it is given explicitly and belongs to some folder of the batch as well. Indexed documents become
+     * visible for search after the whole batch is indexed or refresh interval is elapsed. Method blocks until all
+     * files are indexed.
+     *
+     * @param searcher
+     *         searcher which index is updated
+     * @param files
+     *         files and folders to index
+     * @return number of indexed files
+     * @throws ServerException
+     *         if folder can't be walked or index can't be updated
+     */
+    public int index(LuceneSearcher searcher, Collection<? extends VirtualFile> files) throws ServerException {
+        if (files.isEmpty()) {
+            return 0;
+        }
+        return new Run(searcher, "batch of " + files.size() + " items", files, file -> true).execute();
+    }
+
+    /** Listener of indexing progress. */
+    public interface ProgressListener {
+        /**
+         * @param tree
+         *         path of the tree being indexed or description of batch of files
+         * @param indexed
+         *         number of files added to the index so far
+         * @param discovered
+         *         number of files found by the producer so far
+         */
+        void onProgress(String tree, int indexed, int discovered);
+    }
+
+    private class Run {
+        private final LuceneSearcher                    searcher;
+        private final String                            name;
+        private final Collection<? extends VirtualFile> roots;
+        private final Predicate<VirtualFile>            filter;
+        private final BlockingQueue<Entry>              files;
+        private final AtomicInteger                     discovered;
+
+        private volatile Throwable failure;
+        private          ExecutorService executor;
+        private          int             indexed;
+        private          long            lastRefresh;
+
+        Run(LuceneSearcher searcher, String name, Collection<? extends VirtualFile> roots, Predicate<VirtualFile> filter) {
+            this.searcher = searcher;
+            this.name = name;
+            this.roots = roots;
+            this.filter = filter;
+            this.files = new ArrayBlockingQueue<>(batchSize * 2);
+            this.discovered = new AtomicInteger();
+        }
+
+        int execute() throws ServerException {
+            executor = searcher.getIndexingExecutor();
+            lastRefresh = System.currentTimeMillis();
+            final List<Future<?>> builders = new ArrayList<>(builderThreads);
+            boolean completed = false;
+            try {
+                for (int i = 0; i < builderThreads; i++) {
+                    builders.add(executor.submit(this::build));
+                }
+                produce();
+                for (int i = 0; i < builderThreads; i++) {
+                    put(END);
+                }
+                awaitBuilders(builders);
+                rethrowFailure();
+                searcher.getIndexWriter().commit();
+                searcher.refresh();
+                completed = true;
+                if (progressListener != null) {
+                    progressListener.onProgress(name, indexed, discovered.get());
+                }
+                return indexed;
+            } catch (RejectedExecutionException e) {
+                throw cancelled();
+            } catch (InterruptedException e) {
+                currentThread().interrupt();
+                throw new ServerException("Indexing of " + name + " is interrupted");
+            } catch (OutOfMemoryError oome) {
+                searcher.close();
+                throw oome;
+            } catch (IOException e) {
+                throw new ServerException(e.getMessage(), e);
+            } finally {
+                if (!completed) {
+                    for (Future<?> builder : builders) {
+                        builder.cancel(true);
+                    }
+                }
+            }
+        }
+
+        private void produce() throws ServerException, InterruptedException {
+            // single tree has no duplicates, don't keep paths of all its items in memory
+            final Set<Path> seen = roots.size() > 1 ? new HashSet<>() : null;
+            final LinkedList<VirtualFile> q = new LinkedList<>();
+            for (VirtualFile root : roots) {
+                if (root.isFolder()) {
+                    q.add(root);
+                } else {
+                    enqueue(root, seen);
+                }
+            }
+            while (!q.isEmpty()) {
+                final VirtualFile folder = q.pop();
+                if (folder.exists() && (seen == null || seen.add(folder.getPath()))) {
+                    final List<VirtualFile> children;
+                    try {
+                        children = folder.getChildren();
+                    } catch (ServerException e) {
+                        // run is not complete, caller must not treat files that are not discovered as removed
+                        throw new ServerException(String.format("Unable walk tree %s: %s", name, e.getMessage()), e);
+                    }
+                    for (VirtualFile child : children) {
+                        if (child.isFolder()) {
+                            q.push(child);
+                        } else {
+                            enqueue(child, seen);
+                        }
+                    }
+                }
+            }
+        }
+
+        private void enqueue(VirtualFile file, Set<Path> seen) throws ServerException, InterruptedException {
+            if (filter.test(file) && (seen == null || seen.add(file.getPath()))) {
+                put(new Entry(file));
+                discovered.incrementAndGet();
+            }
+        }
+
+        /** Waits until builders take the entry, gives up if builders fail or searcher is closed. */
+        private void put(Entry entry) throws ServerException, InterruptedException {
+            while (!files.offer(entry, 100, MILLISECONDS)) {
+                rethrowFailure();
+                if (executor.isShutdown()) {
+                    throw cancelled();
+                }
+            }
+        }
+
+        private void awaitBuilders(List<Future<?>> builders) throws ServerException, InterruptedException {
+            for (Future<?> builder : builders) {
+                while (true) {
+                    try {
+                        builder.get(100, MILLISECONDS);
+                        break;
+                    } catch (TimeoutException e) {
+                        // builder that never started is dropped when searcher is closed
+                        if (executor.isTerminated()) {
+                            throw cancelled();
+                        }
+                    } catch (ExecutionException e) {
+                        failure = e.getCause();
+                        break;
+                    }
+                }
+            }
+        }
+
+        private void build() {
+            try {
+                for (Entry entry = files.take(); entry != END; entry = files.take()) {
+                    final VirtualFile file = entry.file;
+                    try {
+                        if (file.exists()) {
+                            searcher.getIndexWriter().updateDocument(new Term(PATH_FIELD, file.getPath().toString()),
+                                                                     searcher.createDocument(file));
+                            onIndexed();
+                        }
+                    } catch (ServerException e) {
+                        LOG.warn("Unable index file {}: {}", file.getPath(), e.getMessage());
+                    }
+                }
+            } catch (InterruptedException e) {
+                currentThread().interrupt();
+            } catch (Throwable e) {
+                failure = e;
+            }
+        }
+
+        private synchronized void onIndexed() throws IOException {
+            if (++indexed % batchSize == 0) {
+                final long now = System.currentTimeMillis();
+                if (now - lastRefresh >= refreshIntervalMillis) {
+                    searcher.refresh();
+                    lastRefresh = now;
+                }
+                if (progressListener != null) {
+                    progressListener.onProgress(name, indexed, discovered.get());
+                }
+            }
+        }
+
+        private ServerException cancelled() {
+            return new ServerException("Indexing of " + name + " is cancelled, search index is closed");
+        }
+
+        private void rethrowFailure() throws ServerException {
+            if (failure instanceof OutOfMemoryError) {
+                throw (OutOfMemoryError)failure;
+            } else if (failure != null) {
+                throw new ServerException(failure.getMessage(), failure);
+            }
+        }
+    }
+
+    private static class Entry {
+        final VirtualFile file;
+
+        Entry(VirtualFile file) {
+            this.file = file;
+        }
+    }
+}
@@ -15,13 +15,24 @@ import org.apache.lucene.analysis.TokenStream;
 import org.apache.lucene.analysis.Tokenizer;
 import org.apache.lucene.analysis.core.LowerCaseFilter;
 import org.apache.lucene.analysis.core.WhitespaceTokenizer;
+import org.apache.lucene.analysis.ngram.NGramTokenizer;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field;
+import org.apache.lucene.document.FieldType;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.SortedDocValuesField;
+import org.apache.lucene.document.StoredField;
 import org.apache.lucene.document.StringField;
 import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexOptions;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.index.SortedDocValues;
 import org.apache.lucene.index.Term;
+import org.apache.lucene.index.Terms;
 import org.apache.lucene.queryparser.classic.ParseException;
 import org.apache.lucene.queryparser.classic.QueryParser;
 import org.apache.lucene.search.BooleanClause;
@@ -31,12 +42,17 @@ import org.apache.lucene.search.PrefixQuery;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.ScoreDoc;
 import org.apache.lucene.search.SearcherFactory;
+import org.apache.lucene.search.SearcherLifetimeManager;
 import org.apache.lucene.search.SearcherManager;
 import org.apache.lucene.search.TopDocs;
 import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.IOUtils;
+import org.apache.lucene.util.StringHelper;
 import org.eclipse.che.api.core.ForbiddenException;
 import org.eclipse.che.api.core.ServerException;
+import org.eclipse.che.api.vfs.FileContent;
 import org.eclipse.che.api.vfs.VirtualFile;
 import org.eclipse.che.api.vfs.VirtualFileFilter;
 import org.eclipse.che.api.vfs.VirtualFileFilters;
@@ -49,16 +65,22 @@ import org.eclipse.che.api.vfs.search.Searcher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.Reader;
-import java.util.LinkedList;
+import java.nio.charset.Charset;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.google.common.collect.Lists.newArrayList;
+import static com.google.common.collect.Sets.newHashSet;
+import static java.util.Collections.singleton;
+import static java.util.Collections.synchronizedMap;
 
 /**
  * Lucene based searcher.
@@ -66,17 +88,66 @@ import static com.google.common.collect.Lists.newArrayList;
  * @author andrew00x
  */
 public abstract class LuceneSearcher implements Searcher {
-    private static final Logger LOG          = LoggerFactory.getLogger(LuceneSearcher.class);
-    private static final int    RESULT_LIMIT = 1000;
-    private static final String PATH_FIELD   = "path";
-    private static final String NAME_FIELD   = "name";
-    private static final String TEXT_FIELD   = "text";
+    static final String PATH_FIELD         = "path";
+    /** Max length of file in bytes whose content is indexed, bigger files are searchable by name and path only. */
+    static final long   MAX_CONTENT_LENGTH = 10 * 1024 * 1024;
+
+    private static final Logger LOG            = LoggerFactory.getLogger(LuceneSearcher.class);
+    private static final int    RESULT_LIMIT   = 1000;
+    private static final String NAME_FIELD     = "name";
+    private static final String TEXT_FIELD     = "text";
+    private static final String SIZE_FIELD     = "size";
+    private static final String MODIFIED_FIELD = "modified";
+    private static final String TRIGRAM_FIELD  = "trigram";
+    private static final String CONTENT_FIELD  = "content";
+    private static final String LINES_FIELD    = "lines";
+
+    /** Max number of cursors remembered for clients that page with skip count only. */
+    private static final int    MAX_RECENT_CURSORS     = 64;
+    /** Searchers that produced pages are kept to serve cursors during this time. */
+    private static final double MAX_CURSOR_AGE_SECONDS = 60;
+
+    private static final Set<String> PATH_FIELD_ONLY       = singleton(PATH_FIELD);
+    private static final Set<String> PATH_AND_LINES_FIELDS = newHashSet(PATH_FIELD, LINES_FIELD);
+
+    /** Key of index commit data which tells whether all documents of index have trigram field. */
+    private static final String    TRIGRAM_INDEX_KEY  = "trigram.index";
+    /** Key of index commit data with version of fields layout, index of other version is rebuilt. */
+    private static final String    INDEX_FORMAT_KEY   = "index.format";
+    private static final String    INDEX_FORMAT       = "3";
+    private static final FieldType TRIGRAM_FIELD_TYPE = new FieldType();
+    /**
+     * Content is not stored, term vector with offsets of its case-preserved tokens is enough to verify candidates of
+     * trigram search and to find positions of occurrences.
+     */
+    private static final FieldType CONTENT_FIELD_TYPE = new FieldType();
+
+    static {
+        TRIGRAM_FIELD_TYPE.setIndexOptions(IndexOptions.DOCS);
+        TRIGRAM_FIELD_TYPE.setTokenized(true);
+        TRIGRAM_FIELD_TYPE.setOmitNorms(true);
+        TRIGRAM_FIELD_TYPE.freeze();
+
+        CONTENT_FIELD_TYPE.setIndexOptions(IndexOptions.DOCS);
+        CONTENT_FIELD_TYPE.setTokenized(true);
+        CONTENT_FIELD_TYPE.setOmitNorms(true);
+        CONTENT_FIELD_TYPE.setStoreTermVectors(true);
+        CONTENT_FIELD_TYPE.setStoreTermVectorOffsets(true);
+        CONTENT_FIELD_TYPE.freeze();
+    }
 
     private final List<VirtualFileFilter>                      excludeFileIndexFilters;
     private final AbstractLuceneSearcherProvider.CloseCallback closeCallback;
+    private final LuceneIndexingPipeline                       indexingPipeline;
+    private final Map<String, String>                          recentCursors;
 
-    private IndexWriter     luceneIndexWriter;
-    private SearcherManager searcherManager;
+    private IndexWriter             luceneIndexWriter;
+    private SearcherManager         searcherManager;
+    private SearcherLifetimeManager searcherLifetimeManager;
+    private ExecutorService         indexingExecutor;
+
+    private volatile long searchRefreshIntervalMillis;
+    private volatile long lastSearchRefreshTime;
 
     private boolean closed = true;
 
@@ -94,7 +165,26 @@ public abstract class LuceneSearcher implements Searcher {
      *         with {@link VirtualFileFilters#createAndFilter} or {@link VirtualFileFilters#createOrFilter} methods
      */
     protected LuceneSearcher(VirtualFileFilter excludeFileIndexFilter, AbstractLuceneSearcherProvider.CloseCallback closeCallback) {
+        this(excludeFileIndexFilter, closeCallback, new LuceneIndexingPipeline());
+    }
+
+    /**
+     * @param excludeFileIndexFilter
+     *         common filter for files that should not be indexed
+     * @param indexingPipeline
+     *         pipeline used for indexing of file trees
+     */
+    protected LuceneSearcher(VirtualFileFilter excludeFileIndexFilter,
+                             AbstractLuceneSearcherProvider.CloseCallback closeCallback,
+                             LuceneIndexingPipeline indexingPipeline) {
         this.closeCallback = closeCallback;
+        this.indexingPipeline = indexingPipeline;
+        this.recentCursors = synchronizedMap(new LinkedHashMap<String, String>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > MAX_RECENT_CURSORS;
+            }
+        });
         excludeFileIndexFilters = new CopyOnWriteArrayList<>();
         excludeFileIndexFilters.add(excludeFileIndexFilter);
     }
@@ -113,7 +203,12 @@ public abstract class LuceneSearcher implements Searcher {
         return new Analyzer() {
             @Override
             protected TokenStreamComponents createComponents(String fieldName) {
-                Tokenizer tokenizer = new WhitespaceTokenizer();
+                Tokenizer tokenizer = TRIGRAM_FIELD.equals(fieldName)
+                                      ? new NGramTokenizer(TrigramQueryPlanner.GRAM_SIZE, TrigramQueryPlanner.GRAM_SIZE)
+                                      : new WhitespaceTokenizer();
+                if (CONTENT_FIELD.equals(fieldName)) {
+                    return new TokenStreamComponents(tokenizer);
+                }
                 TokenStream filter = new LowerCaseFilter(tokenizer);
                 return new TokenStreamComponents(tokenizer, filter);
             }
@@ -123,16 +218,28 @@ public abstract class LuceneSearcher implements Searcher {
     protected abstract Directory makeDirectory() throws ServerException;
 
     /**
-     * Init lucene index. Need call this method if index directory is clean. Scan all files in virtual filesystem and add to index.
+     * Whether content of files should be additionally indexed as trigrams. Trigram index lets substring and regular
+     * expression queries select candidate documents without scanning of the whole term dictionary.
+     *
+     * @see TrigramQueryPlanner
+     */
+    protected boolean isTrigramIndexEnabled() {
+        return false;
+    }
+
+    /**
+     * Init lucene index. Scan all files in virtual filesystem and add to index files that are not indexed yet or
+     * changed since they were indexed, documents of files that don't exist anymore are removed from index.
      *
      * @param virtualFileSystem
      *         VirtualFileSystem
      * @throws ServerException
      *         if any virtual filesystem error occurs
+     * @see #reconcile(VirtualFile)
      */
     public void init(VirtualFileSystem virtualFileSystem) throws ServerException {
         doInit();
-        addTree(virtualFileSystem.getRoot());
+        reconcile(virtualFileSystem.getRoot());
     }
 
     public void initAsynchronously(ExecutorService executor, VirtualFileSystem virtualFileSystem) throws ServerException {
@@ -140,7 +247,7 @@ public abstract class LuceneSearcher implements Searcher {
         if (!executor.isShutdown()) {
             executor.execute(() -> {
                 try {
-                    LuceneSearcher.this.addTree(virtualFileSystem.getRoot());
+                    LuceneSearcher.this.reconcile(virtualFileSystem.getRoot());
                 } catch (ServerException e) {
                     LOG.error(e.getMessage());
                 }
@@ -150,18 +257,180 @@ public abstract class LuceneSearcher implements Searcher {
 
     protected final synchronized void doInit() throws ServerException {
         try {
-            luceneIndexWriter = new IndexWriter(makeDirectory(), new IndexWriterConfig(makeAnalyzer()));
-            searcherManager = new SearcherManager(luceneIndexWriter, true, new SearcherFactory());
-            closed = false;
+            openIndex();
+        } catch (IOException e) {
+            if (!recoverIndex(e)) {
+                throw new ServerException(e);
+            }
+            try {
+                openIndex();
+            } catch (IOException again) {
+                throw new ServerException(again);
+            }
+        }
+    }
+
+    private void openIndex() throws ServerException, IOException {
+        final IndexWriter indexWriter = new IndexWriter(makeDirectory(), new IndexWriterConfig(makeAnalyzer()));
+        try {
+            final boolean trigramIndex = isTrigramIndexEnabled();
+            if (indexWriter.numDocs() > 0) {
+                final Map<String, String> commitData = indexWriter.getCommitData();
+                if (!INDEX_FORMAT.equals(commitData.get(INDEX_FORMAT_KEY))) {
+                    LOG.info("Search index has outdated format, it will be rebuilt");
+                    indexWriter.deleteAll();
+                } else if (trigramIndex && !"true".equals(commitData.get(TRIGRAM_INDEX_KEY))) {
+                    LOG.info("Search index doesn't contain trigrams, it will be rebuilt");
+                    indexWriter.deleteAll();
+                }
+            }
+            final Map<String, String> commitData = new HashMap<>();
+            commitData.put(INDEX_FORMAT_KEY, INDEX_FORMAT);
+            commitData.put(TRIGRAM_INDEX_KEY, String.valueOf(trigramIndex));
+            indexWriter.setCommitData(commitData);
+            searcherManager = new SearcherManager(indexWriter, true, new SearcherFactory());
+            searcherLifetimeManager = new SearcherLifetimeManager();
+        } catch (IOException e) {
+            indexWriter.rollback();
+            throw e;
+        }
+        luceneIndexWriter = indexWriter;
+        indexingExecutor = indexingPipeline.newExecutor();
+        closed = false;
+    }
+
+    /**
+     * Called when existing index can't be opened, e.g. it is corrupted. Implementation may clean up index storage to
+     * let index be created from scratch.
+     *
+     * @return {@code true} if index storage is cleaned up and opening of index should be retried, {@code false} otherwise
+     */
+    protected boolean recoverIndex(IOException e) {
+        return false;
+    }
+
+    /**
+     * Brings index in line with the tree. Path, size and modification date of each file are kept in doc values of
+     * the index, together they make up a manifest of the index. Only files that are missed in the manifest or have other size or
+     * modification date are indexed. Documents of files that are in manifest but don't exist anymore are removed.
+     * If index is empty all files of the tree are indexed. If tree can't be walked completely nothing is removed from
+     * the index, documents of files that are not reached are not stale.
+     *
+     * @param tree
+     *         root of the tree
+     * @throws ServerException
+     *         if any virtual filesystem or index error occurs
+     */
+    protected void reconcile(VirtualFile tree) throws ServerException {
+        final long start = System.currentTimeMillis();
+        final Map<String, long[]> manifest = readManifest(tree.getPath().toString());
+        final AtomicInteger unchanged = new AtomicInteger();
+        final int indexed = indexingPipeline.index(this, tree, file -> {
+            final long[] stamp = manifest.remove(file.getPath().toString());
+            try {
+                if (stamp != null && stamp[0] == file.getLength() && stamp[1] == file.getLastModificationDate()) {
+                    unchanged.incrementAndGet();
+                    return false;
+                }
+            } catch (ServerException e) {
+                LOG.debug("Unable get attributes of {}: {}", file.getPath(), e.getMessage());
+            }
+            return true;
+        });
+        try {
+            for (String path : manifest.keySet()) {
+                getIndexWriter().deleteDocuments(new Term(PATH_FIELD, path));
+            }
+            getIndexWriter().commit();
+            refresh();
+        } catch (OutOfMemoryError oome) {
+            close();
+            throw oome;
+        } catch (IOException e) {
+            throw new ServerException(e.getMessage(), e);
+        }
+        onReconciled(tree, unchanged.get(), indexed, manifest.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Hook that is called when index is reconciled with the tree, e.g. at startup.
+     *
+     * @param tree
+     *         root of the reconciled tree
+     * @param unchanged
+     *         number of files that are already indexed and not changed
+     * @param indexed
+     *         number of new or changed files added to the index
+     * @param removed
+     *         number of documents removed from index since their files don't exist anymore
+     * @param elapsedTimeMillis
+     *         time spent on reconciliation
+     */
+    protected void onReconciled(VirtualFile tree, int unchanged, int indexed, int removed, long elapsedTimeMillis) {
+        LOG.info("Search index of {} is reconciled in {} ms: {} files unchanged, {} files indexed, {} documents removed",
+                 tree.getPath(), elapsedTimeMillis, unchanged, indexed, removed);
+    }
+
+    /**
+     * Reads path, size and modification date of all files indexed under the specified path. Values are read from doc
+     * values column by column, stored fields of documents are not loaded. Paths are sorted in doc values, so range of
+     * ordinals of paths under the tree is found once and paths of other documents are not decoded.
+     */
+    private Map<String, long[]> readManifest(String treePath) throws ServerException {
+        final Map<String, long[]> manifest = new HashMap<>();
+        final BytesRef prefix = new BytesRef(treePath.endsWith("/") ? treePath : treePath + '/');
+        IndexSearcher luceneSearcher = null;
+        try {
+            refresh();
+            luceneSearcher = searcherManager.acquire();
+            for (LeafReaderContext leaf : luceneSearcher.getIndexReader().leaves()) {
+                final LeafReader reader = leaf.reader();
+                final SortedDocValues paths = reader.getSortedDocValues(PATH_FIELD);
+                if (paths == null) {
+                    continue;
+                }
+                final int prefixOrd = paths.lookupTerm(prefix);
+                final int firstOrd = prefixOrd < 0 ? -prefixOrd - 1 : prefixOrd;
+                int endOrd = firstOrd;
+                while (endOrd < paths.getValueCount() && StringHelper.startsWith(paths.lookupOrd(endOrd), prefix)) {
+                    endOrd++;
+                }
+                if (firstOrd == endOrd) {
+                    continue;
+                }
+                final NumericDocValues sizes = reader.getNumericDocValues(SIZE_FIELD);
+                final NumericDocValues modificationDates = reader.getNumericDocValues(MODIFIED_FIELD);
+                final Bits liveDocs = reader.getLiveDocs();
+                for (int doc = 0; doc < reader.maxDoc(); doc++) {
+                    final int ord = paths.getOrd(doc);
+                    if (ord < firstOrd || ord >= endOrd || (liveDocs != null && !liveDocs.get(doc))) {
+                        continue;
+                    }
+                    manifest.put(paths.lookupOrd(ord).utf8ToString(), sizes == null || modificationDates == null
+                                                                      ? new long[]{-1, -1}
+                                                                      : new long[]{sizes.get(doc), modificationDates.get(doc)});
+                }
+            }
+            return manifest;
         } catch (IOException e) {
-            throw new ServerException(e);
+            throw new ServerException(e.getMessage(), e);
+        } finally {
+            try {
+                if (luceneSearcher != null) {
+                    searcherManager.release(luceneSearcher);
+                }
+            } catch (IOException e) {
+                LOG.error(e.getMessage());
+            }
         }
     }
 
     public final synchronized void close() {
         if (!closed) {
+            // stops document builders of trees which are being indexed
+            indexingExecutor.shutdownNow();
             try {
-                IOUtils.close(getIndexWriter(), getIndexWriter().getDirectory(), searcherManager);
+                IOUtils.close(searcherLifetimeManager, getIndexWriter(), getIndexWriter().getDirectory(), searcherManager);
                 afterClose();
             } catch (IOException e) {
                 LOG.error(e.getMessage(), e);
@@ -185,19 +454,49 @@ public abstract class LuceneSearcher implements Searcher {
         return luceneIndexWriter;
     }
 
+    /** Gets executor that runs document builders of {@link LuceneIndexingPipeline}. */
+    synchronized ExecutorService getIndexingExecutor() {
+        return indexingExecutor;
+    }
+
     @Override
     public SearchResult search(QueryExpression query) throws ServerException {
         IndexSearcher luceneSearcher = null;
         try {
             final long startTime = System.currentTimeMillis();
-            searcherManager.maybeRefresh();
-            luceneSearcher = searcherManager.acquire();
+            final int numSkipDocs = Math.max(0, query.getSkipCount());
+            SearchCursor cursor = null;
+            if (numSkipDocs > 0) {
+                cursor = SearchCursor.decode(query.getCursor() != null ? query.getCursor() : recentCursors.get(cursorKey(query)));
+                if (cursor != null && cursor.getOffset() == numSkipDocs) {
+                    luceneSearcher = searcherLifetimeManager.acquire(cursor.getSearcherVersion());
+                }
+            }
+            if (luceneSearcher == null) {
+                cursor = null;
+                refreshIfStale();
+                luceneSearcher = searcherManager.acquire();
+            }
+            final long searcherVersion = searcherLifetimeManager.record(luceneSearcher);
 
-            Query luceneQuery = createLuceneQuery(query);
+            final Query textQuery = query.getText() == null ? null : parseTextQuery(query.getText());
+            OccurrenceFinder occurrenceFinder = null;
+            if (query.isIncludePositions() && textQuery != null) {
+                occurrenceFinder = new OccurrenceFinder(TEXT_FIELD, textQuery);
+            }
+            if (textQuery != null && isTrigramIndexEnabled()) {
+                final TrigramQueryPlanner.Plan plan = new TrigramQueryPlanner(TEXT_FIELD, TRIGRAM_FIELD).plan(textQuery);
+                if (plan != null) {
+                    return searchCandidates(luceneSearcher, searcherVersion, cursor, query, plan, occurrenceFinder, startTime);
+                }
+            }
+
+            Query luceneQuery = createLuceneQuery(query.getPath(), query.getName(), textQuery);
 
             ScoreDoc after = null;
-            final int numSkipDocs = Math.max(0, query.getSkipCount());
-            if (numSkipDocs > 0) {
+            if (cursor != null) {
+                after = cursor.getAfter();
+            } else if (numSkipDocs > 0) {
                 after = skipScoreDocs(luceneSearcher, luceneQuery, numSkipDocs);
             }
 
@@ -207,9 +506,7 @@ public abstract class LuceneSearcher implements Searcher {
 
             List<SearchResultEntry> results = newArrayList();
             for (int i = 0; i < topDocs.scoreDocs.length; i++) {
-                ScoreDoc scoreDoc = topDocs.scoreDocs[i];
-                String filePath = luceneSearcher.doc(scoreDoc.doc).getField(PATH_FIELD).stringValue();
-                results.add(new SearchResultEntry(filePath));
+                results.add(createResultEntry(luceneSearcher, topDocs.scoreDocs[i].doc, occurrenceFinder));
             }
 
             final long elapsedTimeMillis = System.currentTimeMillis() - startTime;
@@ -217,7 +514,9 @@ public abstract class LuceneSearcher implements Searcher {
             boolean hasMoreToRetrieve = numSkipDocs + topDocs.scoreDocs.length + 1 < totalHitsNum;
             QueryExpression nextPageQueryExpression = null;
             if (hasMoreToRetrieve) {
-                nextPageQueryExpression = createNextPageQuery(query, numSkipDocs + topDocs.scoreDocs.length);
+                nextPageQueryExpression = createNextPageQuery(query, numSkipDocs + topDocs.scoreDocs.length, searcherVersion,
+                                                              topDocs.scoreDocs.length == 0
+                                                              ? null : topDocs.scoreDocs[topDocs.scoreDocs.length - 1]);
             }
 
             return SearchResult.aSearchResult()
@@ -230,18 +529,121 @@ public abstract class LuceneSearcher implements Searcher {
             throw new ServerException(e.getMessage(), e);
         } finally {
             try {
-                searcherManager.release(luceneSearcher);
+                if (luceneSearcher != null) {
+                    searcherManager.release(luceneSearcher);
+                }
             } catch (IOException e) {
                 LOG.error(e.getMessage());
             }
         }
     }
 
-    private Query createLuceneQuery(QueryExpression query) throws ParseException {
+    /**
+     * Makes changes of index visible for search if interval since the last refresh is elapsed, so series of queries
+     * don't reopen searcher on each query while index is updated. Searchers that are older than
+     * {@link #MAX_CURSOR_AGE_SECONDS} are dropped, cursors which refer to them fall back to skipping of results.
+     */
+    private void refreshIfStale() throws IOException {
+        final long now = System.currentTimeMillis();
+        if (now - lastSearchRefreshTime >= searchRefreshIntervalMillis) {
+            lastSearchRefreshTime = now;
+            searcherManager.maybeRefresh();
+            searcherLifetimeManager.prune(new SearcherLifetimeManager.PruneByAge(MAX_CURSOR_AGE_SECONDS));
+        }
+    }
+
+    /** Key of query in cache of recent cursors, cursor is valid only for exactly the same query and page. */
+    private static String cursorKey(QueryExpression query) {
+        return query.getPath() + '\u0000' + query.getName() + '\u0000' + query.getText() + '\u0000' + query.getSkipCount();
+    }
+
+    /**
+     * Sets minimal interval between refreshes of searcher made by queries. Index changes made during this interval
+     * are not visible for search. By default searcher is refreshed by every query which finds changes in index.
+     */
+    void setSearchRefreshIntervalMillis(long searchRefreshIntervalMillis) {
+        this.searchRefreshIntervalMillis = searchRefreshIntervalMillis;
+    }
+
+    /**
+     * Selects candidate documents with trigram index and verifies them against term vectors of content. Candidates are
+     * read in batches in the same order as results of regular query and verified lazily, verification stops as soon
+     * as the page is filled and one more hit is found, so next page is known to exist. Paging continues from the
+     * cursor, the last candidate returned on the previous page, without verification of candidates of previous pages.
+     * Query without cursor but with skip count verifies candidates from the beginning.
+     * <p>
+     * Total number of hits is exact when all candidates are verified, otherwise it is number of candidates less the
+     * rejected ones seen, i.e. upper bound of number of hits.
+     */
+    private SearchResult searchCandidates(IndexSearcher luceneSearcher,
+                                          long searcherVersion,
+                                          SearchCursor cursor,
+                                          QueryExpression query,
+                                          TrigramQueryPlanner.Plan plan,
+                                          OccurrenceFinder occurrenceFinder,
+                                          long startTime) throws IOException, ParseException {
+        final Query candidatesQuery = createLuceneQuery(query.getPath(), query.getName(), plan.getCandidates());
+        final int numSkipDocs = Math.max(0, query.getSkipCount());
+        final int numDocs = query.getMaxItems() > 0 ? Math.min(query.getMaxItems(), RESULT_LIMIT) : RESULT_LIMIT;
+        final int readFrameSize = Math.min(numDocs + 1, RESULT_LIMIT);
+        final List<SearchResultEntry> results = newArrayList();
+        ScoreDoc after = cursor == null ? null : cursor.getAfter();
+        ScoreDoc lastResult = null;
+        int numDocsToSkip = cursor == null ? numSkipDocs : 0;
+        int candidatesNum = 0;
+        int rejectedNum = 0;
+        boolean hasMoreToRetrieve = false;
+        TopDocs topDocs;
+        do {
+            topDocs = luceneSearcher.searchAfter(after, candidatesQuery, readFrameSize);
+            candidatesNum = topDocs.totalHits;
+            for (int i = 0; i < topDocs.scoreDocs.length && !hasMoreToRetrieve; i++) {
+                final ScoreDoc scoreDoc = topDocs.scoreDocs[i];
+                if (!plan.verify(luceneSearcher.getIndexReader().getTermVector(scoreDoc.doc, CONTENT_FIELD))) {
+                    rejectedNum++;
+                } else if (numDocsToSkip > 0) {
+                    numDocsToSkip--;
+                } else if (results.size() < numDocs) {
+                    results.add(createResultEntry(luceneSearcher, scoreDoc.doc, occurrenceFinder));
+                    lastResult = scoreDoc;
+                } else {
+                    hasMoreToRetrieve = true;
+                }
+            }
+            if (topDocs.scoreDocs.length > 0) {
+                after = topDocs.scoreDocs[topDocs.scoreDocs.length - 1];
+            }
+        } while (!hasMoreToRetrieve && topDocs.scoreDocs.length == readFrameSize);
+
+        QueryExpression nextPageQueryExpression = null;
+        int totalHitsNum = numSkipDocs - numDocsToSkip + results.size();
+        if (hasMoreToRetrieve) {
+            nextPageQueryExpression = createNextPageQuery(query, totalHitsNum, searcherVersion, lastResult);
+            totalHitsNum = Math.max(totalHitsNum + 1, candidatesNum - rejectedNum);
+        }
+        return SearchResult.aSearchResult()
+                           .withResults(results)
+                           .withTotalHits(totalHitsNum)
+                           .withNextPageQueryExpression(nextPageQueryExpression)
+                           .withElapsedTimeMillis(System.currentTimeMillis() - startTime)
+                           .build();
+    }
+
+    /** Loads only fields needed for result, positions of occurrences are found with term vector of content. */
+    private SearchResultEntry createResultEntry(IndexSearcher luceneSearcher,
+                                                int doc,
+                                                OccurrenceFinder occurrenceFinder) throws IOException {
+        if (occurrenceFinder == null) {
+            return new SearchResultEntry(luceneSearcher.doc(doc, PATH_FIELD_ONLY).get(PATH_FIELD));
+        }
+        final Document document = luceneSearcher.doc(doc, PATH_AND_LINES_FIELDS);
+        final Terms termVector = luceneSearcher.getIndexReader().getTermVector(doc, CONTENT_FIELD);
+        return new SearchResultEntry(document.get(PATH_FIELD),
+                                     occurrenceFinder.find(termVector, document.getBinaryValue(LINES_FIELD)));
+    }
+
+    private Query createLuceneQuery(String path, String name, Query textQuery) throws ParseException {
         final BooleanQuery luceneQuery = new BooleanQuery();
-        final String name = query.getName();
-        final String path = query.getPath();
-        final String text = query.getText();
         if (path != null) {
             luceneQuery.add(new PrefixQuery(new Term(PATH_FIELD, path)), BooleanClause.Occur.MUST);
         }
@@ -250,14 +652,18 @@ public abstract class LuceneSearcher implements Searcher {
             qParser.setAllowLeadingWildcard(true);
             luceneQuery.add(qParser.parse(name), BooleanClause.Occur.MUST);
         }
-        if (text != null) {
-            QueryParser qParser = new QueryParser(TEXT_FIELD, makeAnalyzer());
-            qParser.setAllowLeadingWildcard(true);
-            luceneQuery.add(qParser.parse(text), BooleanClause.Occur.MUST);
+        if (textQuery != null) {
+            luceneQuery.add(textQuery, BooleanClause.Occur.MUST);
         }
         return luceneQuery;
     }
 
+    private Query parseTextQuery(String text) throws ParseException {
+        QueryParser qParser = new QueryParser(TEXT_FIELD, makeAnalyzer());
+        qParser.setAllowLeadingWildcard(true);
+        return qParser.parse(text);
+    }
+
     private ScoreDoc skipScoreDocs(IndexSearcher luceneSearcher, Query luceneQuery, int numSkipDocs) throws IOException {
         final int readFrameSize = Math.min(numSkipDocs, RESULT_LIMIT);
         ScoreDoc scoreDoc = null;
@@ -279,12 +685,25 @@ public abstract class LuceneSearcher implements Searcher {
         return scoreDoc;
     }
 
-    private QueryExpression createNextPageQuery(QueryExpression originalQuery, int newSkipCount) {
-        return new QueryExpression().setText(originalQuery.getText())
-                                    .setName(originalQuery.getName())
-                                    .setPath(originalQuery.getPath())
-                                    .setSkipCount(newSkipCount)
-                                    .setMaxItems(originalQuery.getMaxItems());
+    /**
+     * Creates query for the next page. If the last result of the current page is known, query gets cursor that lets
+     * the next page start right after it, cursor is also remembered for clients that page with skip count only.
+     */
+    private QueryExpression createNextPageQuery(QueryExpression originalQuery,
+                                                int newSkipCount,
+                                                long searcherVersion,
+                                                ScoreDoc lastScoreDoc) {
+        final QueryExpression nextPageQuery = new QueryExpression().setText(originalQuery.getText())
+                                                                   .setName(originalQuery.getName())
+                                                                   .setPath(originalQuery.getPath())
+                                                                   .setSkipCount(newSkipCount)
+                                                                   .setMaxItems(originalQuery.getMaxItems())
+                                                                   .setIncludePositions(originalQuery.isIncludePositions());
+        if (lastScoreDoc != null) {
+            nextPageQuery.setCursor(new SearchCursor(searcherVersion, newSkipCount, lastScoreDoc).encode());
+            recentCursors.put(cursorKey(nextPageQuery), nextPageQuery.getCursor());
+        }
+        return nextPageQuery;
     }
 
     @Override
@@ -300,42 +719,30 @@ public abstract class LuceneSearcher implements Searcher {
         }
     }
 
+    @Override
+    public final void addAll(Collection<? extends VirtualFile> virtualFiles) throws ServerException {
+        final long start = System.currentTimeMillis();
+        final int indexedFiles = indexingPipeline.index(this, virtualFiles);
+        final long end = System.currentTimeMillis();
+        LOG.debug("Indexed {} files from batch of {} items, time: {} ms", indexedFiles, virtualFiles.size(), (end - start));
+    }
+
     protected void addTree(VirtualFile tree) throws ServerException {
         final long start = System.currentTimeMillis();
-        final LinkedList<VirtualFile> q = new LinkedList<>();
-        q.add(tree);
-        int indexedFiles = 0;
-        while (!q.isEmpty()) {
-            final VirtualFile folder = q.pop();
-            if (folder.exists()) {
-                for (VirtualFile child : folder.getChildren()) {
-                    if (child.isFolder()) {
-                        q.push(child);
-                    } else {
-                        addFile(child);
-                        indexedFiles++;
-                    }
-                }
-            }
-        }
+        final int indexedFiles = indexingPipeline.index(this, tree);
         final long end = System.currentTimeMillis();
         LOG.debug("Indexed {} files from {}, time: {} ms", indexedFiles, tree.getPath(), (end - start));
     }
 
     protected void addFile(VirtualFile virtualFile) throws ServerException {
         if (virtualFile.exists()) {
-            try (Reader fContentReader = shouldIndexContent(virtualFile)
-                                         ? new BufferedReader(new InputStreamReader(virtualFile.getContent()))
-                                         : null) {
-                getIndexWriter().updateDocument(new Term(PATH_FIELD, virtualFile.getPath().toString()),
-                                                createDocument(virtualFile, fContentReader));
+            try {
+                getIndexWriter().updateDocument(new Term(PATH_FIELD, virtualFile.getPath().toString()), createDocument(virtualFile));
             } catch (OutOfMemoryError oome) {
                 close();
                 throw oome;
             } catch (IOException e) {
                 throw new ServerException(e.getMessage(), e);
-            } catch (ForbiddenException e) {
-                throw new ServerException(e.getServiceError());
             }
         }
     }
@@ -364,26 +771,68 @@ public abstract class LuceneSearcher implements Searcher {
     }
 
     protected void doUpdate(Term deleteTerm, VirtualFile virtualFile) throws ServerException {
-        try (Reader fContentReader = shouldIndexContent(virtualFile)
-                                     ? new BufferedReader(new InputStreamReader(virtualFile.getContent()))
-                                     : null) {
-            getIndexWriter().updateDocument(deleteTerm, createDocument(virtualFile, fContentReader));
+        try {
+            getIndexWriter().updateDocument(deleteTerm, createDocument(virtualFile));
         } catch (OutOfMemoryError oome) {
             close();
             throw oome;
         } catch (IOException e) {
             throw new ServerException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Creates document for the file with content read into memory. Content of files bigger than
+     * {@link #MAX_CONTENT_LENGTH} is not indexed.
+     */
+    Document createDocument(VirtualFile virtualFile) throws ServerException {
+        if (!shouldIndexContent(virtualFile)) {
+            return createDocument(virtualFile, null);
+        }
+        try (FileContent content = virtualFile.openContent()) {
+            if (content.getLength() > MAX_CONTENT_LENGTH) {
+                LOG.debug("Content of {} is not indexed, file is too big: {} bytes", virtualFile.getPath(), content.getLength());
+                return createDocument(virtualFile, null);
+            }
+            // content is decoded straight from the file buffer, but the decoded string is a copy on heap: it is shared
+            // by all fields of the document and must outlive the buffer, that's why size of content is limited
+            return createDocument(virtualFile, content.read(buffer -> Charset.defaultCharset().decode(buffer).toString()));
+        } catch (IOException e) {
+            throw new ServerException(e.getMessage(), e);
         } catch (ForbiddenException e) {
             throw new ServerException(e.getServiceError());
         }
     }
 
-    protected Document createDocument(VirtualFile virtualFile, Reader reader) throws ServerException {
+    /** Makes all changes of index visible for search. */
+    void refresh() throws IOException {
+        searcherManager.maybeRefresh();
+        lastSearchRefreshTime = System.currentTimeMillis();
+    }
+
+    /**
+     * Creates document for the file. Content of the file is not stored in the index, but term vector of content with
+     * offsets of tokens and starts of lines are, so occurrences of searched text may be found without reading of files.
+     *
+     * @param virtualFile
+     *         file
+     * @param content
+     *         content of the file or {@code null} if content should not be indexed
+     */
+    protected Document createDocument(VirtualFile virtualFile, String content) throws ServerException {
         final Document doc = new Document();
         doc.add(new StringField(PATH_FIELD, virtualFile.getPath().toString(), Field.Store.YES));
+        doc.add(new SortedDocValuesField(PATH_FIELD, new BytesRef(virtualFile.getPath().toString())));
         doc.add(new TextField(NAME_FIELD, virtualFile.getName(), Field.Store.YES));
-        if (reader != null) {
-            doc.add(new TextField(TEXT_FIELD, reader));
+        doc.add(new NumericDocValuesField(SIZE_FIELD, virtualFile.getLength()));
+        doc.add(new NumericDocValuesField(MODIFIED_FIELD, virtualFile.getLastModificationDate()));
+        if (content != null) {
+            doc.add(new TextField(TEXT_FIELD, content, Field.Store.NO));
+            doc.add(new Field(CONTENT_FIELD, content, CONTENT_FIELD_TYPE));
+            doc.add(new StoredField(LINES_FIELD, OccurrenceFinder.encodeLines(content)));
+            if (isTrigramIndexEnabled()) {
+                doc.add(new Field(TRIGRAM_FIELD, content, TRIGRAM_FIELD_TYPE));
+            }
         }
         return doc;
     }
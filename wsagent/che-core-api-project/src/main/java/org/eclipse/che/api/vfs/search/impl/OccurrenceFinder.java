@@ -0,0 +1,310 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2017 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.vfs.search.impl;
+
+import org.apache.lucene.index.PostingsEnum;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.index.TermsEnum;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.FuzzyQuery;
+import org.apache.lucene.search.PhraseQuery;
+import org.apache.lucene.search.PrefixQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.RegexpQuery;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.WildcardQuery;
+import org.apache.lucene.store.ByteArrayDataInput;
+import org.apache.lucene.store.ByteArrayDataOutput;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.automaton.CharacterRunAutomaton;
+import org.apache.lucene.util.automaton.RegExp;
+import org.eclipse.che.api.vfs.search.OffsetData;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+import static java.util.Collections.emptyList;
+
+/**
+ * Finds occurrences of text query terms in a document with term vectors and offsets stored in the index, files are
+ * not read and their content doesn't have to be stored. Terms of the term vector keep case of the content, they are
+ * lower-cased the same way as terms of the searched field to be matched against the query. Line of each occurrence is
+ * restored from offsets of terms of this line, whitespaces between terms are replaced with spaces. Number of
+ * occurrences per file and length of line content are bounded.
+ */
+class OccurrenceFinder {
+    static final int MAX_OCCURRENCES = 100;
+    static final int MAX_LINE_LENGTH = 256;
+
+    private final String                  field;
+    private final List<Predicate<String>> termMatchers;
+
+    OccurrenceFinder(String field, Query query) {
+        this.field = field;
+        this.termMatchers = new ArrayList<>();
+        collectTermMatchers(query);
+    }
+
+    /**
+     * Finds occurrences of the query terms.
+     *
+     * @param termVector
+     *         term vector with offsets of document, may be {@code null} if content of file is not indexed
+     * @param lines
+     *         length of content and starts of its lines encoded with {@link #encodeLines(String)}
+     * @return occurrences in order they appear in content
+     */
+    List<OffsetData> find(Terms termVector, BytesRef lines) throws IOException {
+        if (termVector == null || lines == null || termMatchers.isEmpty()) {
+            return emptyList();
+        }
+
+        final List<Occurrence> occurrences = new ArrayList<>();
+        TermsEnum termsEnum = termVector.iterator(null);
+        PostingsEnum postings = null;
+        for (BytesRef term = termsEnum.next(); term != null; term = termsEnum.next()) {
+            final String text = term.utf8ToString();
+            if (matches(lowerCase(text))) {
+                postings = termsEnum.postings(null, postings, PostingsEnum.OFFSETS);
+                postings.nextDoc();
+                for (int i = postings.freq(); i > 0; i--) {
+                    postings.nextPosition();
+                    occurrences.add(new Occurrence(text, postings.startOffset(), postings.endOffset()));
+                }
+            }
+        }
+        if (occurrences.isEmpty()) {
+            return emptyList();
+        }
+        occurrences.sort(Comparator.comparingInt(occurrence -> occurrence.start));
+        final List<Occurrence> found = occurrences.size() > MAX_OCCURRENCES ? occurrences.subList(0, MAX_OCCURRENCES) : occurrences;
+
+        final int[] lineStarts = decodeLines(lines);
+        final int length = lineStarts[lineStarts.length - 1];
+        final Map<Integer, List<Occurrence>> byLine = new HashMap<>();
+        for (Occurrence occurrence : found) {
+            occurrence.locate(lineStarts, length);
+            byLine.computeIfAbsent(occurrence.line, line -> new ArrayList<>()).add(occurrence);
+        }
+
+        // restore snippets from all the terms which are on lines with occurrences
+        termsEnum = termVector.iterator(termsEnum);
+        for (BytesRef term = termsEnum.next(); term != null; term = termsEnum.next()) {
+            final String text = term.utf8ToString();
+            postings = termsEnum.postings(null, postings, PostingsEnum.OFFSETS);
+            postings.nextDoc();
+            for (int i = postings.freq(); i > 0; i--) {
+                postings.nextPosition();
+                final List<Occurrence> lineOccurrences = byLine.get(lineOf(lineStarts, postings.startOffset()));
+                if (lineOccurrences != null) {
+                    for (Occurrence occurrence : lineOccurrences) {
+                        occurrence.fill(text, postings.startOffset());
+                    }
+                }
+            }
+        }
+
+        final List<OffsetData> result = new ArrayList<>(found.size());
+        for (Occurrence occurrence : found) {
+            result.add(occurrence.toOffsetData());
+        }
+        return result;
+    }
+
+    private boolean matches(String term) {
+        for (Predicate<String> termMatcher : termMatchers) {
+            if (termMatcher.test(term)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Lower-cases term the same way as {@link org.apache.lucene.analysis.core.LowerCaseFilter} does. */
+    static String lowerCase(String term) {
+        final StringBuilder lowerCase = new StringBuilder(term.length());
+        for (int i = 0; i < term.length(); ) {
+            final int codePoint = term.codePointAt(i);
+            lowerCase.appendCodePoint(Character.toLowerCase(codePoint));
+            i += Character.charCount(codePoint);
+        }
+        return lowerCase.toString();
+    }
+
+    /**
+     * Encodes length of content and starts of its lines to be stored in the index. Starts are encoded as deltas, so
+     * typically each line takes one or two bytes.
+     */
+    static byte[] encodeLines(String content) {
+        final List<Integer> lineStarts = new ArrayList<>();
+        for (int i = 0; i < content.length(); i++) {
+            if (content.charAt(i) == '\n') {
+                lineStarts.add(i + 1);
+            }
+        }
+        final byte[] bytes = new byte[5 * (lineStarts.size() + 2)];
+        final ByteArrayDataOutput out = new ByteArrayDataOutput(bytes);
+        out.writeVInt(content.length());
+        out.writeVInt(lineStarts.size());
+        int previous = 0;
+        for (int lineStart : lineStarts) {
+            out.writeVInt(lineStart - previous);
+            previous = lineStart;
+        }
+        return Arrays.copyOf(bytes, out.getPosition());
+    }
+
+    /** Returns starts of lines followed by length of content. */
+    static int[] decodeLines(BytesRef lines) {
+        final ByteArrayDataInput in = new ByteArrayDataInput(lines.bytes, lines.offset, lines.length);
+        final int length = in.readVInt();
+        final int[] lineStarts = new int[in.readVInt() + 2];
+        for (int i = 1; i < lineStarts.length - 1; i++) {
+            lineStarts[i] = lineStarts[i - 1] + in.readVInt();
+        }
+        lineStarts[lineStarts.length - 1] = length;
+        return lineStarts;
+    }
+
+    /** Returns number of line, starting from 0, that contains character at specified offset. */
+    private static int lineOf(int[] lineStarts, int offset) {
+        final int line = Arrays.binarySearch(lineStarts, 0, lineStarts.length - 1, offset);
+        return line < 0 ? -line - 2 : line;
+    }
+
+    private static class Occurrence {
+        final String phrase;
+        final int    start;
+        final int    end;
+        int    line;
+        int    lineStart;
+        int    snippetStart;
+        char[] snippet;
+
+        Occurrence(String phrase, int start, int end) {
+            this.phrase = phrase;
+            this.start = start;
+            this.end = end;
+        }
+
+        void locate(int[] lineStarts, int length) {
+            line = lineOf(lineStarts, start);
+            lineStart = lineStarts[line];
+            final int lineEnd = line + 2 < lineStarts.length ? lineStarts[line + 1] - 1 : length;
+            snippetStart = lineStart;
+            int snippetEnd = lineEnd;
+            if (lineEnd - lineStart > MAX_LINE_LENGTH) {
+                snippetStart = Math.max(lineStart, start - Math.max(0, MAX_LINE_LENGTH - (end - start)) / 2);
+                snippetEnd = Math.min(lineEnd, snippetStart + MAX_LINE_LENGTH);
+            }
+            snippet = new char[Math.max(0, snippetEnd - snippetStart)];
+            Arrays.fill(snippet, ' ');
+        }
+
+        /** Copies part of term that starts at specified offset which overlaps snippet. */
+        void fill(String term, int termStart) {
+            final int from = Math.max(termStart, snippetStart);
+            final int to = Math.min(termStart + term.length(), snippetStart + snippet.length);
+            if (from < to) {
+                term.getChars(from - termStart, to - termStart, snippet, from - snippetStart);
+            }
+        }
+
+        OffsetData toOffsetData() {
+            int snippetLength = snippet.length;
+            while (snippetLength > 0 && snippet[snippetLength - 1] == ' ') {
+                snippetLength--;
+            }
+            return new OffsetData(phrase,
+                                  start,
+                                  end,
+                                  line + 1,
+                                  start - lineStart,
+                                  end - lineStart,
+                                  new String(snippet, 0, snippetLength));
+        }
+    }
+
+    private void collectTermMatchers(Query query) {
+        if (query instanceof TermQuery) {
+            addTermMatcher(((TermQuery)query).getTerm());
+        } else if (query instanceof FuzzyQuery) {
+            addTermMatcher(((FuzzyQuery)query).getTerm());
+        } else if (query instanceof PrefixQuery) {
+            final Term prefix = ((PrefixQuery)query).getPrefix();
+            if (field.equals(prefix.field())) {
+                final String text = prefix.text();
+                termMatchers.add(term -> term.startsWith(text));
+            }
+        } else if (query instanceof WildcardQuery) {
+            final Term wildcard = ((WildcardQuery)query).getTerm();
+            if (field.equals(wildcard.field())) {
+                final Pattern pattern = wildcardToPattern(wildcard.text());
+                termMatchers.add(term -> pattern.matcher(term).matches());
+            }
+        } else if (query instanceof RegexpQuery) {
+            final String regexp = TrigramQueryPlanner.regexpText((RegexpQuery)query);
+            if (field.equals(((RegexpQuery)query).getField()) && regexp != null) {
+                final CharacterRunAutomaton automaton = new CharacterRunAutomaton(new RegExp(regexp).toAutomaton());
+                termMatchers.add(automaton::run);
+            }
+        } else if (query instanceof PhraseQuery) {
+            for (Term term : ((PhraseQuery)query).getTerms()) {
+                addTermMatcher(term);
+            }
+        } else if (query instanceof BooleanQuery) {
+            for (BooleanClause clause : ((BooleanQuery)query).clauses()) {
+                if (!clause.isProhibited()) {
+                    collectTermMatchers(clause.getQuery());
+                }
+            }
+        }
+    }
+
+    private void addTermMatcher(Term term) {
+        if (field.equals(term.field())) {
+            final String text = term.text();
+            termMatchers.add(text::equals);
+        }
+    }
+
+    private static Pattern wildcardToPattern(String wildcard) {
+        final StringBuilder regex = new StringBuilder();
+        final StringBuilder literal = new StringBuilder();
+        for (int i = 0; i < wildcard.length(); i++) {
+            final char c = wildcard.charAt(i);
+            if (c == WildcardQuery.WILDCARD_STRING || c == WildcardQuery.WILDCARD_CHAR) {
+                if (literal.length() > 0) {
+                    regex.append(Pattern.quote(literal.toString()));
+                    literal.setLength(0);
+                }
+                regex.append(c == WildcardQuery.WILDCARD_STRING ? ".*" : ".");
+            } else if (c == WildcardQuery.WILDCARD_ESCAPE && i + 1 < wildcard.length()) {
+                literal.append(wildcard.charAt(++i));
+            } else {
+                literal.append(c);
+            }
+        }
+        if (literal.length() > 0) {
+            regex.append(Pattern.quote(literal.toString()));
+        }
+        return Pattern.compile(regex.toString(), Pattern.DOTALL);
+    }
+}
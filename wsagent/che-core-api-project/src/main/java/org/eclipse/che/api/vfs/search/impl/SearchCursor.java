@@ -0,0 +1,88 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2017 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.vfs.search.impl;
+
+import org.apache.lucene.search.ScoreDoc;
+
+import java.util.Base64;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Position in search result. Cursor remembers version of index searcher that produced the page and the last
+ * document of the page, so the next page may be retrieved from the same searcher starting right after that
+ * document instead of skipping all previous results again. Cursor is passed to clients as an opaque string.
+ */
+class SearchCursor {
+    private static final char SEPARATOR = ':';
+
+    private final long  searcherVersion;
+    private final int   offset;
+    private final int   doc;
+    private final float score;
+
+    SearchCursor(long searcherVersion, int offset, ScoreDoc last) {
+        this(searcherVersion, offset, last.doc, last.score);
+    }
+
+    private SearchCursor(long searcherVersion, int offset, int doc, float score) {
+        this.searcherVersion = searcherVersion;
+        this.offset = offset;
+        this.doc = doc;
+        this.score = score;
+    }
+
+    /**
+     * Restores cursor from string returned by {@link #encode()}.
+     *
+     * @return cursor or {@code null} if string is {@code null} or isn't valid cursor
+     */
+    static SearchCursor decode(String encoded) {
+        if (encoded == null) {
+            return null;
+        }
+        try {
+            final String[] parts = new String(Base64.getUrlDecoder().decode(encoded), UTF_8).split(String.valueOf(SEPARATOR));
+            if (parts.length != 4) {
+                return null;
+            }
+            return new SearchCursor(Long.parseLong(parts[0], Character.MAX_RADIX),
+                                    Integer.parseInt(parts[1]),
+                                    Integer.parseInt(parts[2]),
+                                    Float.intBitsToFloat(Integer.parseUnsignedInt(parts[3], 16)));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    String encode() {
+        final String raw = Long.toString(searcherVersion, Character.MAX_RADIX) + SEPARATOR
+                           + offset + SEPARATOR
+                           + doc + SEPARATOR
+                           + Integer.toHexString(Float.floatToIntBits(score));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(UTF_8));
+    }
+
+    /** Version of index searcher that produced the page. */
+    long getSearcherVersion() {
+        return searcherVersion;
+    }
+
+    /** Number of results that precede position of cursor. */
+    int getOffset() {
+        return offset;
+    }
+
+    /** Last document of the page, the next page starts after it. */
+    ScoreDoc getAfter() {
+        return new ScoreDoc(doc, score);
+    }
+}
@@ -0,0 +1,272 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2017 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.vfs.search.impl;
+
+import org.apache.lucene.index.Term;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.index.TermsEnum;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.RegexpQuery;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.WildcardQuery;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.automaton.CharacterRunAutomaton;
+import org.apache.lucene.util.automaton.RegExp;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Plans execution of substring (wildcard) and regex queries over the trigram field. Instead of scanning the whole
+ * term dictionary of the text field, planned query selects candidate documents that contain all trigrams of the
+ * literal parts of expression and then candidates are verified against term vectors of their content.
+ * <p>
+ * Only queries which all clauses are required may be planned, for any other query or if expression has no literal
+ * part of three or more characters planner returns {@code null} and query should be executed as is.
+ */
+class TrigramQueryPlanner {
+    static final int GRAM_SIZE = 3;
+
+    private final String textField;
+    private final String trigramField;
+
+    TrigramQueryPlanner(String textField, String trigramField) {
+        this.textField = textField;
+        this.trigramField = trigramField;
+    }
+
+    /**
+     * Plans execution of text query.
+     *
+     * @param query
+     *         parsed text query
+     * @return plan or {@code null} if query doesn't benefit from trigram index
+     */
+    Plan plan(Query query) {
+        final List<Query> clauses = new ArrayList<>();
+        if (query instanceof BooleanQuery) {
+            for (BooleanClause clause : ((BooleanQuery)query).clauses()) {
+                if (clause.getOccur() != BooleanClause.Occur.MUST) {
+                    return null;
+                }
+                clauses.add(clause.getQuery());
+            }
+        } else {
+            clauses.add(query);
+        }
+
+        final BooleanQuery candidates = new BooleanQuery();
+        final List<CharacterRunAutomaton> verifiers = new ArrayList<>();
+        for (Query clause : clauses) {
+            if (clause instanceof WildcardQuery && textField.equals(((WildcardQuery)clause).getTerm().field())) {
+                final Term term = ((WildcardQuery)clause).getTerm();
+                final Query trigrams = trigramQuery(wildcardLiterals(term.text()));
+                if (trigrams == null) {
+                    return null;
+                }
+                candidates.add(trigrams, BooleanClause.Occur.MUST);
+                verifiers.add(new CharacterRunAutomaton(WildcardQuery.toAutomaton(term)));
+            } else if (clause instanceof RegexpQuery && textField.equals(((RegexpQuery)clause).getField())) {
+                final String regexp = regexpText((RegexpQuery)clause);
+                final List<String> literals = regexp == null ? null : regexpLiterals(regexp);
+                final Query trigrams = literals == null ? null : trigramQuery(literals);
+                if (trigrams == null) {
+                    return null;
+                }
+                candidates.add(trigrams, BooleanClause.Occur.MUST);
+                verifiers.add(new CharacterRunAutomaton(new RegExp(regexp).toAutomaton()));
+            } else {
+                candidates.add(clause, BooleanClause.Occur.MUST);
+            }
+        }
+        return verifiers.isEmpty() ? null : new Plan(candidates, verifiers);
+    }
+
+    /** Result of planning: query that selects candidates and automata each of them must match some token of content. */
+    class Plan {
+        private final Query                       candidates;
+        private final List<CharacterRunAutomaton> verifiers;
+
+        private Plan(Query candidates, List<CharacterRunAutomaton> verifiers) {
+            this.candidates = candidates;
+            this.verifiers = verifiers;
+        }
+
+        Query getCandidates() {
+            return candidates;
+        }
+
+        /**
+         * Checks that content really matches the query. Each distinct token of content is checked once.
+         *
+         * @param termVector
+         *         term vector of content, may be {@code null} if content of file is not indexed
+         */
+        boolean verify(Terms termVector) throws IOException {
+            if (termVector == null) {
+                return false;
+            }
+            final boolean[] matched = new boolean[verifiers.size()];
+            int unmatched = matched.length;
+            final TermsEnum termsEnum = termVector.iterator(null);
+            for (BytesRef term = termsEnum.next(); unmatched > 0 && term != null; term = termsEnum.next()) {
+                final String token = OccurrenceFinder.lowerCase(term.utf8ToString());
+                for (int i = 0; i < matched.length; i++) {
+                    if (!matched[i] && verifiers.get(i).run(token)) {
+                        matched[i] = true;
+                        unmatched--;
+                    }
+                }
+            }
+            return unmatched == 0;
+        }
+    }
+
+    private Query trigramQuery(List<String> literals) {
+        final Set<String> trigrams = new LinkedHashSet<>();
+        for (String literal : literals) {
+            for (int i = 0; i + GRAM_SIZE <= literal.length(); i++) {
+                trigrams.add(literal.substring(i, i + GRAM_SIZE));
+            }
+        }
+        if (trigrams.isEmpty()) {
+            return null;
+        }
+        final BooleanQuery query = new BooleanQuery();
+        for (String trigram : trigrams) {
+            query.add(new TermQuery(new Term(trigramField, trigram)), BooleanClause.Occur.MUST);
+        }
+        return query;
+    }
+
+    /** Splits wildcard expression into literal parts. */
+    static List<String> wildcardLiterals(String wildcard) {
+        final List<String> literals = new ArrayList<>();
+        final StringBuilder literal = new StringBuilder();
+        for (int i = 0; i < wildcard.length(); i++) {
+            final char c = wildcard.charAt(i);
+            if (c == WildcardQuery.WILDCARD_STRING || c == WildcardQuery.WILDCARD_CHAR) {
+                addLiteral(literals, literal);
+            } else if (c == WildcardQuery.WILDCARD_ESCAPE && i + 1 < wildcard.length()) {
+                literal.append(wildcard.charAt(++i));
+            } else {
+                literal.append(c);
+            }
+        }
+        addLiteral(literals, literal);
+        return literals;
+    }
+
+    /**
+     * Extracts literal parts that any string matched by regular expression must contain. Groups, character classes
+     * and optional characters break literal parts. Returns {@code null} if expression contains alternation or
+     * operators which make extraction of required literals unreliable.
+     */
+    static List<String> regexpLiterals(String regexp) {
+        final List<String> literals = new ArrayList<>();
+        final StringBuilder literal = new StringBuilder();
+        int i = 0;
+        while (i < regexp.length()) {
+            final char c = regexp.charAt(i);
+            switch (c) {
+                case '|':
+                case '&':
+                case '~':
+                case '#':
+                case '@':
+                case '<':
+                case '"':
+                    return null;
+                case '(':
+                case '[':
+                case '{':
+                    addLiteral(literals, literal);
+                    i = skipBlock(regexp, i);
+                    if (i < 0) {
+                        return null;
+                    }
+                    break;
+                case '.':
+                    addLiteral(literals, literal);
+                    i++;
+                    break;
+                case '?':
+                case '*':
+                case '+':
+                    // quantifier applied to group or class, literal part is already finished
+                    i++;
+                    break;
+                default:
+                    char literalChar = c;
+                    if (c == '\\') {
+                        if (i + 1 == regexp.length()) {
+                            return null;
+                        }
+                        literalChar = regexp.charAt(++i);
+                    }
+                    i++;
+                    final char next = i < regexp.length() ? regexp.charAt(i) : 0;
+                    if (next == '?' || next == '*' || next == '{') {
+                        // character is optional or repeated unknown number of times
+                        addLiteral(literals, literal);
+                    } else if (next == '+') {
+                        literal.append(literalChar);
+                        addLiteral(literals, literal);
+                        i++;
+                    } else {
+                        literal.append(literalChar);
+                    }
+            }
+        }
+        addLiteral(literals, literal);
+        return literals;
+    }
+
+    /** Returns index of the character that follows block which starts at specified index or -1 if block is not closed. */
+    private static int skipBlock(String regexp, int start) {
+        final char open = regexp.charAt(start);
+        final char close = open == '(' ? ')' : open == '[' ? ']' : '}';
+        int depth = 0;
+        for (int i = start; i < regexp.length(); i++) {
+            final char c = regexp.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (c == open) {
+                depth++;
+            } else if (c == close && --depth == 0) {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    private static void addLiteral(List<String> literals, StringBuilder literal) {
+        if (literal.length() > 0) {
+            literals.add(literal.toString());
+            literal.setLength(0);
+        }
+    }
+
+    /** Returns source expression of regular expression query or {@code null} if it can't be restored. */
+    static String regexpText(RegexpQuery query) {
+        // RegexpQuery doesn't expose source expression, it is available only through toString
+        final String text = query.toString(query.getField());
+        if (text.length() < 2 || text.charAt(0) != '/' || text.charAt(text.length() - 1) != '/') {
+            return null;
+        }
+        return text.substring(1, text.length() - 1);
+    }
+}
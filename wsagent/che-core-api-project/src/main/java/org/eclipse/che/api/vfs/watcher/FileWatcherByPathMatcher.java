@@ -10,9 +10,10 @@
  *******************************************************************************/
 package org.eclipse.che.api.vfs.watcher;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.inject.Inject;
 
-import org.eclipse.che.commons.schedule.executor.ThreadPullLauncher;
+import org.eclipse.che.commons.lang.concurrent.LoggingUncaughtExceptionHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -27,59 +28,108 @@ import java.nio.file.Path;
 import java.nio.file.PathMatcher;
 import java.nio.file.SimpleFileVisitor;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.NavigableMap;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
-import java.util.function.Predicate;
+import java.util.function.Function;
 
 import static com.google.common.collect.Sets.newConcurrentHashSet;
+import static java.lang.Thread.currentThread;
 import static java.nio.file.FileVisitResult.CONTINUE;
-import static java.nio.file.Files.exists;
+import static java.nio.file.FileVisitResult.SKIP_SUBTREE;
+import static java.nio.file.Files.isDirectory;
 import static java.nio.file.Files.walkFileTree;
+import static java.util.concurrent.Executors.newSingleThreadExecutor;
 import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.eclipse.che.api.vfs.watcher.FileWatcherManager.EMPTY_CONSUMER;
+import static org.eclipse.che.api.vfs.watcher.FileWatcherUtils.isExcluded;
+import static org.eclipse.che.api.vfs.watcher.FileWatcherUtils.toInternalPath;
+import static org.eclipse.che.api.vfs.watcher.FileWatcherUtils.toNormalPath;
 
+/**
+ * Watches file system items that match registered path matchers. Instead of
+ * rescanning the whole tree periodically directories of the tree are
+ * registered in {@link FileWatcherService} once and each matcher keeps an
+ * index of matched paths that is incrementally updated by entry creation and
+ * deletion events. Tree is walked only when new matchers are registered, all
+ * matchers registered at the same time share a single walk.
+ *
+ * Root, project folders and directories whose entries may be matched by any
+ * registered matcher are watched, see {@link FileWatcherPathMatcher}, as well
+ * as ancestors of watched directories so deletion of any watched directory is
+ * noticed. Every directory is watched while plain path matcher is registered.
+ *
+ * All walks and event processing are performed sequentially by a single
+ * dedicated thread, so matcher indexes are never updated concurrently.
+ */
 @Singleton
 public class FileWatcherByPathMatcher {
     private static final Logger LOG = LoggerFactory.getLogger(FileWatcherByPathMatcher.class);
 
     private final AtomicInteger operationIdCounter = new AtomicInteger();
 
-    private final File                   root;
-    private final FileWatcherByPathValue watcher;
-    private final ThreadPullLauncher     launcher;
+    private final Path                    root;
+    private final Set<PathMatcher>        excludes;
+    private final FileWatcherEventHandler handler;
+    private final FileWatcherService      service;
 
     /** Operation ID -> Operation (create, modify, delete) */
-    private final Map<Integer, Operation>        operations             = new ConcurrentHashMap<>();
-    /** Operation ID -> Registered paths */
-    private final Map<Integer, Set<Path>>        paths                  = new ConcurrentHashMap<>();
+    private final Map<Integer, Operation>        operations  = new ConcurrentHashMap<>();
     /** Matcher -> Operation IDs */
-    private final Map<PathMatcher, Set<Integer>> matchers               = new ConcurrentHashMap<>();
-    /** Registered path -> Path watch operation IDs */
-    private final Map<Path, Set<Integer>>        pathWatchRegistrations = new ConcurrentHashMap<>();
+    private final Map<PathMatcher, Set<Integer>> matchers    = new ConcurrentHashMap<>();
+    /** Matcher -> Matched paths */
+    private final Map<PathMatcher, Set<Path>>    matched     = new ConcurrentHashMap<>();
+    /** Matchers that are registered but not yet applied to existing tree */
+    private final Set<PathMatcher>               pending     = newConcurrentHashSet();
+    /** Watched directory -> Directory watch operation ID, sorted so directories of subtree are adjacent */
+    private final NavigableMap<Path, Integer>    directories = new ConcurrentSkipListMap<>();
+
+    private volatile ExecutorService executor;
 
     @Inject
-    public FileWatcherByPathMatcher(@Named("che.user.workspaces.storage") File root, FileWatcherByPathValue watcher,
-                                    ThreadPullLauncher launcher) {
-        this.root = root;
-        this.watcher = watcher;
-        this.launcher = launcher;
+    public FileWatcherByPathMatcher(@Named("che.user.workspaces.storage") File root,
+                                    @Named("che.user.workspaces.storage.excludes") Set<PathMatcher> excludes,
+                                    FileWatcherEventHandler handler,
+                                    FileWatcherService service) {
+        this.root = root.toPath().normalize().toAbsolutePath();
+        this.excludes = excludes;
+        this.handler = handler;
+        this.service = service;
     }
 
     @PostConstruct
     public void start() {
-        launcher.scheduleAtFixedRate(this::seek, 0, 3, SECONDS);
+        ThreadFactory factory = new ThreadFactoryBuilder().setUncaughtExceptionHandler(LoggingUncaughtExceptionHandler.getInstance())
+                                                          .setNameFormat(FileWatcherByPathMatcher.class.getSimpleName())
+                                                          .setDaemon(true)
+                                                          .build();
+        executor = newSingleThreadExecutor(factory);
+        executor.execute(this::seek);
     }
 
     @PreDestroy
     public void stop() {
         try {
-            launcher.shutdown();
+            LOG.debug("Executor task shutdown started");
+            executor.shutdown();
+            executor.awaitTermination(5, SECONDS);
         } catch (InterruptedException e) {
-            LOG.error("Can't properly stop thread pull launcher: ", e);
+            currentThread().interrupt();
+            LOG.debug("Executor task is interrupted");
+        } finally {
+            executor.shutdownNow();
+            LOG.debug("Executor tasks have been shutdown");
         }
     }
 
@@ -87,88 +137,245 @@ public class FileWatcherByPathMatcher {
         LOG.debug("Watching matcher '{}'", matcher);
         int operationId = operationIdCounter.getAndIncrement();
 
-        matchers.putIfAbsent(matcher, newConcurrentHashSet());
-        matchers.get(matcher).add(operationId);
-
         operations.put(operationId, new Operation(create, modify, delete));
 
+        if (matchers.putIfAbsent(matcher, newConcurrentHashSet()) == null) {
+            matched.put(matcher, newConcurrentHashSet());
+            pending.add(matcher);
+            submit(this::seek);
+        }
+        matchers.get(matcher).add(operationId);
+
         LOG.debug("Registered matcher operation set with id '{}'", operationId);
         return operationId;
     }
 
     void unwatch(int operationId) {
         LOG.debug("Unwatching matcher operation set with id '{}'", operationId);
+        operations.remove(operationId);
+
         for (Entry<PathMatcher, Set<Integer>> entry : matchers.entrySet()) {
             PathMatcher matcher = entry.getKey();
-            Set<Integer> operationsIdList = entry.getValue();
-            Iterator<Integer> iterator = operationsIdList.iterator();
-            while (iterator.hasNext()) {
-                if (iterator.next() == operationId) {
-                    unwatch(matcher::matches);
-                    iterator.remove();
-                    operations.remove(operationId);
-
-                    break;
-                }
-            }
+            Set<Integer> operationIds = entry.getValue();
 
-            if (matchers.get(matcher) == null || matchers.get(matcher).isEmpty()) {
+            if (operationIds.remove(operationId) && operationIds.isEmpty()) {
                 matchers.remove(matcher);
+                matched.remove(matcher);
+                pending.remove(matcher);
             }
         }
 
+        if (matchers.isEmpty()) {
+            submit(this::unwatchDirectories);
+        }
     }
 
-    private void seek() {
-        for (PathMatcher matcher : matchers.keySet()) {
-            unwatch(it -> !exists(it));
+    /**
+     * Applies all pending matchers to the existing file tree within a single
+     * walk, registering every not yet watched directory on the way.
+     */
+    void seek() {
+        List<PathMatcher> matchersToApply = new ArrayList<>(pending);
+        if (matchersToApply.isEmpty()) {
+            return;
+        }
+        pending.removeAll(matchersToApply);
+
+        LOG.debug("Walking file tree for {} matcher(s)", matchersToApply.size());
+        walk(root, matchersToApply, false);
+    }
+
+    /**
+     * Handles creation of a file system item. Newly created directories are
+     * walked so items that appeared before directory watch was registered are
+     * indexed as well.
+     */
+    void onCreate(Path path) {
+        if (isDirectory(path)) {
+            walk(path, matchers.keySet(), true);
+        } else {
+            index(path, matchers.keySet(), true);
+        }
 
-            try {
-                walkFileTree(root.toPath(), new SimpleFileVisitor<Path>() {
-                    @Override
-                    public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
-                        return watch(dir);
+        notifyParentMatched(path, it -> it.create);
+    }
+
+    /**
+     * Handles modification of a file system item.
+     */
+    void onModify(Path path) {
+        for (Entry<PathMatcher, Set<Path>> entry : matched.entrySet()) {
+            Set<Path> paths = entry.getValue();
+            if (paths.contains(path) || paths.contains(path.getParent())) {
+                notify(entry.getKey(), path, it -> it.modify);
+            }
+        }
+    }
+
+    /**
+     * Handles deletion of a file system item, all matched paths and watched
+     * directories within deleted subtree are forgotten.
+     */
+    void onDelete(Path path) {
+        for (Entry<PathMatcher, Set<Path>> entry : matched.entrySet()) {
+            Set<Path> paths = entry.getValue();
+            if (paths.contains(path) || paths.contains(path.getParent())) {
+                notify(entry.getKey(), path, it -> it.delete);
+            }
+            paths.removeIf(it -> it.startsWith(path));
+        }
+
+        // '0' follows '/', so the range covers the deleted item and all its descendants
+        Path end = path.resolveSibling(path.getFileName() + "0");
+        Iterator<Entry<Path, Integer>> iterator = directories.subMap(path, true, end, false).entrySet().iterator();
+        while (iterator.hasNext()) {
+            Entry<Path, Integer> entry = iterator.next();
+            Path dir = entry.getKey();
+            if (dir.startsWith(path)) {
+                iterator.remove();
+                unwatchDirectory(dir, entry.getValue());
+            }
+        }
+    }
+
+    private void walk(Path start, Collection<PathMatcher> matchersToApply, boolean notify) {
+        try {
+            walkFileTree(start, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                    if (isExcluded(excludes, dir)) {
+                        return SKIP_SUBTREE;
                     }
 
-                    @Override
-                    public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
-                        return watch(file);
+                    if (mayContainMatches(dir)) {
+                        watchDirectory(dir);
                     }
+                    index(dir, matchersToApply, notify);
+                    return CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    index(file, matchersToApply, notify);
+                    return CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException e) {
+                    LOG.debug("Can't visit '{}' while walking file tree", file, e);
+                    return CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            LOG.error("Error walking file tree '{}' for watching files by matchers", start, e);
+        }
+    }
+
+    private void index(Path path, Collection<PathMatcher> matchersToApply, boolean notify) {
+        if (path.equals(root) || isExcluded(excludes, path)) {
+            return;
+        }
+
+        for (PathMatcher matcher : matchersToApply) {
+            Set<Path> paths = matched.get(matcher);
+            if (paths != null && matcher.matches(path) && paths.add(path) && notify) {
+                notify(matcher, path, it -> it.create);
+            }
+        }
+    }
 
-                    private FileVisitResult watch(Path path) {
-                        if (matcher.matches(path)) {
-                            for (int operationId : matchers.get(matcher)) {
-                                paths.putIfAbsent(operationId, newConcurrentHashSet());
-                                if (paths.get(operationId).contains(path)) {
-                                    return CONTINUE;
-                                }
+    private void notifyParentMatched(Path path, Function<Operation, Consumer<String>> consumer) {
+        for (Entry<PathMatcher, Set<Path>> entry : matched.entrySet()) {
+            if (entry.getValue().contains(path.getParent())) {
+                notify(entry.getKey(), path, consumer);
+            }
+        }
+    }
 
-                                paths.get(operationId).add(path);
+    private void notify(PathMatcher matcher, Path path, Function<Operation, Consumer<String>> consumer) {
+        Set<Integer> operationIds = matchers.get(matcher);
+        if (operationIds == null) {
+            return;
+        }
 
-                                Operation operation = operations.get(operationId);
-                                int pathWatcherOperationId = watcher.watch(path, operation.create, operation.modify, operation.delete);
-                                pathWatchRegistrations.putIfAbsent(path, newConcurrentHashSet());
-                                pathWatchRegistrations.get(path).add(pathWatcherOperationId);
-                            }
-                        }
+        String internalPath = toInternalPath(root, path);
+        for (int operationId : operationIds) {
+            Operation operation = operations.get(operationId);
+            if (operation != null) {
+                consumer.apply(operation).accept(internalPath);
+            }
+        }
+    }
 
-                        return CONTINUE;
-                    }
-                });
-            } catch (IOException e) {
-                LOG.error("Error walking file tree for watching file by matcher {}", matcher, e);
+    private boolean mayContainMatches(Path dir) {
+        if (dir.getNameCount() - root.getNameCount() <= 1) {
+            return true;
+        }
+
+        for (PathMatcher matcher : matchers.keySet()) {
+            if (!(matcher instanceof FileWatcherPathMatcher) || ((FileWatcherPathMatcher)matcher).mayMatchEntriesOf(dir)) {
+                return true;
             }
         }
+        return false;
+    }
+
+    /**
+     * Watches directory and all its ancestors that are not watched yet,
+     * ancestors are watched first.
+     */
+    private void watchDirectory(Path dir) {
+        if (directories.containsKey(dir)) {
+            return;
+        }
+        if (!dir.equals(root)) {
+            watchDirectory(dir.getParent());
+        }
+
+        Consumer<String> create = it -> dispatch(dir, it, this::onCreate);
+        Consumer<String> modify = it -> dispatch(dir, it, this::onModify);
+        Consumer<String> delete = it -> dispatch(dir, it, this::onDelete);
+
+        service.register(dir);
+        directories.put(dir, handler.register(dir, create, modify, delete));
+    }
+
+    private void unwatchDirectory(Path dir, int operationId) {
+        handler.unRegister(operationId);
+        service.unRegister(dir);
+    }
+
+    private void unwatchDirectories() {
+        if (!matchers.isEmpty()) {
+            return;
+        }
+
+        LOG.debug("No matchers left, unwatching {} directories", directories.size());
+        Iterator<Entry<Path, Integer>> iterator = directories.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Entry<Path, Integer> entry = iterator.next();
+            iterator.remove();
+            unwatchDirectory(entry.getKey(), entry.getValue());
+        }
     }
 
-    private void unwatch(Predicate<Path> predicate) {
-        pathWatchRegistrations.keySet().stream()
-                              .filter(predicate)
-                              .flatMap(it -> pathWatchRegistrations.remove(it).stream())
-                              .forEach(watcher::unwatch);
+    /**
+     * Directory watch operations are also called for events related to the
+     * directory itself, only events of direct directory entries are
+     * dispatched to avoid processing the same event twice.
+     */
+    private void dispatch(Path dir, String internalPath, Consumer<Path> action) {
+        Path path = toNormalPath(root, internalPath);
+        if (dir.equals(path.getParent())) {
+            submit(() -> action.accept(path));
+        }
+    }
 
-        paths.values().forEach(it -> it.removeIf(predicate));
-        paths.entrySet().removeIf(it -> it.getValue().isEmpty());
+    private void submit(Runnable task) {
+        ExecutorService current = executor;
+        if (current != null && !current.isShutdown()) {
+            current.execute(task);
+        }
     }
 
     private static class Operation {
@@ -177,9 +384,9 @@ public class FileWatcherByPathMatcher {
         final Consumer<String> delete;
 
         private Operation(Consumer<String> create, Consumer<String> modify, Consumer<String> delete) {
-            this.create = create;
-            this.modify = modify;
-            this.delete = delete;
+            this.create = create == null ? EMPTY_CONSUMER : create;
+            this.modify = modify == null ? EMPTY_CONSUMER : modify;
+            this.delete = delete == null ? EMPTY_CONSUMER : delete;
         }
     }
 }
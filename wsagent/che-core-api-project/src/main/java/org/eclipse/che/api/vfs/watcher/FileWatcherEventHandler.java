@@ -20,16 +20,13 @@ import java.io.File;
 import java.nio.file.Path;
 import java.nio.file.WatchEvent;
 import java.util.Map;
-import java.util.Map.Entry;
-import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
-import java.util.function.Predicate;
 
-import static com.google.common.collect.Sets.newHashSet;
+import static com.google.common.collect.Sets.newConcurrentHashSet;
 import static java.nio.file.Files.isDirectory;
 import static org.eclipse.che.api.vfs.watcher.FileWatcherUtils.toInternalPath;
 
@@ -39,7 +36,10 @@ public class FileWatcherEventHandler {
 
     private final AtomicInteger idCounter = new AtomicInteger();
 
+    /** Path -> Operations registered for the path */
     private final Map<Path, Set<FileWatcherOperation>> operations = new ConcurrentHashMap<>();
+    /** Operation ID -> Path, so operation is unregistered without scanning all registered paths */
+    private final Map<Integer, Path>                   paths      = new ConcurrentHashMap<>();
 
     private final File root;
 
@@ -72,8 +72,12 @@ public class FileWatcherEventHandler {
         int id = idCounter.incrementAndGet();
         FileWatcherOperation operation = new FileWatcherOperation(id, create, modify, delete);
 
-        operations.putIfAbsent(path, newHashSet());
-        operations.get(path).add(operation);
+        operations.compute(path, (key, operationsSet) -> {
+            Set<FileWatcherOperation> result = operationsSet == null ? newConcurrentHashSet() : operationsSet;
+            result.add(operation);
+            return result;
+        });
+        paths.put(id, path);
 
         return id;
     }
@@ -89,22 +93,17 @@ public class FileWatcherEventHandler {
      * @return path that corresponds to operations set identified by parameter
      */
     Path unRegister(int id) {
-        Path dir = null;
-        for (Entry<Path, Set<FileWatcherOperation>> entry : operations.entrySet()) {
-            Path path = entry.getKey();
-            Set<FileWatcherOperation> operationsSet = entry.getValue();
-            Predicate<FileWatcherOperation> predicate = it -> Objects.equals(id, it.getId());
-
-            if (operationsSet.removeIf(predicate)) {
-                dir = isDirectory(path) ? path : path.getParent();
-            }
-
-            if (operationsSet.isEmpty()) {
-                operations.remove(path);
-            }
+        Path path = paths.remove(id);
+        if (path == null) {
+            return null;
         }
 
-        return dir;
+        operations.computeIfPresent(path, (key, operationsSet) -> {
+            operationsSet.removeIf(it -> it.getId() == id);
+            return operationsSet.isEmpty() ? null : operationsSet;
+        });
+
+        return isDirectory(path) ? path : path.getParent();
     }
 
     /**
@@ -0,0 +1,34 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2017 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.vfs.watcher;
+
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+
+/**
+ * Path matcher that tells which directories may contain matched items. Only
+ * such directories, their ancestors, root and project folders are watched by
+ * {@link FileWatcherByPathMatcher}, any other directory is watched for plain
+ * {@link PathMatcher}s. Matched items that appear in a new directory created
+ * in a directory that isn't watched are not noticed.
+ *
+ * @see FileWatcherManager#registerByMatcher(PathMatcher, java.util.function.Consumer,
+ * java.util.function.Consumer, java.util.function.Consumer)
+ */
+public interface FileWatcherPathMatcher extends PathMatcher {
+    /**
+     * Tests whether entries of directory may be matched by this matcher.
+     *
+     * @param dir
+     *         absolute path of directory
+     */
+    boolean mayMatchEntriesOf(Path dir);
+}
@@ -10,9 +10,6 @@
  *******************************************************************************/
 package org.eclipse.che.api.vfs.watcher;
 
-import com.google.common.util.concurrent.ThreadFactoryBuilder;
-
-import org.eclipse.che.commons.lang.concurrent.LoggingUncaughtExceptionHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -21,32 +18,16 @@ import javax.annotation.PreDestroy;
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Singleton;
-import java.io.IOException;
-import java.lang.reflect.Field;
-import java.nio.file.ClosedWatchServiceException;
 import java.nio.file.Path;
 import java.nio.file.PathMatcher;
 import java.nio.file.WatchEvent;
 import java.nio.file.WatchEvent.Kind;
-import java.nio.file.WatchEvent.Modifier;
-import java.nio.file.WatchKey;
 import java.nio.file.WatchService;
-import java.util.Map;
-import java.util.Map.Entry;
+import java.util.List;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.function.Predicate;
 
-import static java.lang.Thread.currentThread;
-import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
-import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
-import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
 import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
-import static java.util.concurrent.Executors.newSingleThreadExecutor;
-import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.eclipse.che.api.vfs.watcher.FileWatcherUtils.isExcluded;
 
 /**
@@ -57,35 +38,40 @@ import static org.eclipse.che.api.vfs.watcher.FileWatcherUtils.isExcluded;
  * java file system paths in counter to che virtual file system which may have
  * custom root element and structure. Transforming one we of path representation
  * into another and backwards is the responsibility of upper services.
+ * <p>
+ * Directories are watched through {@link WatchRegistry} shared with other
+ * file watchers, so directory watched by several services is registered in
+ * underlying filesystem only once.
  */
 @Singleton
-public class FileWatcherService {
+public class FileWatcherService implements WatchRegistry.Subscriber {
     private static final Logger LOG = LoggerFactory.getLogger(FileWatcherService.class);
 
     private final AtomicBoolean suspended = new AtomicBoolean(true);
     private final AtomicBoolean running   = new AtomicBoolean();
 
-    private final Map<WatchKey, Path> keys          = new ConcurrentHashMap<>();
-    private final Map<Path, Integer>  registrations = new ConcurrentHashMap<>();
-
     private final Set<PathMatcher>        excludes;
     private final FileWatcherEventHandler handler;
-    private final WatchService            service;
-    private final Modifier[]              eventModifiers;
-    private final Kind<?>[]               eventKinds;
-
-    private ExecutorService executor;
+    private final WatchRegistry           registry;
+    private final boolean                 ownRegistry;
 
     @Inject
     public FileWatcherService(@Named("che.user.workspaces.storage.excludes") Set<PathMatcher> excludes,
-                              FileWatcherEventHandler handler, WatchService service) {
-        this.excludes = excludes;
-        this.handler = handler;
-        this.service = service;
+                              FileWatcherEventHandler handler, WatchRegistry registry) {
+        this(excludes, handler, registry, false);
+    }
 
-        this.eventModifiers = getWatchEventModifiers();
-        this.eventKinds = getWatchEventKinds();
+    /** Creates service that watches directories with own registry based on specified watch service. */
+    public FileWatcherService(Set<PathMatcher> excludes, FileWatcherEventHandler handler, WatchService service) {
+        this(excludes, handler, new WatchRegistry(service), true);
+    }
 
+    private FileWatcherService(Set<PathMatcher> excludes, FileWatcherEventHandler handler, WatchRegistry registry,
+                               boolean ownRegistry) {
+        this.excludes = excludes;
+        this.handler = handler;
+        this.registry = registry;
+        this.ownRegistry = ownRegistry;
     }
 
     @SuppressWarnings("unchecked")
@@ -93,81 +79,25 @@ public class FileWatcherService {
         return (WatchEvent<T>)event;
     }
 
-
-    @SuppressWarnings("unchecked")
-    private static <T> T cast(Object event) {
-        return (T)event;
-    }
-
-    private static Kind<?>[] getWatchEventKinds() {
-        return new Kind<?>[]{ENTRY_DELETE, ENTRY_MODIFY, ENTRY_CREATE};
-    }
-
-    /**
-     * This is required to speed up mac based file watcher implementations
-     *
-     * @return sensitivity watch event modifier
-     */
-    private static Modifier[] getWatchEventModifiers() {
-        String className = "com.sun.nio.file.SensitivityWatchEventModifier";
-
-        try {
-            Class<?> c = Class.forName(className);
-            Field f = c.getField("HIGH");
-            Modifier modifier = cast(f.get(c));
-            LOG.debug("Class '{}' is found in classpath setting corresponding watch modifier", className);
-
-            return new Modifier[]{modifier};
-        } catch (Exception e) {
-            LOG.debug("Class '{}' is not found in classpath, falling to default mode", className, e);
-
-            return new Modifier[]{};
-        }
-    }
-
     @PostConstruct
-    void start() throws IOException {
-        ThreadFactoryBuilder builder = new ThreadFactoryBuilder();
-        ThreadFactory factory = builder.setUncaughtExceptionHandler(LoggingUncaughtExceptionHandler.getInstance())
-                                       .setNameFormat(FileWatcherService.class.getSimpleName())
-                                       .setDaemon(true)
-                                       .build();
-        executor = newSingleThreadExecutor(factory);
-        executor.execute(this::run);
+    void start() {
+        if (ownRegistry) {
+            registry.start();
+        }
+        running.compareAndSet(false, true);
+        suspended.compareAndSet(true, false);
     }
 
     @PreDestroy
     void stop() {
         running.compareAndSet(true, false);
-
-        try {
-            LOG.debug("Cancelling watch keys");
-            keys.keySet().forEach(WatchKey::cancel);
-            LOG.debug("Closing java watch service");
-            service.close();
-        } catch (IOException e) {
-            LOG.error("Closing of java watch service failed: ", e.getMessage());
-        }
-
-        try {
-            LOG.debug("Executor task shutdown started");
-            executor.shutdown();
-            executor.awaitTermination(5, SECONDS);
-        } catch (InterruptedException e) {
-            currentThread().interrupt();
-            LOG.debug("Executor task is interrupted");
-        } finally {
-            if (!executor.isTerminated()) {
-                LOG.debug("Executor task is not shutdown yet");
-            }
-            executor.shutdownNow();
-            LOG.debug("Executor tasks have been shutdown");
-
+        if (ownRegistry) {
+            registry.stop();
         }
     }
 
-    boolean isStopped(){
-        return executor.isShutdown();
+    boolean isStopped() {
+        return !running.get();
     }
 
     /**
@@ -184,20 +114,7 @@ public class FileWatcherService {
      */
     public void register(Path dir) {
         LOG.debug("Registering directory '{}'", dir);
-        if (keys.values().contains(dir)) {
-            int previous = registrations.get(dir);
-            LOG.debug("Directory is already being watched, increasing watch counter, previous value: {}", previous);
-            registrations.put(dir, previous + 1);
-        } else {
-            try {
-                LOG.debug("Starting watching directory '{}'", dir);
-                WatchKey watchKey = dir.register(service, eventKinds, eventModifiers);
-                keys.put(watchKey, dir);
-                registrations.put(dir, 1);
-            } catch (IOException e) {
-                LOG.error("Can't register dir {} in file watch service", dir, e);
-            }
-        }
+        registry.watch(dir, this);
     }
 
     /**
@@ -211,20 +128,7 @@ public class FileWatcherService {
      */
     void unRegister(Path dir) {
         LOG.debug("Canceling directory '{}' registration", dir);
-
-        int previous = registrations.get(dir);
-        if (previous == 1) {
-            LOG.debug("Stopping watching directory '{}'", dir);
-            registrations.remove(dir);
-
-            Predicate<Entry<WatchKey, Path>> equalsDir = it -> it.getValue().equals(dir);
-
-            keys.entrySet().stream().filter(equalsDir).map(Entry::getKey).forEach(WatchKey::cancel);
-            keys.entrySet().removeIf(equalsDir);
-        } else {
-            LOG.debug("Directory is being watched by someone else, decreasing watch counter, previous value: {}", previous);
-            registrations.put(dir, previous - 1);
-        }
+        registry.unwatch(dir, this);
     }
 
     /**
@@ -248,58 +152,34 @@ public class FileWatcherService {
         }
     }
 
-    private void run() {
-        suspended.compareAndSet(true, false);
-        running.compareAndSet(false, true);
-
-        while (running.get()) {
-            try {
-                WatchKey watchKey = service.take();
-                Path dir = keys.get(watchKey);
-
-                if (suspended.get()) {
-                    resetAndRemove(watchKey, dir);
-
-                    LOG.debug("File watchers are running in suspended mode - skipping.");
-                    continue;
-                }
-
-                for (WatchEvent<?> event : watchKey.pollEvents()) {
-                    Kind<?> kind = event.kind();
-
-                    if (kind == OVERFLOW) {
-                        LOG.warn("Detected file system events overflowing");
-                        continue;
-                    }
+    @Override
+    public void onEvents(Path dir, List<WatchEvent<?>> events) {
+        if (!running.get()) {
+            return;
+        }
+        if (suspended.get()) {
+            LOG.debug("File watchers are running in suspended mode - skipping.");
+            return;
+        }
 
-                    WatchEvent<Path> ev = cast(event);
-                    Path item = ev.context();
-                    Path path = dir.resolve(item).toAbsolutePath();
+        for (WatchEvent<?> event : events) {
+            Kind<?> kind = event.kind();
 
-                    if (isExcluded(excludes, path)) {
-                        LOG.debug("Path is within exclude list, skipping...");
-                        continue;
-                    }
+            if (kind == OVERFLOW) {
+                // overflow is reported by watch registry
+                continue;
+            }
 
-                    handler.handle(path, kind);
-                }
+            WatchEvent<Path> ev = cast(event);
+            Path item = ev.context();
+            Path path = dir.resolve(item).toAbsolutePath();
 
-                resetAndRemove(watchKey, dir);
-            } catch (InterruptedException e) {
-                running.compareAndSet(true, false);
-                LOG.debug("Interruption error when running file watcher, most likely caused by stopping it", e);
-            } catch (ClosedWatchServiceException e) {
-                running.compareAndSet(true, false);
-                LOG.debug("Closing watch service while some of keys may be processing", e);
+            if (isExcluded(excludes, path)) {
+                LOG.debug("Path is within exclude list, skipping...");
+                continue;
             }
-        }
-    }
-
-    private void resetAndRemove(WatchKey watchKey, Path dir) {
-        if (!watchKey.reset()) {
-            registrations.remove(dir);
 
-            keys.remove(watchKey);
+            handler.handle(path, kind);
         }
     }
 }
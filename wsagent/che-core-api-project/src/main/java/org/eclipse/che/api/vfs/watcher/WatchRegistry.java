@@ -0,0 +1,311 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2017 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.vfs.watcher;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import org.eclipse.che.commons.lang.concurrent.LoggingUncaughtExceptionHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchEvent.Kind;
+import java.nio.file.WatchEvent.Modifier;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.lang.Thread.currentThread;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+import static java.util.Collections.unmodifiableList;
+import static java.util.concurrent.Executors.newSingleThreadExecutor;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Single registry of directory watches shared by all file watchers of workspace agent. Each directory is registered
+ * in the underlying {@link WatchService} once regardless of number of subscribers interested in it, events of
+ * directory are polled once and passed to all its subscribers through {@link FanOut}. Subscriber may watch the same
+ * directory several times, directory is watched until each watch of each subscriber is cancelled.
+ * <p>
+ * Watches are indexed both by path and by watch key. Watch service returns the same key for the same directory
+ * reached by different paths (e.g. through symbolic link), subscribers of each path get events with the path they
+ * used for watching.
+ * <p>
+ * Subscribers get all events of directory and apply their own filtering. Events are delivered to subscribers even
+ * if directory is not valid anymore (e.g. it is removed), in this case list of events may be empty and the watch
+ * of directory is dropped for all subscribers after delivery.
+ */
+@Singleton
+public class WatchRegistry {
+    private static final Logger LOG = LoggerFactory.getLogger(WatchRegistry.class);
+
+    private static final Kind<?>[] EVENT_KINDS = {ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY};
+
+    /** Receives events of watched directory. */
+    public interface Subscriber {
+        /**
+         * Called when watch key of directory is signalled.
+         *
+         * @param dir
+         *         watched directory
+         * @param events
+         *         events of directory, paths of events are relative to directory
+         */
+        void onEvents(Path dir, List<WatchEvent<?>> events);
+    }
+
+    /** Strategy of delivering events of directory to its subscribers. */
+    public interface FanOut {
+        void dispatch(Path dir, List<WatchEvent<?>> events, Collection<Subscriber> subscribers);
+    }
+
+    /** Delivers events to subscribers one by one in the thread of registry. */
+    public static final FanOut SYNCHRONOUS_FAN_OUT = (dir, events, subscribers) -> {
+        for (Subscriber subscriber : subscribers) {
+            try {
+                subscriber.onEvents(dir, events);
+            } catch (RuntimeException e) {
+                LOG.error("Subscriber failed to handle events of directory '{}'", dir, e);
+            }
+        }
+    };
+
+    private final Map<Path, WatchKey>  keys      = new ConcurrentHashMap<>();
+    private final Map<WatchKey, Watch> watches   = new ConcurrentHashMap<>();
+    private final AtomicBoolean        running   = new AtomicBoolean();
+    private final AtomicLong           events    = new AtomicLong();
+    private final AtomicLong           overflows = new AtomicLong();
+
+    private final WatchService service;
+    private final FanOut       fanOut;
+    private final Modifier[]   eventModifiers;
+
+    private ExecutorService executor;
+
+    @Inject
+    public WatchRegistry(WatchService service) {
+        this(service, SYNCHRONOUS_FAN_OUT);
+    }
+
+    public WatchRegistry(WatchService service, FanOut fanOut) {
+        this.service = service;
+        this.fanOut = fanOut;
+        this.eventModifiers = getWatchEventModifiers();
+    }
+
+    /**
+     * This is required to speed up mac based file watcher implementations
+     *
+     * @return sensitivity watch event modifier
+     */
+    private static Modifier[] getWatchEventModifiers() {
+        String className = "com.sun.nio.file.SensitivityWatchEventModifier";
+
+        try {
+            Class<?> c = Class.forName(className);
+            Field f = c.getField("HIGH");
+            Modifier modifier = (Modifier)f.get(c);
+            LOG.debug("Class '{}' is found in classpath setting corresponding watch modifier", className);
+
+            return new Modifier[]{modifier};
+        } catch (Exception e) {
+            LOG.debug("Class '{}' is not found in classpath, falling to default mode", className, e);
+
+            return new Modifier[]{};
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        if (running.compareAndSet(false, true)) {
+            executor = newSingleThreadExecutor(new ThreadFactoryBuilder().setUncaughtExceptionHandler(LoggingUncaughtExceptionHandler.getInstance())
+                                                                         .setNameFormat(WatchRegistry.class.getSimpleName())
+                                                                         .setDaemon(true)
+                                                                         .build());
+            executor.execute(this::run);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (!running.compareAndSet(true, false)) {
+            return;
+        }
+        try {
+            LOG.debug("Cancelling watch keys");
+            watches.keySet().forEach(WatchKey::cancel);
+            watches.clear();
+            keys.clear();
+            LOG.debug("Closing java watch service");
+            service.close();
+        } catch (IOException e) {
+            LOG.error("Closing of java watch service failed: {}", e.getMessage());
+        }
+
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(5, SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            currentThread().interrupt();
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Starts watching directory for the subscriber. Directory is registered in the underlying watch service only if
+     * it isn't watched by anyone yet.
+     *
+     * @return {@code true} if directory is watched, {@code false} if it can't be registered in watch service
+     */
+    public synchronized boolean watch(Path dir, Subscriber subscriber) {
+        WatchKey key = keys.get(dir);
+        if (key == null || !key.isValid()) {
+            // key of removed directory may be still here until its last events are dispatched
+            try {
+                LOG.debug("Starting watching directory '{}'", dir);
+                key = dir.register(service, EVENT_KINDS, eventModifiers);
+            } catch (IOException e) {
+                LOG.error("Can't register dir {} in file watch service", dir, e);
+                return false;
+            }
+            keys.put(dir, key);
+        }
+        watches.computeIfAbsent(key, it -> new Watch())
+               .subscriptions.computeIfAbsent(dir, it -> new ConcurrentHashMap<>())
+               .merge(subscriber, 1, Integer::sum);
+        return true;
+    }
+
+    /**
+     * Cancels one watch of directory for the subscriber. Directory is unregistered from the underlying watch service
+     * when all watches of all subscribers are cancelled.
+     */
+    public synchronized void unwatch(Path dir, Subscriber subscriber) {
+        final WatchKey key = keys.get(dir);
+        final Watch watch = key == null ? null : watches.get(key);
+        final Map<Subscriber, Integer> subscribers = watch == null ? null : watch.subscriptions.get(dir);
+        if (subscribers == null) {
+            LOG.debug("Directory '{}' is not being watched, most likely it is already removed", dir);
+            return;
+        }
+        subscribers.computeIfPresent(subscriber, (it, count) -> count == 1 ? null : count - 1);
+        if (subscribers.isEmpty()) {
+            watch.subscriptions.remove(dir);
+            keys.remove(dir);
+            if (watch.subscriptions.isEmpty()) {
+                LOG.debug("Stopping watching directory '{}'", dir);
+                watches.remove(key);
+                key.cancel();
+            }
+        }
+    }
+
+    /** Checks whether directory is watched by anyone. */
+    public boolean isWatched(Path dir) {
+        return keys.containsKey(dir);
+    }
+
+    /** Gets number of directories registered in the underlying watch service. */
+    public int getWatchCount() {
+        return watches.size();
+    }
+
+    /** Gets number of watches of all subscribers, the same directory watched by two subscribers is counted twice. */
+    public int getSubscriptionCount() {
+        int count = 0;
+        for (Watch watch : watches.values()) {
+            for (Map<Subscriber, Integer> subscribers : watch.subscriptions.values()) {
+                for (int subscriptions : subscribers.values()) {
+                    count += subscriptions;
+                }
+            }
+        }
+        return count;
+    }
+
+    /** Gets number of events received from the underlying watch service since registry is started. */
+    public long getEventCount() {
+        return events.get();
+    }
+
+    /** Gets number of overflow events, each of them means that some events are lost. */
+    public long getOverflowCount() {
+        return overflows.get();
+    }
+
+    private void run() {
+        while (running.get()) {
+            try {
+                final WatchKey watchKey = service.take();
+                final List<WatchEvent<?>> keyEvents = unmodifiableList(watchKey.pollEvents());
+                events.addAndGet(keyEvents.size());
+                for (WatchEvent<?> event : keyEvents) {
+                    if (event.kind() == OVERFLOW) {
+                        overflows.incrementAndGet();
+                        LOG.warn("Detected file system events overflowing in directory '{}'", watchKey.watchable());
+                    }
+                }
+
+                final Watch watch = watches.get(watchKey);
+                if (watch == null) {
+                    // watch is cancelled while its events were queued
+                    continue;
+                }
+                for (Map.Entry<Path, Map<Subscriber, Integer>> subscription : watch.subscriptions.entrySet()) {
+                    fanOut.dispatch(subscription.getKey(), keyEvents, subscription.getValue().keySet());
+                }
+
+                if (!watchKey.reset()) {
+                    dropInvalid(watchKey);
+                }
+            } catch (InterruptedException e) {
+                running.compareAndSet(true, false);
+                LOG.debug("Interruption error when running watch registry, most likely caused by stopping it", e);
+            } catch (ClosedWatchServiceException e) {
+                running.compareAndSet(true, false);
+                LOG.debug("Closing watch service while some of keys may be processing", e);
+            }
+        }
+    }
+
+    private synchronized void dropInvalid(WatchKey watchKey) {
+        final Watch watch = watches.remove(watchKey);
+        if (watch != null) {
+            for (Path dir : watch.subscriptions.keySet()) {
+                keys.remove(dir, watchKey);
+            }
+        }
+    }
+
+    private static class Watch {
+        /** Number of watches of each subscriber by path of watched directory. */
+        final Map<Path, Map<Subscriber, Integer>> subscriptions = new ConcurrentHashMap<>();
+    }
+}
@@ -0,0 +1,96 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2017 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.project.server;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+
+import static com.google.common.collect.Sets.newHashSet;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link PathTrie}
+ */
+public class PathTrieTest {
+    private final PathTrie<String> trie = new PathTrie<>();
+
+    @Test
+    public void getsValueStoredOnPath() throws Exception {
+        trie.put("/a/b", "ab");
+
+        assertEquals("ab", trie.get("/a/b"));
+        assertEquals("ab", trie.get("/a/b/"));
+        assertNull(trie.get("/a"));
+        assertNull(trie.get("/a/b/c"));
+    }
+
+    @Test
+    public void getsNearestValueOnOrAbovePath() throws Exception {
+        trie.put("/a", "a");
+        trie.put("/a/b/c", "abc");
+
+        assertEquals("a", trie.getNearest("/a"));
+        assertEquals("a", trie.getNearest("/a/b"));
+        assertEquals("abc", trie.getNearest("/a/b/c/d/e"));
+        assertNull(trie.getNearest("/ab"));
+        assertNull(trie.getNearest("/"));
+    }
+
+    @Test
+    public void getsValuesUnderPathOnly() throws Exception {
+        trie.put("/a", "a");
+        trie.put("/a/b", "ab");
+        trie.put("/a/b/c", "abc");
+        trie.put("/ab", "ab2");
+
+        assertEquals(newHashSet("ab", "abc"), new HashSet<>(trie.getDescendants("/a")));
+        assertTrue(trie.getDescendants("/x").isEmpty());
+        assertEquals(newHashSet("a", "ab", "abc", "ab2"), new HashSet<>(trie.getAll()));
+    }
+
+    @Test
+    public void doesNotReplaceValueWhenPutIfAbsent() throws Exception {
+        trie.put("/a", "a");
+
+        assertFalse(trie.putIfAbsent("/a", "a2"));
+        assertTrue(trie.putIfAbsent("/b", "b"));
+        assertEquals("a", trie.get("/a"));
+        assertEquals("b", trie.get("/b"));
+    }
+
+    @Test
+    public void removesValueAndKeepsValuesUnderPath() throws Exception {
+        trie.put("/a", "a");
+        trie.put("/a/b", "ab");
+
+        assertEquals("a", trie.remove("/a"));
+        assertNull(trie.remove("/a"));
+
+        assertNull(trie.get("/a"));
+        assertEquals("ab", trie.get("/a/b"));
+    }
+
+    @Test
+    public void removesValuesOnAndUnderPath() throws Exception {
+        trie.put("/a", "a");
+        trie.put("/a/b/c", "abc");
+        trie.put("/ab", "ab");
+
+        assertEquals(newHashSet("a", "abc"), new HashSet<>(trie.removeTree("/a")));
+
+        assertNull(trie.getNearest("/a/b/c"));
+        assertEquals(newHashSet("ab"), new HashSet<>(trie.getAll()));
+    }
+}
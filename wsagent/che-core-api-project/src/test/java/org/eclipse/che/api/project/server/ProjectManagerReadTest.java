@@ -190,6 +190,21 @@ public class ProjectManagerReadTest extends WsAgentTestBase {
 
     }
 
+    @Test
+    public void testProjectFromFolderCreatedAfterInit() throws Exception {
+        new File(root, "/newFolder/src").mkdirs();
+
+        assertEquals("/newFolder", projectRegistry.getParentProject("/newFolder/src").getPath());
+        assertEquals("/newFolder", projectRegistry.getProject("/newFolder").getPath());
+        assertNull(projectRegistry.getProject("/notExisted"));
+
+        new File(root, "/otherFolder").mkdir();
+        projectRegistry.onRootFoldersChanged();
+
+        assertEquals(6, projectRegistry.getProjects().size());
+        assertEquals(11, projectRegistry.getProject("/otherFolder").getProblems().get(0).code);
+    }
+
     @Test
     public void testSerializeProject() throws Exception {
         ProjectConfig config = DtoConverter.asDto(pm.getProject("/fromConfig"));
@@ -45,9 +45,11 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CyclicBarrier;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
@@ -133,6 +135,44 @@ public class ProjectManagerWriteTest extends WsAgentTestBase {
         checkChildrenFor(projectFolder2, children2);
     }
 
+    @Test
+    public void testCreateBatchProjectsImportsSourceCodeOfIndependentProjectsInParallel() throws Exception {
+        final String projectPath1 = "/testProject1";
+        final String projectPath2 = "/testProject2";
+        final String innerProjectPath = "/testProject2/innerProject";
+        final String importType1 = "importType1";
+        final String importType2 = "importType2";
+        final String innerImportType = "innerImportType";
+
+        // both importers wait for each other, so projects are created only if sources are imported at the same time
+        final CyclicBarrier barrier = new CyclicBarrier(2);
+        final List<String> children1 = new ArrayList<>(Arrays.asList("folder1/", "folder1/file1.txt"));
+        registerImporter(importType1, prepareZipArchiveBasedOn(children1), barrier);
+        final List<String> children2 = new ArrayList<>(Arrays.asList("folder2/", "folder2/file2.txt"));
+        registerImporter(importType2, prepareZipArchiveBasedOn(children2), barrier);
+        final List<String> innerChildren = new ArrayList<>(Arrays.asList("folder3/", "folder3/file3.txt"));
+        registerImporter(innerImportType, prepareZipArchiveBasedOn(innerChildren));
+
+        final SourceStorageDto source1 = DtoFactory.newDto(SourceStorageDto.class).withLocation("someLocation").withType(importType1);
+        final SourceStorageDto source2 = DtoFactory.newDto(SourceStorageDto.class).withLocation("someLocation").withType(importType2);
+        final SourceStorageDto innerSource =
+                DtoFactory.newDto(SourceStorageDto.class).withLocation("someLocation").withType(innerImportType);
+
+        final List<NewProjectConfig> configs = new ArrayList<>(3);
+        configs.add(createProjectConfigObject("innerProject", innerProjectPath, BaseProjectType.ID, innerSource));
+        configs.add(createProjectConfigObject("testProject1", projectPath1, BaseProjectType.ID, source1));
+        configs.add(createProjectConfigObject("testProject2", projectPath2, BaseProjectType.ID, source2));
+
+        pm.createBatchProjects(configs, false, new ProjectOutputLineConsumerFactory("ws", 300));
+
+        checkProjectExist(projectPath1);
+        checkChildrenFor(projectRegistry.getProject(projectPath1).getBaseFolder(), children1);
+        checkProjectExist(projectPath2);
+        checkChildrenFor(projectRegistry.getProject(projectPath2).getBaseFolder(), children2);
+        checkProjectExist(innerProjectPath);
+        checkChildrenFor(projectRegistry.getProject(innerProjectPath).getBaseFolder(), innerChildren);
+    }
+
     @Test
     public void testCreateProjectWhenSourceCodeIsNotReachable() throws Exception {
         final String projectPath = "/testProject";
@@ -980,6 +1020,10 @@ public class ProjectManagerWriteTest extends WsAgentTestBase {
     }
 
     private void registerImporter(String importType, InputStream zip) throws Exception {
+        registerImporter(importType, zip, null);
+    }
+
+    private void registerImporter(String importType, InputStream zip, CyclicBarrier barrier) throws Exception {
         final ValueHolder<FolderEntry> folderHolder = new ValueHolder<>();
         importerRegistry.register(new ProjectImporter() {
             @Override
@@ -1010,6 +1054,13 @@ public class ProjectManagerWriteTest extends WsAgentTestBase {
                                       LineConsumerFactory importOutputConsumerFactory) throws ConflictException,
                                                                                               ServerException,
                                                                                               ForbiddenException {
+                if (barrier != null) {
+                    try {
+                        barrier.await(10, SECONDS);
+                    } catch (Exception e) {
+                        throw new ServerException("Sources are not imported in parallel");
+                    }
+                }
                 // Don't really use location in this test.
                 baseFolder.getVirtualFile().unzip(zip, true, 0);
                 folderHolder.set(baseFolder);
@@ -81,6 +81,7 @@ import org.testng.annotations.Listeners;
 import org.testng.annotations.Test;
 
 import javax.ws.rs.core.Application;
+import javax.ws.rs.core.HttpHeaders;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
@@ -127,6 +128,7 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertEqualsNoOrder;
+import static org.testng.Assert.assertNotEquals;
 import static org.testng.Assert.assertNotNull;
 
 /**
@@ -1604,11 +1606,12 @@ public class ProjectServiceTest {
         a.createFolder("b/c");
         a.createFolder("x/y");
         a.createFile("test.txt", "test".getBytes(Charset.defaultCharset()));
+        ByteArrayContainerResponseWriter writer = new ByteArrayContainerResponseWriter();
         ContainerResponse response = launcher.service(GET,
                                                       "http://localhost:8080/api/project/tree/my_project/a",
-                                                      "http://localhost:8080/api", null, null, null);
+                                                      "http://localhost:8080/api", null, null, writer, null);
         assertEquals(response.getStatus(), 200, "Error: " + response.getEntity());
-        TreeElement tree = (TreeElement)response.getEntity();
+        TreeElement tree = DtoFactory.getInstance().createDtoFromJson(new String(writer.getBody()), TreeElement.class);
         ItemReference a_node = tree.getNode();
         assertEquals(a_node.getName(), "a");
         validateFolderLinks(a_node);
@@ -1633,11 +1636,12 @@ public class ProjectServiceTest {
         a.createFolder("b/c");
         a.createFolder("x/y");
         a.createFile("test.txt", "test".getBytes(Charset.defaultCharset()));
+        ByteArrayContainerResponseWriter writer = new ByteArrayContainerResponseWriter();
         ContainerResponse response = launcher.service(GET,
                                                       "http://localhost:8080/api/project/tree/my_project/a?depth=2",
-                                                      "http://localhost:8080/api", null, null, null);
+                                                      "http://localhost:8080/api", null, null, writer, null);
         assertEquals(response.getStatus(), 200, "Error: " + response.getEntity());
-        TreeElement tree = (TreeElement)response.getEntity();
+        TreeElement tree = DtoFactory.getInstance().createDtoFromJson(new String(writer.getBody()), TreeElement.class);
         ItemReference a_node = tree.getNode();
         assertEquals(a_node.getName(), "a");
         List<TreeElement> children = tree.getChildren();
@@ -1666,11 +1670,12 @@ public class ProjectServiceTest {
         FolderEntry a = myProject.getBaseFolder().createFolder("a");
         a.createFolder("b/c");
         a.createFolder("x").createFile("test.txt", "test".getBytes(Charset.defaultCharset()));
+        ByteArrayContainerResponseWriter writer = new ByteArrayContainerResponseWriter();
         ContainerResponse response = launcher.service(GET,
                                                       "http://localhost:8080/api/project/tree/my_project/a?depth=100&includeFiles=true",
-                                                      "http://localhost:8080/api", null, null, null);
+                                                      "http://localhost:8080/api", null, null, writer, null);
         assertEquals(response.getStatus(), 200, "Error: " + response.getEntity());
-        TreeElement tree = (TreeElement)response.getEntity();
+        TreeElement tree = DtoFactory.getInstance().createDtoFromJson(new String(writer.getBody()), TreeElement.class);
         ItemReference a_node = tree.getNode();
         assertEquals(a_node.getName(), "a");
         List<TreeElement> children = tree.getChildren();
@@ -1703,11 +1708,12 @@ public class ProjectServiceTest {
         FolderEntry a = myProject.getBaseFolder().createFolder("a");
         a.createFolder("b/c");
         a.createFolder("x");
+        ByteArrayContainerResponseWriter writer = new ByteArrayContainerResponseWriter();
         ContainerResponse response = launcher.service(GET,
                                                       "http://localhost:8080/api/project/tree/my_project/a?depth=100&includeFiles=true",
-                                                      "http://localhost:8080/api", null, null, null);
+                                                      "http://localhost:8080/api", null, null, writer, null);
         assertEquals(response.getStatus(), 200, "Error: " + response.getEntity());
-        TreeElement tree = (TreeElement)response.getEntity();
+        TreeElement tree = DtoFactory.getInstance().createDtoFromJson(new String(writer.getBody()), TreeElement.class);
         ItemReference a_node = tree.getNode();
         assertEquals(a_node.getName(), "a");
         List<TreeElement> children = tree.getChildren();
@@ -1730,6 +1736,51 @@ public class ProjectServiceTest {
         Assert.assertFalse(names.contains("x/test.txt"));
     }
 
+    @Test
+    public void testGetTreeReturnsNotModifiedWhenTagMatches() throws Exception {
+        RegisteredProject myProject = pm.getProject("my_project");
+        FolderEntry a = myProject.getBaseFolder().createFolder("a");
+        a.createFolder("b/c");
+        a.createFile("test.txt", "test".getBytes(Charset.defaultCharset()));
+        ContainerResponse response = launcher.service(GET,
+                                                      "http://localhost:8080/api/project/tree/my_project/a?depth=100&includeFiles=true",
+                                                      "http://localhost:8080/api", null, null, new ByteArrayContainerResponseWriter(),
+                                                      null);
+        assertEquals(response.getStatus(), 200, "Error: " + response.getEntity());
+        String tag = response.getHttpHeaders().getFirst(HttpHeaders.ETAG).toString();
+
+        Map<String, List<String>> headers = new HashMap<>();
+        headers.put(HttpHeaders.IF_NONE_MATCH, singletonList(tag));
+        response = launcher.service(GET,
+                                    "http://localhost:8080/api/project/tree/my_project/a?depth=100&includeFiles=true",
+                                    "http://localhost:8080/api", headers, null, new ByteArrayContainerResponseWriter(), null);
+        assertEquals(response.getStatus(), 304);
+    }
+
+    @Test
+    public void testGetTreeChangesTagWhenTreeIsModified() throws Exception {
+        RegisteredProject myProject = pm.getProject("my_project");
+        FolderEntry a = myProject.getBaseFolder().createFolder("a");
+        FolderEntry b = a.createFolder("b");
+        ContainerResponse response = launcher.service(GET,
+                                                      "http://localhost:8080/api/project/tree/my_project/a?depth=2&includeFiles=true",
+                                                      "http://localhost:8080/api", null, null, new ByteArrayContainerResponseWriter(),
+                                                      null);
+        String tag = response.getHttpHeaders().getFirst(HttpHeaders.ETAG).toString();
+        b.createFile("test.txt", "test".getBytes(Charset.defaultCharset()));
+
+        Map<String, List<String>> headers = new HashMap<>();
+        headers.put(HttpHeaders.IF_NONE_MATCH, singletonList(tag));
+        ByteArrayContainerResponseWriter writer = new ByteArrayContainerResponseWriter();
+        response = launcher.service(GET,
+                                    "http://localhost:8080/api/project/tree/my_project/a?depth=2&includeFiles=true",
+                                    "http://localhost:8080/api", headers, null, writer, null);
+        assertEquals(response.getStatus(), 200, "Error: " + response.getEntity());
+        assertNotEquals(response.getHttpHeaders().getFirst(HttpHeaders.ETAG).toString(), tag);
+        TreeElement tree = DtoFactory.getInstance().createDtoFromJson(new String(writer.getBody()), TreeElement.class);
+        assertEquals(tree.getChildren().get(0).getChildren().get(0).getNode().getName(), "test.txt");
+    }
+
 
     @SuppressWarnings("unchecked")
     @Test
@@ -0,0 +1,91 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2017 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.project.server;
+
+import org.eclipse.che.api.core.ServerException;
+import org.eclipse.che.api.project.shared.dto.TreeElement;
+import org.eclipse.che.api.vfs.Path;
+import org.eclipse.che.dto.server.DtoFactory;
+import org.mockito.testng.MockitoTestNGListener;
+import org.testng.annotations.Listeners;
+import org.testng.annotations.Test;
+
+import java.io.StringWriter;
+
+import static java.util.Arrays.asList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+@Listeners(value = {MockitoTestNGListener.class})
+public class ProjectTreeWriterTest {
+
+    @Test
+    public void writesTreeWhileListingFolders() throws Exception {
+        FolderEntry b = folder("/a/b");
+        FolderEntry c = folder("/a/c");
+        FolderEntry a = folder("/a", b, c);
+        ProjectTreeWriter treeWriter = new ProjectTreeWriter(a, 2, false, item -> item, item -> item);
+
+        StringWriter writer = new StringWriter();
+        treeWriter.write(writer);
+
+        TreeElement tree = DtoFactory.getInstance().createDtoFromJson(writer.toString(), TreeElement.class);
+        assertEquals(tree.getNode().getPath(), "/a");
+        assertEquals(tree.getChildren().size(), 2);
+        assertEquals(tree.getChildren().get(1).getNode().getPath(), "/a/c");
+        assertTrue(tree.getChildren().get(1).getChildren().isEmpty());
+        verify(a, times(1)).getChildFolders();
+        verify(b, times(1)).getChildFolders();
+        verify(c, times(1)).getChildFolders();
+    }
+
+    @Test
+    public void changesTagWhenFolderOfTreeIsModified() throws Exception {
+        FolderEntry b = folder("/a/b");
+        FolderEntry a = folder("/a", b);
+        ProjectTreeWriter treeWriter = new ProjectTreeWriter(a, 2, false, item -> item, item -> item);
+        String tag = treeWriter.getTag();
+
+        assertEquals(treeWriter.getTag(), tag);
+        when(b.getModified()).thenReturn(1L);
+        assertNotEquals(treeWriter.getTag(), tag);
+    }
+
+    @Test
+    public void failsToComputeTagBeforeAnythingIsWrittenIfFolderCanNotBeListed() throws Exception {
+        FolderEntry b = folder("/a/b");
+        FolderEntry a = folder("/a", b);
+        when(b.getChildFolders()).thenThrow(new ServerException("unable list folder"));
+        ProjectTreeWriter treeWriter = new ProjectTreeWriter(a, 2, false, item -> item, item -> item);
+
+        try {
+            treeWriter.getTag();
+            fail("Tag is expected to fail");
+        } catch (ServerException expected) {
+            assertEquals(expected.getMessage(), "unable list folder");
+        }
+    }
+
+    private static FolderEntry folder(String path, FolderEntry... children) throws Exception {
+        FolderEntry folder = mock(FolderEntry.class);
+        when(folder.getPath()).thenReturn(Path.of(path));
+        when(folder.getName()).thenReturn(Path.of(path).getName());
+        when(folder.isFolder()).thenReturn(true);
+        when(folder.getChildFolders()).thenReturn(asList(children));
+        return folder;
+    }
+}
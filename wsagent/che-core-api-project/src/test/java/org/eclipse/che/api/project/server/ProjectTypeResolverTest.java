@@ -0,0 +1,126 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2017 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.project.server;
+
+import org.eclipse.che.api.project.server.type.ProjectTypeDef;
+import org.eclipse.che.api.project.server.type.ProjectTypeResolution;
+import org.eclipse.che.api.project.server.type.ValueProvider;
+import org.eclipse.che.api.project.server.type.ValueProviderFactory;
+import org.eclipse.che.api.project.server.type.ValueStorageException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link ProjectTypeResolver}
+ */
+public class ProjectTypeResolverTest {
+    private ExecutorService      executor;
+    private ProjectTypeResolver  resolver;
+    private FolderEntry          folder;
+    private ValueProviderFactory factory;
+    private ValueProvider        provider;
+
+    @Before
+    public void setUp() throws Exception {
+        executor = Executors.newFixedThreadPool(4);
+        resolver = new ProjectTypeResolver(executor, null);
+        folder = mock(FolderEntry.class);
+        factory = mock(ValueProviderFactory.class);
+        provider = mock(ValueProvider.class);
+        when(factory.newInstance(any())).thenReturn(provider);
+        when(provider.getValues("shared")).thenReturn(singletonList("value"));
+        when(provider.getValues("missing")).thenThrow(new ValueStorageException("Not found"));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void readsValuesOfAttributeOnceForAllTypes() throws Exception {
+        final List<ProjectTypeResolution> resolutions = resolver.resolve(folder, asList(new TestType("pt1", "shared"),
+                                                                                       new TestType("pt2", "shared"),
+                                                                                       new TestType("pt3", "shared")));
+
+        assertEquals(3, resolutions.size());
+        assertEquals("pt1", resolutions.get(0).getType());
+        assertEquals("pt2", resolutions.get(1).getType());
+        assertEquals("pt3", resolutions.get(2).getType());
+        for (ProjectTypeResolution resolution : resolutions) {
+            assertTrue(resolution.matched());
+            assertEquals(singletonList("value"), resolution.getProvidedAttributes().get("shared").getList());
+        }
+        verify(factory, times(1)).newInstance(folder);
+        verify(provider, times(1)).getValues("shared");
+    }
+
+    @Test
+    public void doesNotMatchTypeWhenRequiredValueCanNotBeRead() throws Exception {
+        final List<ProjectTypeResolution> resolutions = resolver.resolve(folder, asList(new TestType("pt1", "shared"),
+                                                                                       new TestType("pt2", "missing"),
+                                                                                       new TestType("pt3", "missing")));
+
+        assertTrue(resolutions.get(0).matched());
+        assertFalse(resolutions.get(1).matched());
+        assertEquals("Not found", resolutions.get(1).getResolution());
+        assertFalse(resolutions.get(2).matched());
+        verify(provider, times(1)).getValues("missing");
+    }
+
+    @Test(timeout = 10000)
+    public void resolvesTypesOnCallingThreadWhenAllThreadsAreBusy() throws Exception {
+        final ExecutorService busyExecutor = ProjectTypeResolver.newExecutor(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        busyExecutor.execute(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException ignored) {
+            }
+        });
+        try {
+            final List<ProjectTypeResolution> resolutions =
+                    new ProjectTypeResolver(busyExecutor, null).resolve(folder, asList(new TestType("pt1", "shared"),
+                                                                                      new TestType("pt2", "shared")));
+
+            assertEquals(2, resolutions.size());
+            assertTrue(resolutions.get(0).matched());
+            assertTrue(resolutions.get(1).matched());
+        } finally {
+            release.countDown();
+            busyExecutor.shutdownNow();
+        }
+    }
+
+    private class TestType extends ProjectTypeDef {
+        TestType(String id, String attribute) {
+            super(id, id, true, false);
+            addVariableDefinition(attribute, "", true, factory);
+        }
+    }
+}
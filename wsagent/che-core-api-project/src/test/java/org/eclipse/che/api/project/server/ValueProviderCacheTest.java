@@ -0,0 +1,124 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2017 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.project.server;
+
+import org.eclipse.che.api.project.server.type.ValueProvider;
+import org.eclipse.che.api.project.server.type.ValueProviderFactory;
+import org.eclipse.che.api.vfs.Path;
+import org.eclipse.che.api.vfs.VirtualFile;
+import org.junit.Before;
+import org.junit.Test;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link ValueProviderCache}
+ */
+public class ValueProviderCacheTest {
+    private ValueProviderCache   cache;
+    private FolderEntry          folder;
+    private VirtualFile          pom;
+    private ValueProviderFactory factory;
+    private ValueProvider        provider;
+
+    @Before
+    public void setUp() throws Exception {
+        cache = new ValueProviderCache();
+
+        VirtualFile projectFolder = mock(VirtualFile.class);
+        folder = mock(FolderEntry.class);
+        when(folder.getVirtualFile()).thenReturn(projectFolder);
+        when(folder.getPath()).thenReturn(Path.of("/project"));
+
+        pom = mock(VirtualFile.class);
+        when(pom.isFile()).thenReturn(true);
+        when(pom.getLastModificationDate()).thenReturn(1000L);
+        when(pom.getLength()).thenReturn(100L);
+        when(projectFolder.getChild(Path.of("pom.xml"))).thenReturn(pom);
+
+        factory = mock(ValueProviderFactory.class);
+        when(factory.getDependencies()).thenReturn(singletonList("pom.xml"));
+        provider = mock(ValueProvider.class);
+        when(provider.getValues("artifactId")).thenReturn(singletonList("my-app"));
+    }
+
+    @Test
+    public void readsValuesFromProviderOnceWhileDependencyIsNotModified() throws Exception {
+        assertEquals(singletonList("my-app"), cache.getValues(folder, factory, provider, "artifactId"));
+        assertEquals(singletonList("my-app"), cache.getValues(folder, factory, provider, "artifactId"));
+
+        verify(provider, times(1)).getValues("artifactId");
+    }
+
+    @Test
+    public void readsValuesFromProviderAgainWhenDependencyIsModified() throws Exception {
+        cache.getValues(folder, factory, provider, "artifactId");
+        when(pom.getLastModificationDate()).thenReturn(2000L);
+
+        cache.getValues(folder, factory, provider, "artifactId");
+
+        verify(provider, times(2)).getValues("artifactId");
+    }
+
+    @Test
+    public void doesNotCacheValuesReadRightAfterModificationOfDependency() throws Exception {
+        when(pom.getLastModificationDate()).thenReturn(System.currentTimeMillis());
+
+        cache.getValues(folder, factory, provider, "artifactId");
+        cache.getValues(folder, factory, provider, "artifactId");
+
+        verify(provider, times(2)).getValues("artifactId");
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void doesNotCacheValuesWhenDependencyDoesNotExist() throws Exception {
+        when(folder.getVirtualFile().getChild(Path.of("pom.xml"))).thenReturn(null);
+
+        cache.getValues(folder, factory, provider, "artifactId");
+        cache.getValues(folder, factory, provider, "artifactId");
+
+        verify(provider, times(2)).getValues("artifactId");
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void doesNotCacheValuesOfFactoryWithoutDependencies() throws Exception {
+        when(factory.getDependencies()).thenReturn(emptyList());
+
+        cache.getValues(folder, factory, provider, "artifactId");
+        cache.getValues(folder, factory, provider, "artifactId");
+
+        verify(provider, times(2)).getValues("artifactId");
+    }
+
+    @Test
+    public void evictsValuesOfProjectWhenDependencyIsChanged() throws Exception {
+        cache.getValues(folder, factory, provider, "artifactId");
+
+        assertTrue(cache.isDependency(Path.of("/project/pom.xml")));
+        assertFalse(cache.isDependency(Path.of("/project/src/Main.java")));
+        assertFalse(cache.isDependency(Path.of("/project/module/pom.xml")));
+        assertFalse(cache.isDependency(Path.of("/other/pom.xml")));
+        cache.invalidate(Path.of("/other/pom.xml"));
+        assertEquals(1, cache.size());
+        cache.invalidate(Path.of("/project/pom.xml"));
+        assertEquals(0, cache.size());
+    }
+}
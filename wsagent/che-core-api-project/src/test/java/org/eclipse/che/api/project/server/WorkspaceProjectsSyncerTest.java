@@ -0,0 +1,151 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2017 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.project.server;
+
+import org.eclipse.che.api.core.ServerException;
+import org.eclipse.che.api.core.model.project.ProjectConfig;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static java.util.stream.Collectors.toList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link WorkspaceProjectsSyncer}
+ */
+public class WorkspaceProjectsSyncerTest {
+    private RecordingSyncer syncer;
+    private ProjectRegistry projectRegistry;
+
+    @Before
+    public void setUp() throws Exception {
+        syncer = new RecordingSyncer(asList(project("/a", true), project("/b", true)));
+        projectRegistry = mock(ProjectRegistry.class);
+    }
+
+    @Test
+    public void sendsOnlyChangedAndRemovedProjectsInSingleCall() throws Exception {
+        final RegisteredProject a = project("/a", true);
+        final RegisteredProject c = project("/c", false);
+        when(projectRegistry.getProject("/a")).thenReturn(a);
+        when(projectRegistry.getProjects()).thenReturn(asList(a, c));
+
+        syncer.sync(projectRegistry);
+
+        assertEquals(1, syncer.calls);
+        assertEquals(singletonList("/c"), paths(syncer.added));
+        assertTrue(syncer.updated.isEmpty());
+        assertEquals(singletonList("/b"), paths(syncer.removed));
+        verify(c).setSync();
+    }
+
+    @Test
+    public void doesNotCallMasterWhenNothingChanged() throws Exception {
+        final RegisteredProject a = project("/a", true);
+        final RegisteredProject b = project("/b", true);
+        when(projectRegistry.getProject("/a")).thenReturn(a);
+        when(projectRegistry.getProject("/b")).thenReturn(b);
+        when(projectRegistry.getProjects()).thenReturn(asList(a, b));
+
+        syncer.sync(projectRegistry);
+
+        assertEquals(0, syncer.calls);
+    }
+
+    @Test
+    public void takesProjectsChangedByOtherClientsIntoAccount() throws Exception {
+        final RegisteredProject a = project("/a", true);
+        final RegisteredProject c = project("/c", false);
+        when(projectRegistry.getProject("/a")).thenReturn(a);
+        when(projectRegistry.getProject("/c")).thenReturn(c);
+        when(projectRegistry.getProjects()).thenReturn(asList(a, c));
+        syncer.sync(projectRegistry);
+
+        // project is removed from Workspace Config by other client and then changed on Agent
+        syncer.projects = singletonList(project("/a", true));
+        syncer.sync(projectRegistry);
+
+        assertEquals(2, syncer.fetches);
+        assertEquals(2, syncer.calls);
+        assertEquals(singletonList("/c"), paths(syncer.added));
+        assertTrue(syncer.updated.isEmpty());
+        assertTrue(syncer.removed.isEmpty());
+    }
+
+    private static RegisteredProject project(String path, boolean synced) {
+        final RegisteredProject project = mock(RegisteredProject.class);
+        when(project.getPath()).thenReturn(path);
+        when(project.isSynced()).thenReturn(synced);
+        return project;
+    }
+
+    private static List<String> paths(List<ProjectConfig> projects) {
+        return projects.stream().map(ProjectConfig::getPath).sorted().collect(toList());
+    }
+
+    private static class RecordingSyncer extends WorkspaceProjectsSyncer {
+        List<? extends ProjectConfig> projects;
+        int                           fetches;
+        int                           calls;
+        List<ProjectConfig>           added   = new ArrayList<>();
+        List<ProjectConfig>           updated = new ArrayList<>();
+        List<ProjectConfig>           removed = new ArrayList<>();
+
+        RecordingSyncer(List<? extends ProjectConfig> projects) {
+            this.projects = projects;
+        }
+
+        @Override
+        protected void applyChanges(List<ProjectConfig> added,
+                                    List<ProjectConfig> updated,
+                                    List<ProjectConfig> removed) throws ServerException {
+            calls++;
+            this.added = added;
+            this.updated = updated;
+            this.removed = removed;
+        }
+
+        @Override
+        public List<? extends ProjectConfig> getProjects() throws ServerException {
+            fetches++;
+            return projects;
+        }
+
+        @Override
+        public String getWorkspaceId() {
+            return "ws";
+        }
+
+        @Override
+        protected void addProject(ProjectConfig project) throws ServerException {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        protected void updateProject(ProjectConfig project) throws ServerException {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        protected void removeProject(ProjectConfig project) throws ServerException {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -15,6 +15,7 @@ import org.mockito.ArgumentCaptor;
 import org.testng.annotations.Test;
 
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.verify;
 import static org.testng.Assert.assertEquals;
 
@@ -37,4 +38,56 @@ public class ProjectImportOutputWSLineConsumerTest {
         assertEquals(argumentCaptor.getValue().getChannel(), "importProject:output");
         assertEquals(argumentCaptor.getValue().getBody(), "{\"num\":1,\"line\":\"message\",\"project\":\"project\"}");
     }
+
+    @Test
+    public void shouldSendAllLinesWrittenWithinDelayInOneMessage() throws Exception {
+        //given
+        ArgumentCaptor<ChannelBroadcastMessage> argumentCaptor = ArgumentCaptor.forClass(ChannelBroadcastMessage.class);
+        ProjectImportOutputWSLineConsumer consumer = spy(new ProjectImportOutputWSLineConsumer("project", "workspace", 10_000));
+
+        //when
+        consumer.writeLine("first");
+        consumer.writeLine("second");
+        consumer.sendPendingLines();
+
+        //then
+        verify(consumer).sendMessageToWS(argumentCaptor.capture());
+        assertEquals(argumentCaptor.getValue().getBody(),
+                     "{\"num\":2,\"line\":\"second\",\"lines\":[\"first\",\"second\"],\"project\":\"project\"}");
+    }
+
+    @Test
+    public void shouldSkipLinesOverLimitExceptLastOneAndReportNumberOfSkippedLines() throws Exception {
+        //given
+        ArgumentCaptor<ChannelBroadcastMessage> argumentCaptor = ArgumentCaptor.forClass(ChannelBroadcastMessage.class);
+        ProjectImportOutputWSLineConsumer consumer = spy(new ProjectImportOutputWSLineConsumer("project", "workspace", 10_000, 10));
+
+        //when
+        consumer.writeLine("12345");
+        consumer.writeLine("67890");
+        consumer.writeLine("skipped1");
+        consumer.writeLine("skipped2");
+        consumer.writeLine("last");
+        consumer.sendPendingLines();
+
+        //then
+        verify(consumer).sendMessageToWS(argumentCaptor.capture());
+        assertEquals(argumentCaptor.getValue().getBody(),
+                     "{\"num\":5,\"line\":\"last\",\"lines\":[\"12345\",\"67890\",\"last\"],\"skipped\":2,\"project\":\"project\"}");
+    }
+
+    @Test
+    public void shouldSendRestOfOutputOnClose() throws Exception {
+        //given
+        ArgumentCaptor<ChannelBroadcastMessage> argumentCaptor = ArgumentCaptor.forClass(ChannelBroadcastMessage.class);
+        ProjectImportOutputWSLineConsumer consumer = spy(new ProjectImportOutputWSLineConsumer("project", "workspace", 10_000));
+
+        //when
+        consumer.writeLine("message");
+        consumer.close();
+
+        //then
+        verify(consumer, timeout(1000)).sendMessageToWS(argumentCaptor.capture());
+        assertEquals(argumentCaptor.getValue().getBody(), "{\"num\":1,\"line\":\"message\",\"project\":\"project\"}");
+    }
 }
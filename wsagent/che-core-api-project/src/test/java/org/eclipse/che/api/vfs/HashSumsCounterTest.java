@@ -18,8 +18,11 @@ import org.junit.Test;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 
-import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import static com.google.common.collect.Lists.newArrayList;
 import static com.google.common.collect.Sets.newHashSet;
@@ -27,6 +30,8 @@ import static org.junit.Assert.assertEquals;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class HashSumsCounterTest {
@@ -54,7 +59,10 @@ public class HashSumsCounterTest {
         when(file.isFile()).thenReturn(true);
         when(file.getPath()).thenReturn(Path.of(path));
         when(file.toString()).thenReturn(path);
-        when(file.getContent()).thenReturn(new ByteArrayInputStream(content));
+        FileContent fileContent = mock(FileContent.class);
+        when(fileContent.read(any())).thenAnswer(
+                invocation -> ((FileContent.BufferReader)invocation.getArguments()[0]).read(ByteBuffer.wrap(content).asReadOnlyBuffer()));
+        when(file.openContent()).thenReturn(fileContent);
         accept(file);
         return file;
     }
@@ -78,4 +86,82 @@ public class HashSumsCounterTest {
             }
         }).when(virtualFile).accept(any(VirtualFileVisitor.class));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void countsHashSumOfContentBiggerThanHashBuffer() throws Exception {
+        byte[] content = new byte[100_000];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte)i;
+        }
+        VirtualFile file = mockFile("/a/file", content);
+        VirtualFile folder = mockFolder("/a", file);
+
+        assertEquals(newArrayList(Pair.of(countMd5Sum(content), "file")), new HashSumsCounter(folder, Hashing.md5()).countHashSums());
+    }
+
+    @Test
+    public void countsHashSumsInExecutorInOrderOfTraversal() throws Exception {
+        List<VirtualFile> files = newArrayList();
+        List<Pair<String, String>> expected = newArrayList();
+        for (int i = 0; i < 100; i++) {
+            byte[] content = ("file" + i).getBytes();
+            files.add(mockFile("/a/file" + i, content));
+            expected.add(Pair.of(countMd5Sum(content), "file" + i));
+        }
+        VirtualFile folder = mockFolder("/a", files.toArray(new VirtualFile[files.size()]));
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            assertEquals(expected, new HashSumsCounter(folder, Hashing.md5(), executor, null).countHashSums());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void doesNotReadContentOfFileWhenHashSumIsCached() throws Exception {
+        VirtualFile file = mockFile("/a/file", "file1".getBytes());
+        when(file.getLength()).thenReturn(5L);
+        when(file.getLastModificationDate()).thenReturn(1000L);
+        VirtualFile folder = mockFolder("/a", file);
+        HashSumsCache cache = new HashSumsCache(10);
+        List<Pair<String, String>> expected = newArrayList(Pair.of(countMd5Sum("file1".getBytes()), "file"));
+
+        assertEquals(expected, new HashSumsCounter(folder, Hashing.md5(), null, cache).countHashSums());
+        assertEquals(expected, new HashSumsCounter(folder, Hashing.md5(), null, cache).countHashSums());
+
+        verify(file, times(1)).openContent();
+    }
+
+    @Test
+    public void countsHashSumAgainWhenFileIsModified() throws Exception {
+        VirtualFile file = mockFile("/a/file", "file1".getBytes());
+        when(file.getLength()).thenReturn(5L);
+        when(file.getLastModificationDate()).thenReturn(1000L);
+        VirtualFile folder = mockFolder("/a", file);
+        HashSumsCache cache = new HashSumsCache(10);
+        new HashSumsCounter(folder, Hashing.md5(), null, cache).countHashSums();
+
+        VirtualFile modifiedFile = mockFile("/a/file", "file2".getBytes());
+        when(modifiedFile.getLength()).thenReturn(5L);
+        when(modifiedFile.getLastModificationDate()).thenReturn(2000L);
+        VirtualFile modifiedFolder = mockFolder("/a", modifiedFile);
+
+        assertEquals(newArrayList(Pair.of(countMd5Sum("file2".getBytes()), "file")),
+                     new HashSumsCounter(modifiedFolder, Hashing.md5(), null, cache).countHashSums());
+    }
+
+    @Test
+    public void doesNotCacheHashSumOfRecentlyModifiedFile() throws Exception {
+        VirtualFile file = mockFile("/a/file", "file1".getBytes());
+        when(file.getLength()).thenReturn(5L);
+        when(file.getLastModificationDate()).thenReturn(System.currentTimeMillis());
+        VirtualFile folder = mockFolder("/a", file);
+        HashSumsCache cache = new HashSumsCache(10);
+
+        new HashSumsCounter(folder, Hashing.md5(), null, cache).countHashSums();
+        new HashSumsCounter(folder, Hashing.md5(), null, cache).countHashSums();
+
+        verify(file, times(2)).openContent();
+        assertEquals(0, cache.size());
+    }
+}
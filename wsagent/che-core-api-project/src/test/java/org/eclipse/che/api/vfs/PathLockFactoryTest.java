@@ -15,6 +15,7 @@ import junit.framework.TestCase;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -236,4 +237,138 @@ public class PathLockFactoryTest extends TestCase {
         waiter.await();
         assertEquals(2, acquired.get());
     }
+
+    public void testLocksOfDisjointSubtreesDoNotBlockEachOther() throws Exception {
+        final PathLockFactory.PathLock lock = pathLockFactory.getLock(path, true).acquire();
+        final AtomicBoolean acquired = new AtomicBoolean(false);
+        Thread t = new Thread() {
+            @Override
+            public void run() {
+                PathLockFactory.PathLock siblingLock = pathLockFactory.getLock(Path.of("/a/b/d"), true).acquire(100);
+                acquired.set(true);
+                siblingLock.release();
+            }
+        };
+        t.start();
+        t.join();
+        lock.release();
+        assertTrue(acquired.get());
+        pathLockFactory.checkClean();
+    }
+
+    public void testChildLockBlocksExclusiveLockOfAncestor() throws Exception {
+        final PathLockFactory.PathLock lock = pathLockFactory.getLock(path, false).acquire();
+        final AtomicBoolean acquired = new AtomicBoolean(false);
+        Thread t = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    pathLockFactory.getLock(Path.of("/a"), true).acquire(100);
+                    acquired.set(true);
+                } catch (RuntimeException ignored) {
+                }
+            }
+        };
+        t.start();
+        t.join();
+        lock.release();
+        assertFalse(acquired.get());
+        pathLockFactory.checkClean();
+    }
+
+    public void testWaitingThreadIsWokenUpWhenLockIsReleased() throws Exception {
+        final PathLockFactory.PathLock lock = pathLockFactory.getLock(path.getParent(), true).acquire();
+        final CountDownLatch acquired = new CountDownLatch(1);
+        Thread t = new Thread() {
+            @Override
+            public void run() {
+                PathLockFactory.PathLock childLock = pathLockFactory.getLock(path, true).acquire(5000);
+                acquired.countDown();
+                childLock.release();
+            }
+        };
+        t.start();
+        assertFalse(acquired.await(100, TimeUnit.MILLISECONDS));
+        lock.release();
+        assertTrue(acquired.await(1, TimeUnit.SECONDS));
+        t.join();
+        pathLockFactory.checkClean();
+    }
+
+    public void testThreadWaitingForPathDoesNotBlockAncestorLockOfPathHolder() throws Exception {
+        final Path child = Path.of("/a/b");
+        final PathLockFactory.PathLock childLock = pathLockFactory.getLock(child, false).acquire();
+        final CountDownLatch acquired = new CountDownLatch(1);
+        Thread t = new Thread() {
+            @Override
+            public void run() {
+                PathLockFactory.PathLock exclusiveLock = pathLockFactory.getLock(child, true).acquire(5000);
+                acquired.countDown();
+                exclusiveLock.release();
+            }
+        };
+        t.start();
+        // second thread waits for exclusive lock of child
+        assertFalse(acquired.await(100, TimeUnit.MILLISECONDS));
+
+        // must not wait behind intention lock of the waiting thread
+        final PathLockFactory.PathLock parentLock = pathLockFactory.getLock(Path.of("/a"), true).acquire(1000);
+        parentLock.release();
+        childLock.release();
+
+        assertTrue(acquired.await(1, TimeUnit.SECONDS));
+        t.join();
+        pathLockFactory.checkClean();
+    }
+
+    public void testConcurrentLocksOfSubtreeExcludeEachOther() throws Throwable {
+        final Path[] paths = {Path.of("/a"), Path.of("/a/b"), Path.of("/a/b/c")};
+        final AtomicInteger writers = new AtomicInteger();
+        final AtomicInteger readers = new AtomicInteger();
+        final List<Throwable> errors = new ArrayList<>();
+        final List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            final int offset = t;
+            threads.add(new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        for (int i = 0; i < 500; i++) {
+                            final boolean exclusive = (i + offset) % 4 == 0;
+                            final PathLockFactory.PathLock lock = pathLockFactory.getLock(paths[(i + offset) % paths.length], exclusive)
+                                                                                 .acquire(10000);
+                            try {
+                                // all the paths are on the same branch, so writer excludes any other lock
+                                if (exclusive) {
+                                    assertEquals(1, writers.incrementAndGet());
+                                    assertEquals(0, readers.get());
+                                    writers.decrementAndGet();
+                                } else {
+                                    readers.incrementAndGet();
+                                    assertEquals(0, writers.get());
+                                    readers.decrementAndGet();
+                                }
+                            } finally {
+                                lock.release();
+                            }
+                        }
+                    } catch (Throwable e) {
+                        synchronized (errors) {
+                            errors.add(e);
+                        }
+                    }
+                }
+            });
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        if (!errors.isEmpty()) {
+            throw errors.get(0);
+        }
+        pathLockFactory.checkClean();
+    }
 }
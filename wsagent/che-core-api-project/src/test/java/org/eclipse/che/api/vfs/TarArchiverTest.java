@@ -118,6 +118,26 @@ public class TarArchiverTest {
         assertEquals(readArchiveEntries(new ByteArrayInputStream(archive)), entries);
     }
 
+    @Test
+    public void extractsArchiveToFolderInParallel() throws Exception {
+        ByteArrayOutputStream byteOut = new ByteArrayOutputStream();
+        TarArchiveOutputStream tarOut = new TarArchiveOutputStream(byteOut);
+        for (int i = 0; i < 100; i++) {
+            addFileEntry(tarOut, "arc/d" + (i % 10) + "/_" + i + ".txt");
+        }
+        tarOut.close();
+        byte[] archive = byteOut.toByteArray();
+        VirtualFile folder = vfsRoot.createFolder("folder");
+        new TarArchiver(folder, 4).extract(new ByteArrayInputStream(archive), false, 0);
+
+        Map<String, String> entries = getFileTreeAsList(folder).stream()
+                                                               .filter(VirtualFile::isFile)
+                                                               .collect(toMap(f -> getTarEntryName(folder, f),
+                                                                              this::readContentUnchecked));
+
+        assertEquals(readArchiveEntries(new ByteArrayInputStream(archive)), entries);
+    }
+
     @Test
     public void extractsArchiveToFolderAndSkipsRootFolderFromArchive() throws Exception {
         byte[] archive = createTestTarArchive();
@@ -32,8 +32,10 @@ import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 import java.util.zip.ZipOutputStream;
@@ -105,6 +107,68 @@ public class ZipArchiverTest {
         assertThatZipArchiveContainsAllEntries(new ByteArrayInputStream(compressedFolder.toByteArray()), entries);
     }
 
+    @Test
+    public void compressesFolderToArchiveInParallel() throws Exception {
+        VirtualFile folder = createFileTreeForArchiving();
+        StringBuilder bigContent = new StringBuilder();
+        while (bigContent.length() <= ZipArchiver.MAX_PARALLEL_ENTRY_SIZE) {
+            bigContent.append(TEST_CONTENT);
+        }
+        folder.createFolder("d").createFile("_d.txt", bigContent.toString());
+        for (int i = 0; i < 50; i++) {
+            folder.getChild(Path.of("a")).createFile("_a" + i + ".txt", TEST_CONTENT + i);
+        }
+        ByteArrayOutputStream compressedFolder = new ByteArrayOutputStream();
+        Map<String, String> entries = getFileTreeAsList(folder).stream()
+                                                               .collect(toMap(f -> getZipEntryName(folder, f),
+                                                                              this::readContentUnchecked));
+
+        new ZipArchiver(folder, 4).compress(compressedFolder);
+        assertThatZipArchiveContainsAllEntries(new ByteArrayInputStream(compressedFolder.toByteArray()), entries);
+    }
+
+    @Test
+    public void writesEntriesInOrderOfTraversalWhenCompressesInParallel() throws Exception {
+        VirtualFile folder = createFileTreeForArchiving();
+        ByteArrayOutputStream sequential = new ByteArrayOutputStream();
+        ByteArrayOutputStream parallel = new ByteArrayOutputStream();
+
+        new ZipArchiver(folder).compress(sequential);
+        new ZipArchiver(folder, 4).compress(parallel);
+
+        assertEquals(readArchiveEntryNames(new ByteArrayInputStream(sequential.toByteArray())),
+                     readArchiveEntryNames(new ByteArrayInputStream(parallel.toByteArray())));
+    }
+
+    @Test
+    public void writesArchiveWhileFolderIsTraversed() throws Exception {
+        VirtualFile folder = vfsRoot.createFolder("arc");
+        for (int i = 0; i < 100; i++) {
+            folder.createFile("_" + i + ".txt", TEST_CONTENT + i);
+        }
+        AtomicInteger visited = new AtomicInteger();
+        AtomicInteger visitedBeforeFirstWrite = new AtomicInteger(-1);
+        OutputStream output = new ByteArrayOutputStream() {
+            @Override
+            public synchronized void write(byte[] b, int off, int len) {
+                visitedBeforeFirstWrite.compareAndSet(-1, visited.get());
+                super.write(b, off, len);
+            }
+
+            @Override
+            public synchronized void write(int b) {
+                visitedBeforeFirstWrite.compareAndSet(-1, visited.get());
+                super.write(b);
+            }
+        };
+
+        new ZipArchiver(folder, 2).compress(output, f -> visited.incrementAndGet() > 0);
+
+        assertEquals(101, visited.get());
+        // the folder itself and no more than four entries per compression thread are ahead of the writer
+        assertTrue(String.valueOf(visitedBeforeFirstWrite.get()), visitedBeforeFirstWrite.get() <= 2 + 2 * 4);
+    }
+
     @Test
     public void extractsArchiveToFolder() throws Exception {
         byte[] archive = createTestZipArchive();
@@ -185,6 +249,35 @@ public class ZipArchiverTest {
         }
     }
 
+    @Test
+    public void extractsArchiveToFolderInParallel() throws Exception {
+        byte[] archive = createBigTestZipArchive();
+        VirtualFile folder = vfsRoot.createFolder("folder");
+        new ZipArchiver(folder, 1, 4).extract(new ByteArrayInputStream(archive), false, 0);
+
+        Map<String, String> entries = getFileTreeAsList(folder).stream()
+                                                               .filter(VirtualFile::isFile)
+                                                               .collect(toMap(f -> getZipEntryName(folder, f),
+                                                                              this::readContentUnchecked));
+
+        assertEquals(readArchiveEntries(new ByteArrayInputStream(archive)), entries);
+    }
+
+    @Test
+    public void failsExtractArchiveToFolderInParallelWhenItContainsLockedFile() throws Exception {
+        byte[] archive = createBigTestZipArchive();
+        VirtualFile folder = vfsRoot.createFolder("folder");
+        VirtualFile lockedFile = folder.createFolder("arc/d7").createFile("_7.txt", "xxx");
+        lockedFile.lock(0);
+
+        try {
+            new ZipArchiver(folder, 1, 4).extract(new ByteArrayInputStream(archive), true, 0);
+            thrown.expect(ForbiddenException.class);
+        } catch (ForbiddenException expected) {
+            assertEquals("xxx", lockedFile.getContentAsString());
+        }
+    }
+
     private Map<String, String> readArchiveEntries(InputStream archive) throws Exception {
         Map<String, String> entries = newHashMap();
         try (ZipInputStream zip = new ZipInputStream(archive)) {
@@ -199,13 +292,25 @@ public class ZipArchiverTest {
         return entries;
     }
 
+    private List<String> readArchiveEntryNames(InputStream archive) throws Exception {
+        List<String> names = newArrayList();
+        try (ZipInputStream zip = new ZipInputStream(archive)) {
+            ZipEntry zipEntry;
+            while ((zipEntry = zip.getNextEntry()) != null) {
+                names.add(zipEntry.getName());
+                zip.closeEntry();
+            }
+        }
+        return names;
+    }
+
     private String readContentUnchecked(VirtualFile virtualFile) {
         if (virtualFile.isFolder()) {
             return "<none>";
         }
-        try {
-            return virtualFile.getContentAsString();
-        } catch (ForbiddenException | ServerException e) {
+        try (InputStream content = virtualFile.getContent()) {
+            return new String(ByteStreams.toByteArray(content));
+        } catch (ForbiddenException | ServerException | IOException e) {
             throw new RuntimeException(e);
         }
     }
@@ -247,6 +352,23 @@ public class ZipArchiverTest {
         return byteOut.toByteArray();
     }
 
+    /** Creates archive without entries of folders, with one file bigger than limit of parallel extraction. */
+    private byte[] createBigTestZipArchive() throws IOException {
+        ByteArrayOutputStream byteOut = new ByteArrayOutputStream();
+        ZipOutputStream zipOut = new ZipOutputStream(byteOut);
+        for (int i = 0; i < 100; i++) {
+            zipOut.putNextEntry(new ZipEntry("arc/d" + (i % 10) + "/_" + i + ".txt"));
+            zipOut.write((TEST_CONTENT + i).getBytes());
+        }
+        zipOut.putNextEntry(new ZipEntry("arc/big.txt"));
+        byte[] line = (TEST_CONTENT + '\n').getBytes();
+        for (int written = 0; written <= ArchiveExtractor.MAX_PARALLEL_ENTRY_SIZE; written += line.length) {
+            zipOut.write(line);
+        }
+        zipOut.close();
+        return byteOut.toByteArray();
+    }
+
     private List<VirtualFile> getFileTreeAsList(VirtualFile rootOfTree) throws Exception {
         List<VirtualFile> list = newArrayList();
 
@@ -25,6 +25,8 @@ import static org.eclipse.che.api.project.shared.dto.event.FileWatcherEventType.
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -40,6 +42,7 @@ public class DefaultFileWatcherNotificationHandlerTest {
     private Path virtualFilePath;
     private VirtualFile virtualFile;
     private DefaultFileWatcherNotificationHandler notificationHandler;
+    private VirtualFileSystemProvider virtualFileSystemProvider;
 
     @Before
     public void setUp() throws Exception {
@@ -47,7 +50,7 @@ public class DefaultFileWatcherNotificationHandlerTest {
         testDirectory = new File(targetDir, NameGenerator.generate("watcher-notifications-", 4));
 
         virtualFileSystem = mock(LocalVirtualFileSystem.class, RETURNS_DEEP_STUBS);
-        VirtualFileSystemProvider virtualFileSystemProvider = mock(VirtualFileSystemProvider.class);
+        virtualFileSystemProvider = mock(VirtualFileSystemProvider.class);
         when(virtualFileSystemProvider.getVirtualFileSystem(true)).thenReturn(virtualFileSystem);
 
         notificationListener = mock(FileWatcherNotificationListener.class);
@@ -91,4 +94,26 @@ public class DefaultFileWatcherNotificationHandlerTest {
         verify(notificationListener).shouldBeNotifiedFor(virtualFile);
         verify(notificationListener).onFileWatcherEvent(virtualFile, MODIFIED);
     }
+
+    @Test
+    public void invalidatesCachedFolderListingsWhenPathIsChanged() throws Exception {
+        notificationHandler.handleFileWatcherEvent(CREATED, testDirectory, "/a/b/c", true);
+
+        verify(virtualFileSystem).invalidateChildren(virtualFilePath);
+    }
+
+    @Test
+    public void notifiesListenersWithMergedEventsOfCoalescingWindow() throws Exception {
+        DefaultFileWatcherNotificationHandler coalescingHandler = new DefaultFileWatcherNotificationHandler(virtualFileSystemProvider, 100);
+        coalescingHandler.addNotificationListener(notificationListener);
+        try {
+            coalescingHandler.handleFileWatcherEvent(CREATED, testDirectory, "/a/b/c", true);
+            coalescingHandler.handleFileWatcherEvent(MODIFIED, testDirectory, "/a/b/c", true);
+
+            verify(notificationListener, timeout(5000)).onFileWatcherEvent(virtualFile, CREATED);
+            verify(notificationListener, never()).onFileWatcherEvent(virtualFile, MODIFIED);
+        } finally {
+            coalescingHandler.stop();
+        }
+    }
 }
@@ -0,0 +1,105 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2017 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.vfs.impl.file;
+
+import org.eclipse.che.api.vfs.Path;
+import org.junit.Test;
+
+import static org.eclipse.che.api.vfs.impl.file.FileContentCache.RACY_INTERVAL;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link FileContentCache}
+ */
+public class FileContentCacheTest {
+    private static final byte[] CONTENT       = "<project/>".getBytes();
+    private static final long   LAST_MODIFIED = 1_000_000;
+    private static final long   READ_TIME     = LAST_MODIFIED + RACY_INTERVAL + 1;
+
+    private final FileContentCache cache = new FileContentCache(1024, 100);
+
+    @Test
+    public void servesContentWhileLengthAndModificationTimeAreTheSame() throws Exception {
+        cache.put(Path.of("/a/pom.xml"), CONTENT.length, LAST_MODIFIED, READ_TIME, CONTENT);
+
+        assertArrayEquals(CONTENT, cache.get(Path.of("/a/pom.xml"), CONTENT.length, LAST_MODIFIED));
+        assertNull(cache.get(Path.of("/a/pom.xml"), CONTENT.length, LAST_MODIFIED + 1));
+        assertNull(cache.get(Path.of("/a/pom.xml"), CONTENT.length + 1, LAST_MODIFIED));
+        assertEquals(1, cache.stats().hitCount());
+        assertEquals(2, cache.stats().missCount());
+    }
+
+    @Test
+    public void doesNotCacheContentReadRightAfterModification() throws Exception {
+        cache.put(Path.of("/a/pom.xml"), CONTENT.length, LAST_MODIFIED, LAST_MODIFIED + 10, CONTENT);
+
+        assertNull(cache.get(Path.of("/a/pom.xml"), CONTENT.length, LAST_MODIFIED));
+    }
+
+    @Test
+    public void dropsCachedContentWhenNewContentIsWithinRacyInterval() throws Exception {
+        cache.put(Path.of("/a/pom.xml"), CONTENT.length, LAST_MODIFIED, READ_TIME, CONTENT);
+
+        cache.put(Path.of("/a/pom.xml"), CONTENT.length, READ_TIME, READ_TIME + RACY_INTERVAL, CONTENT);
+
+        assertNull(cache.get(Path.of("/a/pom.xml"), CONTENT.length, LAST_MODIFIED));
+        assertNull(cache.get(Path.of("/a/pom.xml"), CONTENT.length, READ_TIME));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void doesNotCacheContentOfBigFiles() throws Exception {
+        byte[] content = new byte[101];
+
+        cache.put(Path.of("/a/big"), content.length, LAST_MODIFIED, READ_TIME, content);
+
+        assertFalse(cache.accepts(content.length));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void evictsContentOfItemAndItsDescendants() throws Exception {
+        cache.put(Path.of("/a"), CONTENT.length, LAST_MODIFIED, READ_TIME, CONTENT);
+        cache.put(Path.of("/a/b/pom.xml"), CONTENT.length, LAST_MODIFIED, READ_TIME, CONTENT);
+        cache.put(Path.of("/ab/pom.xml"), CONTENT.length, LAST_MODIFIED, READ_TIME, CONTENT);
+
+        cache.invalidate(Path.of("/a"));
+
+        assertNull(cache.get(Path.of("/a/b/pom.xml"), CONTENT.length, LAST_MODIFIED));
+        assertArrayEquals(CONTENT, cache.get(Path.of("/ab/pom.xml"), CONTENT.length, LAST_MODIFIED));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void keepsTotalSizeOfContentBounded() throws Exception {
+        for (int i = 0; i < 200; i++) {
+            cache.put(Path.of("/file" + i), CONTENT.length, LAST_MODIFIED, READ_TIME, CONTENT);
+        }
+
+        assertTrue(cache.size() * CONTENT.length <= 1024);
+        assertTrue(cache.stats().evictionCount() > 0);
+    }
+
+    @Test
+    public void cachesNothingWhenDisabled() throws Exception {
+        FileContentCache disabled = new FileContentCache(0, 100);
+
+        disabled.put(Path.of("/a/pom.xml"), CONTENT.length, LAST_MODIFIED, READ_TIME, CONTENT);
+
+        assertFalse(disabled.isEnabled());
+        assertFalse(disabled.accepts(0));
+        assertEquals(0, disabled.size());
+    }
+}
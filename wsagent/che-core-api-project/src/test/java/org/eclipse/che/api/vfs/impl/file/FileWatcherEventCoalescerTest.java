@@ -0,0 +1,88 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2017 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.vfs.impl.file;
+
+import org.eclipse.che.api.vfs.impl.file.FileWatcherEventCoalescer.PathEvent;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static java.util.Arrays.asList;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.eclipse.che.api.project.shared.dto.event.FileWatcherEventType.CREATED;
+import static org.eclipse.che.api.project.shared.dto.event.FileWatcherEventType.DELETED;
+import static org.eclipse.che.api.project.shared.dto.event.FileWatcherEventType.MODIFIED;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Tests for {@link FileWatcherEventCoalescer}
+ */
+public class FileWatcherEventCoalescerTest {
+    private static final long WINDOW = 100;
+
+    private ScheduledExecutorService       scheduler;
+    private BlockingQueue<List<PathEvent>> batches;
+    private FileWatcherEventCoalescer      coalescer;
+
+    @Before
+    public void setUp() throws Exception {
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+        batches = new LinkedBlockingQueue<>();
+        coalescer = new FileWatcherEventCoalescer(WINDOW, scheduler, batches::add);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    public void mergesEventsOfTheSamePath() throws Exception {
+        assertEquals(CREATED, FileWatcherEventCoalescer.merge(CREATED, MODIFIED));
+        assertNull(FileWatcherEventCoalescer.merge(CREATED, DELETED));
+        assertEquals(MODIFIED, FileWatcherEventCoalescer.merge(DELETED, CREATED));
+        assertEquals(MODIFIED, FileWatcherEventCoalescer.merge(MODIFIED, MODIFIED));
+        assertEquals(DELETED, FileWatcherEventCoalescer.merge(MODIFIED, DELETED));
+    }
+
+    @Test
+    public void deliversEventsOfWindowAsSingleBatch() throws Exception {
+        coalescer.add(CREATED, "/a/file", false);
+        coalescer.add(MODIFIED, "/a/file", false);
+        coalescer.add(MODIFIED, "/a/other", false);
+        coalescer.add(CREATED, "/a/temp", false);
+        coalescer.add(DELETED, "/a/temp", false);
+
+        List<PathEvent> batch = batches.poll(5, SECONDS);
+
+        assertEquals(asList(new PathEvent(CREATED, "/a/file", false),
+                            new PathEvent(MODIFIED, "/a/other", false)),
+                     batch);
+        assertNull(batches.poll(WINDOW * 3, MILLISECONDS));
+    }
+
+    @Test
+    public void startsNewWindowAfterBatchIsDelivered() throws Exception {
+        coalescer.add(MODIFIED, "/a/file", false);
+        assertEquals(1, batches.poll(5, SECONDS).size());
+
+        coalescer.add(MODIFIED, "/a/file", false);
+        assertEquals(1, batches.poll(5, SECONDS).size());
+    }
+}
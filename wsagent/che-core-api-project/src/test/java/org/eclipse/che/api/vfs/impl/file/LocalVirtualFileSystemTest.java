@@ -13,6 +13,7 @@ package org.eclipse.che.api.vfs.impl.file;
 import org.eclipse.che.api.core.util.FileCleaner;
 import org.eclipse.che.api.vfs.AbstractVirtualFileSystemProvider;
 import org.eclipse.che.api.vfs.ArchiverFactory;
+import org.eclipse.che.api.vfs.VirtualFile;
 import org.eclipse.che.api.vfs.search.Searcher;
 import org.eclipse.che.api.vfs.search.SearcherProvider;
 import org.eclipse.che.commons.lang.IoUtil;
@@ -22,7 +23,15 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.io.File;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+import static com.google.common.collect.Lists.newArrayList;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.anyBoolean;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
@@ -64,4 +73,116 @@ public class LocalVirtualFileSystemTest {
         fileSystem.close();
         verify(searcher).close();
     }
-}
\ No newline at end of file
+
+    @Test
+    public void listsFoldersBeforeFilesSortedByName() throws Exception {
+        LocalVirtualFile folder = createFolder("folder");
+        folder.createFile("b", "");
+        folder.createFolder("d");
+        folder.createFile("a", "");
+        folder.createFolder("c");
+
+        assertEquals(newArrayList("c", "d", "a", "b"), names(folder.getChildren()));
+    }
+
+    @Test
+    public void reusesListingOfFolderWhileFolderIsNotModified() throws Exception {
+        LocalVirtualFile folder = createFolder("folder");
+        folder.createFile("a", "");
+        File ioFolder = folder.toIoFile();
+        ioFolder.setLastModified(System.currentTimeMillis() - 10_000);
+        long lastModified = ioFolder.lastModified();
+
+        assertEquals(newArrayList("a"), names(folder.getChildren()));
+        assertTrue(new File(ioFolder, "b").createNewFile());
+        ioFolder.setLastModified(lastModified);
+
+        assertEquals(newArrayList("a"), names(folder.getChildren()));
+    }
+
+    @Test
+    public void readsFolderAgainWhenItIsModifiedOutsideOfFileSystem() throws Exception {
+        LocalVirtualFile folder = createFolder("folder");
+        folder.createFile("a", "");
+        File ioFolder = folder.toIoFile();
+        ioFolder.setLastModified(System.currentTimeMillis() - 10_000);
+
+        assertEquals(newArrayList("a"), names(folder.getChildren()));
+        assertTrue(new File(ioFolder, "b").createNewFile());
+
+        assertEquals(newArrayList("a", "b"), names(folder.getChildren()));
+    }
+
+    @Test
+    public void readsFolderAgainAfterListingIsInvalidated() throws Exception {
+        LocalVirtualFile folder = createFolder("folder");
+        folder.createFile("a", "");
+        File ioFolder = folder.toIoFile();
+        ioFolder.setLastModified(System.currentTimeMillis() - 10_000);
+        long lastModified = ioFolder.lastModified();
+
+        assertEquals(newArrayList("a"), names(folder.getChildren()));
+        assertTrue(new File(ioFolder, "b").createNewFile());
+        ioFolder.setLastModified(lastModified);
+        fileSystem.invalidateChildren(folder.getPath().newPath("b"));
+
+        assertEquals(newArrayList("a", "b"), names(folder.getChildren()));
+    }
+
+    @Test
+    public void invalidatesListingOfFolderWhenItsChildIsDeleted() throws Exception {
+        LocalVirtualFile folder = createFolder("folder");
+        VirtualFile file = folder.createFile("a", "");
+        folder.createFile("b", "");
+        File ioFolder = folder.toIoFile();
+        ioFolder.setLastModified(System.currentTimeMillis() - 10_000);
+        long lastModified = ioFolder.lastModified();
+
+        assertEquals(newArrayList("a", "b"), names(folder.getChildren()));
+        file.delete();
+        ioFolder.setLastModified(lastModified);
+
+        assertEquals(newArrayList("b"), names(folder.getChildren()));
+    }
+
+    @Test
+    public void listsFolderConcurrentlyWithModifications() throws Exception {
+        LocalVirtualFile folder = createFolder("folder");
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> futures = newArrayList();
+        for (int t = 0; t < 2; t++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 200; i++) {
+                    folder.getChildren();
+                }
+                return null;
+            }));
+        }
+        futures.add(executor.submit(() -> {
+            for (int i = 0; i < 100; i++) {
+                folder.createFile("file" + i, "");
+            }
+            return null;
+        }));
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, SECONDS));
+
+        assertEquals(100, folder.getChildren().size());
+    }
+
+    private LocalVirtualFile createFolder(String name) throws Exception {
+        assertTrue(testDirectory.mkdirs());
+        return (LocalVirtualFile)fileSystem.getRoot().createFolder(name);
+    }
+
+    private List<String> names(List<VirtualFile> files) {
+        List<String> names = newArrayList();
+        for (VirtualFile file : files) {
+            names.add(file.getName());
+        }
+        return names;
+    }
+}
@@ -14,6 +14,7 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.hash.Hashing;
 import com.google.common.io.ByteSource;
 import com.google.common.io.ByteStreams;
+import com.google.common.io.Files;
 
 import org.eclipse.che.api.core.ConflictException;
 import org.eclipse.che.api.core.ForbiddenException;
@@ -22,6 +23,7 @@ import org.eclipse.che.api.core.util.FileCleaner;
 import org.eclipse.che.api.vfs.AbstractVirtualFileSystemProvider;
 import org.eclipse.che.api.vfs.Archiver;
 import org.eclipse.che.api.vfs.ArchiverFactory;
+import org.eclipse.che.api.vfs.FileContent;
 import org.eclipse.che.api.vfs.Path;
 import org.eclipse.che.api.vfs.VirtualFile;
 import org.eclipse.che.api.vfs.VirtualFileFilter;
@@ -36,6 +38,7 @@ import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 
 import java.io.ByteArrayInputStream;
@@ -45,6 +48,7 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
@@ -54,6 +58,9 @@ import java.util.Set;
 import static com.google.common.collect.Lists.newArrayList;
 import static com.google.common.collect.Sets.newHashSet;
 import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
+import static org.eclipse.che.api.vfs.impl.file.LocalVirtualFileSystem.MAX_BUFFER_SIZE;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
@@ -61,6 +68,7 @@ import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
@@ -410,6 +418,30 @@ public class LocalVirtualFileTest {
         assertEquals(DEFAULT_CONTENT, new String(content));
     }
 
+    @Test
+    public void servesContentOfSmallFileFromMemoryWhenContentCacheIsEnabled() throws Exception {
+        LocalVirtualFileSystem cachingFileSystem = new LocalVirtualFileSystem(testDirectory,
+                                                                              archiverFactory,
+                                                                              null,
+                                                                              mock(AbstractVirtualFileSystemProvider.CloseCallback.class),
+                                                                              1024 * 1024);
+        VirtualFile file = cachingFileSystem.getRoot().createFile(generateFileName(), DEFAULT_CONTENT);
+        assertEquals(DEFAULT_CONTENT, file.getContentAsString());
+        assertEquals(DEFAULT_CONTENT, file.getContentAsString());
+        assertEquals(0, cachingFileSystem.getContentCacheStats().hitCount());
+
+        assertTrue(file.toIoFile().setLastModified(System.currentTimeMillis() - 10_000));
+        assertEquals(DEFAULT_CONTENT, file.getContentAsString());
+        assertEquals(DEFAULT_CONTENT, file.getContentAsString());
+        assertEquals(DEFAULT_CONTENT, file.getContentAsString());
+        assertEquals(2, cachingFileSystem.getContentCacheStats().hitCount());
+
+        Files.write("__UPDATED_OUTSIDE__".getBytes(), file.toIoFile());
+        assertEquals("__UPDATED_OUTSIDE__", file.getContentAsString());
+        assertEquals(4, cachingFileSystem.getContentCacheStats().missCount());
+        cachingFileSystem.getPathLockFactory().checkClean();
+    }
+
     @Test
     public void getsContentAsString() throws Exception {
         VirtualFile root = getRoot();
@@ -421,6 +453,85 @@ public class LocalVirtualFileTest {
         assertEquals(DEFAULT_CONTENT, content);
     }
 
+    @Test
+    public void getsContentOfBigFileAsStream() throws Exception {
+        VirtualFile root = getRoot();
+        byte[] bigContent = generateContent(MAX_BUFFER_SIZE * 2);
+        VirtualFile file = root.createFile(generateFileName(), bigContent);
+
+        byte[] bytes;
+        try (InputStream content = file.getContent()) {
+            bytes = ByteStreams.toByteArray(content);
+        }
+
+        assertArrayEquals(bigContent, bytes);
+    }
+
+    @Test
+    public void transfersContentToStream() throws Exception {
+        VirtualFile root = getRoot();
+        byte[] bigContent = generateContent(MAX_BUFFER_SIZE * 2);
+        VirtualFile file = root.createFile(generateFileName(), bigContent);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (FileContent content = file.openContent()) {
+            assertEquals(bigContent.length, content.getLength());
+            assertEquals(bigContent.length, content.transferTo(out));
+        }
+
+        assertArrayEquals(bigContent, out.toByteArray());
+    }
+
+    @Test
+    public void readsContentAsBuffer() throws Exception {
+        VirtualFile root = getRoot();
+        byte[] smallContent = DEFAULT_CONTENT_BYTES;
+        byte[] bigContent = generateContent(MAX_BUFFER_SIZE * 2);
+        VirtualFile smallFile = root.createFile(generateFileName(), smallContent);
+        VirtualFile bigFile = root.createFile(generateFileName(), bigContent);
+
+        assertArrayEquals(smallContent, readAsBuffer(smallFile));
+        assertArrayEquals(bigContent, readAsBuffer(bigFile));
+    }
+
+    @Test
+    public void failsReadContentWhenFileIsModifiedWhileBeingRead() throws Exception {
+        VirtualFile root = getRoot();
+        VirtualFile file = root.createFile(generateFileName(), DEFAULT_CONTENT);
+
+        thrown.expect(IOException.class);
+        thrown.expectMessage(String.format("Content of '%s' was modified while it was being read", file.getPath()));
+
+        try (FileContent content = file.openContent()) {
+            content.read(buffer -> {
+                file.updateContent("updated content");
+                return null;
+            });
+        }
+    }
+
+    @Test
+    public void detectsModificationOfFileSinceContentIsOpened() throws Exception {
+        VirtualFile root = getRoot();
+        VirtualFile file = root.createFile(generateFileName(), DEFAULT_CONTENT);
+
+        try (FileContent content = file.openContent()) {
+            assertFalse(content.isModified());
+            file.updateContent("updated content");
+            assertTrue(content.isModified());
+        }
+    }
+
+    @Test
+    public void failsOpenContentOfFolder() throws Exception {
+        VirtualFile root = getRoot();
+        VirtualFile folder = root.createFolder(generateFolderName());
+
+        thrown.expect(ForbiddenException.class);
+
+        folder.openContent();
+    }
+
     @Test
     public void failsGetContentOfFolderAsStream() throws Exception {
         VirtualFile root = getRoot();
@@ -1398,6 +1509,26 @@ public class LocalVirtualFileTest {
         verify(archiver).compress(any(OutputStream.class), any(VirtualFileFilter.class));
     }
 
+    @Test
+    public void compressesFolderToZipArchiveDirectlyToOutput() throws Exception {
+        VirtualFile folder = getRoot().createFolder(generateFolderName());
+        Archiver archiver = mock(Archiver.class);
+        when(archiverFactory.createArchiver(eq(folder), eq("zip"))).thenReturn(archiver);
+        OutputStream output = new ByteArrayOutputStream();
+        folder.zip(output);
+        verify(archiver).compress(eq(output), any(VirtualFileFilter.class));
+    }
+
+    @Test
+    public void failsZipFileToOutput() throws Exception {
+        VirtualFile root = getRoot();
+        VirtualFile file = root.createFile(generateFileName(), DEFAULT_CONTENT);
+
+        thrown.expect(ForbiddenException.class);
+
+        file.zip(new ByteArrayOutputStream());
+    }
+
     @Test
     public void failsZipFile() throws Exception {
         VirtualFile root = getRoot();
@@ -1646,6 +1777,31 @@ public class LocalVirtualFileTest {
         verify(searcher).add(file);
     }
 
+    @SuppressWarnings("unchecked")
+    @Test
+    public void addsFilesExtractedFromArchiveInSearcherAtOnce() throws Exception {
+        VirtualFile folder = getRoot().createFolder(generateFolderName());
+        Archiver archiver = mock(Archiver.class);
+        when(archiverFactory.createArchiver(eq(folder), eq("zip"))).thenReturn(archiver);
+        doAnswer(invocation -> {
+            folder.createFile("file1", DEFAULT_CONTENT);
+            folder.createFolder("a/b").createFile("file2", DEFAULT_CONTENT).updateContent("");
+            return null;
+        }).when(archiver).extract(any(InputStream.class), eq(false), eq(0));
+
+        folder.unzip(new ByteArrayInputStream(new byte[0]), false, 0);
+
+        ArgumentCaptor<Collection> filesCaptor = ArgumentCaptor.forClass(Collection.class);
+        verify(searcher).addAll(filesCaptor.capture());
+        Set<String> paths = ((Collection<VirtualFile>)filesCaptor.getValue()).stream()
+                                                                            .map(file -> file.getPath().toString())
+                                                                            .collect(toSet());
+        assertEquals(newHashSet(folder.getPath().newPath("file1").toString(), folder.getPath().newPath("a/b/file2").toString()),
+                     paths);
+        verify(searcher, never()).add(any(VirtualFile.class));
+        verify(searcher, never()).update(any(VirtualFile.class));
+    }
+
     @Test
     public void addsFileThatCopiedFromOtherFileInSearcher() throws Exception {
         VirtualFile file = getRoot().createFile(generateFileName(), DEFAULT_CONTENT);
@@ -1788,6 +1944,24 @@ public class LocalVirtualFileTest {
         return byteOutput.toByteArray();
     }
 
+    private byte[] generateContent(int length) {
+        byte[] content = new byte[length];
+        for (int i = 0; i < length; i++) {
+            content[i] = (byte)('a' + i % 26);
+        }
+        return content;
+    }
+
+    private byte[] readAsBuffer(VirtualFile file) throws Exception {
+        try (FileContent content = file.openContent()) {
+            return content.read(buffer -> {
+                byte[] bytes = new byte[buffer.remaining()];
+                buffer.get(bytes);
+                return bytes;
+            });
+        }
+    }
+
     private String countMd5Sum(VirtualFile file) throws Exception {
         return ByteSource.wrap(file.getContentAsBytes()).hash(Hashing.md5()).toString();
     }
@@ -0,0 +1,166 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2017 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.vfs.impl.file;
+
+import org.eclipse.che.api.vfs.Path;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link MetadataStore}
+ */
+public class MetadataStoreTest {
+    private static final String LOCKS_DIR   = ".vfs" + File.separatorChar + "locks";
+    private static final String LOCK_SUFFIX = "_lock";
+
+    @Rule
+    public TemporaryFolder rootFolder = new TemporaryFolder();
+
+    private MetadataStore<FileLock> store;
+
+    @Before
+    public void setUp() throws Exception {
+        store = new MetadataStore<>(rootFolder.getRoot(), LOCKS_DIR, LOCK_SUFFIX, new FileLockSerializer(), 100);
+    }
+
+    @Test
+    public void readsServiceFilesOfAllChildrenOfFolderAtOnce() throws Exception {
+        writeLock("/a/file1", "token1");
+        writeLock("/a/file2", "token2");
+
+        assertEquals("token1", store.get(Path.of("/a/file1")).getLockToken());
+        deleteLock("/a/file2");
+
+        assertEquals("token2", store.get(Path.of("/a/file2")).getLockToken());
+        assertNull(store.get(Path.of("/a/file3")));
+        assertEquals(1, store.getLoadedFoldersCount());
+    }
+
+    @Test
+    public void keepsMetadataOfRootFolderInRootFolder() throws Exception {
+        writeLock("/", "token");
+
+        assertEquals("token", store.get(Path.ROOT).getLockToken());
+    }
+
+    @Test
+    public void removesMetadataOfDeletedSubtreeOnly() throws Exception {
+        writeLock("/a/file", "token1");
+        writeLock("/a/b/file", "token2");
+        writeLock("/c/file", "token3");
+        store.get(Path.of("/a/file"));
+        store.get(Path.of("/a/b/file"));
+        store.get(Path.of("/c/file"));
+        deleteLock("/c/file");
+
+        store.removeTree(Path.of("/a"));
+
+        assertEquals(1, store.getLoadedFoldersCount());
+        assertEquals("token3", store.get(Path.of("/c/file")).getLockToken());
+    }
+
+    @Test
+    public void readsMetadataOfItemAndItsSiblingsAgainAfterInvalidation() throws Exception {
+        writeLock("/a/file1", "token1");
+        writeLock("/a/file2", "token2");
+        store.get(Path.of("/a/file1"));
+        deleteLock("/a/file1");
+        deleteLock("/a/file2");
+
+        store.invalidate(Path.of("/a/file1"));
+
+        assertNull(store.get(Path.of("/a/file1")));
+        assertNull(store.get(Path.of("/a/file2")));
+    }
+
+    @Test
+    public void readsMetadataOfDescendantsAgainAfterInvalidation() throws Exception {
+        writeLock("/a", "token1");
+        writeLock("/a/file", "token2");
+        store.get(Path.of("/a"));
+        store.get(Path.of("/a/file"));
+        writeLock("/a/file", "token3");
+
+        store.invalidateDescendants(Path.of("/a"));
+
+        assertEquals("token1", store.get(Path.of("/a")).getLockToken());
+        assertEquals("token3", store.get(Path.of("/a/file")).getLockToken());
+    }
+
+    @Test
+    public void updatesMetadataOfLoadedFolder() throws Exception {
+        writeLock("/a/file1", "token1");
+        store.get(Path.of("/a/file1"));
+
+        store.put(Path.of("/a/file2"), new FileLock("token2", Long.MAX_VALUE));
+        store.remove(Path.of("/a/file1"));
+
+        assertNull(store.get(Path.of("/a/file1")));
+        assertEquals("token2", store.get(Path.of("/a/file2")).getLockToken());
+    }
+
+    @Test
+    public void readsServiceFileOfItemAloneWhenServiceFileOfSiblingIsBroken() throws Exception {
+        writeLock("/a/file", "token");
+        assertTrue(new File(serviceDir(Path.of("/a/broken")), "broken" + LOCK_SUFFIX).createNewFile());
+
+        assertEquals("token", store.get(Path.of("/a/file")).getLockToken());
+        assertEquals(0, store.getLoadedFoldersCount());
+    }
+
+    @Test(expected = IOException.class)
+    public void throwsExceptionWhenServiceFileOfItemIsBroken() throws Exception {
+        writeLock("/a/file", "token");
+        assertTrue(new File(serviceDir(Path.of("/a/broken")), "broken" + LOCK_SUFFIX).createNewFile());
+
+        store.get(Path.of("/a/broken"));
+    }
+
+    @Test
+    public void evictsAllFoldersWhenLimitIsReached() throws Exception {
+        store = new MetadataStore<>(rootFolder.getRoot(), LOCKS_DIR, LOCK_SUFFIX, new FileLockSerializer(), 2);
+
+        store.get(Path.of("/a/file"));
+        store.get(Path.of("/b/file"));
+        store.get(Path.of("/c/file"));
+
+        assertEquals(1, store.getLoadedFoldersCount());
+    }
+
+    private void writeLock(String path, String token) throws IOException {
+        File serviceDir = serviceDir(Path.of(path));
+        assertTrue(serviceDir.isDirectory() || serviceDir.mkdirs());
+        File lockFile = new File(serviceDir, Path.of(path).getName() + LOCK_SUFFIX);
+        try (DataOutputStream output = new DataOutputStream(new FileOutputStream(lockFile))) {
+            new FileLockSerializer().write(output, new FileLock(token, Long.MAX_VALUE));
+        }
+    }
+
+    private void deleteLock(String path) {
+        assertTrue(new File(serviceDir(Path.of(path)), Path.of(path).getName() + LOCK_SUFFIX).delete());
+    }
+
+    private File serviceDir(Path path) {
+        Path folder = path.isRoot() ? path : path.getParent();
+        return new File(new File(rootFolder.getRoot(), folder.join(File.separatorChar)), LOCKS_DIR);
+    }
+}
@@ -0,0 +1,208 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2017 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.vfs.impl.file.event.detectors;
+
+import com.google.common.hash.Hashing;
+
+import org.eclipse.che.api.core.jsonrpc.RequestTransmitter;
+import org.eclipse.che.api.project.shared.dto.event.FileStateUpdateDto;
+import org.eclipse.che.api.project.shared.dto.event.FileTrackingOperationDto;
+import org.eclipse.che.api.vfs.ArchiverFactory;
+import org.eclipse.che.api.vfs.VirtualFileSystemProvider;
+import org.eclipse.che.api.vfs.impl.file.LocalVirtualFileSystem;
+import org.eclipse.che.api.vfs.watcher.FileWatcherManager;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.eclipse.che.api.project.shared.dto.event.FileTrackingOperationDto.Type.START;
+import static org.eclipse.che.api.project.shared.dto.event.FileTrackingOperationDto.Type.STOP;
+import static org.eclipse.che.api.project.shared.dto.event.FileWatcherEventType.DELETED;
+import static org.eclipse.che.api.project.shared.dto.event.FileWatcherEventType.MODIFIED;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link FileTrackingOperationReceiver}
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class FileTrackingOperationReceiverTest {
+    private static final String METHOD         = "event:file-state-changed";
+    private static final long   DEBOUNCE_DELAY = 100;
+
+    @Rule
+    public TemporaryFolder rootFolder = new TemporaryFolder();
+
+    @Mock
+    FileWatcherManager        fileWatcherManager;
+    @Mock
+    RequestTransmitter        transmitter;
+    @Mock
+    VirtualFileSystemProvider vfsProvider;
+
+    FileTrackingOperationReceiver receiver;
+
+    @Before
+    public void setUp() throws Exception {
+        File root = rootFolder.getRoot();
+        when(vfsProvider.getVirtualFileSystem()).thenReturn(new LocalVirtualFileSystem(root, new ArchiverFactory(), null, null));
+        receiver = new FileTrackingOperationReceiver(root, fileWatcherManager, transmitter, vfsProvider, DEBOUNCE_DELAY);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        receiver.stop();
+    }
+
+    @Test
+    public void sendsSingleNotificationForBurstOfModifications() throws Exception {
+        writeFile("/file", "content");
+        receiver.handleNotification("endpoint", operation(START, "/file"));
+        Consumer<String> modify = captureModifyConsumers(1).get(0);
+
+        for (int i = 0; i < 100; i++) {
+            modify.accept("/file");
+        }
+
+        ArgumentCaptor<FileStateUpdateDto> update = ArgumentCaptor.forClass(FileStateUpdateDto.class);
+        verify(transmitter, timeout(5000)).transmitNotification(eq("endpoint"), eq(METHOD), update.capture());
+        Thread.sleep(DEBOUNCE_DELAY * 3);
+        verify(transmitter, times(1)).transmitNotification(anyString(), anyString(), any());
+        assertEquals(MODIFIED, update.getValue().getType());
+        assertEquals("/file", update.getValue().getPath());
+        assertEquals(Hashing.md5().hashString("content", UTF_8).toString(), update.getValue().getHashCode());
+    }
+
+    @Test
+    public void notifiesEveryEndpointThatTracksFile() throws Exception {
+        writeFile("/file", "content");
+        receiver.handleNotification("endpoint1", operation(START, "/file"));
+        receiver.handleNotification("endpoint2", operation(START, "/file"));
+        List<Consumer<String>> modifyConsumers = captureModifyConsumers(2);
+
+        modifyConsumers.get(0).accept("/file");
+        modifyConsumers.get(1).accept("/file");
+
+        verify(transmitter, timeout(5000)).transmitNotification(eq("endpoint1"), eq(METHOD), any());
+        verify(transmitter, timeout(5000)).transmitNotification(eq("endpoint2"), eq(METHOD), any());
+    }
+
+    @Test
+    public void doesNotNotifyEndpointWhenHashOfFileIsNotChanged() throws Exception {
+        writeFile("/file", "content");
+        receiver.handleNotification("endpoint", operation(START, "/file"));
+        Consumer<String> modify = captureModifyConsumers(1).get(0);
+        modify.accept("/file");
+        verify(transmitter, timeout(5000)).transmitNotification(eq("endpoint"), eq(METHOD), any());
+
+        modify.accept("/file");
+        Thread.sleep(DEBOUNCE_DELAY * 3);
+
+        verify(transmitter, times(1)).transmitNotification(anyString(), anyString(), any());
+    }
+
+    @Test
+    public void doesNotNotifyEndpointAfterStopOfTracking() throws Exception {
+        writeFile("/file", "content");
+        when(fileWatcherManager.registerByPath(eq("/file"), any(), any(), any())).thenReturn(7);
+        receiver.handleNotification("endpoint", operation(START, "/file"));
+        Consumer<String> modify = captureModifyConsumers(1).get(0);
+
+        receiver.handleNotification("endpoint", operation(STOP, "/file"));
+        modify.accept("/file");
+        Thread.sleep(DEBOUNCE_DELAY * 3);
+
+        verify(fileWatcherManager).unRegisterByPath(7);
+        verify(transmitter, never()).transmitNotification(anyString(), anyString(), any());
+    }
+
+    @Test
+    public void doesNotNotifyAboutDeletionOfFileThatIsRecreatedWithinDebounceDelay() throws Exception {
+        writeFile("/file", "content");
+        receiver.handleNotification("endpoint", operation(START, "/file"));
+        Consumer<String> delete = captureDeleteConsumers(1).get(0);
+
+        Files.delete(rootFolder.getRoot().toPath().resolve("file"));
+        delete.accept("/file");
+        writeFile("/file", "content");
+
+        ArgumentCaptor<FileStateUpdateDto> update = ArgumentCaptor.forClass(FileStateUpdateDto.class);
+        verify(transmitter, timeout(5000)).transmitNotification(eq("endpoint"), eq(METHOD), update.capture());
+        assertEquals(MODIFIED, update.getValue().getType());
+    }
+
+    @Test
+    public void keepsNumberOfThreadsBoundedWhenManyTrackedFilesAreDeleted() throws Exception {
+        int files = 10_000;
+        for (int i = 0; i < files; i++) {
+            receiver.handleNotification("endpoint", operation(START, "/file" + i));
+        }
+        List<Consumer<String>> deleteConsumers = captureDeleteConsumers(files);
+        int threadsBefore = Thread.activeCount();
+
+        int peakThreads = threadsBefore;
+        for (int i = 0; i < files; i++) {
+            deleteConsumers.get(i).accept("/file" + i);
+            peakThreads = Math.max(peakThreads, Thread.activeCount());
+        }
+
+        ArgumentCaptor<FileStateUpdateDto> update = ArgumentCaptor.forClass(FileStateUpdateDto.class);
+        verify(transmitter, timeout(30_000).times(files)).transmitNotification(eq("endpoint"), eq(METHOD), update.capture());
+        assertTrue(update.getAllValues().stream().allMatch(it -> it.getType() == DELETED));
+        assertTrue("Number of threads grew from " + threadsBefore + " to " + peakThreads, peakThreads - threadsBefore <= 1);
+    }
+
+    private FileTrackingOperationDto operation(FileTrackingOperationDto.Type type, String path) {
+        FileTrackingOperationDto operation = mock(FileTrackingOperationDto.class);
+        when(operation.getType()).thenReturn(type);
+        when(operation.getPath()).thenReturn(path);
+        return operation;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Consumer<String>> captureModifyConsumers(int registrations) {
+        ArgumentCaptor<Consumer> modify = ArgumentCaptor.forClass(Consumer.class);
+        verify(fileWatcherManager, times(registrations)).registerByPath(anyString(), any(), modify.capture(), any());
+        return (List)modify.getAllValues();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Consumer<String>> captureDeleteConsumers(int registrations) {
+        ArgumentCaptor<Consumer> delete = ArgumentCaptor.forClass(Consumer.class);
+        verify(fileWatcherManager, times(registrations)).registerByPath(anyString(), any(), any(), delete.capture());
+        return (List)delete.getAllValues();
+    }
+
+    private void writeFile(String path, String content) throws Exception {
+        Files.write(rootFolder.getRoot().toPath().resolve(path.substring(1)), content.getBytes(UTF_8));
+    }
+}
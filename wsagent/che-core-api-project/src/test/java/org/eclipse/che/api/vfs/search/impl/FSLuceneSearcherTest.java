@@ -12,7 +12,9 @@ package org.eclipse.che.api.vfs.search.impl;
 
 import com.google.common.base.Optional;
 
+import org.eclipse.che.api.core.ServerException;
 import org.eclipse.che.api.vfs.ArchiverFactory;
+import org.eclipse.che.api.vfs.Path;
 import org.eclipse.che.api.vfs.VirtualFile;
 import org.eclipse.che.api.vfs.VirtualFileFilter;
 import org.eclipse.che.api.vfs.VirtualFileSystem;
@@ -29,6 +31,7 @@ import org.testng.annotations.Test;
 
 import java.io.File;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 
 import static com.google.common.collect.Lists.newArrayList;
@@ -39,7 +42,9 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
 import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
 
 @SuppressWarnings("Duplicates")
 public class FSLuceneSearcherTest {
@@ -114,6 +119,23 @@ public class FSLuceneSearcherTest {
         assertEquals(newArrayList("/folder/zzz.txt"), paths);
     }
 
+    @Test
+    public void addsBatchOfFilesAndFoldersInIndex() throws Exception {
+        VirtualFileSystem virtualFileSystem = virtualFileSystem();
+        searcher.init(virtualFileSystem);
+        VirtualFile folder = virtualFileSystem.getRoot().createFolder("folder");
+        VirtualFile file = folder.createFile("xxx.txt", TEST_CONTENT[2]);
+        VirtualFile otherFolder = virtualFileSystem.getRoot().createFolder("other");
+        otherFolder.createFile("zzz.txt", TEST_CONTENT[1]);
+
+        searcher.addAll(newArrayList(file, otherFolder, otherFolder.getChild(Path.of("zzz.txt"))));
+
+        List<String> paths = searcher.search(new QueryExpression().setText("be")).getFilePaths();
+        assertEquals(newArrayList("/folder/xxx.txt"), paths);
+        paths = searcher.search(new QueryExpression().setText("should")).getFilePaths();
+        assertEquals(newArrayList("/other/zzz.txt"), paths);
+    }
+
     @Test
     public void updatesSingleFileInIndex() throws Exception {
         VirtualFileSystem virtualFileSystem = virtualFileSystem();
@@ -336,6 +358,242 @@ public class FSLuceneSearcherTest {
         assertTrue(Collections.disjoint(firstPage.getFilePaths(), lastPage.getFilePaths()));
     }
 
+    @Test
+    public void reconcilesPersistentIndexWithFileSystemOnRestart() throws Exception {
+        VirtualFileSystem virtualFileSystem = virtualFileSystem();
+        VirtualFile folder = virtualFileSystem.getRoot().createFolder("folder");
+        folder.createFile("xxx.txt", TEST_CONTENT[0]);
+        VirtualFile updated = folder.createFile("yyy.txt", TEST_CONTENT[2]);
+        VirtualFile removed = folder.createFile("zzz.txt", TEST_CONTENT[1]);
+        FSLuceneSearcher persistentSearcher = new FSLuceneSearcher(indexDirectory, filter, null, new LuceneIndexingPipeline(), true);
+        persistentSearcher.init(virtualFileSystem);
+        persistentSearcher.close();
+
+        updated.updateContent(TEST_CONTENT[3]);
+        removed.delete();
+        folder.createFile("aaa.txt", TEST_CONTENT[1]);
+        int[] reconciled = new int[3];
+        persistentSearcher = new FSLuceneSearcher(indexDirectory, filter, null, new LuceneIndexingPipeline(), true) {
+            @Override
+            protected void onReconciled(VirtualFile tree, int unchanged, int indexed, int removed, long elapsedTimeMillis) {
+                reconciled[0] = unchanged;
+                reconciled[1] = indexed;
+                reconciled[2] = removed;
+            }
+        };
+        persistentSearcher.init(virtualFileSystem);
+
+        assertEquals(reconciled, new int[]{1, 2, 1});
+        assertEquals(persistentSearcher.search(new QueryExpression().setText("spaceflight")).getFilePaths(),
+                     newArrayList("/folder/xxx.txt"));
+        assertEquals(persistentSearcher.search(new QueryExpression().setText("think")).getFilePaths(),
+                     newArrayList("/folder/aaa.txt"));
+        assertEquals(persistentSearcher.search(new QueryExpression().setText("NASA")).getFilePaths(),
+                     newArrayList("/folder/yyy.txt"));
+        assertTrue(persistentSearcher.search(new QueryExpression().setText("be")).getFilePaths().isEmpty());
+        persistentSearcher.close();
+    }
+
+    @Test
+    public void reconcilesOnlyDocumentsOfTheTree() throws Exception {
+        VirtualFileSystem virtualFileSystem = virtualFileSystem();
+        VirtualFile folder = virtualFileSystem.getRoot().createFolder("folder");
+        folder.createFile("xxx.txt", TEST_CONTENT[0]);
+        VirtualFile changed = folder.createFile("yyy.txt", TEST_CONTENT[2]);
+        virtualFileSystem.getRoot().createFolder("folder-a").createFile("zzz.txt", TEST_CONTENT[1]);
+        virtualFileSystem.getRoot().createFolder("folder0").createFile("zzz.txt", TEST_CONTENT[1]);
+        int[] reconciled = new int[3];
+        FSLuceneSearcher persistentSearcher = new FSLuceneSearcher(indexDirectory, filter, null, new LuceneIndexingPipeline(), true) {
+            @Override
+            protected void onReconciled(VirtualFile tree, int unchanged, int indexed, int removed, long elapsedTimeMillis) {
+                reconciled[0] = unchanged;
+                reconciled[1] = indexed;
+                reconciled[2] = removed;
+            }
+        };
+        persistentSearcher.init(virtualFileSystem);
+
+        changed.updateContent(TEST_CONTENT[3]);
+        persistentSearcher.reconcile(folder);
+
+        assertEquals(reconciled, new int[]{1, 1, 0});
+        assertEquals(persistentSearcher.search(new QueryExpression().setText("think")).getFilePaths().size(), 2);
+        persistentSearcher.close();
+    }
+
+    @Test
+    public void keepsDocumentsOfTreeWhenTreeCanNotBeWalked() throws Exception {
+        VirtualFileSystem virtualFileSystem = virtualFileSystem();
+        VirtualFile folder = virtualFileSystem.getRoot().createFolder("folder");
+        folder.createFile("xxx.txt", TEST_CONTENT[1]);
+        folder.createFile("yyy.txt", TEST_CONTENT[1]);
+        FSLuceneSearcher persistentSearcher = new FSLuceneSearcher(indexDirectory, filter, null, new LuceneIndexingPipeline(), true);
+        persistentSearcher.init(virtualFileSystem);
+        VirtualFile unreadableFolder = mock(VirtualFile.class);
+        when(unreadableFolder.getPath()).thenReturn(folder.getPath());
+        when(unreadableFolder.isFolder()).thenReturn(true);
+        when(unreadableFolder.exists()).thenReturn(true);
+        when(unreadableFolder.getChildren()).thenThrow(new ServerException("unable list folder"));
+
+        try {
+            persistentSearcher.reconcile(unreadableFolder);
+            fail("Reconciliation is expected to fail");
+        } catch (ServerException expected) {
+        }
+
+        assertEquals(persistentSearcher.search(new QueryExpression().setText("think")).getFilePaths().size(), 2);
+        persistentSearcher.close();
+    }
+
+    @Test
+    public void resumesPagingFromCursorOnTheSameSearcher() throws Exception {
+        VirtualFileSystem virtualFileSystem = virtualFileSystem();
+        for (int i = 0; i < 30; i++) {
+            virtualFileSystem.getRoot().createFile(String.format("file%02d", i), TEST_CONTENT[0]);
+        }
+        searcher.init(virtualFileSystem);
+
+        SearchResult firstPage = searcher.search(new QueryExpression().setText("spaceflight").setMaxItems(10));
+        QueryExpression nextPageQueryExpression = firstPage.getNextPageQueryExpression().get();
+        assertNotNull(nextPageQueryExpression.getCursor());
+
+        // changes of index made after first page is retrieved don't shift next pages
+        searcher.add(virtualFileSystem.getRoot().createFile("aaa", TEST_CONTENT[0]));
+
+        SearchResult secondPage = searcher.search(nextPageQueryExpression);
+        SearchResult lastPage = searcher.search(secondPage.getNextPageQueryExpression().get().setMaxItems(100));
+
+        assertEquals(secondPage.getFilePaths().size(), 10);
+        assertEquals(lastPage.getFilePaths().size(), 10);
+        assertTrue(Collections.disjoint(firstPage.getFilePaths(), secondPage.getFilePaths()));
+        assertTrue(Collections.disjoint(secondPage.getFilePaths(), lastPage.getFilePaths()));
+        assertFalse(lastPage.getFilePaths().contains("/aaa"));
+    }
+
+    @Test
+    public void resumesPagingFromRememberedCursorWhenOnlySkipCountIsSpecified() throws Exception {
+        VirtualFileSystem virtualFileSystem = virtualFileSystem();
+        for (int i = 0; i < 30; i++) {
+            virtualFileSystem.getRoot().createFile(String.format("file%02d", i), TEST_CONTENT[0]);
+        }
+        searcher.init(virtualFileSystem);
+
+        SearchResult firstPage = searcher.search(new QueryExpression().setText("spaceflight").setMaxItems(10));
+        SearchResult secondPage = searcher.search(new QueryExpression().setText("spaceflight").setMaxItems(10).setSkipCount(10));
+        SearchResult secondPageFromCursor = searcher.search(firstPage.getNextPageQueryExpression().get());
+
+        assertEquals(secondPage.getFilePaths(), secondPageFromCursor.getFilePaths());
+        assertTrue(Collections.disjoint(firstPage.getFilePaths(), secondPage.getFilePaths()));
+    }
+
+    @Test
+    public void ignoresInvalidCursor() throws Exception {
+        VirtualFileSystem virtualFileSystem = virtualFileSystem();
+        for (int i = 0; i < 30; i++) {
+            virtualFileSystem.getRoot().createFile(String.format("file%02d", i), TEST_CONTENT[0]);
+        }
+        searcher.init(virtualFileSystem);
+
+        SearchResult page = searcher.search(new QueryExpression().setText("spaceflight").setMaxItems(10).setSkipCount(25)
+                                                                 .setCursor("not a cursor"));
+
+        assertEquals(page.getFilePaths().size(), 5);
+    }
+
+    @Test
+    public void doesNotRefreshSearcherMoreOftenThanConfigured() throws Exception {
+        VirtualFileSystem virtualFileSystem = virtualFileSystem();
+        searcher.setSearchRefreshIntervalMillis(60_000);
+        searcher.init(virtualFileSystem);
+        assertTrue(searcher.search(new QueryExpression().setText("spaceflight")).getFilePaths().isEmpty());
+
+        searcher.add(virtualFileSystem.getRoot().createFile("aaa", TEST_CONTENT[0]));
+
+        assertTrue(searcher.search(new QueryExpression().setText("spaceflight")).getFilePaths().isEmpty());
+        searcher.setSearchRefreshIntervalMillis(0);
+        assertEquals(searcher.search(new QueryExpression().setText("spaceflight")).getFilePaths(), newArrayList("/aaa"));
+    }
+
+    @DataProvider
+    public Object[][] substringAndRegexQueries() {
+        return new Object[][]{
+                {"*pollo*", newArrayList("/folder/xxx.txt")},
+                {"*ASCEN*", newArrayList("/folder/zzz.txt")},
+                {"+*ink* +twice", newArrayList("/folder/yyy.txt")},
+                {"/spa[a-z]+flight/", newArrayList("/folder/xxx.txt")},
+                {"/mi(ss|le)ion/", newArrayList("/folder/zzz.txt")},
+                {"*xyz*", newArrayList()},
+                {"+*ink* +nasa", newArrayList()}
+        };
+    }
+
+    @Test(dataProvider = "substringAndRegexQueries")
+    public void searchesSubstringsAndRegexWithTrigramIndex(String text, List<String> expectedPaths) throws Exception {
+        VirtualFileSystem virtualFileSystem = virtualFileSystem();
+        VirtualFile folder = virtualFileSystem.getRoot().createFolder("folder");
+        folder.createFile("xxx.txt", TEST_CONTENT[0]);
+        folder.createFile("yyy.txt", TEST_CONTENT[1]);
+        folder.createFile("zzz.txt", TEST_CONTENT[3]);
+        FSLuceneSearcher trigramSearcher = new FSLuceneSearcher(indexDirectory, filter, null, new LuceneIndexingPipeline(), false, true);
+        trigramSearcher.init(virtualFileSystem);
+
+        SearchResult result = trigramSearcher.search(new QueryExpression().setText(text));
+        trigramSearcher.close();
+
+        assertEquals(result.getFilePaths(), expectedPaths);
+        assertEquals(result.getTotalHits(), expectedPaths.size());
+    }
+
+    @Test
+    public void pagesThroughResultsOfTrigramSearch() throws Exception {
+        VirtualFileSystem virtualFileSystem = virtualFileSystem();
+        for (int i = 0; i < 20; i++) {
+            virtualFileSystem.getRoot().createFile(String.format("file%02d", i), TEST_CONTENT[i % 2]);
+        }
+        FSLuceneSearcher trigramSearcher = new FSLuceneSearcher(indexDirectory, filter, null, new LuceneIndexingPipeline(), false, true);
+        trigramSearcher.init(virtualFileSystem);
+
+        SearchResult firstPage = trigramSearcher.search(new QueryExpression().setText("*flight*").setMaxItems(6));
+        SearchResult lastPage = trigramSearcher.search(firstPage.getNextPageQueryExpression().get());
+        trigramSearcher.close();
+
+        assertEquals(firstPage.getTotalHits(), 10);
+        assertEquals(firstPage.getFilePaths().size(), 6);
+        assertEquals(lastPage.getFilePaths().size(), 4);
+        assertFalse(lastPage.getNextPageQueryExpression().isPresent());
+        assertTrue(Collections.disjoint(firstPage.getFilePaths(), lastPage.getFilePaths()));
+    }
+
+    @Test
+    public void pagesThroughVerifiedResultsOfTrigramSearchOnly() throws Exception {
+        VirtualFileSystem virtualFileSystem = virtualFileSystem();
+        for (int i = 0; i < 20; i++) {
+            // odd files contain all trigrams of 'flight' but don't match the query
+            virtualFileSystem.getRoot().createFile(String.format("file%02d", i), i % 2 == 0 ? TEST_CONTENT[0] : "flig ight");
+        }
+        FSLuceneSearcher trigramSearcher = new FSLuceneSearcher(indexDirectory, filter, null, new LuceneIndexingPipeline(), false, true);
+        trigramSearcher.init(virtualFileSystem);
+
+        List<String> pagedPaths = newArrayList();
+        SearchResult page = trigramSearcher.search(new QueryExpression().setText("*flight*").setMaxItems(3));
+        assertTrue(page.getTotalHits() >= 10);
+        pagedPaths.addAll(page.getFilePaths());
+        while (page.getNextPageQueryExpression().isPresent()) {
+            page = trigramSearcher.search(page.getNextPageQueryExpression().get());
+            pagedPaths.addAll(page.getFilePaths());
+        }
+        SearchResult skippedPage = trigramSearcher.search(new QueryExpression().setText("*flight*").setSkipCount(8).setMaxItems(2));
+        trigramSearcher.close();
+
+        assertEquals(page.getTotalHits(), 10);
+        assertEquals(new HashSet<>(pagedPaths).size(), 10);
+        for (String path : pagedPaths) {
+            assertEquals(Integer.parseInt(path.substring("/file".length())) % 2, 0, path);
+        }
+        assertEquals(skippedPage.getFilePaths(), pagedPaths.subList(8, 10));
+        assertFalse(skippedPage.getNextPageQueryExpression().isPresent());
+    }
+
     private VirtualFileSystem virtualFileSystem() throws Exception {
         return new MemoryVirtualFileSystem(mock(ArchiverFactory.class), null);
     }
@@ -0,0 +1,152 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2017 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.vfs.search.impl;
+
+import org.eclipse.che.api.vfs.ArchiverFactory;
+import org.eclipse.che.api.vfs.VirtualFile;
+import org.eclipse.che.api.vfs.VirtualFileFilter;
+import org.eclipse.che.api.vfs.VirtualFileSystem;
+import org.eclipse.che.api.vfs.impl.memory.MemoryVirtualFileSystem;
+import org.eclipse.che.api.vfs.search.QueryExpression;
+import org.eclipse.che.commons.lang.IoUtil;
+import org.eclipse.che.commons.lang.NameGenerator;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static com.google.common.collect.Lists.newArrayList;
+import static com.google.common.collect.Sets.newConcurrentHashSet;
+import static com.google.common.collect.Sets.newHashSet;
+import static java.util.Collections.synchronizedList;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class LuceneIndexingPipelineTest {
+    private static final String CONTENT = "Apollo set several major human spaceflight milestones";
+
+    private File                   indexDirectory;
+    private VirtualFileSystem      virtualFileSystem;
+    private List<int[]>            progress;
+    private Set<String>            progressThreads;
+    private LuceneIndexingPipeline pipeline;
+    private FSLuceneSearcher       searcher;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        File targetDir = new File(Thread.currentThread().getContextClassLoader().getResource(".").getPath()).getParentFile();
+        indexDirectory = new File(targetDir, NameGenerator.generate("index-", 4));
+        assertTrue(indexDirectory.mkdir());
+
+        virtualFileSystem = new MemoryVirtualFileSystem(mock(ArchiverFactory.class), null);
+        VirtualFileFilter filter = mock(VirtualFileFilter.class);
+        when(filter.accept(any(VirtualFile.class))).thenReturn(false);
+
+        progress = synchronizedList(newArrayList());
+        progressThreads = newConcurrentHashSet();
+        pipeline = new LuceneIndexingPipeline(3, 4, 0, (tree, indexed, discovered) -> {
+            progress.add(new int[]{indexed, discovered});
+            progressThreads.add(Thread.currentThread().getName());
+        });
+        searcher = new FSLuceneSearcher(indexDirectory, filter, null, pipeline);
+        searcher.doInit();
+    }
+
+    @AfterMethod
+    public void tearDown() throws Exception {
+        searcher.close();
+        IoUtil.deleteRecursive(indexDirectory);
+    }
+
+    @Test
+    public void indexesAllFilesOfTreeAndReportsProgressAfterEachBatch() throws Exception {
+        createTree(virtualFileSystem.getRoot(), 3, 5);
+
+        int indexed = pipeline.index(searcher, virtualFileSystem.getRoot());
+
+        assertEquals(indexed, 15);
+        assertEquals(searcher.search(new QueryExpression().setText("spaceflight")).getTotalHits(), 15);
+        assertEquals(progress.size(), 4);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(progress.get(i)[0], (i + 1) * 4);
+            assertTrue(progress.get(i)[1] >= progress.get(i)[0]);
+        }
+        assertEquals(progress.get(3), new int[]{15, 15});
+    }
+
+    @Test
+    public void indexesOnlyFilesAcceptedByFilter() throws Exception {
+        createTree(virtualFileSystem.getRoot(), 2, 5);
+
+        int indexed = pipeline.index(searcher, virtualFileSystem.getRoot(), file -> file.getName().endsWith("0.txt"));
+
+        assertEquals(indexed, 2);
+        assertEquals(new HashSet<>(searcher.search(new QueryExpression().setText("spaceflight")).getFilePaths()),
+                     newHashSet("/folder0/file0.txt", "/folder1/file0.txt"));
+    }
+
+    @Test
+    public void indexesFileOfBatchOnceWhenItsFolderIsInBatchToo() throws Exception {
+        createTree(virtualFileSystem.getRoot(), 2, 3);
+        VirtualFile folder = virtualFileSystem.getRoot().getChildren().get(0);
+
+        int indexed = pipeline.index(searcher, newArrayList(folder.getChildren().get(0), folder, folder));
+
+        assertEquals(indexed, 3);
+        assertEquals(searcher.search(new QueryExpression().setText("spaceflight")).getTotalHits(), 3);
+    }
+
+    @Test
+    public void indexesTreesConcurrentlyWithBoundedNumberOfThreads() throws Exception {
+        createTree(virtualFileSystem.getRoot(), 4, 20);
+        ExecutorService callers = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (VirtualFile folder : virtualFileSystem.getRoot().getChildren()) {
+                results.add(callers.submit(() -> pipeline.index(searcher, folder)));
+            }
+            for (Future<Integer> result : results) {
+                assertEquals(result.get().intValue(), 20);
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+
+        assertEquals(searcher.search(new QueryExpression().setText("spaceflight")).getTotalHits(), 80);
+        assertTrue(progressThreads.stream().filter(name -> name.startsWith("LuceneIndexingPipeline-")).count() <= 3);
+    }
+
+    @Test
+    public void indexesNothingForEmptyBatch() throws Exception {
+        assertEquals(pipeline.index(searcher, newArrayList()), 0);
+        assertTrue(progress.isEmpty());
+    }
+
+    private static void createTree(VirtualFile root, int folders, int filesPerFolder) throws Exception {
+        for (int i = 0; i < folders; i++) {
+            VirtualFile folder = root.createFolder("folder" + i);
+            for (int j = 0; j < filesPerFolder; j++) {
+                folder.createFile("file" + j + ".txt", CONTENT);
+            }
+        }
+    }
+}
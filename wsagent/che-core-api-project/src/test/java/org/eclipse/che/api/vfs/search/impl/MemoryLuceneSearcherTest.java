@@ -12,11 +12,16 @@ package org.eclipse.che.api.vfs.search.impl;
 
 import com.google.common.base.Optional;
 
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.IndexableField;
 import org.eclipse.che.api.vfs.ArchiverFactory;
+import org.eclipse.che.api.vfs.FileContent;
+import org.eclipse.che.api.vfs.Path;
 import org.eclipse.che.api.vfs.VirtualFile;
 import org.eclipse.che.api.vfs.VirtualFileFilter;
 import org.eclipse.che.api.vfs.VirtualFileSystem;
 import org.eclipse.che.api.vfs.impl.memory.MemoryVirtualFileSystem;
+import org.eclipse.che.api.vfs.search.OffsetData;
 import org.eclipse.che.api.vfs.search.QueryExpression;
 import org.eclipse.che.api.vfs.search.SearchResult;
 import org.junit.After;
@@ -30,10 +35,12 @@ import java.util.List;
 import static com.google.common.collect.Lists.newArrayList;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.argThat;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -284,6 +291,93 @@ public class MemoryLuceneSearcherTest {
         assertTrue(Collections.disjoint(firstPage.getFilePaths(), lastPage.getFilePaths()));
     }
 
+    @Test
+    public void providesOccurrencesOfSearchedTextWhenPositionsAreRequested() throws Exception {
+        VirtualFileSystem virtualFileSystem = virtualFileSystem();
+        virtualFileSystem.getRoot().createFile("file", TEST_CONTENT[1] + "\n" + TEST_CONTENT[2]);
+        searcher.init(virtualFileSystem);
+
+        SearchResult result = searcher.search(new QueryExpression().setText("not").setIncludePositions(true));
+
+        List<OffsetData> data = result.getResults().get(0).getData();
+        assertEquals(1, data.size());
+        assertEquals("not", data.get(0).getPhrase());
+        assertEquals(2, data.get(0).getLineNumber());
+        assertEquals(9, data.get(0).getStartColumn());
+        assertEquals(12, data.get(0).getEndColumn());
+        assertEquals(TEST_CONTENT[1].length() + 10, data.get(0).getStartOffset());
+        assertEquals(TEST_CONTENT[2], data.get(0).getLineContent());
+    }
+
+    @Test
+    public void providesOccurrencesOfSearchedWildcardText() throws Exception {
+        VirtualFileSystem virtualFileSystem = virtualFileSystem();
+        virtualFileSystem.getRoot().createFile("file", TEST_CONTENT[0]);
+        searcher.init(virtualFileSystem);
+
+        SearchResult result = searcher.search(new QueryExpression().setText("*light").setIncludePositions(true));
+
+        List<OffsetData> data = result.getResults().get(0).getData();
+        assertEquals(1, data.size());
+        assertEquals("spaceflight", data.get(0).getPhrase());
+        assertEquals(1, data.get(0).getLineNumber());
+    }
+
+    @Test
+    public void providesOccurrencesWithOriginalCaseOfContent() throws Exception {
+        VirtualFileSystem virtualFileSystem = virtualFileSystem();
+        virtualFileSystem.getRoot().createFile("file", TEST_CONTENT[2] + "\n" + TEST_CONTENT[3]);
+        searcher.init(virtualFileSystem);
+
+        SearchResult result = searcher.search(new QueryExpression().setText("nasa").setIncludePositions(true));
+
+        List<OffsetData> data = result.getResults().get(0).getData();
+        assertEquals(1, data.size());
+        assertEquals("NASA", data.get(0).getPhrase());
+        assertEquals(2, data.get(0).getLineNumber());
+        assertEquals(TEST_CONTENT[3].length() - 4, data.get(0).getStartColumn());
+        assertEquals(TEST_CONTENT[3], data.get(0).getLineContent());
+    }
+
+    @Test
+    public void doesNotStoreContentOfFileInIndex() throws Exception {
+        VirtualFile file = virtualFileSystem().getRoot().createFile("file", TEST_CONTENT[0]);
+
+        Document document = searcher.createDocument(file, TEST_CONTENT[0]);
+
+        for (IndexableField field : document.getFields()) {
+            assertFalse(field.name(), field.fieldType().stored() && TEST_CONTENT[0].equals(field.stringValue()));
+        }
+    }
+
+    @Test
+    public void doesNotReadContentOfTooBigFile() throws Exception {
+        FileContent content = mock(FileContent.class);
+        when(content.getLength()).thenReturn(LuceneSearcher.MAX_CONTENT_LENGTH + 1);
+        VirtualFile file = mock(VirtualFile.class);
+        when(file.getPath()).thenReturn(Path.of("/big.txt"));
+        when(file.getName()).thenReturn("big.txt");
+        when(file.openContent()).thenReturn(content);
+
+        Document document = searcher.createDocument(file);
+
+        assertEquals("/big.txt", document.get(LuceneSearcher.PATH_FIELD));
+        assertNull(document.get("text"));
+        verify(content, never()).read(any());
+        verify(content).close();
+    }
+
+    @Test
+    public void doesNotProvideOccurrencesWhenPositionsAreNotRequested() throws Exception {
+        VirtualFileSystem virtualFileSystem = virtualFileSystem();
+        virtualFileSystem.getRoot().createFile("file", TEST_CONTENT[0]);
+        searcher.init(virtualFileSystem);
+
+        SearchResult result = searcher.search(new QueryExpression().setText("spaceflight"));
+
+        assertTrue(result.getResults().get(0).getData().isEmpty());
+    }
+
     private VirtualFileSystem virtualFileSystem() throws Exception {
         return new MemoryVirtualFileSystem(mock(ArchiverFactory.class), null);
     }
@@ -0,0 +1,230 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2017 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.vfs.watcher;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.function.Consumer;
+
+import static java.nio.file.Files.createDirectory;
+import static java.nio.file.Files.createFile;
+import static java.nio.file.Files.deleteIfExists;
+import static java.util.Collections.emptySet;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests for {@link FileWatcherByPathMatcher}
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class FileWatcherByPathMatcherTest {
+    private static final String FOLDER_NAME = "folder";
+    private static final String FILE_NAME   = "name.ext";
+
+    @Rule
+    public TemporaryFolder rootFolder = new TemporaryFolder();
+
+    @Mock
+    FileWatcherEventHandler handler;
+    @Mock
+    FileWatcherService      service;
+
+    @Mock
+    Consumer<String> create;
+    @Mock
+    Consumer<String> modify;
+    @Mock
+    Consumer<String> delete;
+
+    PathMatcher matcher = it -> FILE_NAME.equals(it.getFileName().toString());
+
+    FileWatcherByPathMatcher watcher;
+
+    Path root;
+
+    @Before
+    public void setUp() throws Exception {
+        root = rootFolder.getRoot().toPath().normalize().toAbsolutePath();
+        watcher = new FileWatcherByPathMatcher(rootFolder.getRoot(), emptySet(), handler, service);
+    }
+
+    @Test
+    public void shouldWatchEveryDirectoryOnSeek() throws Exception {
+        Path folder = createDirectory(root.resolve(FOLDER_NAME));
+        watcher.watch(matcher, create, modify, delete);
+
+        watcher.seek();
+
+        verify(service).register(root);
+        verify(service).register(folder);
+        verify(handler).register(eq(root), any(), any(), any());
+        verify(handler).register(eq(folder), any(), any(), any());
+    }
+
+    @Test
+    public void shouldWatchOnlyDirectoriesThatMayContainMatchesAndTheirAncestors() throws Exception {
+        Path project = createDirectory(root.resolve("project"));
+        Path src = createDirectory(project.resolve("src"));
+        Path module = createDirectory(project.resolve("module"));
+        Path folder = createDirectory(module.resolve(FOLDER_NAME));
+        watcher.watch(new FileWatcherPathMatcher() {
+            @Override
+            public boolean mayMatchEntriesOf(Path dir) {
+                return FOLDER_NAME.equals(dir.getFileName().toString());
+            }
+
+            @Override
+            public boolean matches(Path path) {
+                return matcher.matches(path);
+            }
+        }, create, modify, delete);
+
+        watcher.seek();
+
+        verify(service).register(root);
+        verify(service).register(project);
+        verify(service).register(module);
+        verify(service).register(folder);
+        verify(service, never()).register(src);
+    }
+
+    @Test
+    public void shouldWalkTreeOnceForAllPendingMatchers() throws Exception {
+        watcher.watch(matcher, create, modify, delete);
+        watcher.watch(it -> false, create, modify, delete);
+
+        watcher.seek();
+        watcher.seek();
+
+        verify(service, times(1)).register(root);
+    }
+
+    @Test
+    public void shouldNotNotifyCreateForItemsFoundOnSeek() throws Exception {
+        createFile(root.resolve(FILE_NAME));
+        watcher.watch(matcher, create, modify, delete);
+
+        watcher.seek();
+
+        verify(create, never()).accept(anyString());
+    }
+
+    @Test
+    public void shouldNotifyCreateWhenMatchedFileIsCreated() throws Exception {
+        watcher.watch(matcher, create, modify, delete);
+        watcher.seek();
+
+        Path file = createFile(root.resolve(FILE_NAME));
+        watcher.onCreate(file);
+
+        verify(create).accept("/" + FILE_NAME);
+    }
+
+    @Test
+    public void shouldNotNotifyCreateWhenNotMatchedFileIsCreated() throws Exception {
+        watcher.watch(matcher, create, modify, delete);
+        watcher.seek();
+
+        Path file = createFile(root.resolve("other.ext"));
+        watcher.onCreate(file);
+
+        verify(create, never()).accept(anyString());
+    }
+
+    @Test
+    public void shouldIndexContentOfCreatedDirectory() throws Exception {
+        watcher.watch(matcher, create, modify, delete);
+        watcher.seek();
+
+        Path folder = createDirectory(root.resolve(FOLDER_NAME));
+        createFile(folder.resolve(FILE_NAME));
+        watcher.onCreate(folder);
+
+        verify(service).register(folder);
+        verify(create).accept("/" + FOLDER_NAME + "/" + FILE_NAME);
+    }
+
+    @Test
+    public void shouldNotifyModifyWhenMatchedFileIsModified() throws Exception {
+        Path file = createFile(root.resolve(FILE_NAME));
+        watcher.watch(matcher, create, modify, delete);
+        watcher.seek();
+
+        watcher.onModify(file);
+
+        verify(modify).accept("/" + FILE_NAME);
+    }
+
+    @Test
+    public void shouldNotifyDeleteAndForgetDeletedFile() throws Exception {
+        Path file = createFile(root.resolve(FILE_NAME));
+        watcher.watch(matcher, create, modify, delete);
+        watcher.seek();
+
+        deleteIfExists(file);
+        watcher.onDelete(file);
+        watcher.onModify(file);
+
+        verify(delete).accept("/" + FILE_NAME);
+        verify(modify, never()).accept(anyString());
+    }
+
+    @Test
+    public void shouldUnwatchDirectoriesWithinDeletedDirectory() throws Exception {
+        Path folder = createDirectory(root.resolve(FOLDER_NAME));
+        watcher.watch(matcher, create, modify, delete);
+        watcher.seek();
+
+        deleteIfExists(folder);
+        watcher.onDelete(folder);
+
+        verify(service).unRegister(folder);
+        verify(service, never()).unRegister(root);
+    }
+
+    @Test
+    public void shouldNotUnwatchSiblingsOfDeletedDirectory() throws Exception {
+        Path folder = createDirectory(root.resolve(FOLDER_NAME));
+        Path sibling = createDirectory(root.resolve(FOLDER_NAME + ".bak"));
+        watcher.watch(matcher, create, modify, delete);
+        watcher.seek();
+
+        deleteIfExists(folder);
+        watcher.onDelete(folder);
+
+        verify(service).unRegister(folder);
+        verify(service, never()).unRegister(sibling);
+    }
+
+    @Test
+    public void shouldNotNotifyUnwatchedOperations() throws Exception {
+        Path file = createFile(root.resolve(FILE_NAME));
+        int id = watcher.watch(matcher, create, modify, delete);
+        watcher.seek();
+
+        watcher.unwatch(id);
+        watcher.onModify(file);
+
+        verify(modify, never()).accept(anyString());
+    }
+}
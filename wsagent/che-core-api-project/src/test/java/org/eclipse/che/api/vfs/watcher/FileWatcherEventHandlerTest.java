@@ -132,4 +132,19 @@ public class FileWatcherEventHandlerTest {
 
         verify(create).accept(toInternalPath(root, path));
     }
+
+    @Test
+    public void shouldHandleOtherOperationsOfPathAfterUnRegister() throws Exception {
+        Path path = root.resolve(PROJECT_FILE);
+        int id = handler.register(path, create, create, create);
+        handler.register(path, modify, modify, modify);
+
+        handler.unRegister(id);
+        handler.unRegister(id);
+
+        handler.handle(path, ENTRY_MODIFY);
+
+        verify(create, never()).accept(toInternalPath(root, path));
+        verify(modify).accept(toInternalPath(root, path));
+    }
 }
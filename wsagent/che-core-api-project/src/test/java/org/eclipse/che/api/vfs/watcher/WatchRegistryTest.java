@@ -0,0 +1,154 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2017 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.vfs.watcher;
+
+import org.eclipse.che.api.vfs.impl.file.FileTreeWatcher;
+import org.eclipse.che.api.vfs.impl.file.FileWatcherNotificationHandler;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static java.util.Collections.emptySet;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyList;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests for {@link WatchRegistry}
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class WatchRegistryTest {
+    private static final int TIMEOUT_VALUE = 3_000;
+
+    @Rule
+    public TemporaryFolder rootFolder = new TemporaryFolder();
+
+    @Mock
+    WatchRegistry.Subscriber first;
+    @Mock
+    WatchRegistry.Subscriber second;
+
+    WatchRegistry registry;
+
+    @Before
+    public void setUp() throws Exception {
+        registry = new WatchRegistry(FileSystems.getDefault().newWatchService());
+        registry.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        registry.stop();
+    }
+
+    @Test
+    public void registersDirectoryWatchedBySeveralSubscribersOnce() throws Exception {
+        Path dir = rootFolder.getRoot().toPath();
+
+        assertTrue(registry.watch(dir, first));
+        assertTrue(registry.watch(dir, second));
+        assertTrue(registry.watch(dir, second));
+
+        assertEquals(1, registry.getWatchCount());
+        assertEquals(3, registry.getSubscriptionCount());
+    }
+
+    @Test
+    public void deliversEventsOfDirectoryToAllSubscribers() throws Exception {
+        Path dir = rootFolder.getRoot().toPath();
+        registry.watch(dir, first);
+        registry.watch(dir, second);
+
+        rootFolder.newFile("file");
+
+        verify(first, timeout(TIMEOUT_VALUE)).onEvents(eq(dir), anyList());
+        verify(second, timeout(TIMEOUT_VALUE)).onEvents(eq(dir), anyList());
+        assertTrue(registry.getEventCount() > 0);
+    }
+
+    @Test
+    public void keepsWatchingDirectoryUntilAllWatchesAreCancelled() throws Exception {
+        Path dir = rootFolder.getRoot().toPath();
+        registry.watch(dir, first);
+        registry.watch(dir, second);
+        registry.watch(dir, second);
+
+        registry.unwatch(dir, second);
+        registry.unwatch(dir, first);
+        assertTrue(registry.isWatched(dir));
+
+        registry.unwatch(dir, second);
+        assertFalse(registry.isWatched(dir));
+        assertEquals(0, registry.getWatchCount());
+        assertEquals(0, registry.getSubscriptionCount());
+    }
+
+    @Test
+    public void doesNotDeliverEventsToSubscriberThatCancelledWatch() throws Exception {
+        Path dir = rootFolder.getRoot().toPath();
+        registry.watch(dir, first);
+        registry.watch(dir, second);
+        registry.unwatch(dir, first);
+
+        rootFolder.newFile("file");
+
+        verify(second, timeout(TIMEOUT_VALUE)).onEvents(eq(dir), anyList());
+        Thread.sleep(500);
+        verify(first, never()).onEvents(eq(dir), anyList());
+    }
+
+    @Test
+    public void dropsWatchOfRemovedDirectory() throws Exception {
+        Path dir = rootFolder.newFolder("folder").toPath();
+        registry.watch(dir, first);
+
+        assertTrue(dir.toFile().delete());
+
+        verify(first, timeout(TIMEOUT_VALUE)).onEvents(eq(dir), anyList());
+        for (int i = 0; i < 30 && registry.isWatched(dir); i++) {
+            Thread.sleep(100);
+        }
+        assertFalse(registry.isWatched(dir));
+    }
+
+    @Test
+    public void cancelsAllWatchesOfFileTreeWatcherOnShutdownEvenIfDirectoryIsMoved() throws Exception {
+        rootFolder.newFolder("a", "b");
+        FileTreeWatcher fileTreeWatcher = new FileTreeWatcher(rootFolder.getRoot(),
+                                                              emptySet(),
+                                                              mock(FileWatcherNotificationHandler.class),
+                                                              registry);
+        fileTreeWatcher.startup();
+        assertEquals(3, registry.getSubscriptionCount());
+
+        Path folder = rootFolder.getRoot().toPath().resolve("a");
+        Files.move(folder, folder.resolveSibling("c"));
+        fileTreeWatcher.shutdown();
+
+        assertEquals(0, registry.getSubscriptionCount());
+        assertEquals(0, registry.getWatchCount());
+    }
+}
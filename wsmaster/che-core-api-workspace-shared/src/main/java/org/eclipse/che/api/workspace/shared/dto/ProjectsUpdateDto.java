@@ -0,0 +1,39 @@
+/*******************************************************************************
+ * Copyright (c) 2012-2017 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.che.api.workspace.shared.dto;
+
+import org.eclipse.che.dto.shared.DTO;
+
+import java.util.List;
+
+/**
+ * Describes set of changes of workspace projects which are applied at once.
+ */
+@DTO
+public interface ProjectsUpdateDto {
+
+    /**
+     * Returns configs of projects to add or update.
+     * Existing project with the same path is replaced with the new config.
+     */
+    List<ProjectConfigDto> getProjects();
+
+    void setProjects(List<ProjectConfigDto> projects);
+
+    ProjectsUpdateDto withProjects(List<ProjectConfigDto> projects);
+
+    /** Returns paths of projects to remove, paths of projects which don't exist are ignored. */
+    List<String> getRemovedPaths();
+
+    void setRemovedPaths(List<String> removedPaths);
+
+    ProjectsUpdateDto withRemovedPaths(List<String> removedPaths);
+}
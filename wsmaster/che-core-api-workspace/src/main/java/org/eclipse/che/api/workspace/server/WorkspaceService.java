@@ -40,6 +40,7 @@ import org.eclipse.che.api.workspace.server.model.impl.WorkspaceImpl;
 import org.eclipse.che.api.workspace.shared.dto.EnvironmentDto;
 import org.eclipse.che.api.workspace.shared.dto.EnvironmentRecipeDto;
 import org.eclipse.che.api.workspace.shared.dto.ProjectConfigDto;
+import org.eclipse.che.api.workspace.shared.dto.ProjectsUpdateDto;
 import org.eclipse.che.api.workspace.shared.dto.WorkspaceConfigDto;
 import org.eclipse.che.api.workspace.shared.dto.WorkspaceDto;
 import org.eclipse.che.api.workspace.shared.dto.WsAgentHealthStateDto;
@@ -60,8 +61,11 @@ import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.SecurityContext;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import static com.google.common.base.MoreObjects.firstNonNull;
 import static java.lang.String.format;
@@ -685,6 +689,52 @@ public class WorkspaceService extends Service {
         }
     }
 
+    @POST
+    @Path("/{id}/projects")
+    @Consumes(APPLICATION_JSON)
+    @Produces(APPLICATION_JSON)
+    @ApiOperation(value = "Add, update and remove the workspace projects at once",
+                  notes = "Project which has the same path as the one from the update is replaced with it, " +
+                          "paths of projects to remove which don't exist are ignored. " +
+                          "This operation can be performed only by the workspace owner")
+    @ApiResponses({@ApiResponse(code = 200, message = "The projects successfully updated"),
+                   @ApiResponse(code = 400, message = "Missed required parameters, parameters are not valid"),
+                   @ApiResponse(code = 403, message = "The user does not have access to update the projects"),
+                   @ApiResponse(code = 404, message = "The workspace not found"),
+                   @ApiResponse(code = 409, message = "Any conflict error occurs"),
+                   @ApiResponse(code = 500, message = "Internal server error occurred")})
+    public WorkspaceDto updateProjects(@ApiParam("The workspace id")
+                                       @PathParam("id")
+                                       String id,
+                                       @ApiParam(value = "The projects update", required = true)
+                                       ProjectsUpdateDto update) throws ServerException,
+                                                                        BadRequestException,
+                                                                        NotFoundException,
+                                                                        ConflictException,
+                                                                        ForbiddenException {
+        requiredNotNull(update, "Projects update");
+        final WorkspaceImpl workspace = workspaceManager.getWorkspace(id);
+        final List<ProjectConfigImpl> projects = workspace.getConfig().getProjects();
+        final Set<String> removedPaths = new HashSet<>();
+        for (String path : update.getRemovedPaths()) {
+            removedPaths.add(path.startsWith("/") ? path : '/' + path);
+        }
+        final Map<String, ProjectConfigDto> updates = new LinkedHashMap<>();
+        for (ProjectConfigDto project : update.getProjects()) {
+            requiredNotNull(project.getPath(), "Project path");
+            final String path = project.getPath();
+            updates.put(path.startsWith("/") ? path : '/' + path, project);
+        }
+        projects.removeIf(project -> removedPaths.contains(project.getPath()) || updates.containsKey(project.getPath()));
+        for (Map.Entry<String, ProjectConfigDto> entry : updates.entrySet()) {
+            final ProjectConfigImpl project = new ProjectConfigImpl(entry.getValue());
+            project.setPath(entry.getKey());
+            projects.add(project);
+        }
+        validator.validateConfig(workspace.getConfig());
+        return linksInjector.injectLinks(asDto(workspaceManager.updateWorkspace(id, workspace)), getServiceContext());
+    }
+
     @GET
     @Path("/{id}/check")
     @Produces(APPLICATION_JSON)
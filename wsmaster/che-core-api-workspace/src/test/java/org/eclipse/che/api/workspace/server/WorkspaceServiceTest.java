@@ -43,11 +43,13 @@ import org.eclipse.che.api.machine.shared.dto.SnapshotDto;
 import org.eclipse.che.api.workspace.server.model.impl.EnvironmentImpl;
 import org.eclipse.che.api.workspace.server.model.impl.EnvironmentRecipeImpl;
 import org.eclipse.che.api.workspace.server.model.impl.ExtendedMachineImpl;
+import org.eclipse.che.api.workspace.server.model.impl.ProjectConfigImpl;
 import org.eclipse.che.api.workspace.server.model.impl.WorkspaceConfigImpl;
 import org.eclipse.che.api.workspace.server.model.impl.WorkspaceImpl;
 import org.eclipse.che.api.workspace.server.model.impl.WorkspaceRuntimeImpl;
 import org.eclipse.che.api.workspace.shared.dto.EnvironmentDto;
 import org.eclipse.che.api.workspace.shared.dto.ProjectConfigDto;
+import org.eclipse.che.api.workspace.shared.dto.ProjectsUpdateDto;
 import org.eclipse.che.api.workspace.shared.dto.SourceStorageDto;
 import org.eclipse.che.api.workspace.shared.dto.WorkspaceConfigDto;
 import org.eclipse.che.api.workspace.shared.dto.WorkspaceDto;
@@ -789,6 +791,32 @@ public class WorkspaceServiceTest {
         verify(wsManager).updateWorkspace(any(), any());
     }
 
+    @Test
+    public void shouldAddUpdateAndRemoveProjectsInSingleWorkspaceUpdate() throws Exception {
+        final WorkspaceImpl workspace = createWorkspace(createConfigDto());
+        workspace.getConfig().getProjects().add(new ProjectConfigImpl(createProjectDto().withPath("/removed")));
+        when(wsManager.getWorkspace(workspace.getId())).thenReturn(workspace);
+        when(wsManager.updateWorkspace(any(), any())).thenReturn(workspace);
+        final ProjectsUpdateDto update = newDto(ProjectsUpdateDto.class)
+                .withProjects(asList(createProjectDto().withPath("project/path").withDescription("Updated project"),
+                                     createProjectDto().withPath("added")))
+                .withRemovedPaths(asList("removed", "/not-existing"));
+
+        final Response response = given().auth()
+                                         .basic(ADMIN_USER_NAME, ADMIN_USER_PASSWORD)
+                                         .contentType("application/json")
+                                         .body(update)
+                                         .when()
+                                         .post(SECURE_PATH + "/workspace/" + workspace.getId() + "/projects");
+
+        assertEquals(response.getStatusCode(), 200);
+        final List<ProjectConfigDto> projects = unwrapDto(response, WorkspaceDto.class).getConfig().getProjects();
+        assertEquals(projects.stream().map(ProjectConfigDto::getPath).collect(toList()), asList("/project/path", "/added"));
+        assertEquals(projects.get(0).getDescription(), "Updated project");
+        verify(validator).validateConfig(workspace.getConfig());
+        verify(wsManager).updateWorkspace(any(), any());
+    }
+
     @Test
     public void testWorkspaceLinks() throws Exception {
         // given